@@ -0,0 +1,52 @@
+package meetingatleti;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Classifiche di GestorePunteggio al variare del numero di iscritti per gara
+ * e della densità di pari merito (quattro gare da {@code iscritti} atleti).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BenchClassifica {
+
+    @Param({"10", "1000", "100000"})
+    public int iscritti;
+
+    @Param({"0.0", "0.5", "0.95"})
+    public double densitaPari;
+
+    private Meeting meeting;
+    private Gara gara;
+    private ArrayList<VocePunteggioMeeting> generale;
+
+    @Setup
+    public void prepara() {
+        meeting  = DatiBenchmark.meeting(iscritti, densitaPari);
+        gara     = meeting.getGare().get(0);
+        generale = GestorePunteggio.calcolaClassificaMeeting(meeting);
+    }
+
+    /** Ordinamento completo su array primitivi (MotoreClassifica). */
+    @Benchmark
+    public ArrayList<VocePunteggio> calcolaClassifica() {
+        return GestorePunteggio.calcolaClassifica(gara);
+    }
+
+    @Benchmark
+    public ArrayList<VocePunteggioMeeting> calcolaClassificaMeeting() {
+        return GestorePunteggio.calcolaClassificaMeeting(meeting);
+    }
+
+    /** Filtra e ricalcola le posizioni (modifica le voci, sempre con lo stesso esito). */
+    @Benchmark
+    public ArrayList<VocePunteggioMeeting> filtraPerSesso() {
+        return GestorePunteggio.filtraPerSesso(generale, "F");
+    }
+}
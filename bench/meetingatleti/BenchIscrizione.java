@@ -0,0 +1,42 @@
+package meetingatleti;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Gara.iscrizione su una gara già popolata: ogni operazione iscrive e ritira
+ * lo stesso atleta, così la gara resta di dimensione costante e si misura il
+ * costo a regime (indice pettorali + classifica incrementale + osservatori).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BenchIscrizione {
+
+    @Param({"10", "1000", "100000"})
+    public int iscritti;
+
+    @Param({"0.0", "0.5", "0.95"})
+    public double densitaPari;
+
+    private Gara gara;
+    private Atleta nuovo;
+    private Prestazione prestazione;
+
+    @Setup
+    public void prepara() {
+        gara        = DatiBenchmark.meeting(iscritti, densitaPari).getGare().get(0);
+        nuovo       = new Velocisti("Nuovo", "M", 20, Integer.MAX_VALUE);
+        prestazione = Prestazione.velocistaMillis(10_500, 15);
+    }
+
+    @Benchmark
+    public boolean iscriviERitira() {
+        boolean ok = gara.iscrizione(nuovo, prestazione);
+        gara.rimuoviAtleta(nuovo);
+        return ok;
+    }
+}
@@ -0,0 +1,42 @@
+package meetingatleti;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Prestazione.calcolaPunteggio per tipo e Medaglia.fromPosizione.
+ * Un array di prestazioni diverse evita che il JIT riduca il calcolo a costante.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BenchPunteggio {
+
+    private static final int DIM = 1024;               // potenza di due: indice con maschera
+
+    @Param({"VELOCISTA", "OSTACOLISTA", "FONDOMETRISTA", "SALTO", "LANCIO"})
+    public Prestazione.Tipo tipo;
+
+    private final Prestazione[] prestazioni = new Prestazione[DIM];
+    private int i;
+
+    @Setup
+    public void prepara() {
+        Random r = new Random(DatiBenchmark.SEME);
+        for (int k = 0; k < DIM; k++) prestazioni[k] = DatiBenchmark.prestazione(tipo, r);
+    }
+
+    @Benchmark
+    public int calcolaPunteggio() {
+        return prestazioni[i++ & (DIM - 1)].calcolaPunteggio();
+    }
+
+    @Benchmark
+    public Medaglia medagliaFromPosizione() {
+        return Medaglia.fromPosizione((i++ & 7) + 1);
+    }
+}
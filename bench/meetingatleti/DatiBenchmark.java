@@ -0,0 +1,36 @@
+package meetingatleti;
+
+import java.util.Random;
+
+/**
+ * Dati sintetici per i benchmark: meeting di GeneratoreMeeting a seme fisso,
+ * con una densità di pari merito controllata.
+ */
+public final class DatiBenchmark {
+
+    static final long SEME = 20_26L;
+
+    private DatiBenchmark() {}
+
+    /** Meeting con quattro gare (100m M/F, Peso M/F) di {@code n} iscritti ciascuna. */
+    public static Meeting meeting(int n, double densitaPari) {
+        GeneratoreMeeting g = new GeneratoreMeeting(SEME);
+        g.setSpecialita(TipoGaraCorsa.centom, TipoGaraLancio.Peso);
+        g.setNumeroGare(4);
+        g.setIscrittiPerGara(n);
+        g.setQuotaMultidisciplina(0.0);
+        g.setDensitaPari(densitaPari);
+        return g.genera();
+    }
+
+    /** Una prestazione tipica per ciascun tipo. */
+    public static Prestazione prestazione(Prestazione.Tipo tipo, Random r) {
+        switch (tipo) {
+            case VELOCISTA:     return Prestazione.velocistaMillis(9_800 + r.nextInt(2_000), 12 + r.nextInt(20));
+            case OSTACOLISTA:   return Prestazione.ostacolistaMillis(13_000 + r.nextInt(2_000), r.nextInt(50));
+            case FONDOMETRISTA: return Prestazione.fondometristaMillis(210_000 + r.nextInt(30_000));
+            case SALTO:         return Prestazione.salto(500 + r.nextInt(400));
+            default:            return Prestazione.lancio(800 + r.nextInt(1_500));
+        }
+    }
+}
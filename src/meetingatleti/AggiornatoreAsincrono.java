@@ -0,0 +1,136 @@
+package meetingatleti;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import javax.swing.SwingWorker;
+
+/**
+ * Aggiornamento asincrono di una vista: il calcolo gira fuori dall'EDT e il
+ * risultato è pubblicato sull'EDT con un solo passaggio.
+ *
+ * Usato dai form delle classifiche per non bloccare l'interfaccia sui
+ * meeting grandi:
+ *  – i calcoli girano su un thread dedicato (uno solo, daemon), non sul
+ *    pool condiviso di SwingWorker;
+ *  – le richieste arrivate mentre un calcolo è già in coda si fondono in
+ *    quella: il calcolo userà l'ingresso più recente;
+ *  – un calcolo in corso superato da una nuova richiesta viene annullato
+ *    (il calcolo controlla {@code annullato} tra una fase e l'altra), a meno
+ *    che la vista non attenda un risultato da più di
+ *    {@link #LATENZA_MASSIMA_MS}: in quel caso il calcolo termina e viene
+ *    pubblicato, così una raffica continua di modifiche non lascia la vista
+ *    senza aggiornamenti.
+ *
+ * {@link #richiedi} può essere chiamato da qualunque thread; il consumatore
+ * è sempre eseguito sull'EDT.
+ *
+ * @param <I> ingresso del calcolo (istantanea presa dal chiamante)
+ * @param <R> risultato da pubblicare
+ */
+final class AggiornatoreAsincrono<I, R> {
+
+    private static final java.util.logging.Logger logger =
+            java.util.logging.Logger.getLogger(AggiornatoreAsincrono.class.getName());
+
+    /** Oltre questa attesa senza pubblicazioni un calcolo in corso non viene più annullato. */
+    static final long LATENZA_MASSIMA_MS = 500;
+
+    private static final ExecutorService ESECUTORE = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "meetingatleti-classifiche");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /** Calcolo eseguito fuori dall'EDT. */
+    interface Calcolo<I, R> {
+        /**
+         * @param annullato diventa true quando il risultato non serve più:
+         *                  il calcolo può interrompersi restituendo null
+         */
+        R calcola(I ingresso, BooleanSupplier annullato) throws Exception;
+    }
+
+    private final Calcolo<I, R> calcolo;
+    private final Consumer<R>   pubblica;
+
+    // ── stato condiviso (sotto il lock di this) ───────────────────────────
+    private I       inAttesa;
+    private Lavoro  corrente;
+    private boolean accodato;
+    private boolean chiuso;
+    private long    inizioAttesa;   // System.nanoTime() della prima richiesta non ancora pubblicata, 0 = nessuna
+
+    AggiornatoreAsincrono(Calcolo<I, R> calcolo, Consumer<R> pubblica) {
+        if (calcolo == null)  throw new IllegalArgumentException("calcolo non puo essere null");
+        if (pubblica == null) throw new IllegalArgumentException("pubblica non puo essere null");
+        this.calcolo  = calcolo;
+        this.pubblica = pubblica;
+    }
+
+    /** Chiede un nuovo calcolo sull'ingresso dato. */
+    synchronized void richiedi(I ingresso) {
+        if (chiuso) return;
+        inAttesa = ingresso;
+        long ora = System.nanoTime();
+        if (inizioAttesa == 0) inizioAttesa = ora;
+        if (accodato) return;                       // il lavoro in coda leggerà questo ingresso
+        if (corrente != null && ora - inizioAttesa < TimeUnit.MILLISECONDS.toNanos(LATENZA_MASSIMA_MS))
+            corrente.cancel(false);
+        corrente = new Lavoro();
+        accodato = true;
+        ESECUTORE.execute(corrente);
+    }
+
+    /** Annulla il calcolo in corso e ignora le richieste successive (chiusura della vista). */
+    synchronized void chiudi() {
+        chiuso   = true;
+        inAttesa = null;
+        if (corrente != null) corrente.cancel(false);
+        corrente = null;
+    }
+
+    private synchronized I preleva() {
+        accodato = false;
+        I ingresso = inAttesa;
+        inAttesa = null;
+        return ingresso;
+    }
+
+    // ── lavoro singolo ─────────────────────────────────────────────────────
+
+    private final class Lavoro extends SwingWorker<R, Void> {
+
+        @Override
+        protected R doInBackground() throws Exception {
+            I ingresso = preleva();
+            if (isCancelled()) return null;
+            return calcolo.calcola(ingresso, this::isCancelled);
+        }
+
+        @Override
+        protected void done() {
+            if (isCancelled()) return;
+            R risultato;
+            try {
+                risultato = get();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException ex) {
+                logger.log(Level.WARNING, "Aggiornamento classifiche non riuscito", ex.getCause());
+                return;
+            }
+            synchronized (AggiornatoreAsincrono.this) {
+                if (chiuso) return;
+                if (risultato != null && !accodato) inizioAttesa = 0;   // nessuna richiesta più recente
+                else if (risultato != null) inizioAttesa = System.nanoTime();
+            }
+            if (risultato != null) pubblica.accept(risultato);
+        }
+    }
+}
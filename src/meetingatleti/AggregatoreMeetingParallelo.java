@@ -0,0 +1,109 @@
+package meetingatleti;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+/**
+ * Calcolo parallelo della classifica generale del meeting.
+ *
+ * Ogni gara produce un risultato parziale (un contributo per atleta iscritto)
+ * su un thread del pool fork/join; i parziali confluiscono in una
+ * ConcurrentHashMap indicizzata dall'identità atleta (nome + pettorale),
+ * il cui compute() fa da combinatore atomico.
+ *
+ * Il risultato è IDENTICO a quello seriale di
+ * {@link GestorePunteggio#calcolaClassificaMeeting(Meeting)}:
+ *   – le gare di ogni voce sono riordinate per indice di gara;
+ *   – nome e sesso sono quelli della prima comparsa (gara, riga);
+ *   – a parità di totale e pettorale vale l'ordine di prima comparsa,
+ *     come nell'ordinamento stabile sulla LinkedHashMap seriale.
+ */
+final class AggregatoreMeetingParallelo {
+
+    private AggregatoreMeetingParallelo() {}
+
+    /** Contributi di un'identità atleta, accumulati da più thread. */
+    private static final class Accumulatore {
+        final String nome;
+        final int    pettorale;
+        String       sesso;
+        long         primaComparsa = Long.MAX_VALUE;   // (indice gara << 32) | riga
+        int[]        gare  = new int[2];               // indice gara per contributo
+        int[]        punti = new int[2];
+        int          n;
+
+        Accumulatore(String nome, int pettorale) {
+            this.nome      = nome;
+            this.pettorale = pettorale;
+        }
+
+        /** Chiamato solo dentro ConcurrentHashMap.compute → mai in concorrenza. */
+        void aggiungi(int indiceGara, int riga, int p, String sessoAtleta) {
+            long comparsa = ((long) indiceGara << 32) | riga;
+            if (comparsa < primaComparsa) { primaComparsa = comparsa; sesso = sessoAtleta; }
+            if (n == gare.length) {
+                gare  = Arrays.copyOf(gare,  n * 2);
+                punti = Arrays.copyOf(punti, n * 2);
+            }
+            gare[n]  = indiceGara;
+            punti[n] = p;
+            n++;
+        }
+    }
+
+    static ArrayList<VocePunteggioMeeting> calcola(Meeting meeting) {
+        List<Gara> gare = meeting.istantaneaGare();
+        ConcurrentHashMap<String, Accumulatore> mappa = new ConcurrentHashMap<>();
+
+        // ── fase parallela: un task per gara ───────────────────────────────
+        IntStream.range(0, gare.size()).parallel().forEach(ig -> {
+            Gara gara = gare.get(ig);
+            List<Atleta> atleti;
+            int[]        punti;
+            synchronized (gara) {
+                atleti = new ArrayList<>(gara.getAtleti());
+                punti  = new int[atleti.size()];
+                for (int riga = 0; riga < punti.length; riga++)
+                    punti[riga] = GestorePunteggio.punteggioAtleta(atleti.get(riga), gara);
+            }
+            for (int riga = 0; riga < atleti.size(); riga++) {
+                Atleta a  = atleti.get(riga);
+                int    p  = punti[riga];
+                int    r  = riga;
+                mappa.compute(a.getNome() + "::" + a.getPettorale(), (k, acc) -> {
+                    if (acc == null) acc = new Accumulatore(a.getNome(), a.getPettorale());
+                    acc.aggiungi(ig, r, p, a.getSesso());
+                    return acc;
+                });
+            }
+        });
+
+        // ── materializzazione: ordine deterministico ───────────────────────
+        Accumulatore[] accs = mappa.values().toArray(new Accumulatore[0]);
+        Arrays.parallelSort(accs, (x, y) -> Long.compare(x.primaComparsa, y.primaComparsa));
+
+        ArrayList<VocePunteggioMeeting> lista = new ArrayList<>(accs.length);
+        for (Accumulatore acc : accs) {
+            VocePunteggioMeeting v = new VocePunteggioMeeting(acc.nome, acc.pettorale, acc.sesso);
+            for (int i : ordinePerGara(acc)) v.aggiungiGara(gare.get(acc.gare[i]).getNomeGara(), acc.punti[i]);
+            lista.add(v);
+        }
+
+        GestorePunteggio.ordinaEPosiziona(lista);
+        return lista;
+    }
+
+    /** Indici dei contributi ordinati per indice di gara (piccoli array: insertion sort). */
+    private static int[] ordinePerGara(Accumulatore acc) {
+        int[] ord = new int[acc.n];
+        for (int i = 0; i < acc.n; i++) {
+            int j = i;
+            while (j > 0 && acc.gare[ord[j - 1]] > acc.gare[i]) { ord[j] = ord[j - 1]; j--; }
+            ord[j] = i;
+        }
+        return ord;
+    }
+}
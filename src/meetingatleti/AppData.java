@@ -1,8 +1,18 @@
 package meetingatleti;
 
-import java.util.ArrayList;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.AbstractList;
+import java.util.Arrays;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Singleton: mantiene il Meeting attivo, la Gara corrente e gli atleti liberi.
@@ -12,27 +22,70 @@ import java.util.Map;
  * Quando un atleta viene salvato come LIBERO (senza gara attiva), la sua
  * Prestazione viene conservata qui. Quando FRM_Gara lo aggiunge a una gara,
  * recupera la Prestazione da questa mappa e chiama gara.iscrizione(atleta, prestazione).
+ *
+ * v4 – persistenza:
+ * salvaSnapshot()/caricaSnapshot() scrivono e ripristinano l'intero stato
+ * (meeting, atleti liberi, prestazioni in attesa, gara corrente) in un file
+ * binario ({@link SnapshotMeeting}). Il percorso predefinito è
+ * ~/.meetingatleti/meeting.snap, modificabile con la proprietà di sistema
+ * "meetingatleti.snapshot". Le modifiche successive allo snapshot sono
+ * registrate nel giornale ({@link GiornaleMeeting}) accanto allo snapshot;
+ * per questo aggiunta e rimozione degli atleti liberi sono notificate agli
+ * {@link OsservatoreMeeting} registrati qui.
+ *
+ * v5 – accesso concorrente (più postazioni dei giudici, worker in background):
+ * l'istanza è creata dalla JVM alla prima richiesta (idioma del contenitore,
+ * pubblicazione sicura senza lock). Gli atleti liberi sono versioni
+ * immutabili pubblicate con un campo volatile: {@link #getAtletiLiberi()}
+ * restituisce un'istantanea coerente che non cambia più, senza bloccare chi
+ * scrive. Le scritture sono serializzate sul lock dell'istanza e notificano
+ * gli osservatori dentro il lock, nello stesso ordine delle modifiche (il
+ * giornale ne dipende). Le prestazioni in attesa sono in una mappa
+ * concorrente; meeting, gara corrente e generazione sono volatili.
  */
 public class AppData {
 
-    private static AppData instance;
+    /** Idioma del contenitore: inizializzazione pigra e thread-safe garantita dalla JVM. */
+    private static final class Contenitore {
+        static final AppData ISTANZA = new AppData();
+    }
+
+    private volatile Meeting meeting;
+    private volatile Gara    garaCorrente;
 
-    private Meeting meeting;
-    private Gara    garaCorrente;
-    private ArrayList<Atleta> atletiLiberi;
+    /** Versione corrente degli atleti liberi (immutabile, sostituita da chi scrive). */
+    private volatile VistaLiberi atletiLiberi;
 
     /** Mappa atleta libero → prestazione pre-compilata nel form. */
-    private Map<Atleta, Prestazione> prestazioniInAttesa;
+    private volatile Map<Atleta, Prestazione> prestazioniInAttesa;
+
+    /** Osservatori del pool atleti liberi. */
+    private final List<OsservatoreMeeting> osservatori = new CopyOnWriteArrayList<>();
+
+    /** Generazione dell'ultimo snapshot letto o scritto (0 = nessuno). */
+    private volatile long generazioneSnapshot;
+
+    /** Serializza i salvataggi senza bloccare le modifiche agli atleti liberi. */
+    private final Object salvataggio = new Object();
+
+    /** Proprietà di sistema che sostituisce il percorso predefinito dello snapshot. */
+    public static final String PROPRIETA_SNAPSHOT = "meetingatleti.snapshot";
 
     private AppData() {
+        azzera();
+    }
+
+    /** Riporta lo stato a quello iniziale (meeting vuoto, nessun atleta libero). */
+    synchronized void azzera() {
         meeting              = new Meeting("Meeting di Atletica", "4C", "Stadio");
-        atletiLiberi         = new ArrayList<>();
-        prestazioniInAttesa  = new LinkedHashMap<>();
+        garaCorrente         = null;
+        atletiLiberi         = VistaLiberi.VUOTA;
+        prestazioniInAttesa  = new ConcurrentHashMap<>();
+        generazioneSnapshot  = 0;
     }
 
     public static AppData getInstance() {
-        if (instance == null) instance = new AppData();
-        return instance;
+        return Contenitore.ISTANZA;
     }
 
     // ── meeting / gara corrente ────────────────────────────────────────────
@@ -45,7 +98,11 @@ public class AppData {
 
     // ── atleti liberi ──────────────────────────────────────────────────────
 
-    public ArrayList<Atleta> getAtletiLiberi() { return atletiLiberi; }
+    /**
+     * Istantanea degli atleti liberi: lista immutabile che non risente delle
+     * modifiche successive (si rilegge per vedere lo stato nuovo).
+     */
+    public List<Atleta> getAtletiLiberi() { return atletiLiberi; }
 
     /**
      * Aggiunge un atleta libero conservando anche la sua prestazione in attesa.
@@ -54,9 +111,11 @@ public class AppData {
      * @param prestazione la prestazione compilata nel form (sarà usata quando
      *                    l'atleta viene iscritto a una gara da FRM_Gara)
      */
-    public void aggiungiAtletaLibero(Atleta atleta, Prestazione prestazione) {
-        atletiLiberi.add(atleta);
+    public synchronized void aggiungiAtletaLibero(Atleta atleta, Prestazione prestazione) {
+        if (atleta == null) throw new IllegalArgumentException("atleta non puo essere null");
         if (prestazione != null) prestazioniInAttesa.put(atleta, prestazione);
+        atletiLiberi = atletiLiberi.conAggiunta(atleta);
+        for (OsservatoreMeeting o : osservatori) o.atletaLiberoAggiunto(atleta, prestazione);
     }
 
     /**
@@ -64,9 +123,74 @@ public class AppData {
      *
      * @return true se l'atleta era presente
      */
-    public boolean rimuoviAtletaLibero(Atleta a) {
-        prestazioniInAttesa.remove(a);
-        return atletiLiberi.remove(a);
+    public synchronized boolean rimuoviAtletaLibero(Atleta a) {
+        if (a != null) prestazioniInAttesa.remove(a);
+        VistaLiberi correnti = atletiLiberi;
+        int indice = correnti.indexOf(a);
+        if (indice < 0) return false;
+        atletiLiberi = correnti.senza(indice);
+        for (OsservatoreMeeting o : osservatori) o.atletaLiberoRimosso(a, indice);
+        return true;
+    }
+
+    /** Registra un osservatore degli atleti liberi (aggiunta / rimozione). */
+    public void aggiungiOsservatore(OsservatoreMeeting o) {
+        if (o == null) throw new IllegalArgumentException("osservatore non puo essere null");
+        osservatori.add(o);
+    }
+
+    public boolean rimuoviOsservatore(OsservatoreMeeting o) { return osservatori.remove(o); }
+
+    /**
+     * Versione immutabile degli atleti liberi: il prefisso [0, n) di un array.
+     *
+     * Le aggiunte scrivono nella cella n dell'array della versione più recente
+     * (se c'è posto) e pubblicano una nuova versione con n + 1: le versioni
+     * precedenti non leggono mai oltre il proprio n, quindi restano invariate
+     * e l'aggiunta costa O(1) ammortizzato. Una rimozione copia in un array
+     * nuovo. conAggiunta e senza sono chiamati solo sotto il lock di AppData.
+     */
+    private static final class VistaLiberi extends AbstractList<Atleta> implements RandomAccess {
+
+        static final VistaLiberi VUOTA = new VistaLiberi(new Atleta[0], 0);
+
+        private final Atleta[] elementi;
+        private final int      n;
+
+        private VistaLiberi(Atleta[] elementi, int n) {
+            this.elementi = elementi;
+            this.n        = n;
+        }
+
+        static VistaLiberi di(List<Atleta> atleti) {
+            Atleta[] a = atleti.toArray(new Atleta[0]);
+            return new VistaLiberi(a, a.length);
+        }
+
+        @Override public Atleta get(int i) { Objects.checkIndex(i, n); return elementi[i]; }
+        @Override public int    size()     { return n; }
+
+        @Override
+        public int indexOf(Object o) {
+            for (int i = 0; i < n; i++) if (elementi[i] == o) return i;
+            return -1;
+        }
+
+        @Override public boolean contains(Object o) { return indexOf(o) >= 0; }
+
+        VistaLiberi conAggiunta(Atleta a) {
+            Atleta[] dest = elementi;
+            if (n == dest.length) dest = Arrays.copyOf(elementi, Math.max(8, n + (n >> 1)));
+            dest[n] = a;
+            return new VistaLiberi(dest, n + 1);
+        }
+
+        VistaLiberi senza(int indice) {
+            Atleta[] dest = new Atleta[Math.max(8, n)];
+            System.arraycopy(elementi, 0, dest, 0, indice);
+            System.arraycopy(elementi, indice + 1, dest, indice, n - indice - 1);
+            return new VistaLiberi(dest, n - 1);
+        }
     }
 
     // ── prestazioni in attesa ──────────────────────────────────────────────
@@ -76,7 +200,7 @@ public class AppData {
      * o null se non disponibile.
      */
     public Prestazione getPrestazioneInAttesa(Atleta a) {
-        return prestazioniInAttesa.get(a);
+        return (a != null) ? prestazioniInAttesa.get(a) : null;
     }
 
     /**
@@ -84,6 +208,67 @@ public class AppData {
      * Usato dopo che la prestazione è stata consumata dall'iscrizione.
      */
     public void rimuoviPrestazioneInAttesa(Atleta a) {
-        prestazioniInAttesa.remove(a);
+        if (a != null) prestazioniInAttesa.remove(a);
+    }
+
+    // ── persistenza ────────────────────────────────────────────────────────
+
+    /** Percorso dello snapshot (proprietà di sistema o ~/.meetingatleti/meeting.snap). */
+    public static Path getFileSnapshot() {
+        String p = System.getProperty(PROPRIETA_SNAPSHOT);
+        if (p != null && !p.isEmpty()) return Paths.get(p);
+        return Paths.get(System.getProperty("user.home"), ".meetingatleti", "meeting.snap");
+    }
+
+    /** Percorso del giornale che accompagna lo snapshot (stessa cartella). */
+    public static Path getFileGiornale() {
+        Path snapshot = getFileSnapshot();
+        return snapshot.resolveSibling(snapshot.getFileName() + ".giornale");
+    }
+
+    /** Generazione dell'ultimo snapshot caricato o salvato. */
+    public long getGenerazioneSnapshot() { return generazioneSnapshot; }
+
+    /** Scrive lo stato corrente su file (con la generazione successiva). */
+    public void salvaSnapshot(Path file) throws IOException {
+        synchronized (salvataggio) {
+            // liberi e prestazioni in attesa letti insieme; il file è scritto fuori dal lock
+            List<Atleta> liberi;
+            Map<Atleta, Prestazione> pendenti;
+            Meeting m;
+            Gara corrente;
+            synchronized (this) {
+                m        = meeting;
+                corrente = garaCorrente;
+                liberi   = atletiLiberi;
+                pendenti = new LinkedHashMap<>(prestazioniInAttesa);
+            }
+            long nuova = generazioneSnapshot + 1;
+            SnapshotMeeting.salva(file, m, liberi, pendenti, corrente, nuova);
+            generazioneSnapshot = nuova;
+        }
+    }
+
+    /**
+     * Sostituisce lo stato corrente con quello dello snapshot.
+     *
+     * @return false se il file non esiste (stato invariato)
+     * @throws IOException se il file esiste ma non è leggibile o valido
+     *                     (anche in questo caso lo stato resta invariato)
+     */
+    public boolean caricaSnapshot(Path file) throws IOException {
+        if (file == null) throw new IllegalArgumentException("file non puo essere null");
+        if (!Files.exists(file)) return false;
+        SnapshotMeeting.Contenuto c = SnapshotMeeting.carica(file);
+        synchronized (salvataggio) {
+            synchronized (this) {
+                meeting             = c.meeting;
+                atletiLiberi        = VistaLiberi.di(c.atletiLiberi);
+                prestazioniInAttesa = new ConcurrentHashMap<>(c.prestazioniInAttesa);
+                garaCorrente        = c.garaCorrente;
+                generazioneSnapshot = c.generazione;
+            }
+        }
+        return true;
     }
 }
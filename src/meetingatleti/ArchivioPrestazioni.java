@@ -0,0 +1,352 @@
+package meetingatleti;
+
+import java.util.Arrays;
+
+/**
+ * Archivio colonnare (opzionale) delle prestazioni di una gara.
+ *
+ * Invece di un oggetto Prestazione con cinque campi boxed per ogni atleta,
+ * le prestazioni sono memorizzate riga per riga in array primitivi:
+ *
+ *   tipi[]       byte   – Prestazione.Tipo (ordinal), -1 = riga libera
+ *   tempi[]      int    – tempo gara in millesimi di secondo        [corse]
+ *   secondari[]  int    – reazione (VELOCISTA) o penalità (OSTACOLISTA), cs
+ *   distanze[]   int    – distanza salto (SALTO) o lancio (LANCIO), cm
+ *   serie[]      SerieProve – prove del concorso, null se misura singola
+ *   + una bitmap dei valori presenti (null) per ciascuna colonna
+ *
+ * Ogni riga è esposta come {@link Vista}: una sottoclasse "flyweight" di
+ * Prestazione senza valori propri, che legge e scrive le colonne. Il resto
+ * del codice (Atleta, Gara, form) continua a vedere normali Prestazione.
+ * L'archivio non tiene riferimenti alle viste: la compattazione ritrova la
+ * vista di una riga tramite l'atleta proprietario.
+ *
+ * Le righe restano nell'ordine di iscrizione: le righe dei ritirati vengono
+ * marcate libere e ricompattate quando superano metà dell'archivio. Così
+ * {@link MotoreClassifica} può calcolare i punteggi scorrendo le colonne
+ * in modo contiguo.
+ *
+ * Usato internamente da {@link Gara} (sotto il suo lock).
+ */
+final class ArchivioPrestazioni {
+
+    private static final byte LIBERA = -1;
+
+    // ── colonne ────────────────────────────────────────────────────────────
+
+    private byte[]   tipi;
+    private int[]    tempi;
+    private int[]    secondari;
+    private int[]    distanze;
+    private SerieProve[] serie;      // distanze[] contiene già la migliore
+    private long[]   haTempo;        // bitmap valori presenti
+    private long[]   haSecondario;
+    private long[]   haDistanza;
+    private Atleta[] atleti;         // atleta proprietario della riga
+
+    private int righe;               // righe usate (comprese le libere)
+    private int libere;
+
+    private final Gara gara;
+
+    ArchivioPrestazioni(Gara gara) {
+        this.gara = gara;
+        alloca(16);
+    }
+
+    int righe()             { return righe; }
+    int righeOccupate()     { return righe - libere; }
+    boolean isLibera(int r) { return tipi[r] == LIBERA; }
+    Atleta atleta(int r)    { return atleti[r]; }
+
+    // ── inserimento / rimozione ────────────────────────────────────────────
+
+    /**
+     * Copia la prestazione in una nuova riga in coda.
+     *
+     * @return la vista flyweight che la rappresenta
+     */
+    Vista aggiungi(Atleta atleta, Prestazione p) {
+        if (righe == tipi.length) alloca(tipi.length * 2);
+        int r = righe++;
+        Prestazione.Tipo tipo = p.getTipo();
+        tipi[r]   = (byte) tipo.ordinal();
+        atleti[r] = atleta;
+
+        int     tempo = p.getTempoGaraMillis();
+        Integer sec   = (tipo == Prestazione.Tipo.VELOCISTA)   ? p.getTempoReazione()
+                      : (tipo == Prestazione.Tipo.OSTACOLISTA) ? p.getTempoOstacolo() : null;
+        Integer dist  = (tipo == Prestazione.Tipo.SALTO)  ? p.getDistanzaSalto()
+                      : (tipo == Prestazione.Tipo.LANCIO) ? p.getDistanzaLancio() : null;
+        scriviTempo(r, tempo);
+        scriviSecondario(r, sec);
+        scriviDistanza(r, dist);
+        SerieProve s = tipo.isCorsa() ? null : p.serie();
+        serie[r] = (s != null) ? s.copia() : null;
+
+        return new Vista(tipo, this, r);
+    }
+
+    /** Libera la riga della vista (ritiro dell'atleta). */
+    void rimuovi(Vista v) {
+        if (v.archivio != this) return;
+        int r = v.riga;
+        SerieProve s = serie[r];
+        tipi[r]   = LIBERA;
+        atleti[r] = null;
+        serie[r]  = null;
+        v.staccaCopiando(this, r, s);
+        v.archivio = null;           // la vista si stacca: da qui legge la copia dei valori
+        libere++;
+        if (libere * 2 > righe) compatta();
+    }
+
+    // ── punteggi su colonne primitive ──────────────────────────────────────
+
+    /** Punteggio della riga: stesse formule di Prestazione.calcolaPunteggio(). */
+    int punteggio(int r) {
+        switch (tipi[r]) {
+            case 0: // VELOCISTA
+            case 1: // OSTACOLISTA
+            case 2: // FONDOMETRISTA
+                return Prestazione.punteggioCorsa(leggiTempoMillis(r), penalita(r));
+            case 3: // SALTO
+            case 4: // LANCIO
+                return bit(haDistanza, r) ? distanze[r] : 0;
+            default:
+                return 0;
+        }
+    }
+
+    /** Spareggio della riga: stesse regole di Prestazione.getSpareggio(). */
+    long spareggio(int r) {
+        switch (tipi[r]) {
+            case 0: // VELOCISTA
+            case 1: // OSTACOLISTA
+            case 2: // FONDOMETRISTA
+                return Prestazione.spareggioCorsa(leggiTempoMillis(r), penalita(r));
+            case 3: // SALTO
+            case 4: // LANCIO
+                return (serie[r] != null) ? serie[r].seconda() : 0L;
+            default:
+                return 0L;
+        }
+    }
+
+    /** Reazione/penalità in centesimi; la colonna è vuota per FONDOMETRISTA. */
+    private int penalita(int r) {
+        return bit(haSecondario, r) ? secondari[r] : 0;
+    }
+
+    // ── accesso per colonna (usato dalle viste) ────────────────────────────
+
+    private int     leggiTempoMillis(int r) { return bit(haTempo, r)     ? tempi[r]     : Prestazione.TEMPO_ASSENTE; }
+    private Integer leggiSecondario(int r) { return bit(haSecondario, r) ? secondari[r] : null; }
+    private Integer leggiDistanza(int r)   { return bit(haDistanza, r)   ? distanze[r]  : null; }
+
+    private void scriviTempo(int r, int ms) {
+        boolean presente = (ms != Prestazione.TEMPO_ASSENTE);
+        tempi[r] = presente ? ms : 0;
+        imposta(haTempo, r, presente);
+    }
+
+    private void scriviSecondario(int r, Integer v) {
+        secondari[r] = (v != null) ? v : 0;
+        imposta(haSecondario, r, v != null);
+    }
+
+    private void scriviDistanza(int r, Integer v) {
+        distanze[r] = (v != null) ? v : 0;
+        imposta(haDistanza, r, v != null);
+    }
+
+    /** Serie e distanza insieme: la distanza è la migliore misura valida. */
+    private void scriviSerie(int r, SerieProve s) {
+        serie[r] = s;
+        scriviDistanza(r, (s.migliore() > 0) ? s.migliore() : null);
+    }
+
+    // ── interni ────────────────────────────────────────────────────────────
+
+    private static boolean bit(long[] set, int r) {
+        return (set[r >>> 6] & (1L << r)) != 0;
+    }
+
+    private static void imposta(long[] set, int r, boolean valore) {
+        if (valore) set[r >>> 6] |=  (1L << r);
+        else        set[r >>> 6] &= ~(1L << r);
+    }
+
+    private void alloca(int capacita) {
+        tipi      = (tipi == null)      ? new byte[capacita]   : Arrays.copyOf(tipi, capacita);
+        tempi     = (tempi == null)     ? new int[capacita]    : Arrays.copyOf(tempi, capacita);
+        secondari = (secondari == null) ? new int[capacita]    : Arrays.copyOf(secondari, capacita);
+        distanze  = (distanze == null)  ? new int[capacita]    : Arrays.copyOf(distanze, capacita);
+        serie     = (serie == null)     ? new SerieProve[capacita] : Arrays.copyOf(serie, capacita);
+        atleti    = (atleti == null)    ? new Atleta[capacita] : Arrays.copyOf(atleti, capacita);
+        int parole = (capacita + 63) >>> 6;
+        haTempo      = (haTempo == null)      ? new long[parole] : Arrays.copyOf(haTempo, parole);
+        haSecondario = (haSecondario == null) ? new long[parole] : Arrays.copyOf(haSecondario, parole);
+        haDistanza   = (haDistanza == null)   ? new long[parole] : Arrays.copyOf(haDistanza, parole);
+    }
+
+    /** Elimina le righe libere conservando l'ordine delle righe occupate. */
+    private void compatta() {
+        int w = 0;
+        for (int r = 0; r < righe; r++) {
+            if (tipi[r] == LIBERA) continue;
+            if (w != r) {
+                tipi[w]      = tipi[r];
+                tempi[w]     = tempi[r];
+                secondari[w] = secondari[r];
+                distanze[w]  = distanze[r];
+                serie[w]     = serie[r];
+                imposta(haTempo,      w, bit(haTempo, r));
+                imposta(haSecondario, w, bit(haSecondario, r));
+                imposta(haDistanza,   w, bit(haDistanza, r));
+                atleti[w]    = atleti[r];
+                ((Vista) atleti[w].getPrestazione(gara)).riga = w;
+            }
+            w++;
+        }
+        Arrays.fill(tipi,   w, righe, LIBERA);
+        Arrays.fill(atleti, w, righe, null);
+        Arrays.fill(serie,  w, righe, null);
+        righe  = w;
+        libere = 0;
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    //  VISTA FLYWEIGHT
+    // ══════════════════════════════════════════════════════════════════════
+
+    /**
+     * Prestazione che legge e scrive una riga dell'archivio: tiene solo il
+     * riferimento all'archivio, la riga e lo stato del collegamento; i
+     * valori stanno tutti nelle colonne. L'archivio non conserva le viste:
+     * l'unico riferimento è quello dell'atleta iscritto.
+     *
+     * Se la riga viene liberata (ritiro) la vista riceve una copia dei
+     * valori in una Prestazione normale e da lì in poi delega a essa, così
+     * chi la conserva non legge dati di altri atleti.
+     */
+    static final class Vista extends Prestazione {
+
+        private volatile ArchivioPrestazioni archivio;   // null dopo il ritiro
+        private volatile int                 riga;
+        private volatile boolean             collegata;
+        private Prestazione                  copia;      // valori dopo il ritiro
+
+        private Vista(Tipo tipo, ArchivioPrestazioni archivio, int riga) {
+            super(tipo);
+            this.archivio = archivio;
+            this.riga     = riga;
+        }
+
+        /** Riga corrente nell'archivio (cambia dopo una compattazione). */
+        int getRiga() { return riga; }
+
+        /** Chiamato a prestazione già scollegata, prima di azzerare archivio. */
+        private void staccaCopiando(ArchivioPrestazioni a, int r, SerieProve s) {
+            Prestazione c = Prestazione.vuota(getTipo());
+            c.scriviTempo(a.leggiTempoMillis(r));
+            c.scriviSecondario(a.leggiSecondario(r));
+            c.scriviDistanza(a.leggiDistanza(r));
+            if (s != null) c.scriviSerie(s);
+            copia = c;
+        }
+
+        @Override
+        public int calcolaPunteggio() {
+            ArchivioPrestazioni a = archivio;
+            return (a != null) ? a.punteggio(riga) : copia.calcolaPunteggio();
+        }
+
+        @Override
+        public long getSpareggio() {
+            ArchivioPrestazioni a = archivio;
+            return (a != null) ? a.spareggio(riga) : copia.getSpareggio();
+        }
+
+        @Override
+        int tempoMillis() {
+            ArchivioPrestazioni a = archivio;
+            return (a != null) ? a.leggiTempoMillis(riga) : copia.tempoMillis();
+        }
+
+        @Override
+        Integer secondario() {
+            ArchivioPrestazioni a = archivio;
+            return (a != null) ? a.leggiSecondario(riga) : copia.secondario();
+        }
+
+        @Override
+        Integer distanza() {
+            ArchivioPrestazioni a = archivio;
+            return (a != null) ? a.leggiDistanza(riga) : copia.distanza();
+        }
+
+        @Override
+        SerieProve serie() {
+            ArchivioPrestazioni a = archivio;
+            return (a != null) ? a.serie[riga] : copia.serie();
+        }
+
+        @Override
+        void scriviTempo(int ms) {
+            ArchivioPrestazioni a = archivio;
+            if (a != null) a.scriviTempo(riga, ms); else copia.scriviTempo(ms);
+        }
+
+        @Override
+        void scriviSecondario(Integer cs) {
+            ArchivioPrestazioni a = archivio;
+            if (a != null) a.scriviSecondario(riga, cs); else copia.scriviSecondario(cs);
+        }
+
+        @Override
+        void scriviDistanza(Integer cm) {
+            ArchivioPrestazioni a = archivio;
+            if (a == null) { copia.scriviDistanza(cm); return; }
+            int r = riga;
+            a.scriviDistanza(r, cm);
+            a.serie[r] = null;
+        }
+
+        @Override
+        void scriviSerie(SerieProve s) {
+            ArchivioPrestazioni a = archivio;
+            if (a != null) a.scriviSerie(riga, s); else copia.scriviSerie(s);
+        }
+
+        @Override
+        void collega(Gara gara, Atleta atleta) {
+            if (archivio != null) collegata = true; else copia.collega(gara, atleta);
+        }
+
+        @Override
+        void scollega() {
+            if (archivio != null) collegata = false; else copia.scollega();
+        }
+
+        @Override
+        Gara garaCollegata() {
+            ArchivioPrestazioni a = archivio;
+            if (a == null) return copia.garaCollegata();
+            return collegata ? a.gara : null;
+        }
+
+        @Override
+        Atleta atletaCollegato() {
+            ArchivioPrestazioni a = archivio;
+            if (a == null) return copia.atletaCollegato();
+            return collegata ? a.atleti[riga] : null;
+        }
+
+        @Override
+        Gara garaDelLock() {
+            ArchivioPrestazioni a = archivio;
+            return (a != null) ? a.gara : copia.garaDelLock();
+        }
+    }
+}
@@ -0,0 +1,499 @@
+package meetingatleti;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Archivio storico in sola lettura dei risultati di più meeting (stagioni).
+ *
+ * Il file è scritto una volta da oggetti {@link Meeting} e poi interrogato
+ * attraverso un MappedByteBuffer: le query leggono direttamente dalla
+ * mappatura con accessi assoluti, senza deserializzare oggetti e senza far
+ * crescere l'heap (i risultati sono indici di record in un int[] del
+ * chiamante; le stringhe sono decodificate solo se richieste).
+ *
+ * Layout (big-endian):
+ *
+ *   intestazione  64 byte: MAGIA, VERSIONE, contatori e offset delle sezioni
+ *   record        n × 32 byte, ordinati per (pettorale, tipo prestazione)
+ *   indice        n × int: record ordinati per (disciplina, stagione, merito desc)
+ *   meeting       m × 16 byte: nome, data, luogo (id stringa), stagione
+ *   stringhe      (s + 1) offset int + dati UTF-8, in ordine di byte crescente
+ *
+ *   record: meeting | gara (id stringa) | atleta (id stringa) | pettorale
+ *           | tipo prestazione, sesso, tipo gara, specialità (4 byte)
+ *           | valore (ms per le corse, cm per salti e lanci)
+ *           | secondario (reazione / penalità ostacoli, cs) | punteggio
+ *
+ * La stagione di un meeting è il primo anno a quattro cifre trovato in
+ * Meeting.getData() (0 se assente). I valori mancanti valgono {@link #ASSENTE}.
+ * Il file è limitato a 2 GB (una sola mappatura).
+ */
+final class ArchivioRisultati {
+
+    static final int   MAGIA    = 0x4D544152;   // "MTAR"
+    static final short VERSIONE = 1;
+
+    /** Valore di un campo numerico non presente. */
+    static final int ASSENTE = Integer.MIN_VALUE;
+
+    // tipo gara (stessi codici dello snapshot)
+    static final byte GARA_NESSUNA = 0;
+    static final byte GARA_CORSA   = 1;
+    static final byte GARA_SALTO   = 2;
+    static final byte GARA_LANCIO  = 3;
+
+    private static final int DIM_INTESTAZIONE = 64;
+    private static final int DIM_RECORD       = 32;
+    private static final int DIM_MEETING      = 16;
+
+    // campi del record (offset nel record)
+    private static final int R_MEETING    = 0;
+    private static final int R_GARA       = 4;
+    private static final int R_ATLETA     = 8;
+    private static final int R_PETTORALE  = 12;
+    private static final int R_TIPO       = 16;   // byte
+    private static final int R_SESSO      = 17;   // byte: 0 M, 1 F, 2 altro
+    private static final int R_TIPO_GARA  = 18;   // byte
+    private static final int R_SPECIALITA = 19;   // byte: ordinal del TipoGara*
+    private static final int R_VALORE     = 20;
+    private static final int R_SECONDARIO = 24;
+    private static final int R_PUNTEGGIO  = 28;
+
+    private static final Prestazione.Tipo[] TIPI = Prestazione.Tipo.values();
+
+    // ── mappatura ──────────────────────────────────────────────────────────
+
+    private final MappedByteBuffer buf;
+    private final int nRecord, nMeeting, nStringhe;
+    private final int offRecord, offIndice, offMeeting, offStringhe, offDati;
+
+    private ArchivioRisultati(MappedByteBuffer buf) throws IOException {
+        this.buf = buf;
+        if (buf.capacity() < DIM_INTESTAZIONE || buf.getInt(0) != MAGIA)
+            throw new IOException("non è un archivio risultati MeetingAtleti");
+        if (buf.getShort(4) != VERSIONE)
+            throw new IOException("versione archivio non supportata: " + buf.getShort(4));
+        nRecord     = buf.getInt(8);
+        nMeeting    = buf.getInt(12);
+        nStringhe   = buf.getInt(16);
+        offRecord   = buf.getInt(20);
+        offIndice   = buf.getInt(24);
+        offMeeting  = buf.getInt(28);
+        offStringhe = buf.getInt(32);
+        offDati     = buf.getInt(36);
+        if (offDati > buf.capacity() || offRecord + (long) nRecord * DIM_RECORD > offIndice)
+            throw new IOException("archivio risultati troncato o corrotto");
+    }
+
+    /** Mappa l'archivio in sola lettura (il file resta chiuso: la mappatura è autonoma). */
+    static ArchivioRisultati apri(Path file) throws IOException {
+        if (file == null) throw new IllegalArgumentException("file non puo essere null");
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (ch.size() > Integer.MAX_VALUE)
+                throw new IOException("archivio troppo grande: " + ch.size() + " byte");
+            return new ArchivioRisultati(ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size()));
+        }
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    //  LETTURA DEI RECORD
+    // ══════════════════════════════════════════════════════════════════════
+
+    int numeroRecord()   { return nRecord; }
+    int numeroMeeting()  { return nMeeting; }
+
+    private int campo(int r, int offset)     { return buf.getInt(offRecord + r * DIM_RECORD + offset); }
+    private int campoByte(int r, int offset) { return buf.get(offRecord + r * DIM_RECORD + offset); }
+
+    Prestazione.Tipo tipo(int r)   { return TIPI[campoByte(r, R_TIPO)]; }
+    int  pettorale(int r)          { return campo(r, R_PETTORALE); }
+    int  valore(int r)             { return campo(r, R_VALORE); }
+    int  secondario(int r)         { return campo(r, R_SECONDARIO); }
+    int  punteggio(int r)          { return campo(r, R_PUNTEGGIO); }
+    int  tipoGara(int r)           { return campoByte(r, R_TIPO_GARA); }
+    int  specialita(int r)         { return campoByte(r, R_SPECIALITA); }
+    int  meeting(int r)            { return campo(r, R_MEETING); }
+    int  stagione(int r)           { return stagioneMeeting(meeting(r)); }
+    int  idGara(int r)             { return campo(r, R_GARA); }
+    int  idAtleta(int r)           { return campo(r, R_ATLETA); }
+
+    /** "M", "F" o null. */
+    String sesso(int r) {
+        switch (campoByte(r, R_SESSO)) {
+            case 0:  return "M";
+            case 1:  return "F";
+            default: return null;
+        }
+    }
+
+    int stagioneMeeting(int m) { return buf.getInt(offMeeting + m * DIM_MEETING + 12); }
+    int idNomeMeeting(int m)   { return buf.getInt(offMeeting + m * DIM_MEETING); }
+    int idDataMeeting(int m)   { return buf.getInt(offMeeting + m * DIM_MEETING + 4); }
+    int idLuogoMeeting(int m)  { return buf.getInt(offMeeting + m * DIM_MEETING + 8); }
+
+    // ── tabella stringhe ───────────────────────────────────────────────────
+
+    /** Decodifica la stringa (unica allocazione delle query; null se id = ASSENTE). */
+    String stringa(int id) {
+        if (id == ASSENTE) return null;
+        int da = offDati + buf.getInt(offStringhe + id * 4);
+        int a  = offDati + buf.getInt(offStringhe + id * 4 + 4);
+        byte[] b = new byte[a - da];
+        buf.get(da, b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Id della stringa nella tabella (ricerca binaria sui byte mappati),
+     * o -1 se non presente.
+     */
+    int idStringa(String s) {
+        if (s == null) return -1;
+        byte[] chiave = s.getBytes(StandardCharsets.UTF_8);
+        int lo = 0, hi = nStringhe - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int cmp = confrontaStringa(mid, chiave);
+            if (cmp < 0)      lo = mid + 1;
+            else if (cmp > 0) hi = mid - 1;
+            else              return mid;
+        }
+        return -1;
+    }
+
+    /** Confronto byte per byte (senza segno) tra la stringa {@code id} e la chiave. */
+    private int confrontaStringa(int id, byte[] chiave) {
+        int da = offDati + buf.getInt(offStringhe + id * 4);
+        int n  = offDati + buf.getInt(offStringhe + id * 4 + 4) - da;
+        int k  = Math.min(n, chiave.length);
+        for (int i = 0; i < k; i++) {
+            int cmp = Integer.compare(buf.get(da + i) & 0xFF, chiave[i] & 0xFF);
+            if (cmp != 0) return cmp;
+        }
+        return Integer.compare(n, chiave.length);
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    //  QUERY
+    // ══════════════════════════════════════════════════════════════════════
+
+    /**
+     * Prestazioni del pettorale (di ogni stagione), opzionalmente di un solo tipo.
+     * Due ricerche binarie sui record ordinati; nessuna allocazione.
+     *
+     * @param tipo null = tutti i tipi
+     * @param dest riceve gli indici dei record (al massimo dest.length)
+     * @return numero totale di record trovati (può superare dest.length)
+     */
+    int prestazioniDiPettorale(int pettorale, Prestazione.Tipo tipo, int[] dest) {
+        int tMin = (tipo != null) ? tipo.ordinal() : 0;
+        int tMax = (tipo != null) ? tipo.ordinal() : TIPI.length - 1;
+        int da = primoRecord(pettorale, tMin);
+        int a  = primoRecord(pettorale, tMax + 1);
+        for (int r = da, i = 0; r < a && i < dest.length; r++, i++) dest[i] = r;
+        return a - da;
+    }
+
+    /** Primo record con chiave (pettorale, tipo) >= quella indicata. */
+    private int primoRecord(int pettorale, int tipo) {
+        int lo = 0, hi = nRecord;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            int p   = pettorale(mid);
+            boolean prima = p < pettorale || (p == pettorale && campoByte(mid, R_TIPO) < tipo);
+            if (prima) lo = mid + 1;
+            else       hi = mid;
+        }
+        return lo;
+    }
+
+    /** Migliori prestazioni della stagione in una specialità di corsa (tempo crescente). */
+    int migliori(TipoGaraCorsa specialita, int stagione, int[] dest) {
+        return migliori(GARA_CORSA, specialita.ordinal(), stagione, dest);
+    }
+
+    /** Migliori prestazioni della stagione in una specialità di salto (misura decrescente). */
+    int migliori(TipoGaraSalto specialita, int stagione, int[] dest) {
+        return migliori(GARA_SALTO, specialita.ordinal(), stagione, dest);
+    }
+
+    /** Migliori prestazioni della stagione in una specialità di lancio (misura decrescente). */
+    int migliori(TipoGaraLancio specialita, int stagione, int[] dest) {
+        return migliori(GARA_LANCIO, specialita.ordinal(), stagione, dest);
+    }
+
+    /**
+     * Legge dall'indice i primi dest.length record del gruppo
+     * (tipo gara, specialità, stagione), già ordinati per merito.
+     *
+     * @return numero di record scritti in dest
+     */
+    private int migliori(int tipoGara, int specialita, int stagione, int[] dest) {
+        int disciplina = disciplina(tipoGara, specialita);
+        int lo = 0, hi = nRecord;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            int r   = buf.getInt(offIndice + mid * 4);
+            int d   = disciplina(tipoGara(r), specialita(r));
+            boolean prima = d < disciplina || (d == disciplina && stagione(r) < stagione);
+            if (prima) lo = mid + 1;
+            else       hi = mid;
+        }
+        int n = 0;
+        for (int i = lo; i < nRecord && n < dest.length; i++) {
+            int r = buf.getInt(offIndice + i * 4);
+            if (disciplina(tipoGara(r), specialita(r)) != disciplina || stagione(r) != stagione) break;
+            if (merito(r) == ASSENTE) break;                 // prestazioni senza misura in coda
+            dest[n++] = r;
+        }
+        return n;
+    }
+
+    private static int disciplina(int tipoGara, int specialita) { return (tipoGara << 8) | specialita; }
+
+    /** Più alto = migliore: tempo cambiato di segno per le corse, misura per salti e lanci. */
+    private int merito(int r) {
+        int v = valore(r);
+        if (v == ASSENTE) return ASSENTE;
+        return (tipoGara(r) == GARA_CORSA) ? -v : v;
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    //  SCRITTURA
+    // ══════════════════════════════════════════════════════════════════════
+
+    /**
+     * Scrive l'archivio dei meeting indicati (sostituzione atomica quando possibile).
+     * Ogni gara è letta sotto il proprio lock.
+     */
+    static void scrivi(Path file, List<Meeting> meetings) throws IOException {
+        if (file == null)     throw new IllegalArgumentException("file non puo essere null");
+        if (meetings == null) throw new IllegalArgumentException("meetings non puo essere null");
+
+        // ── raccolta: colonne temporanee + stringhe distinte ───────────────
+        Map<String, Integer> idProvvisori = new HashMap<>();
+        List<String>         stringhe     = new ArrayList<>();
+        int[][] meetingCampi = new int[meetings.size()][4];
+        Colonne c = new Colonne();
+
+        for (int im = 0; im < meetings.size(); im++) {
+            Meeting m = meetings.get(im);
+            meetingCampi[im][0] = intern(m.getNome(),  idProvvisori, stringhe);
+            meetingCampi[im][1] = intern(m.getData(),  idProvvisori, stringhe);
+            meetingCampi[im][2] = intern(m.getLuogo(), idProvvisori, stringhe);
+            meetingCampi[im][3] = stagioneDa(m.getData());
+            for (Gara g : m.istantaneaGare()) {
+                synchronized (g) {
+                    int idGara = intern(g.getNomeGara(), idProvvisori, stringhe);
+                    byte tipoGara; int specialita;
+                    if (g.getTipoGaraCorsa() != null)       { tipoGara = GARA_CORSA;   specialita = g.getTipoGaraCorsa().ordinal(); }
+                    else if (g.getTipoGaraSalto() != null)  { tipoGara = GARA_SALTO;   specialita = g.getTipoGaraSalto().ordinal(); }
+                    else if (g.getTipoGaraLancio() != null) { tipoGara = GARA_LANCIO;  specialita = g.getTipoGaraLancio().ordinal(); }
+                    else                                    { tipoGara = GARA_NESSUNA; specialita = 0; }
+                    for (Atleta a : g.getAtleti()) {
+                        Prestazione p = a.getPrestazione(g);
+                        if (p == null) continue;
+                        c.aggiungi(im, idGara, intern(a.getNome(), idProvvisori, stringhe),
+                                   (a.getPettorale() != null) ? a.getPettorale() : ASSENTE,
+                                   p, codiceSesso(a.getSesso()), tipoGara, specialita);
+                    }
+                }
+            }
+        }
+
+        // ── tabella stringhe in ordine di byte (per la ricerca binaria) ────
+        int s = stringhe.size();
+        byte[][] utf8 = new byte[s][];
+        Integer[] ordineStr = new Integer[s];
+        for (int i = 0; i < s; i++) {
+            utf8[i] = stringhe.get(i).getBytes(StandardCharsets.UTF_8);
+            ordineStr[i] = i;
+        }
+        Arrays.sort(ordineStr, (x, y) -> Arrays.compareUnsigned(utf8[x], utf8[y]));
+        int[] idFinale = new int[s];
+        for (int i = 0; i < s; i++) idFinale[ordineStr[i]] = i;
+
+        // ── ordine dei record e indice per disciplina ──────────────────────
+        int n = c.n;
+        Integer[] ordine = new Integer[n];
+        for (int i = 0; i < n; i++) ordine[i] = i;
+        Arrays.sort(ordine, (x, y) -> {
+            int cmp = Integer.compare(c.pettorale[x], c.pettorale[y]);
+            return (cmp != 0) ? cmp : Integer.compare(c.tipo[x], c.tipo[y]);   // stabile
+        });
+        int[] posizione = new int[n];                     // record provvisorio → posizione finale
+        for (int i = 0; i < n; i++) posizione[ordine[i]] = i;
+
+        Integer[] indice = new Integer[n];
+        for (int i = 0; i < n; i++) indice[i] = i;
+        Arrays.sort(indice, (x, y) -> {
+            int cmp = Integer.compare(disciplina(c.tipoGara[x], c.specialita[x]),
+                                      disciplina(c.tipoGara[y], c.specialita[y]));
+            if (cmp == 0) cmp = Integer.compare(meetingCampi[c.meeting[x]][3], meetingCampi[c.meeting[y]][3]);
+            if (cmp == 0) cmp = Integer.compare(c.merito(y), c.merito(x));
+            return cmp;
+        });
+
+        // ── offset delle sezioni ───────────────────────────────────────────
+        long lunghezzaDati = 0;
+        for (byte[] b : utf8) lunghezzaDati += b.length;
+        long offRecord   = DIM_INTESTAZIONE;
+        long offIndice   = offRecord + (long) n * DIM_RECORD;
+        long offMeeting  = offIndice + (long) n * 4;
+        long offStringhe = offMeeting + (long) meetings.size() * DIM_MEETING;
+        long offDati     = offStringhe + (long) (s + 1) * 4;
+        if (offDati + lunghezzaDati > Integer.MAX_VALUE)
+            throw new IOException("archivio oltre 2 GB: dividere per stagione");
+
+        Path cartella = file.toAbsolutePath().getParent();
+        if (cartella != null) Files.createDirectories(cartella);
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            SnapshotMeeting.Scrittore out = new SnapshotMeeting.Scrittore(ch);
+            out.intero(MAGIA);
+            out.corto(VERSIONE);
+            out.corto((short) 0);
+            out.intero(n);
+            out.intero(meetings.size());
+            out.intero(s);
+            out.intero((int) offRecord);
+            out.intero((int) offIndice);
+            out.intero((int) offMeeting);
+            out.intero((int) offStringhe);
+            out.intero((int) offDati);
+            for (int i = 40; i < DIM_INTESTAZIONE; i += 4) out.intero(0);
+
+            for (int k = 0; k < n; k++) {
+                int i = ordine[k];
+                out.intero(c.meeting[i]);
+                out.intero(idFinale[c.gara[i]]);
+                out.intero(idFinale[c.atleta[i]]);
+                out.intero(c.pettorale[i]);
+                out.byte_(c.tipo[i]);
+                out.byte_(c.sesso[i]);
+                out.byte_(c.tipoGara[i]);
+                out.byte_((byte) c.specialita[i]);
+                out.intero(c.valore[i]);
+                out.intero(c.secondario[i]);
+                out.intero(c.punteggio[i]);
+            }
+            for (int k = 0; k < n; k++) out.intero(posizione[indice[k]]);
+            for (int[] mc : meetingCampi) {
+                out.intero(riassegna(mc[0], idFinale));
+                out.intero(riassegna(mc[1], idFinale));
+                out.intero(riassegna(mc[2], idFinale));
+                out.intero(mc[3]);
+            }
+            int offset = 0;
+            out.intero(0);
+            for (int i = 0; i < s; i++) out.intero(offset += utf8[ordineStr[i]].length);
+            for (int i = 0; i < s; i++) out.bytes(utf8[ordineStr[i]]);
+            out.svuota();
+            ch.force(false);
+        }
+        try {
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static int riassegna(int id, int[] idFinale) { return (id == ASSENTE) ? ASSENTE : idFinale[id]; }
+
+    private static int intern(String s, Map<String, Integer> ids, List<String> stringhe) {
+        if (s == null) return ASSENTE;
+        Integer id = ids.get(s);
+        if (id == null) {
+            id = stringhe.size();
+            ids.put(s, id);
+            stringhe.add(s);
+        }
+        return id;
+    }
+
+    private static byte codiceSesso(String sesso) {
+        if ("M".equalsIgnoreCase(sesso)) return 0;
+        if ("F".equalsIgnoreCase(sesso)) return 1;
+        return 2;
+    }
+
+    /** Primo anno a quattro cifre nella data del meeting, 0 se assente. */
+    static int stagioneDa(String data) {
+        if (data == null) return 0;
+        int cifre = 0;
+        for (int i = 0; i < data.length(); i++) {
+            char ch = data.charAt(i);
+            if (ch >= '0' && ch <= '9') {
+                if (++cifre == 4 && (i + 1 == data.length() || !Character.isDigit(data.charAt(i + 1))))
+                    return Integer.parseInt(data.substring(i - 3, i + 1));
+            } else {
+                cifre = 0;
+            }
+        }
+        return 0;
+    }
+
+    /** Colonne provvisorie dei record durante la scrittura. */
+    private static final class Colonne {
+        int[]  meeting = new int[64], gara = new int[64], atleta = new int[64], pettorale = new int[64];
+        int[]  valore  = new int[64], secondario = new int[64], punteggio = new int[64], specialita = new int[64];
+        byte[] tipo    = new byte[64], sesso = new byte[64], tipoGara = new byte[64];
+        int    n;
+
+        void aggiungi(int m, int g, int a, int pett, Prestazione p, byte sx, byte tg, int spec) {
+            if (n == meeting.length) cresci();
+            Prestazione.Tipo t = p.getTipo();
+            meeting[n]    = m;
+            gara[n]       = g;
+            atleta[n]     = a;
+            pettorale[n]  = pett;
+            tipo[n]       = (byte) t.ordinal();
+            sesso[n]      = sx;
+            tipoGara[n]   = tg;
+            specialita[n] = spec;
+            Integer v, sec;
+            if (t.isCorsa()) {
+                int ms = p.getTempoGaraMillis();
+                v   = (ms != Prestazione.TEMPO_ASSENTE) ? ms : null;
+                sec = (t == Prestazione.Tipo.VELOCISTA)   ? p.getTempoReazione()
+                    : (t == Prestazione.Tipo.OSTACOLISTA) ? p.getTempoOstacolo() : null;
+            } else {
+                v   = (t == Prestazione.Tipo.SALTO) ? p.getDistanzaSalto() : p.getDistanzaLancio();
+                sec = null;
+            }
+            valore[n]     = (v   != null) ? v   : ASSENTE;
+            secondario[n] = (sec != null) ? sec : ASSENTE;
+            punteggio[n]  = p.calcolaPunteggio();
+            n++;
+        }
+
+        int merito(int i) {
+            if (valore[i] == ASSENTE) return ASSENTE;
+            return (tipoGara[i] == GARA_CORSA) ? -valore[i] : valore[i];
+        }
+
+        private void cresci() {
+            int c = n * 2;
+            meeting    = Arrays.copyOf(meeting, c);    gara       = Arrays.copyOf(gara, c);
+            atleta     = Arrays.copyOf(atleta, c);     pettorale  = Arrays.copyOf(pettorale, c);
+            valore     = Arrays.copyOf(valore, c);     secondario = Arrays.copyOf(secondario, c);
+            punteggio  = Arrays.copyOf(punteggio, c);  specialita = Arrays.copyOf(specialita, c);
+            tipo       = Arrays.copyOf(tipo, c);       sesso      = Arrays.copyOf(sesso, c);
+            tipoGara   = Arrays.copyOf(tipoGara, c);
+        }
+    }
+}
@@ -41,6 +41,12 @@ public abstract class Atleta {
     protected Integer eta;
     protected Integer pettorale;  // numero maglia – identifica l'atleta nel meeting
 
+    /** Cresce a ogni setter anagrafico: le cache delle descrizioni la confrontano. */
+    private volatile int versioneAnagrafica;
+
+    /** Timbro di RegistroAtleti: epoca del calcolo (32 bit alti) e slot (32 bassi). */
+    private volatile long timbroCalcolo;
+
     // ── mappa prestazioni (una voce per ogni gara a cui partecipa) ─────────
 
     /**
@@ -53,16 +59,43 @@ public abstract class Atleta {
     // ── getter/setter anagrafici ───────────────────────────────────────────
 
     public String  getNome()                       { return nome; }
-    public void    setNome(String nome)            { this.nome = nome; }
+    public void    setNome(String nome)            { this.nome = nome; versioneAnagrafica++; }
 
     public String  getSesso()                      { return sesso; }
-    public void    setSesso(String sesso)          { this.sesso = sesso; }
+    public void    setSesso(String sesso)          { this.sesso = sesso; versioneAnagrafica++; }
 
     public Integer getEta()                        { return eta; }
-    public void    setEta(Integer eta)             { this.eta = eta; }
+    public void    setEta(Integer eta)             { this.eta = eta; versioneAnagrafica++; }
 
     public Integer getPettorale()                  { return pettorale; }
-    public void    setPettorale(Integer pettorale) { this.pettorale = pettorale; }
+
+    /** Versione dei dati anagrafici (nome, sesso, età, pettorale). */
+    int getVersioneAnagrafica()                    { return versioneAnagrafica; }
+
+    /** Slot assegnato dal calcolo con quell'epoca, -1 se il timbro è di un altro calcolo. */
+    int slotNelCalcolo(int epoca) {
+        long t = timbroCalcolo;
+        return ((int) (t >>> 32) == epoca) ? (int) t : -1;
+    }
+
+    void timbraCalcolo(int epoca, int slot) { timbroCalcolo = ((long) epoca << 32) | slot; }
+
+    /**
+     * Cambia il numero di maglia in tutte le gare a cui l'atleta è iscritto.
+     * Il controllo precede ogni modifica: se fallisce, atleta e gare restano
+     * invariati.
+     *
+     * @throws IllegalArgumentException se il pettorale è null o è già
+     *         assegnato a un altro iscritto di una di queste gare
+     */
+    public void    setPettorale(Integer pettorale) {
+        if (pettorale == null) throw new IllegalArgumentException("pettorale non puo essere null");
+        for (Gara g : prestazioni.keySet()) g.verificaPettorale(this, pettorale);
+        Integer vecchio = this.pettorale;
+        this.pettorale  = pettorale;
+        versioneAnagrafica++;
+        for (Gara g : prestazioni.keySet()) g.pettoraleModificato(this, vecchio);
+    }
 
     // ── gestione prestazioni ───────────────────────────────────────────────
 
@@ -92,8 +125,18 @@ public abstract class Atleta {
     /** Numero di gare a cui l'atleta partecipa. */
     public int getNumeroGare()              { return prestazioni.size(); }
 
-    /** Rimuove l'atleta da una gara (es. ritiro). */
-    public boolean rimuoviPrestazione(Gara gara) { return prestazioni.remove(gara) != null; }
+    /**
+     * Rimuove l'atleta da una gara (es. ritiro).
+     * Mantiene coerente anche la gara: l'atleta esce da iscritti e classifica.
+     */
+    public boolean rimuoviPrestazione(Gara gara) {
+        Prestazione p = prestazioni.remove(gara);
+        if (p == null) return false;
+        p.scollega();
+        gara.rimuoviAtleta(this);
+        gara.prestazioneRimossa(p);
+        return true;
+    }
 
     // ── metodo astratto – implementato dalle sottoclassi ──────────────────
 
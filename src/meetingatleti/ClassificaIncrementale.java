@@ -0,0 +1,297 @@
+package meetingatleti;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Classifica di una gara mantenuta in modo incrementale.
+ *
+ * Struttura: albero AVL "order-statistic" (ogni nodo conosce la dimensione del
+ * proprio sottoalbero), ordinato per chiave (punteggio desc, spareggio desc,
+ * pettorale asc, ordine di iscrizione asc). Una mappa identità Atleta → nodo permette di
+ * ritrovare la voce di un atleta senza scansioni.
+ *
+ * Costi:
+ *   inserisci / rimuovi / aggiorna punteggio  → O(log n)
+ *   posizione, pariMerito, medaglia di un atleta → O(log n)
+ *   voce alla k-esima riga                     → O(log n)
+ *   elenco completo delle voci                 → O(n), senza riordinare
+ *
+ * Le regole di posizione coincidono con {@link MotoreClassifica}:
+ * la posizione è 1 + numero di atleti con (punteggio, spareggio) strettamente
+ * migliore, pariMerito è true se l'atleta precedente ha stessi punteggio e spareggio.
+ *
+ * Usata internamente da {@link Gara}: non è thread-safe.
+ */
+final class ClassificaIncrementale {
+
+    private static final class Nodo {
+        final Atleta atleta;
+        final long   ordineIscrizione;
+        int  punteggio;
+        long spareggio;
+        int  pettorale;
+        Nodo sx, dx;
+        int  altezza    = 1;
+        int  dimensione = 1;
+
+        Nodo(Atleta atleta, int punteggio, long spareggio, long ordineIscrizione) {
+            this.atleta           = atleta;
+            this.punteggio        = punteggio;
+            this.spareggio        = spareggio;
+            this.pettorale        = atleta.getPettorale();
+            this.ordineIscrizione = ordineIscrizione;
+        }
+    }
+
+    private Nodo radice;
+    private long prossimoOrdine;
+    private final Map<Atleta, Nodo> nodi = new IdentityHashMap<>();
+
+    // ── dimensione ─────────────────────────────────────────────────────────
+
+    int     dimensione()            { return nodi.size(); }
+    boolean contiene(Atleta a)      { return nodi.containsKey(a); }
+
+    void svuota() {
+        radice = null;
+        prossimoOrdine = 0;
+        nodi.clear();
+    }
+
+    // ── modifiche O(log n) ─────────────────────────────────────────────────
+
+    /** Inserisce un atleta (o ne aggiorna il punteggio se già presente). */
+    void inserisci(Atleta atleta, int punteggio, long spareggio) {
+        if (nodi.containsKey(atleta)) { aggiorna(atleta, punteggio, spareggio); return; }
+        Nodo n = new Nodo(atleta, punteggio, spareggio, prossimoOrdine++);
+        nodi.put(atleta, n);
+        radice = inserisci(radice, n);
+    }
+
+    /** Rimuove un atleta. @return true se era presente */
+    boolean rimuovi(Atleta atleta) {
+        Nodo n = nodi.remove(atleta);
+        if (n == null) return false;
+        radice = rimuovi(radice, n);
+        return true;
+    }
+
+    /**
+     * Aggiorna il punteggio di un atleta già presente.
+     * L'ordine di iscrizione originale è conservato per gli spareggi.
+     */
+    void aggiorna(Atleta atleta, int punteggio, long spareggio) {
+        Nodo n = nodi.get(atleta);
+        if (n == null) return;
+        if (n.punteggio == punteggio && n.spareggio == spareggio
+                && n.pettorale == atleta.getPettorale()) return;
+        radice = rimuovi(radice, n);
+        n.punteggio  = punteggio;
+        n.spareggio  = spareggio;
+        n.pettorale  = atleta.getPettorale();
+        n.sx = n.dx  = null;
+        n.altezza    = 1;
+        n.dimensione = 1;
+        radice = inserisci(radice, n);
+    }
+
+    /** Riposiziona l'atleta dopo un cambio di pettorale (punteggio invariato). */
+    void riposiziona(Atleta atleta) {
+        Nodo n = nodi.get(atleta);
+        if (n != null) aggiorna(atleta, n.punteggio, n.spareggio);
+    }
+
+    // ── letture O(log n) ───────────────────────────────────────────────────
+
+    /** Posizione 1-based dell'atleta (con pari merito), 0 se non presente. */
+    int posizione(Atleta atleta) {
+        Nodo n = nodi.get(atleta);
+        return (n == null) ? 0 : contaMigliori(n) + 1;
+    }
+
+    /** True se l'atleta precedente in classifica ha stessi punteggio e spareggio. */
+    boolean isPariMerito(Atleta atleta) {
+        Nodo n = nodi.get(atleta);
+        return n != null && rango(n) > contaMigliori(n);
+    }
+
+    /** Punteggio registrato per l'atleta, 0 se non presente. */
+    int punteggio(Atleta atleta) {
+        Nodo n = nodi.get(atleta);
+        return (n == null) ? 0 : n.punteggio;
+    }
+
+    /** Voce completa dell'atleta, o null se non presente. */
+    VocePunteggio voce(Atleta atleta) {
+        Nodo n = nodi.get(atleta);
+        if (n == null) return null;
+        int migliori = contaMigliori(n);
+        return new VocePunteggio(atleta, migliori + 1, n.punteggio, rango(n) > migliori);
+    }
+
+    /** Voce alla riga {@code indice} (0-based) della classifica. */
+    VocePunteggio voceAllaRiga(int indice) {
+        if (indice < 0 || indice >= dimensione())
+            throw new IndexOutOfBoundsException("riga " + indice + " su " + dimensione());
+        Nodo n = seleziona(indice);
+        int migliori = contaMigliori(n);
+        return new VocePunteggio(n.atleta, migliori + 1, n.punteggio, indice > migliori);
+    }
+
+    /** Primo atleta in classifica, o null se vuota. */
+    Atleta primo() {
+        if (radice == null) return null;
+        Nodo n = radice;
+        while (n.sx != null) n = n.sx;
+        return n.atleta;
+    }
+
+    // ── lettura completa O(n) ──────────────────────────────────────────────
+
+    /** Tutte le voci in ordine di classifica (visita in-order, nessun sort). */
+    ArrayList<VocePunteggio> voci() {
+        ArrayList<VocePunteggio> lista = new ArrayList<>(dimensione());
+        Nodo[] pila = new Nodo[altezza(radice) + 1];
+        int top = 0, i = 0;
+        int posizioneCorrente = 0;
+        Nodo prec = null;
+        Nodo cur  = radice;
+        while (cur != null || top > 0) {
+            while (cur != null) { pila[top++] = cur; cur = cur.sx; }
+            cur = pila[--top];
+            boolean par = prec != null && cur.punteggio == prec.punteggio
+                                       && cur.spareggio == prec.spareggio;
+            if (!par) posizioneCorrente = i + 1;
+            lista.add(new VocePunteggio(cur.atleta, posizioneCorrente, cur.punteggio, par));
+            prec = cur;
+            i++;
+            cur = cur.dx;
+        }
+        return lista;
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    //  ALBERO AVL
+    // ══════════════════════════════════════════════════════════════════════
+
+    /** Ordine (punteggio desc, spareggio desc, pettorale asc, iscrizione asc): < 0 se a precede b. */
+    private static int confronta(Nodo a, Nodo b) {
+        int cmp = Integer.compare(b.punteggio, a.punteggio);
+        if (cmp != 0) return cmp;
+        cmp = Long.compare(b.spareggio, a.spareggio);
+        if (cmp != 0) return cmp;
+        cmp = Integer.compare(a.pettorale, b.pettorale);
+        return (cmp != 0) ? cmp : Long.compare(a.ordineIscrizione, b.ordineIscrizione);
+    }
+
+    /**
+     * Numero di nodi con (punteggio, spareggio) strettamente migliore di k.
+     * Nell'ordine dell'albero questi nodi formano un prefisso.
+     */
+    private int contaMigliori(Nodo k) {
+        int conta = 0;
+        Nodo n = radice;
+        while (n != null) {
+            boolean migliore = n.punteggio > k.punteggio
+                    || (n.punteggio == k.punteggio && n.spareggio > k.spareggio);
+            if (migliore) { conta += dimensione(n.sx) + 1; n = n.dx; }
+            else            n = n.sx;
+        }
+        return conta;
+    }
+
+    /** Indice 0-based del nodo nell'ordine di classifica. */
+    private int rango(Nodo k) {
+        int r = 0;
+        Nodo n = radice;
+        while (n != null) {
+            int cmp = confronta(k, n);
+            if (cmp < 0)      n = n.sx;
+            else if (cmp > 0) { r += dimensione(n.sx) + 1; n = n.dx; }
+            else              return r + dimensione(n.sx);
+        }
+        return r;
+    }
+
+    private Nodo seleziona(int indice) {
+        Nodo n = radice;
+        while (true) {
+            int s = dimensione(n.sx);
+            if (indice < s)       n = n.sx;
+            else if (indice > s)  { indice -= s + 1; n = n.dx; }
+            else                  return n;
+        }
+    }
+
+    private static Nodo inserisci(Nodo t, Nodo n) {
+        if (t == null) return n;
+        if (confronta(n, t) < 0) t.sx = inserisci(t.sx, n);
+        else                     t.dx = inserisci(t.dx, n);
+        return bilancia(t);
+    }
+
+    private static Nodo rimuovi(Nodo t, Nodo k) {
+        if (t == null) return null;
+        int cmp = confronta(k, t);
+        if (cmp < 0)      t.sx = rimuovi(t.sx, k);
+        else if (cmp > 0) t.dx = rimuovi(t.dx, k);
+        else {
+            if (t.sx == null) return t.dx;
+            if (t.dx == null) return t.sx;
+            Nodo m = t.dx;
+            while (m.sx != null) m = m.sx;
+            m.dx = rimuoviMinimo(t.dx);
+            m.sx = t.sx;
+            t = m;
+        }
+        return bilancia(t);
+    }
+
+    private static Nodo rimuoviMinimo(Nodo t) {
+        if (t.sx == null) return t.dx;
+        t.sx = rimuoviMinimo(t.sx);
+        return bilancia(t);
+    }
+
+    private static int altezza(Nodo n)    { return (n == null) ? 0 : n.altezza; }
+    private static int dimensione(Nodo n) { return (n == null) ? 0 : n.dimensione; }
+
+    private static void aggiornaNodo(Nodo n) {
+        n.altezza    = 1 + Math.max(altezza(n.sx), altezza(n.dx));
+        n.dimensione = 1 + dimensione(n.sx) + dimensione(n.dx);
+    }
+
+    private static Nodo bilancia(Nodo n) {
+        aggiornaNodo(n);
+        int fattore = altezza(n.sx) - altezza(n.dx);
+        if (fattore > 1) {
+            if (altezza(n.sx.sx) < altezza(n.sx.dx)) n.sx = ruotaSinistra(n.sx);
+            return ruotaDestra(n);
+        }
+        if (fattore < -1) {
+            if (altezza(n.dx.dx) < altezza(n.dx.sx)) n.dx = ruotaDestra(n.dx);
+            return ruotaSinistra(n);
+        }
+        return n;
+    }
+
+    private static Nodo ruotaDestra(Nodo n) {
+        Nodo s = n.sx;
+        n.sx = s.dx;
+        s.dx = n;
+        aggiornaNodo(n);
+        aggiornaNodo(s);
+        return s;
+    }
+
+    private static Nodo ruotaSinistra(Nodo n) {
+        Nodo d = n.dx;
+        n.dx = d.sx;
+        d.sx = n;
+        aggiornaNodo(n);
+        aggiornaNodo(d);
+        return d;
+    }
+}
@@ -0,0 +1,354 @@
+package meetingatleti;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Esportazione in streaming delle classifiche (di gara e generale del meeting)
+ * su un Writer o un OutputStream, in tre formati:
+ *
+ *   CSV             : una riga per voce, separatore ';' (lo stesso di
+ *                     ImportatoreCsv), intestazione scritta una sola volta
+ *   JSONL           : un oggetto JSON per riga (JSON Lines)
+ *   JSON            : gli stessi oggetti in un unico array, chiuso da close()
+ *   LARGHEZZA_FISSA : tabellone dei risultati a colonne fisse, un blocco
+ *                     con titolo per ogni classifica
+ *
+ * Schema comune (CSV, JSONL e JSON):
+ *   classifica, categoria, posizione, pari, medaglia, pettorale, nome, sesso,
+ *   punti, gare   (gare solo per la classifica generale; categoria solo per le gare)
+ *
+ * Nessuna stringa intermedia per riga: i caratteri sono accodati in un buffer
+ * fisso riversato sul Writer quando è pieno, i numeri sono convertiti a mano
+ * (niente String.format né Integer.toString) e i testi sono copiati carattere
+ * per carattere con l'escaping del formato. Oltre al buffer, per ogni gara
+ * si copiano solo i riferimenti alle voci già in cache sulla Gara e i
+ * pettorali, sotto il suo lock; la scrittura avviene fuori dal lock.
+ */
+final class EsportatoreClassifiche implements Closeable, Flushable {
+
+    enum Formato { CSV, JSONL, JSON, LARGHEZZA_FISSA }
+
+    static final char SEPARATORE_CSV = ';';
+
+    /** Etichetta della classifica generale nella colonna "classifica". */
+    static final String CLASSIFICA_GENERALE = "Generale";
+
+    // larghezze del formato a colonne fisse
+    private static final int L_POSIZIONE = 5;
+    private static final int L_PETTORALE = 6;
+    private static final int L_NOME      = 28;
+    private static final int L_SESSO     = 3;
+    private static final int L_PUNTI     = 9;
+    private static final int L_GARE      = 5;
+    private static final int L_MEDAGLIA  = 8;
+    private static final int L_RIGA      = L_POSIZIONE + L_PETTORALE + L_NOME + L_SESSO
+                                         + L_PUNTI + L_GARE + L_MEDAGLIA + 7;
+
+    private final Writer  out;
+    private final Formato formato;
+    private final char[]  buf = new char[8192];
+    private int     n;
+    private boolean intestazioneScritta;
+    private final char[] cifre = new char[11];
+
+    EsportatoreClassifiche(Writer out, Formato formato) {
+        if (out == null)     throw new IllegalArgumentException("out non puo essere null");
+        if (formato == null) throw new IllegalArgumentException("formato non puo essere null");
+        this.out     = out;
+        this.formato = formato;
+    }
+
+    /** Scrive in UTF-8 sullo stream. */
+    EsportatoreClassifiche(OutputStream out, Formato formato) {
+        this(new OutputStreamWriter(verificaOut(out), StandardCharsets.UTF_8), formato);
+    }
+
+    private static OutputStream verificaOut(OutputStream out) {
+        if (out == null) throw new IllegalArgumentException("out non puo essere null");
+        return out;
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    //  CLASSIFICHE
+    // ══════════════════════════════════════════════════════════════════════
+
+    /**
+     * Esporta la classifica di una gara. Voci e pettorali sono copiati sotto
+     * il lock della gara, la scrittura avviene dopo averlo rilasciato: un
+     * Writer lento non blocca iscrizioni e risultati.
+     */
+    void esportaGara(Gara gara) throws IOException {
+        if (gara == null) throw new IllegalArgumentException("gara non puo essere null");
+        String nome, categoria;
+        ArrayList<VocePunteggio> voci;
+        Integer[] pettorali;
+        synchronized (gara) {
+            nome      = gara.getNomeGara();
+            categoria = gara.getCategoria();
+            voci      = new ArrayList<>(gara.getClassificaVoci());
+            pettorali = new Integer[voci.size()];
+            for (int i = 0; i < pettorali.length; i++) pettorali[i] = voci.get(i).getAtleta().getPettorale();
+        }
+        if (formato == Formato.LARGHEZZA_FISSA) titolo(nome, categoria);
+        for (int i = 0; i < pettorali.length; i++) {
+            VocePunteggio v = voci.get(i);
+            Atleta a = v.getAtleta();
+            voce(nome, categoria, v.getPosizione(), v.isPariMerito(), v.getMedaglia(),
+                 pettorali[i], a.getNome(), a.getSesso(), v.getPunteggio(), -1);
+        }
+    }
+
+    /** Esporta la classifica generale già calcolata. */
+    void esportaClassificaMeeting(List<VocePunteggioMeeting> classifica) throws IOException {
+        if (classifica == null) throw new IllegalArgumentException("classifica non puo essere null");
+        if (formato == Formato.LARGHEZZA_FISSA) titolo(CLASSIFICA_GENERALE, null);
+        for (VocePunteggioMeeting v : classifica)
+            voce(CLASSIFICA_GENERALE, null, v.getPosizione(), v.isPariMerito(), v.getMedaglia(),
+                 v.getPettorale(), v.getNomeAtleta(), v.getSesso(), v.getTotalePunti(), v.getNumeroGare());
+    }
+
+    /** Esporta tutte le gare del meeting in ordine e poi la classifica generale. */
+    void esportaMeeting(Meeting meeting) throws IOException {
+        if (meeting == null) throw new IllegalArgumentException("meeting non puo essere null");
+        for (Gara g : meeting.istantaneaGare()) esportaGara(g);
+        esportaClassificaMeeting(GestorePunteggio.calcolaClassificaMeeting(meeting));
+    }
+
+    // ── una voce ───────────────────────────────────────────────────────────
+
+    /** @param gare numero di gare (classifica generale), -1 se non applicabile */
+    private void voce(String classifica, String categoria, int posizione, boolean pari,
+                      Medaglia medaglia, Integer pettorale, String nome, String sesso,
+                      int punti, int gare) throws IOException {
+        switch (formato) {
+            case CSV:             rigaCsv(classifica, categoria, posizione, pari, medaglia, pettorale, nome, sesso, punti, gare); break;
+            case JSONL:
+            case JSON:            rigaJson(classifica, categoria, posizione, pari, medaglia, pettorale, nome, sesso, punti, gare); break;
+            case LARGHEZZA_FISSA: rigaFissa(posizione, pari, medaglia, pettorale, nome, sesso, punti, gare); break;
+        }
+    }
+
+    private void rigaCsv(String classifica, String categoria, int posizione, boolean pari,
+                         Medaglia medaglia, Integer pettorale, String nome, String sesso,
+                         int punti, int gare) throws IOException {
+        if (!intestazioneScritta) {
+            testo("classifica;categoria;posizione;pari;medaglia;pettorale;nome;sesso;punti;gare\n");
+            intestazioneScritta = true;
+        }
+        campoCsv(classifica);                         car(SEPARATORE_CSV);
+        campoCsv(categoria);                          car(SEPARATORE_CSV);
+        intero(posizione);                            car(SEPARATORE_CSV);
+        car(pari ? '1' : '0');                        car(SEPARATORE_CSV);
+        if (medaglia != Medaglia.NESSUNA) testo(medaglia.name());
+        car(SEPARATORE_CSV);
+        if (pettorale != null) intero(pettorale);
+        car(SEPARATORE_CSV);
+        campoCsv(nome);                               car(SEPARATORE_CSV);
+        campoCsv(sesso);                              car(SEPARATORE_CSV);
+        intero(punti);                                car(SEPARATORE_CSV);
+        if (gare >= 0) intero(gare);
+        car('\n');
+    }
+
+    private void rigaJson(String classifica, String categoria, int posizione, boolean pari,
+                          Medaglia medaglia, Integer pettorale, String nome, String sesso,
+                          int punti, int gare) throws IOException {
+        if (formato == Formato.JSON) {
+            testo(intestazioneScritta ? ",\n" : "[\n");   // apre l'array alla prima voce
+            intestazioneScritta = true;
+        }
+        testo("{\"classifica\":");   stringaJson(classifica);
+        if (categoria != null) { testo(",\"categoria\":"); stringaJson(categoria); }
+        testo(",\"posizione\":");    intero(posizione);
+        testo(pari ? ",\"pari\":true" : ",\"pari\":false");
+        testo(",\"medaglia\":");
+        if (medaglia != Medaglia.NESSUNA) { car('"'); testo(medaglia.name()); car('"'); }
+        else testo("null");
+        testo(",\"pettorale\":");
+        if (pettorale != null) intero(pettorale); else testo("null");
+        testo(",\"nome\":");         stringaJson(nome);
+        testo(",\"sesso\":");        stringaJson(sesso);
+        testo(",\"punti\":");        intero(punti);
+        if (gare >= 0) { testo(",\"gare\":"); intero(gare); }
+        testo(formato == Formato.JSON ? "}" : "}\n");
+    }
+
+    /** Titolo del blocco e intestazione delle colonne (formato a larghezza fissa). */
+    private void titolo(String classifica, String categoria) throws IOException {
+        if (intestazioneScritta) car('\n');
+        intestazioneScritta = true;
+        testoTroncato(classifica, L_RIGA);
+        if (categoria != null) { testo(" ["); testo(categoria); car(']'); }
+        car('\n');
+        ripeti('=', L_RIGA); car('\n');
+        aSinistra("Pos", L_POSIZIONE);  car(' ');
+        aDestra("Pett", L_PETTORALE);   car(' ');
+        aSinistra("Nome", L_NOME);      car(' ');
+        aSinistra("S", L_SESSO);        car(' ');
+        aDestra("Punti", L_PUNTI);      car(' ');
+        aDestra("Gare", L_GARE);        car(' ');
+        aSinistra("Medaglia", L_MEDAGLIA);
+        car('\n');
+        ripeti('-', L_RIGA); car('\n');
+    }
+
+    private void rigaFissa(int posizione, boolean pari, Medaglia medaglia, Integer pettorale,
+                           String nome, String sesso, int punti, int gare) throws IOException {
+        int l = converti(posizione);                 // posizione + "=" allineata a sinistra
+        scriviCifre(l);
+        if (pari) car('=');
+        ripeti(' ', L_POSIZIONE - l - (pari ? 1 : 0)); car(' ');
+        if (pettorale != null) interoADestra(pettorale, L_PETTORALE); else ripeti(' ', L_PETTORALE);
+        car(' ');
+        aSinistra(nome, L_NOME);                      car(' ');
+        aSinistra(sesso, L_SESSO);                    car(' ');
+        interoADestra(punti, L_PUNTI);                car(' ');
+        if (gare >= 0) interoADestra(gare, L_GARE); else ripeti(' ', L_GARE);
+        car(' ');
+        if (medaglia != Medaglia.NESSUNA) testo(medaglia.name());
+        car('\n');
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    //  BUFFER E FORMATTAZIONE
+    // ══════════════════════════════════════════════════════════════════════
+
+    private void car(char c) throws IOException {
+        if (n == buf.length) svuota();
+        buf[n++] = c;
+    }
+
+    private void testo(String s) throws IOException {
+        for (int i = 0, l = s.length(); i < l; i++) car(s.charAt(i));
+    }
+
+    private void ripeti(char c, int volte) throws IOException {
+        for (int i = 0; i < volte; i++) car(c);
+    }
+
+    /** Testo troncato a {@code larghezza} caratteri (null = niente). */
+    private void testoTroncato(String s, int larghezza) throws IOException {
+        if (s == null) return;
+        for (int i = 0, l = Math.min(s.length(), larghezza); i < l; i++) {
+            char c = s.charAt(i);
+            car(c < ' ' ? ' ' : c);
+        }
+    }
+
+    private void aSinistra(String s, int larghezza) throws IOException {
+        int l = (s == null) ? 0 : Math.min(s.length(), larghezza);
+        testoTroncato(s, larghezza);
+        ripeti(' ', larghezza - l);
+    }
+
+    private void aDestra(String s, int larghezza) throws IOException {
+        int l = Math.min(s.length(), larghezza);
+        ripeti(' ', larghezza - l);
+        testoTroncato(s, larghezza);
+    }
+
+    /** Intero in base 10 senza allocazioni. */
+    private void intero(int v) throws IOException {
+        scriviCifre(converti(v));
+    }
+
+    private void interoADestra(int v, int larghezza) throws IOException {
+        int l = converti(v);
+        ripeti(' ', larghezza - l);
+        scriviCifre(l);
+    }
+
+    /**
+     * Converte {@code v} nelle ultime posizioni di {@link #cifre}.
+     * @return numero di caratteri prodotti (segno incluso)
+     */
+    private int converti(int v) {
+        long x = v;
+        boolean negativo = x < 0;
+        if (negativo) x = -x;
+        int i = cifre.length;
+        do {
+            cifre[--i] = (char) ('0' + (int) (x % 10));
+            x /= 10;
+        } while (x != 0);
+        if (negativo) cifre[--i] = '-';
+        return cifre.length - i;
+    }
+
+    private void scriviCifre(int lunghezza) throws IOException {
+        for (int i = cifre.length - lunghezza; i < cifre.length; i++) car(cifre[i]);
+    }
+
+    /** Campo CSV: tra virgolette solo se contiene separatore, virgolette o a capo. */
+    private void campoCsv(String s) throws IOException {
+        if (s == null) return;
+        boolean virgolette = false;
+        for (int i = 0, l = s.length(); i < l && !virgolette; i++) {
+            char c = s.charAt(i);
+            virgolette = c == SEPARATORE_CSV || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!virgolette) { testo(s); return; }
+        car('"');
+        for (int i = 0, l = s.length(); i < l; i++) {
+            char c = s.charAt(i);
+            if (c == '"') car('"');
+            car(c);
+        }
+        car('"');
+    }
+
+    private static final char[] ESA = "0123456789abcdef".toCharArray();
+
+    /** Stringa JSON con escaping (null → null). */
+    private void stringaJson(String s) throws IOException {
+        if (s == null) { testo("null"); return; }
+        car('"');
+        for (int i = 0, l = s.length(); i < l; i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"':  car('\\'); car('"');  break;
+                case '\\': car('\\'); car('\\'); break;
+                case '\n': car('\\'); car('n');  break;
+                case '\r': car('\\'); car('r');  break;
+                case '\t': car('\\'); car('t');  break;
+                default:
+                    if (c < 0x20) {
+                        testo("\\u00"); car(ESA[c >> 4]); car(ESA[c & 0xF]);
+                    } else {
+                        car(c);
+                    }
+            }
+        }
+        car('"');
+    }
+
+    private void svuota() throws IOException {
+        out.write(buf, 0, n);
+        n = 0;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        svuota();
+        out.flush();
+    }
+
+    /** Scrive il buffer (e la chiusura dell'array JSON) e chiude il Writer sottostante. */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (formato == Formato.JSON) testo(intestazioneScritta ? "\n]\n" : "[]\n");
+            svuota();
+        } finally {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package meetingatleti;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Cache delle descrizioni degli atleti per coppia (atleta, gara), usata
+ * dalle liste di FRM_Gara.
+ *
+ * La descrizione ({@code toString(Gara)} delle sottoclassi di Atleta) legge
+ * la prestazione nella gara e ricalcola il punteggio: qui viene costruita
+ * una sola volta e scartata solo quando cambia ciò da cui dipende –
+ * prestazione o iscrizione per quella coppia, rimozione della gara. Nome,
+ * sesso, età e pettorale non generano eventi: ogni descrizione ricorda la
+ * {@link Atleta#getVersioneAnagrafica() versione anagrafica} con cui è stata
+ * costruita ed è ricostruita se l'atleta è cambiato. Un ritiro o l'uscita
+ * dagli atleti liberi tolgono l'atleta da tutte le gare della cache.
+ *
+ * Va registrata come {@link OsservatoreMeeting} sul meeting e su AppData.
+ * Le chiavi sono per identità; gli eventi arrivano da qualunque thread,
+ * quindi l'accesso è sincronizzato.
+ */
+final class EtichetteAtleti implements OsservatoreMeeting {
+
+    /** Descrizione costruita con una certa versione anagrafica dell'atleta. */
+    private static final class Etichetta {
+        final int    versione;
+        final String testo;
+        Etichetta(int versione, String testo) { this.versione = versione; this.testo = testo; }
+    }
+
+    /** gara (null = nessuna) → atleta → descrizione */
+    private final Map<Gara, Map<Atleta, Etichetta>> cache = new IdentityHashMap<>();
+
+    /** Descrizione dell'atleta riferita alla gara (null = nessuna gara). */
+    synchronized String etichetta(Atleta a, Gara g) {
+        Map<Atleta, Etichetta> perGara = cache.computeIfAbsent(g, k -> new IdentityHashMap<>());
+        int versione = a.getVersioneAnagrafica();
+        Etichetta e = perGara.get(a);
+        if (e == null || e.versione != versione) {
+            e = new Etichetta(versione, descrizione(a, g));
+            perGara.put(a, e);
+        }
+        return e.testo;
+    }
+
+    /** Svuota la cache (es. meeting sostituito). */
+    synchronized void svuota() { cache.clear(); }
+
+    private static String descrizione(Atleta a, Gara g) {
+        if (a instanceof Velocisti)  return ((Velocisti) a).toString(g);
+        if (a instanceof Saltatori)  return ((Saltatori) a).toString(g);
+        if (a instanceof Lanciatori) return ((Lanciatori) a).toString(g);
+        return a.toString();
+    }
+
+    private synchronized void invalida(Gara g, Atleta a) {
+        Map<Atleta, Etichetta> perGara = cache.get(g);
+        if (perGara != null) perGara.remove(a);
+    }
+
+    /** Toglie l'atleta da tutte le gare: dopo un ritiro può non essere più mostrato. */
+    private synchronized void dimentica(Atleta a) {
+        for (Map<Atleta, Etichetta> perGara : cache.values()) perGara.remove(a);
+    }
+
+    // ── OsservatoreMeeting ─────────────────────────────────────────────────
+
+    @Override
+    public synchronized void garaRimossa(Meeting meeting, Gara gara, int indice) {
+        cache.remove(gara);
+    }
+
+    @Override
+    public void iscrizione(Gara gara, Atleta atleta, Prestazione prestazione) {
+        invalida(gara, atleta);
+    }
+
+    @Override
+    public void ritiro(Gara gara, Atleta atleta) {
+        dimentica(atleta);
+    }
+
+    @Override
+    public void prestazioneModificata(Gara gara, Atleta atleta, Prestazione prestazione) {
+        invalida(gara, atleta);
+    }
+
+    @Override
+    public void atletaLiberoRimosso(Atleta atleta, int indice) {
+        dimentica(atleta);
+    }
+}
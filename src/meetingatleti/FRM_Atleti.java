@@ -16,6 +16,8 @@ import javax.swing.*;
  *
  * v3: costruisciAtleta() e costruisciPrestazione() sono separati.
  *     L'iscrizione usa sempre gara.iscrizione(atleta, prestazione).
+ * v4: le regole di validazione e costruzione sono in FabbricaAtleti,
+ *     condivise con l'importazione CSV; il form legge solo i campi.
  */
 public class FRM_Atleti extends javax.swing.JFrame {
 
@@ -28,8 +30,7 @@ public class FRM_Atleti extends javax.swing.JFrame {
     public FRM_Atleti() {
         initComponents();
 
-        CMB_TipoAtleta.setModel(new DefaultComboBoxModel<>(
-                new String[]{"Velocista", "Fondometrista", "Ostacolista", "Saltatore", "Pesista"}));
+        CMB_TipoAtleta.setModel(new DefaultComboBoxModel<>(FabbricaAtleti.TIPI.clone()));
         CMB_TipoAtleta.addActionListener(e -> aggiornaCampiExtra());
 
         LST_Atleti.setModel(modelAtleti);
@@ -129,8 +130,8 @@ public class FRM_Atleti extends javax.swing.JFrame {
         try {
             eta       = Integer.parseInt(etaStr);
             pettorale = Integer.parseInt(pettStr);
-            if (eta <= 0 || pettorale <= 0) throw new NumberFormatException();
-        } catch (NumberFormatException ex) {
+            FabbricaAtleti.verificaAnagrafica(eta, pettorale);
+        } catch (IllegalArgumentException ex) {
             JOptionPane.showMessageDialog(this,
                     "Età e Pettorale devono essere numeri interi positivi.",
                     "Errore input", JOptionPane.WARNING_MESSAGE);
@@ -207,18 +208,7 @@ public class FRM_Atleti extends javax.swing.JFrame {
     private Atleta costruisciAtleta(String tipo, String nome, String sesso,
                                     int eta, int pettorale)
             throws IllegalArgumentException {
-        switch (tipo) {
-            case "Velocista":
-            case "Ostacolista":
-            case "Fondometrista":
-                return new Velocisti(nome, sesso, eta, pettorale);
-            case "Saltatore":
-                return new Saltatori(nome, sesso, eta, pettorale);
-            case "Pesista":
-                return new Lanciatori(nome, sesso, eta, pettorale);
-            default:
-                throw new IllegalArgumentException("Tipo atleta non riconosciuto: " + tipo);
-        }
+        return FabbricaAtleti.atleta(tipo, nome, sesso, eta, pettorale);
     }
 
     /**
@@ -227,66 +217,54 @@ public class FRM_Atleti extends javax.swing.JFrame {
      */
     private Prestazione costruisciPrestazione(String tipo)
             throws IllegalArgumentException {
+        int valore, secondario = 0;
         switch (tipo) {
-            case "Velocista": {
-                double tempo, reazioneSec;
+            case "Velocista":
                 try {
-                    tempo       = Double.parseDouble(TXT_Stat1.getText().trim());
-                    reazioneSec = Double.parseDouble(TXT_Stat2.getText().trim());
+                    valore     = Prestazione.secondiInMillis(Double.parseDouble(TXT_Stat1.getText().trim()));
+                    secondario = Prestazione.secondiInMillis(Double.parseDouble(TXT_Stat2.getText().trim()));
                 } catch (NumberFormatException ex) {
                     throw new IllegalArgumentException(
                             "Tempo gara (sec) e Tempo reazione (sec) devono essere numeri validi.");
                 }
-                if (reazioneSec <= 0.5) throw new IllegalArgumentException(
-                        "Il tempo di reazione deve essere maggiore di 0.5 secondi.\n"
-                        + "Valore inserito: " + reazioneSec + " sec");
-                return Prestazione.velocista(tempo, (int)(reazioneSec * 100));
-            }
-            case "Ostacolista": {
-                double tempo;
-                int    penalita;
+                break;
+            case "Ostacolista":
                 try {
-                    tempo    = Double.parseDouble(TXT_Stat1.getText().trim());
-                    penalita = Integer.parseInt(TXT_Stat2.getText().trim());
+                    valore     = Prestazione.secondiInMillis(Double.parseDouble(TXT_Stat1.getText().trim()));
+                    secondario = Integer.parseInt(TXT_Stat2.getText().trim());
                 } catch (NumberFormatException ex) {
                     throw new IllegalArgumentException(
                             "Tempo gara (sec) e Penalità ostacoli (cs) devono essere numeri validi.");
                 }
-                return Prestazione.ostacolista(tempo, penalita);
-            }
-            case "Fondometrista": {
-                double tempo;
+                break;
+            case "Fondometrista":
                 try {
-                    tempo = Double.parseDouble(TXT_Stat1.getText().trim());
+                    valore = Prestazione.secondiInMillis(Double.parseDouble(TXT_Stat1.getText().trim()));
                 } catch (NumberFormatException ex) {
                     throw new IllegalArgumentException(
                             "Tempo gara deve essere un numero decimale (es. 210.5).");
                 }
-                return Prestazione.fondometrista(tempo);
-            }
-            case "Saltatore": {
-                int distanza;
+                break;
+            case "Saltatore":
                 try {
-                    distanza = Integer.parseInt(TXT_Stat1.getText().trim());
+                    valore = Integer.parseInt(TXT_Stat1.getText().trim());
                 } catch (NumberFormatException ex) {
                     throw new IllegalArgumentException(
                             "Distanza salto deve essere un numero intero (cm).");
                 }
-                return Prestazione.salto(distanza);
-            }
-            case "Pesista": {
-                int distanza;
+                break;
+            case "Pesista":
                 try {
-                    distanza = Integer.parseInt(TXT_Stat1.getText().trim());
+                    valore = Integer.parseInt(TXT_Stat1.getText().trim());
                 } catch (NumberFormatException ex) {
                     throw new IllegalArgumentException(
                             "Distanza lancio deve essere un numero intero (cm).");
                 }
-                return Prestazione.lancio(distanza);
-            }
+                break;
             default:
                 throw new IllegalArgumentException("Tipo atleta non riconosciuto: " + tipo);
         }
+        return FabbricaAtleti.prestazione(tipo, valore, secondario);
     }
 
     private void pulisciCampi() {
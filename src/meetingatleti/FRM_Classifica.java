@@ -1,8 +1,9 @@
 package meetingatleti;
 
 import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 
 /**
  * Form 2 di 3 – Classifica della gara corrente.
@@ -18,6 +19,11 @@ import javax.swing.table.DefaultTableModel;
  * – flag parità (posizione suffissata con "=")<br>
  * – pannello statistiche (max, min, media, pari merito)</p>
  *
+ * <p>La tabella usa {@link ModelloClassificaGara}, che avvolge la classifica
+ * della gara senza copiarla riga per riga. Classifica e statistiche sono
+ * lette fuori dall'EDT ({@link AggiornatoreAsincrono}) e rilette quando la
+ * gara cambia.</p>
+ *
  * Navigazione:
  *   BTN_Sinistra  →  torna a FRM_Atleti  (Form 1)
  *   BTN_Destra    →  va a FRM_ClassificaGenerale (Form 3)
@@ -27,19 +33,43 @@ public class FRM_Classifica extends javax.swing.JFrame {
     private static final java.util.logging.Logger logger =
             java.util.logging.Logger.getLogger(FRM_Classifica.class.getName());
 
+    private final ModelloClassificaGara modelloClassifica = new ModelloClassificaGara();
+
+    /** Classifica e statistiche lette fuori dall'EDT, pubblicate insieme. */
+    private final AggiornatoreAsincrono<Gara, Risultato> aggiornatore =
+            new AggiornatoreAsincrono<>(FRM_Classifica::calcolaRisultato, this::mostraRisultato);
+
+    /** Gara mostrata (e osservata), fissata all'apertura del form. */
+    private final Gara gara = AppData.getInstance().getGaraCorrente();
+
+    private final AtomicBoolean aggiornamentoInCoda = new AtomicBoolean();
+
+    private final OsservatoreMeeting osservatore = new OsservatoreMeeting() {
+        @Override public void iscrizione(Gara g, Atleta a, Prestazione p)            { segnalaModifica(); }
+        @Override public void ritiro(Gara g, Atleta a)                               { segnalaModifica(); }
+        @Override public void prestazioneModificata(Gara g, Atleta a, Prestazione p) { segnalaModifica(); }
+        @Override public void pettoraleModificato(Gara g, Atleta a, Integer vecchio) { segnalaModifica(); }
+    };
+
     public FRM_Classifica() {
         initComponents();
         aggiornaClassifica();
+        if (gara != null) gara.aggiungiOsservatore(osservatore);
+    }
+
+    @Override
+    public void dispose() {
+        if (gara != null) gara.rimuoviOsservatore(osservatore);
+        aggiornatore.chiudi();
+        super.dispose();
     }
 
     // ══════════════════════════════════════════════════════════════════════
     //  LOGICA APPLICATIVA
     // ══════════════════════════════════════════════════════════════════════
 
-    /** Carica la classifica della gara corrente nella tabella. */
+    /** Carica la classifica della gara corrente nella tabella (calcolo fuori dall'EDT). */
     private void aggiornaClassifica() {
-        Gara gara = AppData.getInstance().getGaraCorrente();
-
         if (gara == null) {
             LBL_TitoloGara.setText("Nessuna gara selezionata");
             LBL_Statistiche.setText(" ");
@@ -50,34 +80,54 @@ public class FRM_Classifica extends javax.swing.JFrame {
                 + "  [" + gara.getCategoria() + "]  –  "
                 + gara.getTipoDescrizione());
 
-        if (gara.getAtleti().isEmpty()) {
+        aggiornatore.richiedi(gara);
+    }
+
+    /** Notifica della gara (qualunque thread): una raffica = un passaggio sull'EDT. */
+    private void segnalaModifica() {
+        if (aggiornamentoInCoda.compareAndSet(false, true)) {
+            SwingUtilities.invokeLater(() -> {
+                aggiornamentoInCoda.set(false);
+                if (isDisplayable()) aggiornaClassifica();
+            });
+        }
+    }
+
+    /** Classifica e statistiche della gara, lette nello stesso momento. */
+    private static final class Risultato {
+        final ArrayList<VocePunteggio> classifica;
+        final StatisticheGara          statistiche;
+
+        Risultato(ArrayList<VocePunteggio> classifica, StatisticheGara statistiche) {
+            this.classifica  = classifica;
+            this.statistiche = statistiche;
+        }
+    }
+
+    /** Thread delle classifiche. */
+    private static Risultato calcolaRisultato(Gara gara, BooleanSupplier annullato) {
+        synchronized (gara) {
+            return new Risultato(gara.getClassificaVoci(), gara.getStatistiche());
+        }
+    }
+
+    /** EDT: tabella, vincitore e statistiche in un solo passaggio. */
+    private void mostraRisultato(Risultato r) {
+        ArrayList<VocePunteggio> classifica = r.classifica;
+
+        // ── popola la tabella (un solo evento, celle calcolate al disegno) ─
+        modelloClassifica.setClassifica(gara, classifica);
+
+        if (classifica.isEmpty()) {
             LBL_Vincitore.setText("Nessun atleta iscritto.");
             LBL_Statistiche.setText(" ");
             return;
         }
 
-        // ── classifica arricchita via GestorePunteggio ────────────────────
-        ArrayList<VocePunteggio> classifica = GestorePunteggio.calcolaClassifica(gara);
-
-        // ── popola la tabella ─────────────────────────────────────────────
-        DefaultTableModel model = (DefaultTableModel) TBL_Classifica.getModel();
-        model.setRowCount(0);
-
-        for (VocePunteggio vp : classifica) {
-            Atleta a = vp.getAtleta();
-            model.addRow(new Object[]{
-                vp.etichettaCompleta(),        // "🥇 1" / "🥈 2=" / "4"
-                a.getPettorale(),
-                a.getNome(),
-                a.getSesso(),
-                getStatisticaLabel(a),
-                vp.getPunteggio()
-            });
-        }
-
         // ── vincitore ─────────────────────────────────────────────────────
         VocePunteggio v = classifica.get(0);
-        ArrayList<Atleta> pari = gara.getAtletiPariMerito();
+        StatisticheGara stat = r.statistiche;
+        java.util.List<Atleta> pari = stat.getPariMeritoPrimo();
         if (!pari.isEmpty()) {
             // pari merito al primo posto
             StringBuilder sb = new StringBuilder("🏆  Ex-aequo:  ");
@@ -97,29 +147,12 @@ public class FRM_Classifica extends javax.swing.JFrame {
         // ── pannello statistiche ───────────────────────────────────────────
         LBL_Statistiche.setText(String.format(
             "<html><b>Max:</b> %d &nbsp;&nbsp; <b>Min:</b> %d &nbsp;&nbsp; <b>Media:</b> %.1f</html>",
-            gara.getPunteggioMassimo(),
-            gara.getPunteggioMinimo(),
-            gara.getPunteggioMedio()
+            stat.getMassimo(),
+            stat.getMinimo(),
+            stat.getMedia()
         ));
     }
 
-    /** Restituisce la stringa della statistica specifica per tipo di atleta. */
-    private String getStatisticaLabel(Atleta a) {
-        if (a instanceof Velocisti) {
-            Velocisti v = (Velocisti) a;
-            if (v.isOstacolista())
-                return v.getTempoGara() + "s  pen:" + v.getTempoOstacolo() + "cs";
-            if (v.isVelocista())
-                return v.getTempoGara() + "s  reaz:" + v.getTempoReazione() + "cs";
-            return v.getTempoGara() + "s";
-        } else if (a instanceof Saltatori) {
-            return ((Saltatori) a).getDistanzaSalto() + " cm";
-        } else if (a instanceof Lanciatori) {
-            return ((Lanciatori) a).getDistanzaLancio() + " cm";
-        }
-        return "–";
-    }
-
     // ── Navigazione ────────────────────────────────────────────────────────
 
     private void goSinistra() {
@@ -157,12 +190,7 @@ public class FRM_Classifica extends javax.swing.JFrame {
         LBL_TitoloGara.setText("Classifica");
 
         // ── tabella classifica (colonna "Pos." contiene medaglia + parità) ─
-        TBL_Classifica.setModel(new DefaultTableModel(
-                new Object[][]{},
-                new String[]{"Pos.", "Pett.", "Nome", "Sesso", "Statistica", "Punteggio"}
-        ) {
-            @Override public boolean isCellEditable(int r, int c) { return false; }
-        });
+        TBL_Classifica.setModel(modelloClassifica);
         TBL_Classifica.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
         TBL_Classifica.setRowHeight(22);
         TBL_Classifica.getColumnModel().getColumn(0).setPreferredWidth(60);   // Pos.
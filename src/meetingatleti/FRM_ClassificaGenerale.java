@@ -1,8 +1,10 @@
 package meetingatleti;
 
 import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 
 /**
  * Form 3 di 3 – Classifica Generale del Meeting.
@@ -21,6 +23,15 @@ import javax.swing.table.DefaultTableModel;
  * {@link GestorePunteggio#calcolaClassificaMeeting(Meeting)} e visualizzata
  * come lista di {@link VocePunteggioMeeting} nella terza tabella.</p>
  *
+ * <p>Le tre tabelle usano modelli propri ({@link ModelloVincitoriGare},
+ * {@link ModelloClassificaGara}, {@link ModelloClassificaMeeting}) che
+ * avvolgono le classifiche senza copiarle riga per riga.</p>
+ *
+ * <p>Le classifiche sono calcolate fuori dall'EDT da
+ * {@link AggiornatoreAsincrono} e ricalcolate quando il meeting cambia
+ * (il form è un {@link OsservatoreMeeting}); più modifiche ravvicinate
+ * producono un solo ricalcolo.</p>
+ *
  * Navigazione:
  *   BTN_Sinistra  →  torna a FRM_Classifica (Form 2)
  *   BTN_Destra    →  disabilitato (siamo all'ultimo form)
@@ -30,107 +41,163 @@ public class FRM_ClassificaGenerale extends javax.swing.JFrame {
     private static final java.util.logging.Logger logger =
             java.util.logging.Logger.getLogger(FRM_ClassificaGenerale.class.getName());
 
-    /** Mappa riga di TBL_Vincitori → oggetto Gara reale. */
-    private final java.util.List<Gara> indiceGare = new ArrayList<>();
+    private final ModelloVincitoriGare     modelloVincitori = new ModelloVincitoriGare();
+    private final ModelloClassificaGara    modelloGara      = new ModelloClassificaGara();
+    private final ModelloClassificaMeeting modelloGenerale  = new ModelloClassificaMeeting();
+
+    /** Calcolo delle classifiche fuori dall'EDT, pubblicate con un solo passaggio. */
+    private final AggiornatoreAsincrono<Richiesta, Riepilogo> aggiornatore =
+            new AggiornatoreAsincrono<>(FRM_ClassificaGenerale::calcolaRiepilogo, this::mostraRiepilogo);
+
+    /** Meeting osservato: ogni modifica chiede un aggiornamento. */
+    private final Meeting meeting = AppData.getInstance().getMeeting();
+
+    /** true se un aggiornamento è già stato chiesto all'EDT e non ancora eseguito. */
+    private final AtomicBoolean aggiornamentoInCoda = new AtomicBoolean();
+
+    /** true mentre mostraRiepilogo riseleziona la gara corrente. */
+    private boolean inPubblicazione;
+
+    private final OsservatoreMeeting osservatore = new OsservatoreMeeting() {
+        @Override public void garaAggiunta(Meeting m, Gara g)                            { segnalaModifica(); }
+        @Override public void garaRimossa(Meeting m, Gara g, int indice)                 { segnalaModifica(); }
+        @Override public void iscrizione(Gara g, Atleta a, Prestazione p)                { segnalaModifica(); }
+        @Override public void ritiro(Gara g, Atleta a)                                   { segnalaModifica(); }
+        @Override public void prestazioneModificata(Gara g, Atleta a, Prestazione p)     { segnalaModifica(); }
+        @Override public void pettoraleModificato(Gara g, Atleta a, Integer vecchio)     { segnalaModifica(); }
+    };
 
     public FRM_ClassificaGenerale() {
         initComponents();
         aggiornaRiepilogo();
+        meeting.aggiungiOsservatore(osservatore);
         // selezionare una riga in TBL_Vincitori aggiorna TBL_GaraCorrente
         TBL_Vincitori.getSelectionModel().addListSelectionListener(e -> {
-            if (!e.getValueIsAdjusting()) {
+            if (!e.getValueIsAdjusting() && !inPubblicazione) {
                 int row = TBL_Vincitori.getSelectedRow();
-                if (row >= 0 && row < indiceGare.size()) {
-                    Gara sel = indiceGare.get(row);
+                if (row >= 0 && row < modelloVincitori.getRowCount()) {
+                    Gara sel = modelloVincitori.getGara(row);
                     AppData.getInstance().setGaraCorrente(sel);
-                    LBL_SottoTitolo.setText("Dettaglio punteggi  –  "
-                            + sel.getNomeGara() + "  [" + sel.getCategoria() + "]");
-                    populateTabellaGara(sel);
+                    populateTabellaGara(sel, sel.getClassificaVoci());
                 }
             }
         });
     }
 
+    @Override
+    public void dispose() {
+        meeting.rimuoviOsservatore(osservatore);
+        aggiornatore.chiudi();
+        super.dispose();
+    }
+
     // ══════════════════════════════════════════════════════════════════════
     //  LOGICA APPLICATIVA
     // ══════════════════════════════════════════════════════════════════════
 
-    /** Popola tutte le tabelle. */
+    /**
+     * Chiede il ricalcolo di tutte le tabelle (EDT).
+     *
+     * Sull'EDT si copia solo l'elenco delle gare e si legge la gara corrente;
+     * vincitori, classifica generale e classifica della gara corrente sono
+     * calcolati da {@link #calcolaRiepilogo} sul thread delle classifiche.
+     */
     private void aggiornaRiepilogo() {
-        Meeting meeting = AppData.getInstance().getMeeting();
         LBL_TitoloMeeting.setText("Classifica Generale  –  " + meeting.getNome()
                 + "  |  " + meeting.getData() + "  |  " + meeting.getLuogo());
+        aggiornatore.richiedi(new Richiesta(new ArrayList<>(meeting.getGare()),
+                                            AppData.getInstance().getGaraCorrente()));
+    }
+
+    /**
+     * Notifica di un osservatore (qualunque thread, dentro il lock della
+     * gara): una raffica di modifiche produce un solo passaggio sull'EDT.
+     */
+    private void segnalaModifica() {
+        if (aggiornamentoInCoda.compareAndSet(false, true)) {
+            SwingUtilities.invokeLater(() -> {
+                aggiornamentoInCoda.set(false);
+                if (isDisplayable()) aggiornaRiepilogo();
+            });
+        }
+    }
 
-        populateTabellaVincitori(meeting);
-        populateTabellaGenerale(meeting);
+    /** Ingresso del calcolo: istantanea presa sull'EDT. */
+    private static final class Richiesta {
+        final List<Gara> gare;
+        final Gara       corrente;
 
-        // pre-seleziona la gara corrente (se presente)
-        Gara garaCorrente = AppData.getInstance().getGaraCorrente();
-        if (garaCorrente != null) {
-            populateTabellaGara(garaCorrente);
-            LBL_SottoTitolo.setText("Dettaglio punteggi  –  "
-                    + garaCorrente.getNomeGara() + "  [" + garaCorrente.getCategoria() + "]");
-        } else {
-            populateTabellaGara(null);
+        Richiesta(List<Gara> gare, Gara corrente) {
+            this.gare     = gare;
+            this.corrente = corrente;
         }
     }
 
-    // ── tabella superiore: una riga per gara con vincitore ─────────────────
-
-    private void populateTabellaVincitori(Meeting meeting) {
-        DefaultTableModel model = (DefaultTableModel) TBL_Vincitori.getModel();
-        model.setRowCount(0);
-        indiceGare.clear();
-
-        for (Gara g : meeting.getGare()) {
-            indiceGare.add(g);
-            Atleta v = g.trovaVincitore();
-            if (v != null) {
-                model.addRow(new Object[]{
-                    g.getNomeGara(),
-                    g.getCategoria(),
-                    g.getTipoDescrizione(),
-                    g.getNumeroPartecipanti(),
-                    v.getNome(),
-                    v.getPettorale(),
-                    v.calcolaPunteggio()
-                });
-            } else {
-                model.addRow(new Object[]{
-                    g.getNomeGara(),
-                    g.getCategoria(),
-                    g.getTipoDescrizione(),
-                    0, "–", "–", "–"
-                });
+    /** Risultato del calcolo, pubblicato in blocco sull'EDT. */
+    private static final class Riepilogo {
+        final List<Gara>                      gare;
+        final VocePunteggio[]                 vincitori;
+        final ArrayList<VocePunteggioMeeting> generale;
+        final Gara                            corrente;
+        final List<VocePunteggio>             vociCorrente;
+
+        Riepilogo(List<Gara> gare, VocePunteggio[] vincitori, ArrayList<VocePunteggioMeeting> generale,
+                  Gara corrente, List<VocePunteggio> vociCorrente) {
+            this.gare         = gare;
+            this.vincitori    = vincitori;
+            this.generale     = generale;
+            this.corrente     = corrente;
+            this.vociCorrente = vociCorrente;
+        }
+    }
+
+    /** Thread delle classifiche: null se il calcolo è stato superato. */
+    private static Riepilogo calcolaRiepilogo(Richiesta r, BooleanSupplier annullato) {
+        VocePunteggio[] vincitori = new VocePunteggio[r.gare.size()];
+        for (int i = 0; i < vincitori.length; i++) {
+            if (annullato.getAsBoolean()) return null;
+            vincitori[i] = r.gare.get(i).trovaVincitoreVoce();
+        }
+        if (annullato.getAsBoolean()) return null;
+
+        ArrayList<VocePunteggioMeeting> generale = GestorePunteggio.calcolaClassificaMeeting(r.gare);
+        if (annullato.getAsBoolean()) return null;
+
+        List<VocePunteggio> vociCorrente = (r.corrente != null) ? r.corrente.getClassificaVoci() : null;
+        return new Riepilogo(r.gare, vincitori, generale, r.corrente, vociCorrente);
+    }
+
+    /** EDT: aggiorna le tre tabelle e le etichette con un risultato completo. */
+    private void mostraRiepilogo(Riepilogo r) {
+        modelloVincitori.setGare(r.gare, r.vincitori);
+        populateTabellaGenerale(r.generale);
+        populateTabellaGara(r.corrente, r.vociCorrente);
+
+        // pre-seleziona la gara corrente (se presente)
+        int riga = (r.corrente != null) ? r.gare.indexOf(r.corrente) : -1;
+        if (riga >= 0) {
+            inPubblicazione = true;
+            try {
+                TBL_Vincitori.setRowSelectionInterval(riga, riga);
+            } finally {
+                inPubblicazione = false;
             }
         }
     }
 
     // ── tabella centrale: classifica completa gara selezionata ─────────────
 
-    private void populateTabellaGara(Gara gara) {
-        DefaultTableModel model = (DefaultTableModel) TBL_GaraCorrente.getModel();
-        model.setRowCount(0);
-
-        if (gara == null || gara.getAtleti().isEmpty()) {
+    private void populateTabellaGara(Gara gara, List<VocePunteggio> classifica) {
+        if (gara == null || classifica == null || classifica.isEmpty()) {
+            modelloGara.setClassifica(null, null);
             LBL_SottoTitolo.setText("Seleziona una gara dalla tabella superiore");
             return;
         }
 
-        // classifica arricchita con medaglie via GestorePunteggio
-        ArrayList<VocePunteggio> classifica = GestorePunteggio.calcolaClassifica(gara);
-
-        for (VocePunteggio vp : classifica) {
-            Atleta a = vp.getAtleta();
-            model.addRow(new Object[]{
-                vp.etichettaCompleta(),
-                a.getPettorale(),
-                a.getNome(),
-                a.getSesso(),
-                getStatisticaLabel(a),
-                vp.getPunteggio()
-            });
-        }
+        // classifica incrementale (con medaglie) mantenuta dalla gara
+        modelloGara.setClassifica(gara, classifica);
+        LBL_SottoTitolo.setText("Dettaglio punteggi  –  "
+                + gara.getNomeGara() + "  [" + gara.getCategoria() + "]");
     }
 
     // ── tabella inferiore: classifica generale del meeting ─────────────────
@@ -139,32 +206,17 @@ public class FRM_ClassificaGenerale extends javax.swing.JFrame {
      * Popola TBL_ClassificaGenerale con i dati prodotti da
      * {@link GestorePunteggio#calcolaClassificaMeeting(Meeting)}.
      */
-    private void populateTabellaGenerale(Meeting meeting) {
-        DefaultTableModel model = (DefaultTableModel) TBL_ClassificaGenerale.getModel();
-        model.setRowCount(0);
-
-        ArrayList<VocePunteggioMeeting> classifica =
-                GestorePunteggio.calcolaClassificaMeeting(meeting);
+    private void populateTabellaGenerale(ArrayList<VocePunteggioMeeting> classifica) {
+        modelloGenerale.setClassifica(classifica);
 
         if (classifica.isEmpty()) {
             LBL_TitoloGenerale.setText("Classifica Generale – nessun atleta registrato");
+            LBL_MiglioreAtleta.setText("🏆  Atleta del Meeting: –");
             return;
         }
 
         LBL_TitoloGenerale.setText("Classifica Generale – totale punti per atleta");
 
-        for (VocePunteggioMeeting vp : classifica) {
-            model.addRow(new Object[]{
-                vp.getMedaglia().getSimbolo() + " " + vp.posizioneLabel(),
-                vp.getPettorale(),
-                vp.getNomeAtleta(),
-                vp.getSesso(),
-                vp.getNumeroGare(),
-                String.format("%.1f", vp.punteggioMedio()),
-                vp.getTotalePunti()
-            });
-        }
-
         // mostra miglior atleta del meeting
         VocePunteggioMeeting migliore = classifica.get(0);
         LBL_MiglioreAtleta.setText("🏆  Atleta del Meeting:  "
@@ -174,21 +226,6 @@ public class FRM_ClassificaGenerale extends javax.swing.JFrame {
                 + "  su " + migliore.getNumeroGare() + " gare");
     }
 
-    private String getStatisticaLabel(Atleta a) {
-        if (a instanceof Velocisti) {
-            Velocisti v = (Velocisti) a;
-            if (v.isOstacolista())
-                return v.getTempoGara() + "s  pen:" + v.getTempoOstacolo() + "cs";
-            if (v.isVelocista())
-                return v.getTempoGara() + "s  reaz:" + v.getTempoReazione() + "cs";
-            return v.getTempoGara() + "s";
-        } else if (a instanceof Saltatori)
-            return ((Saltatori) a).getDistanzaSalto() + " cm";
-        else if (a instanceof Lanciatori)
-            return ((Lanciatori) a).getDistanzaLancio() + " cm";
-        return "–";
-    }
-
     // ── Navigazione ────────────────────────────────────────────────────────
 
     private void goSinistra() {
@@ -226,12 +263,7 @@ public class FRM_ClassificaGenerale extends javax.swing.JFrame {
         LBL_TitoloMeeting.setText("Classifica Generale");
 
         // ── tabella vincitori ──────────────────────────────────────────────
-        TBL_Vincitori.setModel(new DefaultTableModel(
-                new Object[][]{},
-                new String[]{"Gara", "Cat.", "Specialità", "Part.", "Vincitore", "Pett.", "Punteggio"}
-        ) {
-            @Override public boolean isCellEditable(int r, int c) { return false; }
-        });
+        TBL_Vincitori.setModel(modelloVincitori);
         TBL_Vincitori.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
         TBL_Vincitori.setRowHeight(20);
         TBL_Vincitori.getColumnModel().getColumn(0).setPreferredWidth(130);
@@ -249,12 +281,7 @@ public class FRM_ClassificaGenerale extends javax.swing.JFrame {
         LBL_SottoTitolo.setText("Seleziona una gara dalla tabella superiore");
 
         // ── tabella classifica gara corrente ───────────────────────────────
-        TBL_GaraCorrente.setModel(new DefaultTableModel(
-                new Object[][]{},
-                new String[]{"Pos.", "Pett.", "Nome", "Sesso", "Statistica", "Punteggio"}
-        ) {
-            @Override public boolean isCellEditable(int r, int c) { return false; }
-        });
+        TBL_GaraCorrente.setModel(modelloGara);
         TBL_GaraCorrente.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
         TBL_GaraCorrente.setRowHeight(22);
         TBL_GaraCorrente.getColumnModel().getColumn(0).setPreferredWidth(60);
@@ -271,12 +298,7 @@ public class FRM_ClassificaGenerale extends javax.swing.JFrame {
         LBL_TitoloGenerale.setText("Classifica Generale – totale punti per atleta");
 
         // ── tabella classifica generale del meeting ────────────────────────
-        TBL_ClassificaGenerale.setModel(new DefaultTableModel(
-                new Object[][]{},
-                new String[]{"Pos.", "Pett.", "Nome", "Sesso", "Gare", "Media", "Totale Punti"}
-        ) {
-            @Override public boolean isCellEditable(int r, int c) { return false; }
-        });
+        TBL_ClassificaGenerale.setModel(modelloGenerale);
         TBL_ClassificaGenerale.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
         TBL_ClassificaGenerale.setRowHeight(22);
         TBL_ClassificaGenerale.getColumnModel().getColumn(0).setPreferredWidth(60);
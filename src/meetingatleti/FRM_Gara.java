@@ -1,6 +1,7 @@
 package meetingatleti;
 
 import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Logger;
 import javax.swing.*;
 
@@ -25,19 +26,39 @@ import javax.swing.*;
  *
  *  BTN_Avvia  → apre FRM_Atleti per iscrivere atleti
  *               alla gara selezionata in LST_Gare.
+ *
+ *  Le liste seguono gli eventi del meeting (OsservatoreMeeting)
+ *  e cambiano solo le righe toccate (ModelloListaDifferenze);
+ *  le descrizioni degli atleti sono in cache (EtichetteAtleti).
  * ═══════════════════════════════════════════════════════════
  */
 public class FRM_Gara extends javax.swing.JFrame {
 
     private static final Logger logger = Logger.getLogger(FRM_Gara.class.getName());
 
-    // modelli per le due JList
-    private final DefaultListModel<String> modelGare   = new DefaultListModel<>();
-    private final DefaultListModel<String> modelAtleti = new DefaultListModel<>();
+    // modelli per le due JList: ogni riga conosce l'oggetto reale (null = separatore)
+    private final ModelloListaDifferenze<Gara>   modelGare   = new ModelloListaDifferenze<>();
+    private final ModelloListaDifferenze<Atleta> modelAtleti = new ModelloListaDifferenze<>();
+
+    /** Descrizioni degli atleti per (atleta, gara), invalidate dagli eventi del meeting. */
+    private final EtichetteAtleti etichette = new EtichetteAtleti();
+
+    private final Meeting meeting = AppData.getInstance().getMeeting();
+
+    /** true se un aggiornamento delle liste è già stato chiesto all'EDT. */
+    private final AtomicBoolean aggiornamentoInCoda = new AtomicBoolean();
 
-    // mappa indice riga → oggetto reale
-    private final ArrayList<Gara>   indiceGare   = new ArrayList<>();
-    private final ArrayList<Atleta> indiceAtleti = new ArrayList<>();  // per mappare LST_Atleti
+    /** Ogni modifica al meeting o agli atleti liberi aggiorna le liste (con differenze minime). */
+    private final OsservatoreMeeting osservatore = new OsservatoreMeeting() {
+        @Override public void garaAggiunta(Meeting m, Gara g)                        { segnalaModifica(); }
+        @Override public void garaRimossa(Meeting m, Gara g, int indice)             { segnalaModifica(); }
+        @Override public void iscrizione(Gara g, Atleta a, Prestazione p)            { segnalaModifica(); }
+        @Override public void ritiro(Gara g, Atleta a)                               { segnalaModifica(); }
+        @Override public void prestazioneModificata(Gara g, Atleta a, Prestazione p) { segnalaModifica(); }
+        @Override public void pettoraleModificato(Gara g, Atleta a, Integer vecchio) { segnalaModifica(); }
+        @Override public void atletaLiberoAggiunto(Atleta a, Prestazione p)          { segnalaModifica(); }
+        @Override public void atletaLiberoRimosso(Atleta a, int indice)              { segnalaModifica(); }
+    };
 
     // ────────────────────────────────────────────────────────────────────────
 
@@ -65,25 +86,50 @@ public class FRM_Gara extends javax.swing.JFrame {
         // tasto destro su LST_Atleti → menu contestuale "Aggiungi a gara"
         LST_Atleti.addMouseListener(new AtletiMouseHandler());
 
+        // la cache va invalidata prima che le liste vengano rilette
+        meeting.aggiungiOsservatore(etichette);
+        meeting.aggiungiOsservatore(osservatore);
+        AppData.getInstance().aggiungiOsservatore(etichette);
+        AppData.getInstance().aggiungiOsservatore(osservatore);
+
         aggiornaListaGare();
     }
 
+    @Override
+    public void dispose() {
+        meeting.rimuoviOsservatore(osservatore);
+        meeting.rimuoviOsservatore(etichette);
+        AppData.getInstance().rimuoviOsservatore(osservatore);
+        AppData.getInstance().rimuoviOsservatore(etichette);
+        super.dispose();
+    }
+
     // ══════════════════════════════════════════════════════════════════════
     //  LOGICA APPLICATIVA
     // ══════════════════════════════════════════════════════════════════════
 
     // ── aggiorna liste ─────────────────────────────────────────────────────
 
-    /** Ricarica LST_Gare dal Meeting. */
-    private void aggiornaListaGare() {
-        modelGare.clear();
-        indiceGare.clear();
-        for (Gara g : AppData.getInstance().getMeeting().getGare()) {
-            modelGare.addElement(g.toString());
-            indiceGare.add(g);
+    /** Notifica di un osservatore (qualunque thread): una raffica = un passaggio sull'EDT. */
+    private void segnalaModifica() {
+        if (aggiornamentoInCoda.compareAndSet(false, true)) {
+            SwingUtilities.invokeLater(() -> {
+                aggiornamentoInCoda.set(false);
+                if (!isDisplayable()) return;
+                aggiornaListaGare();
+                aggiornaListaAtleti();
+            });
         }
     }
 
+    /** Allinea LST_Gare al Meeting (solo le righe cambiate generano eventi). */
+    private void aggiornaListaGare() {
+        ArrayList<Gara>   gare  = new ArrayList<>(meeting.getGare());
+        ArrayList<String> testi = new ArrayList<>(gare.size());
+        for (Gara g : gare) testi.add(g.toString());
+        modelGare.aggiorna(gare, testi);
+    }
+
     /**
      * Ricarica LST_Atleti con:
      *   1. Atleti LIBERI filtrati per tipo e sesso, con prefisso [LIBERO]
@@ -94,8 +140,8 @@ public class FRM_Gara extends javax.swing.JFrame {
      * Se nessuna gara è selezionata i filtri vengono sbloccati.
      */
     private void aggiornaListaAtleti() {
-        modelAtleti.clear();
-        indiceAtleti.clear();
+        ArrayList<Atleta> righe = new ArrayList<>();
+        ArrayList<String> testi = new ArrayList<>();
 
         Gara sel = garaSelezionata();
 
@@ -112,19 +158,22 @@ public class FRM_Gara extends javax.swing.JFrame {
 
         // ── 1. Atleti LIBERI (filtrati per tipo e sesso) ──────────────────
         for (Atleta a : AppData.getInstance().getAtletiLiberi()) {
-            if (!corrispondeSesso(a) || (!tuttiTipi && !corrispondeTipo(a, filtroTipo))) continue;
-            modelAtleti.addElement("[LIBERO] " + a.toString());
-            indiceAtleti.add(a);
+            if (!corrispondeSesso(a) || (!tuttiTipi && !corrispondeTipo(a, filtroTipo, sel))) continue;
+            righe.add(a);
+            testi.add("[LIBERO] " + etichette.etichetta(a, sel));
         }
 
         // ── separatore visivo (solo se ci sono liberi e c'è anche una gara) ─
-        if (!indiceAtleti.isEmpty() && sel != null) {
-            modelAtleti.addElement("── atleti della gara ──────────────────");
-            indiceAtleti.add(null);   // segnaposto: non selezionabile
+        if (!righe.isEmpty() && sel != null) {
+            righe.add(null);   // segnaposto: non selezionabile
+            testi.add("── atleti della gara ──────────────────");
         }
 
         // ── 2. Atleti della gara selezionata ──────────────────────────────
-        if (sel == null) return;
+        if (sel == null) {
+            modelAtleti.aggiorna(righe, testi);
+            return;
+        }
 
         ArrayList<Atleta> dopoSesso;
         if (RBT_M.isSelected())      dopoSesso = sel.getAtletiM();
@@ -132,11 +181,12 @@ public class FRM_Gara extends javax.swing.JFrame {
         else                         dopoSesso = sel.getAtleti();
 
         for (Atleta a : dopoSesso) {
-            if (tuttiTipi || corrispondeTipo(a, filtroTipo)) {
-                modelAtleti.addElement(a.toString());
-                indiceAtleti.add(a);
+            if (tuttiTipi || corrispondeTipo(a, filtroTipo, sel)) {
+                righe.add(a);
+                testi.add(etichette.etichetta(a, sel));
             }
         }
+        modelAtleti.aggiorna(righe, testi);
     }
 
     /**
@@ -182,19 +232,20 @@ public class FRM_Gara extends javax.swing.JFrame {
     /**
      * Controlla se l'atleta corrisponde al tipo selezionato nel combo.
      * Usato SOLO per il filtro di visualizzazione in LST_Atleti.
+     * Il sotto-tipo di corsa è letto dalla prestazione nella gara indicata.
      */
-    private boolean corrispondeTipo(Atleta a, String tipoFiltro) {
+    private boolean corrispondeTipo(Atleta a, String tipoFiltro, Gara gara) {
         switch (tipoFiltro.trim()) {
             case "Velocista":
-                return (a instanceof Velocisti) && ((Velocisti) a).isVelocista();
+                return (a instanceof Velocisti) && ((Velocisti) a).isVelocista(gara);
             case "Pesista":
                 return a instanceof Lanciatori;
             case "Saltatore":
                 return a instanceof Saltatori;
             case "Fondometrista":
-                return (a instanceof Velocisti) && ((Velocisti) a).isFondometrista();
+                return (a instanceof Velocisti) && ((Velocisti) a).isFondometrista(gara);
             case "Ostacolista":
-                return (a instanceof Velocisti) && ((Velocisti) a).isOstacolista();
+                return (a instanceof Velocisti) && ((Velocisti) a).isOstacolista(gara);
             default:
                 return true;
         }
@@ -203,15 +254,15 @@ public class FRM_Gara extends javax.swing.JFrame {
     /** Ritorna la Gara corrispondente alla riga selezionata in LST_Gare. */
     private Gara garaSelezionata() {
         int idx = LST_Gare.getSelectedIndex();
-        if (idx < 0 || idx >= indiceGare.size()) return null;
-        return indiceGare.get(idx);
+        if (idx < 0 || idx >= modelGare.getSize()) return null;
+        return modelGare.getElemento(idx);
     }
 
     /** Ritorna l'Atleta corrispondente alla riga selezionata in LST_Atleti. */
     private Atleta atleteSelezionato() {
         int idx = LST_Atleti.getSelectedIndex();
-        if (idx < 0 || idx >= indiceAtleti.size()) return null;
-        return indiceAtleti.get(idx);
+        if (idx < 0 || idx >= modelAtleti.getSize()) return null;
+        return modelAtleti.getElemento(idx);
     }
 
     /** @return true se l'atleta selezionato è un atleta libero (non ancora in una gara). */
@@ -299,9 +350,8 @@ public class FRM_Gara extends javax.swing.JFrame {
             return "Gara di SALTO: richiede Saltatore";
         if (gara.getTipoGaraLancio() != null && !(a instanceof Lanciatori))
             return "Gara di LANCIO: richiede Pesista";
-        for (Atleta x : gara.getAtleti())
-            if (x.getPettorale().equals(a.getPettorale()))
-                return "Pettorale " + a.getPettorale() + " già usato in questa gara";
+        if (gara.trovaPerPettorale(a.getPettorale()) != null)
+            return "Pettorale " + a.getPettorale() + " già usato in questa gara";
         return null;
     }
 
@@ -409,11 +459,11 @@ public class FRM_Gara extends javax.swing.JFrame {
             }
         }
 
-        AppData.getInstance().getMeeting().aggiungiGara(nuova);
+        meeting.aggiungiGara(nuova);
         aggiornaListaGare();
 
         // seleziona automaticamente la gara appena creata
-        int nuovoIdx = modelGare.size() - 1;
+        int nuovoIdx = modelGare.indiceDi(nuova);
         LST_Gare.setSelectedIndex(nuovoIdx);
         AppData.getInstance().setGaraCorrente(nuova);
     }
@@ -427,10 +477,10 @@ public class FRM_Gara extends javax.swing.JFrame {
                 + "Tutti gli atleti iscritti saranno rimossi.",
                 "Conferma eliminazione", JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE);
         if (conf == JOptionPane.YES_OPTION) {
-            AppData.getInstance().getMeeting().rimuoviGara(sel);
+            meeting.rimuoviGara(sel);
             AppData.getInstance().setGaraCorrente(null);
             aggiornaListaGare();
-            modelAtleti.clear();
+            modelAtleti.svuota();
         }
     }
 
@@ -463,7 +513,7 @@ public class FRM_Gara extends javax.swing.JFrame {
             return;
         }
 
-        sel.calcolaClassifica();
+        // la classifica è mantenuta incrementalmente dalla gara
         ArrayList<Atleta> classifica = sel.getClassifica();
 
         StringBuilder sb = new StringBuilder();
@@ -476,13 +526,13 @@ public class FRM_Gara extends javax.swing.JFrame {
         for (int i = 0; i < classifica.size(); i++) {
             Atleta a = classifica.get(i);
             sb.append(String.format("%-4d %-5d %-20s %-10d%n",
-                    i + 1, a.getPettorale(), a.getNome(), a.calcolaPunteggio()));
+                    i + 1, a.getPettorale(), a.getNome(), a.calcolaPunteggio(sel)));
         }
 
         Atleta v = sel.trovaVincitore();
         sb.append("\n🏆  Vincitore: ").append(v.getNome())
           .append("  (Pett. ").append(v.getPettorale()).append(") – ")
-          .append(v.calcolaPunteggio()).append(" pt");
+          .append(v.calcolaPunteggio(sel)).append(" pt");
 
         JTextArea area = new JTextArea(sb.toString());
         area.setFont(new java.awt.Font("Monospaced", java.awt.Font.PLAIN, 12));
@@ -0,0 +1,77 @@
+package meetingatleti;
+
+/**
+ * Regole di costruzione e validazione di Atleta e Prestazione condivise
+ * tra l'inserimento manuale (FRM_Atleti) e l'importazione CSV (ImportatoreCsv).
+ *
+ * Le prestazioni sono costruite dai valori già convertiti (tempi in
+ * millesimi, reazione in millesimi, penalità in centesimi, distanze in cm):
+ * la lettura dei campi resta a carico del chiamante. Ogni violazione è
+ * segnalata con IllegalArgumentException e un messaggio adatto all'utente.
+ */
+final class FabbricaAtleti {
+
+    /** Tipi di atleta, nell'ordine della combo di FRM_Atleti. */
+    static final String[] TIPI = {"Velocista", "Fondometrista", "Ostacolista", "Saltatore", "Pesista"};
+
+    /** Il tempo di reazione deve superare 0.5 secondi. */
+    static final int REAZIONE_MINIMA_MS = 500;
+
+    private FabbricaAtleti() {}
+
+    /** Età e pettorale devono essere interi positivi. */
+    static void verificaAnagrafica(int eta, int pettorale) {
+        if (eta <= 0 || pettorale <= 0)
+            throw new IllegalArgumentException("Età e Pettorale devono essere numeri interi positivi.");
+    }
+
+    /**
+     * Crea l'oggetto Atleta corretto per il tipo (senza prestazione).
+     */
+    static Atleta atleta(String tipo, String nome, String sesso, int eta, int pettorale) {
+        switch (tipo) {
+            case "Velocista":
+            case "Ostacolista":
+            case "Fondometrista":
+                return new Velocisti(nome, sesso, eta, pettorale);
+            case "Saltatore":
+                return new Saltatori(nome, sesso, eta, pettorale);
+            case "Pesista":
+                return new Lanciatori(nome, sesso, eta, pettorale);
+            default:
+                throw new IllegalArgumentException("Tipo atleta non riconosciuto: " + tipo);
+        }
+    }
+
+    /**
+     * Crea la Prestazione per il tipo di atleta.
+     *
+     * @param valore     tempo gara in ms (corse) o distanza in cm (salto, lancio)
+     * @param secondario reazione in ms (Velocista), penalità in cs (Ostacolista),
+     *                   ignorato per gli altri tipi
+     */
+    static Prestazione prestazione(String tipo, int valore, int secondario) {
+        switch (tipo) {
+            case "Velocista":
+                if (secondario <= REAZIONE_MINIMA_MS) throw new IllegalArgumentException(
+                        "Il tempo di reazione deve essere maggiore di 0.5 secondi.\n"
+                        + "Valore inserito: " + (secondario / 1000.0) + " sec");
+                return Prestazione.velocistaMillis(valore, secondario / 10);
+            case "Ostacolista":
+                return Prestazione.ostacolistaMillis(valore, secondario);
+            case "Fondometrista":
+                return Prestazione.fondometristaMillis(valore);
+            case "Saltatore":
+                return Prestazione.salto(valore);
+            case "Pesista":
+                return Prestazione.lancio(valore);
+            default:
+                throw new IllegalArgumentException("Tipo atleta non riconosciuto: " + tipo);
+        }
+    }
+
+    /** true se il tipo richiede il secondo valore (reazione o penalità). */
+    static boolean richiedeSecondario(String tipo) {
+        return "Velocista".equals(tipo) || "Ostacolista".equals(tipo);
+    }
+}
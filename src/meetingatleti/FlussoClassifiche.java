@@ -0,0 +1,472 @@
+package meetingatleti;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * Flusso Server-Sent Events delle variazioni di classifica
+ * (/api/eventi di {@link ServerRisultati}).
+ *
+ * Registrato come {@link OsservatoreMeeting} sul meeting di AppData: gli
+ * eventi di gara (iscrizione, ritiro, prestazione, pettorale) segnano la
+ * gara come modificata e svegliano un thread dedicato. Il thread confronta
+ * la classifica delle gare modificate e la classifica generale con quelle
+ * già inviate e pubblica solo le righe cambiate; le modifiche arrivate
+ * entro {@link #INTERVALLO_MS} dall'aggiornamento precedente si fondono nel
+ * successivo.
+ *
+ * Eventi (il JSON del campo data può occupare più righe):
+ *   gare      elenco delle gare, come /api/gare (all'inizio e quando cambia)
+ *   gara      {"indice":i,"righe":n,"modifiche":[{"riga":r,...}, ...]}
+ *   meeting   {"righe":n,"modifiche":[{"riga":r,...,"gare":g}, ...]}
+ *
+ * Le righe hanno lo schema di {@link EsportatoreClassifiche} senza
+ * classifica e categoria; "riga" è l'indice 0-based nella classifica e
+ * "righe" la sua nuova lunghezza (le righe oltre vanno scartate). Un client
+ * appena collegato riceve lo stato completo come modifiche rispetto a
+ * classifiche vuote; anche alla riconnessione riparte da lì (Last-Event-ID
+ * non è usato).
+ *
+ * Contropressione: ogni aggiornamento è un solo blocco di byte, accodato a
+ * ogni client in una coda limitata a {@link #CODA_CLIENTE} blocchi e
+ * scritto sulla connessione dal thread della richiesta. Un client rimasto
+ * indietro di una coda intera viene espulso: la coda è svuotata e lo
+ * scambio HTTP chiuso appena la scrittura in corso termina, senza
+ * rallentare gli altri client né chi modifica le gare.
+ *
+ * Ogni client è scritto da un thread proprio del flusso, non da quello
+ * della richiesta: {@link #servi} ritorna subito e il pool del server resta
+ * alle altre richieste anche se un client smette di leggere. Una scrittura
+ * bloccata su un client così non si può interrompere (HttpExchange.close()
+ * attende la fine della scrittura): trattiene solo il thread del suo client.
+ *
+ * Senza client collegati le modifiche sono ignorate e non si calcola nulla.
+ */
+final class FlussoClassifiche implements OsservatoreMeeting {
+
+    private static final java.util.logging.Logger logger =
+            java.util.logging.Logger.getLogger(FlussoClassifiche.class.getName());
+
+    /** Intervallo minimo tra due aggiornamenti pubblicati. */
+    static final long INTERVALLO_MS = 25;
+
+    /** Aggiornamenti in attesa oltre i quali un client viene espulso. */
+    static final int CODA_CLIENTE = 64;
+
+    /** Commento di keep-alive inviato dopo questo tempo senza eventi. */
+    static final long BATTITO_MS = 15_000;
+
+    /** Ogni quanto il thread controlla se AppData ha cambiato meeting. */
+    private static final long CONTROLLO_MEETING_MS = 250;
+
+    private static final byte[] RIPROVA = "retry: 2000\n\n".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] BATTITO = ":\n\n".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] FINE    = new byte[0];
+    private static final Riga[] NESSUNA = new Riga[0];
+
+    private final int    massimoClienti;
+    private final Thread distributore;
+
+    /** Client a regime (ricevono gli aggiornamenti). */
+    private final List<Cliente> clienti = new CopyOnWriteArrayList<>();
+
+    // ── stato condiviso (sotto il lock di this) ───────────────────────────
+    private final Set<Gara>     modificate = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final List<Cliente> nuovi      = new ArrayList<>();
+    private boolean struttura;
+    private boolean attivo;     // almeno un client: gli eventi vanno registrati
+    private boolean chiuso;
+
+    // ── stato del distributore (solo il suo thread) ───────────────────────
+    private volatile Meeting osservato;   // letto anche da chiudi()
+    private boolean completo = true;   // confronto da rifare su tutte le gare
+    private final Map<Gara, Riga[]> inviate = new IdentityHashMap<>();
+    private Riga[] generaleInviata = NESSUNA;
+    private long   ultimoId;
+
+    /**
+     * @param massimoClienti client collegati contemporaneamente (oltre: 503)
+     */
+    FlussoClassifiche(int massimoClienti) {
+        if (massimoClienti <= 0)
+            throw new IllegalArgumentException("massimoClienti deve essere positivo: " + massimoClienti);
+        this.massimoClienti = massimoClienti;
+        this.distributore   = new Thread(this::ciclo, "meetingatleti-eventi");
+        this.distributore.setDaemon(true);
+    }
+
+    void avvia() { distributore.start(); }
+
+    /** Ferma il thread e chiude tutti i flussi aperti. */
+    void chiudi() {
+        List<Cliente> daChiudere;
+        synchronized (this) {
+            chiuso = true;
+            daChiudere = new ArrayList<>(nuovi);
+            nuovi.clear();
+            notifyAll();
+        }
+        daChiudere.addAll(clienti);
+        for (Cliente c : daChiudere) termina(c);
+        clienti.clear();
+        Meeting m = osservato;
+        if (m != null) m.rimuoviOsservatore(this);
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    //  CLIENT
+    // ══════════════════════════════════════════════════════════════════════
+
+    private static final class Cliente {
+        final ArrayBlockingQueue<byte[]> coda = new ArrayBlockingQueue<>(CODA_CLIENTE);
+        final HttpExchange scambio;
+        volatile boolean finito;
+
+        Cliente(HttpExchange scambio) { this.scambio = scambio; }
+    }
+
+    /**
+     * Apre il flusso sulla richiesta e ritorna subito: le scritture sono
+     * fatte da un thread del client, che chiude lo scambio quando il client
+     * si disconnette, viene espulso o il server si ferma.
+     *
+     * @return true se il flusso ha preso in carico lo scambio (il chiamante
+     *         non deve chiuderlo); false se ha risposto 503
+     */
+    boolean servi(HttpExchange ex) throws IOException {
+        Cliente c = iscrivi(ex);
+        if (c == null) {
+            ex.getResponseHeaders().set("Retry-After", "5");
+            ex.sendResponseHeaders(503, -1);
+            return false;
+        }
+        try {
+            Headers h = ex.getResponseHeaders();
+            h.set("Content-Type", "text/event-stream; charset=utf-8");
+            h.set("Cache-Control", "no-cache");
+            ex.sendResponseHeaders(200, 0);
+            Thread scrittore = new Thread(() -> scrivi(c), "meetingatleti-eventi-client");
+            scrittore.setDaemon(true);
+            scrittore.start();
+            return true;
+        } catch (IOException | RuntimeException e) {
+            disiscrivi(c);
+            throw e;
+        }
+    }
+
+    /** Thread del client: stato iniziale e aggiornamenti dalla coda fino a FINE. */
+    private void scrivi(Cliente c) {
+        try {
+            OutputStream os = c.scambio.getResponseBody();
+            os.write(RIPROVA);
+            os.flush();
+            while (true) {
+                byte[] blocco = c.coda.poll(BATTITO_MS, TimeUnit.MILLISECONDS);
+                if (blocco == FINE || c.finito) break;
+                os.write(blocco == null ? BATTITO : blocco);
+                os.flush();
+            }
+        } catch (IOException e) {
+            logger.log(Level.FINE, "Client SSE disconnesso", e);    // normale chiusura del tabellone
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            disiscrivi(c);
+            c.scambio.close();
+        }
+    }
+
+    private synchronized Cliente iscrivi(HttpExchange ex) {
+        if (chiuso || clienti.size() + nuovi.size() >= massimoClienti) return null;
+        Cliente c = new Cliente(ex);
+        nuovi.add(c);
+        notifyAll();
+        return c;
+    }
+
+    private void disiscrivi(Cliente c) {
+        c.finito = true;
+        synchronized (this) { nuovi.remove(c); }
+        clienti.remove(c);
+    }
+
+    /** Sveglia il thread del client perché chiuda lo scambio. */
+    private static void termina(Cliente c) {
+        c.finito = true;
+        c.coda.clear();
+        c.coda.offer(FINE);
+    }
+
+    private void pubblica(byte[] blocco) {
+        for (Cliente c : clienti) {
+            if (c.coda.offer(blocco)) continue;
+            clienti.remove(c);
+            termina(c);
+            logger.info("Client SSE espulso: " + CODA_CLIENTE + " aggiornamenti non letti");
+        }
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    //  OSSERVATORE (dentro il lock della gara: solo segnare)
+    // ══════════════════════════════════════════════════════════════════════
+
+    private synchronized void segna(Gara g) {
+        if (!attivo) return;
+        modificate.add(g);
+        notifyAll();
+    }
+
+    private synchronized void segnaStruttura() {
+        if (!attivo) return;
+        struttura = true;
+        notifyAll();
+    }
+
+    @Override public void garaAggiunta(Meeting meeting, Gara gara)            { segnaStruttura(); }
+    @Override public void garaRimossa(Meeting meeting, Gara gara, int indice) { segnaStruttura(); }
+    @Override public void iscrizione(Gara gara, Atleta atleta, Prestazione p) { segna(gara); }
+    @Override public void ritiro(Gara gara, Atleta atleta)                    { segna(gara); }
+    @Override public void prestazioneModificata(Gara gara, Atleta atleta, Prestazione p) { segna(gara); }
+    @Override public void pettoraleModificato(Gara gara, Atleta atleta, Integer vecchio) { segna(gara); }
+
+    // ══════════════════════════════════════════════════════════════════════
+    //  DISTRIBUTORE
+    // ══════════════════════════════════════════════════════════════════════
+
+    private void ciclo() {
+        long ultimo = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(INTERVALLO_MS);
+        try {
+            while (true) {
+                synchronized (this) {
+                    while (!chiuso && modificate.isEmpty() && !struttura && nuovi.isEmpty()) {
+                        wait(CONTROLLO_MEETING_MS);
+                        if (attivo && AppData.getInstance().getMeeting() != osservato) break;
+                    }
+                    if (chiuso) return;
+                }
+                long resto = INTERVALLO_MS - (System.nanoTime() - ultimo) / 1_000_000L;
+                if (resto > 0) Thread.sleep(resto);   // intanto altre modifiche si fondono in questo giro
+
+                Set<Gara>     lotto = Collections.newSetFromMap(new IdentityHashMap<>());
+                List<Cliente> arrivati;
+                boolean       cambioStruttura;
+                synchronized (this) {
+                    if (chiuso) return;
+                    lotto.addAll(modificate);
+                    modificate.clear();
+                    cambioStruttura = struttura;
+                    struttura = false;
+                    arrivati = new ArrayList<>(nuovi);
+                    nuovi.clear();
+                    attivo = !clienti.isEmpty() || !arrivati.isEmpty();
+                }
+                if (!attivo) {                        // nessuno ascolta: si ripartirà da zero
+                    inviate.clear();
+                    generaleInviata = NESSUNA;
+                    completo = true;
+                    continue;
+                }
+                try {
+                    giro(lotto, cambioStruttura, arrivati);
+                } catch (RuntimeException e) {
+                    logger.log(Level.WARNING, "Aggiornamento del flusso classifiche non riuscito", e);
+                    completo = true;                  // il giro successivo riallinea tutto
+                    synchronized (this) {             // i nuovi client attendono quel giro
+                        for (Cliente c : arrivati)
+                            if (!c.finito && !clienti.contains(c)) nuovi.add(c);
+                    }
+                    Thread.sleep(CONTROLLO_MEETING_MS);   // niente giri a vuoto se l'errore persiste
+                }
+                ultimo = System.nanoTime();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** Confronta e pubblica un aggiornamento; poi invia lo stato completo ai nuovi client. */
+    private void giro(Set<Gara> lotto, boolean cambioStruttura, List<Cliente> arrivati) {
+        Meeting m = AppData.getInstance().getMeeting();
+        if (m != osservato) {
+            if (osservato != null) osservato.rimuoviOsservatore(this);
+            osservato = m;
+            if (m != null) m.aggiungiOsservatore(this);   // prima di leggere: nessuna modifica persa
+            completo = true;
+        }
+        List<Gara> gare = (m == null) ? new ArrayList<>() : m.istantaneaGare();
+        if (completo) {
+            completo = false;
+            cambioStruttura = true;
+            lotto.addAll(gare);
+            inviate.clear();
+            generaleInviata = NESSUNA;
+        }
+
+        StringBuilder sb = new StringBuilder();
+        if (cambioStruttura) {
+            Set<Gara> presenti = Collections.newSetFromMap(new IdentityHashMap<>());
+            presenti.addAll(gare);
+            inviate.keySet().retainAll(presenti);
+            evento(sb, "gare", ServerRisultati.jsonGare(gare));
+        }
+        boolean ricalcola = cambioStruttura;
+        for (int i = 0; i < gare.size(); i++) {
+            Gara g = gare.get(i);
+            if (!lotto.contains(g)) continue;
+            Riga[] nuove = righeGara(g);
+            String d = differenze("{\"indice\":" + i + ",", inviate.getOrDefault(g, NESSUNA), nuove);
+            if (d != null) evento(sb, "gara", d);
+            inviate.put(g, nuove);
+            ricalcola = true;
+        }
+        if (ricalcola) {
+            Riga[] nuove = righeMeeting(GestorePunteggio.calcolaClassificaMeeting(gare));
+            String d = differenze("{", generaleInviata, nuove);
+            if (d != null) evento(sb, "meeting", d);
+            generaleInviata = nuove;
+        }
+        if (sb.length() > 0) pubblica(sb.toString().getBytes(StandardCharsets.UTF_8));
+
+        if (arrivati.isEmpty()) return;
+        sb.setLength(0);
+        evento(sb, "gare", ServerRisultati.jsonGare(gare));
+        for (int i = 0; i < gare.size(); i++) {
+            String d = differenze("{\"indice\":" + i + ",", NESSUNA, inviate.getOrDefault(gare.get(i), NESSUNA));
+            if (d != null) evento(sb, "gara", d);
+        }
+        String d = differenze("{", NESSUNA, generaleInviata);
+        if (d != null) evento(sb, "meeting", d);
+        byte[] stato = sb.toString().getBytes(StandardCharsets.UTF_8);
+        for (Cliente c : arrivati) {
+            if (c.finito) continue;
+            c.coda.offer(stato);                       // coda vuota: c'è posto
+            clienti.add(c);
+            if (c.finito) clienti.remove(c);           // disconnesso nel frattempo
+        }
+    }
+
+    /** Un evento SSE: ogni riga del JSON diventa una riga data. */
+    private void evento(StringBuilder sb, String tipo, String json) {
+        sb.append("id: ").append(++ultimoId).append("\nevent: ").append(tipo).append('\n');
+        int inizio = 0;
+        for (int i = json.indexOf('\n'); i >= 0; i = json.indexOf('\n', inizio)) {
+            if (i > inizio) sb.append("data: ").append(json, inizio, i).append('\n');
+            inizio = i + 1;
+        }
+        if (inizio < json.length()) sb.append("data: ").append(json, inizio, json.length()).append('\n');
+        sb.append('\n');
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    //  RIGHE E DIFFERENZE
+    // ══════════════════════════════════════════════════════════════════════
+
+    /** Una riga di classifica come inviata ai client (immutabile). */
+    private static final class Riga {
+        final int      posizione;
+        final boolean  pari;
+        final Medaglia medaglia;
+        final Integer  pettorale;
+        final String   nome;
+        final String   sesso;
+        final int      punti;
+        final int      gare;      // -1 nelle classifiche di gara
+
+        Riga(int posizione, boolean pari, Medaglia medaglia, Integer pettorale,
+             String nome, String sesso, int punti, int gare) {
+            this.posizione = posizione;
+            this.pari      = pari;
+            this.medaglia  = medaglia;
+            this.pettorale = pettorale;
+            this.nome      = nome;
+            this.sesso     = sesso;
+            this.punti     = punti;
+            this.gare      = gare;
+        }
+
+        boolean uguale(Riga r) {
+            return posizione == r.posizione && pari == r.pari && punti == r.punti && gare == r.gare
+                && medaglia == r.medaglia
+                && Objects.equals(pettorale, r.pettorale)
+                && Objects.equals(nome, r.nome)
+                && Objects.equals(sesso, r.sesso);
+        }
+
+        void json(StringBuilder sb, int riga) {
+            sb.append("{\"riga\":").append(riga);
+            sb.append(",\"posizione\":").append(posizione);
+            sb.append(pari ? ",\"pari\":true" : ",\"pari\":false");
+            sb.append(",\"medaglia\":");
+            if (medaglia != Medaglia.NESSUNA) sb.append('"').append(medaglia.name()).append('"');
+            else sb.append("null");
+            sb.append(",\"pettorale\":").append(pettorale);
+            sb.append(",\"nome\":");  ServerRisultati.stringaJson(sb, nome);
+            sb.append(",\"sesso\":"); ServerRisultati.stringaJson(sb, sesso);
+            sb.append(",\"punti\":").append(punti);
+            if (gare >= 0) sb.append(",\"gare\":").append(gare);
+            sb.append('}');
+        }
+    }
+
+    /** Classifica della gara letta sotto il suo lock (pettorali coerenti con l'ordine). */
+    private static Riga[] righeGara(Gara g) {
+        synchronized (g) {
+            List<VocePunteggio> voci = g.getClassificaVoci();
+            Riga[] r = new Riga[voci.size()];
+            for (int i = 0; i < r.length; i++) {
+                VocePunteggio v = voci.get(i);
+                Atleta a = v.getAtleta();
+                r[i] = new Riga(v.getPosizione(), v.isPariMerito(), v.getMedaglia(),
+                                a.getPettorale(), a.getNome(), a.getSesso(), v.getPunteggio(), -1);
+            }
+            return r;
+        }
+    }
+
+    private static Riga[] righeMeeting(List<VocePunteggioMeeting> voci) {
+        Riga[] r = new Riga[voci.size()];
+        for (int i = 0; i < r.length; i++) {
+            VocePunteggioMeeting v = voci.get(i);
+            r[i] = new Riga(v.getPosizione(), v.isPariMerito(), v.getMedaglia(), v.getPettorale(),
+                            v.getNomeAtleta(), v.getSesso(), v.getTotalePunti(), v.getNumeroGare());
+        }
+        return r;
+    }
+
+    /**
+     * Righe cambiate da {@code vecchie} a {@code nuove}, confrontate per
+     * indice: {@code testa + "righe":n,"modifiche":[...]}}; null se identiche.
+     */
+    private static String differenze(String testa, Riga[] vecchie, Riga[] nuove) {
+        StringBuilder sb = null;
+        for (int i = 0; i < nuove.length; i++) {
+            if (i < vecchie.length && vecchie[i].uguale(nuove[i])) continue;
+            if (sb == null) {
+                sb = new StringBuilder(testa).append("\"righe\":").append(nuove.length).append(",\"modifiche\":[");
+            } else {
+                sb.append(',');
+            }
+            nuove[i].json(sb, i);
+        }
+        if (sb == null) {
+            if (vecchie.length == nuove.length) return null;
+            sb = new StringBuilder(testa).append("\"righe\":").append(nuove.length).append(",\"modifiche\":[");
+        }
+        return sb.append("]}").toString();
+    }
+}
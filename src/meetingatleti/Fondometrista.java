@@ -13,4 +13,9 @@ public interface Fondometrista {
 
     /** @param tempo tempo di reazione in centesimi di secondo */
     void setTempoReazione(Integer tempo);
+
+    /** Variante con contesto esplicito: non dipende da AppData.garaCorrente. */
+    Integer getTempoReazione(Gara gara);
+
+    void setTempoReazione(Gara gara, Integer tempo);
 }
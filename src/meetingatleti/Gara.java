@@ -1,6 +1,8 @@
 package meetingatleti;
 
 import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Rappresenta una singola gara del meeting.
@@ -16,13 +18,37 @@ import java.util.ArrayList;
  *   2. Pettorale non già presente IN QUESTA gara
  *   3. Sesso compatibile con la categoria della gara
  *   4. Tipo della prestazione compatibile con il tipo di gara
+ *
+ * v4 – classifica incrementale:
+ * La classifica è mantenuta in una {@link ClassificaIncrementale} aggiornata
+ * a ogni iscrizione, ritiro o modifica della Prestazione (O(log n)):
+ * posizione, pari merito e medaglia di un atleta si leggono senza riordinare
+ * l'intero campo partenti.
+ *
+ * v5 – archivio colonnare opzionale:
+ * con abilitaArchivioColonnare() le prestazioni della gara sono copiate in
+ * un {@link ArchivioPrestazioni} (colonne primitive + bitmap dei null) e gli
+ * atleti ricevono viste flyweight al posto degli oggetti originali.
+ *
+ * Concorrenza: il calcolo della classifica non usa più AppData.garaCorrente.
+ * Iscrizioni, ritiri e letture della classifica sono sincronizzati sulla
+ * singola Gara, quindi le classifiche di gare diverse possono essere
+ * calcolate in parallelo (es. GestorePunteggio.calcolaClassifiche).
+ *
+ * Osservatori: iscrizioni, ritiri, modifiche di prestazione e di pettorale
+ * sono notificati agli {@link OsservatoreMeeting} registrati (sotto il lock
+ * della gara, subito dopo la modifica). Meeting registra qui i propri.
+ *
+ * Versione: {@link #getVersione()} cresce a ogni modifica che cambia la
+ * classifica o la descrizione della gara; chi tiene copie derivate (es. le
+ * risposte di {@link ServerRisultati}) la confronta senza prendere il lock.
  */
 public class Gara implements Maschile, Femminile {
 
     public Gara() {
-        atleti           = new ArrayList<>();
-        atletiClassifica = new ArrayList<>();
-        classificaVoci   = new ArrayList<>();
+        atleti          = new ArrayList<>();
+        pettorali       = new IndicePettorali();
+        classificaLive  = new ClassificaIncrementale();
     }
 
     public Gara(String nomeGara, String categoria) {
@@ -31,27 +57,38 @@ public class Gara implements Maschile, Femminile {
         this.categoria = categoria;
     }
 
-    private String            nomeGara;
-    private String            categoria;
+    private volatile String   nomeGara;      // scritti sotto il lock, letti senza
+    private volatile String   categoria;
     private ArrayList<Atleta> atleti;
-    private ArrayList<Atleta> atletiClassifica;
+    private final IndicePettorali        pettorali;      // pettorale → atleta, sempre allineato ad atleti
+    private final ClassificaIncrementale classificaLive;
+    private ArchivioPrestazioni          archivio;       // null = prestazioni come oggetti
+    private final List<OsservatoreMeeting> osservatori = new CopyOnWriteArrayList<>();
+
+    // viste materializzate della classifica (null = da ricostruire)
+    private ArrayList<Atleta>        atletiClassifica;
     private ArrayList<VocePunteggio> classificaVoci;
+    private StatisticheGara          statistiche;
+
+    /** Contatore delle modifiche (scritto sotto il lock, letto senza). */
+    private volatile long versione;
+    private volatile int  numero = -1;   // numero stabile nel meeting, -1 = in nessun meeting
 
-    private TipoGaraSalto  tipoGaraSalto;
-    private TipoGaraCorsa  tipoGaraCorsa;
-    private TipoGaraLancio tipoGaraLancio;
+    private volatile TipoGaraSalto  tipoGaraSalto;
+    private volatile TipoGaraCorsa  tipoGaraCorsa;
+    private volatile TipoGaraLancio tipoGaraLancio;
 
     public String  getNomeGara()                     { return nomeGara; }
-    public void    setNomeGara(String n)             { this.nomeGara = n; }
+    public synchronized void setNomeGara(String n)   { this.nomeGara = n; versione++; }
     public String  getCategoria()                    { return categoria; }
-    public void    setCategoria(String c)            { this.categoria = c; }
+    public synchronized void setCategoria(String c)  { this.categoria = c; versione++; }
     public ArrayList<Atleta> getAtleti()             { return atleti; }
     public TipoGaraSalto  getTipoGaraSalto()         { return tipoGaraSalto; }
-    public void setTipoGaraSalto(TipoGaraSalto t)    { tipoGaraSalto  = t; tipoGaraCorsa = null; tipoGaraLancio = null; }
+    public synchronized void setTipoGaraSalto(TipoGaraSalto t)   { tipoGaraSalto  = t; tipoGaraCorsa = null; tipoGaraLancio = null; versione++; }
     public TipoGaraCorsa  getTipoGaraCorsa()         { return tipoGaraCorsa; }
-    public void setTipoGaraCorsa(TipoGaraCorsa t)    { tipoGaraCorsa  = t; tipoGaraSalto = null; tipoGaraLancio = null; }
+    public synchronized void setTipoGaraCorsa(TipoGaraCorsa t)   { tipoGaraCorsa  = t; tipoGaraSalto = null; tipoGaraLancio = null; versione++; }
     public TipoGaraLancio getTipoGaraLancio()        { return tipoGaraLancio; }
-    public void setTipoGaraLancio(TipoGaraLancio t)  { tipoGaraLancio = t; tipoGaraSalto = null; tipoGaraCorsa = null; }
+    public synchronized void setTipoGaraLancio(TipoGaraLancio t) { tipoGaraLancio = t; tipoGaraSalto = null; tipoGaraCorsa = null; versione++; }
     public int getNumeroPartecipanti()               { return atleti.size(); }
 
     public String getTipoDescrizione() {
@@ -75,6 +112,15 @@ public class Gara implements Maschile, Femminile {
         return lista;
     }
 
+    // ── osservatori ────────────────────────────────────────────────────────
+
+    public void aggiungiOsservatore(OsservatoreMeeting o) {
+        if (o == null) throw new IllegalArgumentException("osservatore non puo essere null");
+        osservatori.add(o);
+    }
+
+    public boolean rimuoviOsservatore(OsservatoreMeeting o) { return osservatori.remove(o); }
+
     // ══════════════════════════════════════════════════════════════════════
     //  ISCRIZIONE v3 – Atleta + Prestazione separati
     // ══════════════════════════════════════════════════════════════════════
@@ -89,12 +135,11 @@ public class Gara implements Maschile, Femminile {
      * @param prestazione la prestazione per questa gara (non null)
      * @return true se iscrizione avvenuta con successo
      */
-    public boolean iscrizione(Atleta atleta, Prestazione prestazione) {
-        if (atleta == null || prestazione == null) return false;
+    public synchronized boolean iscrizione(Atleta atleta, Prestazione prestazione) {
+        if (atleta == null || prestazione == null || atleta.getPettorale() == null) return false;
 
-        // 1. pettorale già presente IN QUESTA gara
-        for (Atleta x : atleti)
-            if (x.getPettorale().equals(atleta.getPettorale())) return false;
+        // 1. pettorale già presente IN QUESTA gara (indice hash, O(1))
+        if (pettorali.contiene(atleta.getPettorale())) return false;
 
         // 2. sesso / categoria
         if (!atleta.getSesso().equalsIgnoreCase(categoria)) return false;
@@ -102,12 +147,121 @@ public class Gara implements Maschile, Femminile {
         // 3. tipo prestazione compatibile con tipo gara
         if (!tipoCompatibile(prestazione)) return false;
 
+        // con l'archivio colonnare la prestazione è copiata in una riga:
+        // all'atleta viene associata la vista flyweight
+        if (archivio != null) prestazione = archivio.aggiungi(atleta, prestazione);
+
         atleta.aggiungiPrestazione(this, prestazione);
         atleti.add(atleta);
+        pettorali.inserisci(atleta.getPettorale(), atleta);
+        prestazione.collega(this, atleta);
+        classificaLive.inserisci(atleta, prestazione.calcolaPunteggio(), prestazione.getSpareggio());
         invalidaClassifica();
+        for (OsservatoreMeeting o : osservatori) o.iscrizione(this, atleta, prestazione);
         return true;
     }
 
+    /**
+     * Ritira un atleta dalla gara: lo rimuove dagli iscritti, dalla classifica
+     * e cancella la sua Prestazione per questa gara.
+     *
+     * @param atleta l'atleta da ritirare
+     * @return true se l'atleta era iscritto
+     */
+    public synchronized boolean rimuoviAtleta(Atleta atleta) {
+        if (atleta == null || atleta.getPettorale() == null
+                || !pettorali.rimuovi(atleta.getPettorale(), atleta)) return false;
+        atleti.remove(atleta);
+        classificaLive.rimuovi(atleta);
+        atleta.rimuoviPrestazione(this);
+        invalidaClassifica();
+        for (OsservatoreMeeting o : osservatori) o.ritiro(this, atleta);
+        return true;
+    }
+
+    /**
+     * Chiamato da Atleta.rimuoviPrestazione dopo il ritiro:
+     * libera l'eventuale riga dell'archivio colonnare.
+     */
+    synchronized void prestazioneRimossa(Prestazione p) {
+        if (archivio != null && p instanceof ArchivioPrestazioni.Vista)
+            archivio.rimuovi((ArchivioPrestazioni.Vista) p);
+    }
+
+    // ── archivio colonnare ─────────────────────────────────────────────────
+
+    /**
+     * Passa la gara all'archivio colonnare: le prestazioni attuali sono
+     * copiate in colonne primitive e ogni atleta riceve una vista flyweight.
+     * Le iscrizioni successive copiano la Prestazione passata: chi conserva
+     * l'oggetto originale deve modificare quello restituito da
+     * atleta.getPrestazione(gara).
+     */
+    public synchronized void abilitaArchivioColonnare() {
+        if (archivio != null) return;
+        archivio = new ArchivioPrestazioni(this);
+        for (Atleta a : atleti) {
+            Prestazione originale = a.getPrestazione(this);
+            originale.scollega();
+            Prestazione vista = archivio.aggiungi(a, originale);
+            a.aggiungiPrestazione(this, vista);
+            vista.collega(this, a);
+        }
+    }
+
+    /** True se le prestazioni della gara sono nell'archivio colonnare. */
+    public synchronized boolean isArchivioColonnare() { return archivio != null; }
+
+    /** Archivio colonnare, o null se non abilitato (uso interno). */
+    ArchivioPrestazioni getArchivio() { return archivio; }
+
+    /**
+     * Cerca l'atleta iscritto con il pettorale indicato in O(1).
+     * Pensato per form e importatori (controllo duplicati, lookup, ritiro).
+     *
+     * @param pettorale numero di maglia
+     * @return l'atleta, o null se nessun iscritto ha quel pettorale
+     */
+    public synchronized Atleta trovaPerPettorale(int pettorale) {
+        return pettorali.trova(pettorale);
+    }
+
+    /**
+     * Controllo di Atleta.setPettorale, prima di qualsiasi modifica: il nuovo
+     * pettorale non deve appartenere a un altro iscritto di questa gara.
+     *
+     * @throws IllegalArgumentException se il pettorale è già assegnato
+     */
+    synchronized void verificaPettorale(Atleta atleta, int nuovo) {
+        Atleta titolare = pettorali.trova(nuovo);
+        if (titolare != null && titolare != atleta)
+            throw new IllegalArgumentException("pettorale " + nuovo + " gia assegnato in " + nomeGara);
+    }
+
+    /**
+     * Notifica da Atleta.setPettorale: riallinea indice e classifica.
+     * Il nuovo pettorale è già stato controllato con verificaPettorale.
+     */
+    synchronized void pettoraleModificato(Atleta atleta, Integer vecchio) {
+        if (vecchio == null || !pettorali.rimuovi(vecchio, atleta)) return;
+        pettorali.inserisci(atleta.getPettorale(), atleta);
+        classificaLive.riposiziona(atleta);
+        invalidaClassifica();
+        for (OsservatoreMeeting o : osservatori) o.pettoraleModificato(this, atleta, vecchio);
+    }
+
+    /**
+     * Notifica dalla Prestazione di un atleta iscritto: il punteggio può
+     * essere cambiato, la sua voce viene riposizionata in O(log n).
+     */
+    synchronized void prestazioneModificata(Atleta atleta) {
+        Prestazione p = atleta.getPrestazione(this);
+        if (p == null || !classificaLive.contiene(atleta)) return;
+        classificaLive.aggiorna(atleta, p.calcolaPunteggio(), p.getSpareggio());
+        invalidaClassifica();
+        for (OsservatoreMeeting o : osservatori) o.prestazioneModificata(this, atleta, p);
+    }
+
     /**
      * Verifica la compatibilità tipo gara / tipo prestazione.
      *
@@ -128,57 +282,101 @@ public class Gara implements Maschile, Femminile {
     // ══════════════════════════════════════════════════════════════════════
 
     /**
-     * Ricalcola la classifica.
-     * Imposta temporaneamente questa gara come garaCorrente in AppData
-     * in modo che Atleta.calcolaPunteggio() (senza argomenti) usi la
-     * prestazione corretta.
+     * Ricostruisce da zero la classifica incrementale.
+     * Il punteggio è letto dalla Prestazione di questa gara: nessun
+     * cambio temporaneo di AppData.garaCorrente.
      */
-    public void calcolaClassifica() {
-        Gara precedente = AppData.getInstance().getGaraCorrente();
-        AppData.getInstance().setGaraCorrente(this);
-
-        classificaVoci   = GestorePunteggio.calcolaClassifica(this);
-        atletiClassifica = new ArrayList<>();
-        for (VocePunteggio v : classificaVoci)
-            atletiClassifica.add(v.getAtleta());
-
-        AppData.getInstance().setGaraCorrente(precedente);
+    public synchronized void calcolaClassifica() {
+        classificaLive.svuota();
+        for (Atleta a : atleti) {
+            Prestazione p = a.getPrestazione(this);
+            if (p != null) classificaLive.inserisci(a, p.calcolaPunteggio(), p.getSpareggio());
+            else           classificaLive.inserisci(a, 0, 0L);
+        }
+        invalidaClassifica();
     }
 
-    public ArrayList<Atleta> getClassifica() {
-        if (atletiClassifica.isEmpty() && !atleti.isEmpty()) calcolaClassifica();
+    public synchronized ArrayList<Atleta> getClassifica() {
+        if (atletiClassifica == null) {
+            atletiClassifica = new ArrayList<>(atleti.size());
+            for (VocePunteggio v : getClassificaVoci())
+                atletiClassifica.add(v.getAtleta());
+        }
         return atletiClassifica;
     }
 
-    public ArrayList<VocePunteggio> getClassificaVoci() {
-        if (classificaVoci.isEmpty() && !atleti.isEmpty()) calcolaClassifica();
+    /** Classifica completa: visita in-order della struttura, nessun riordino. */
+    public synchronized ArrayList<VocePunteggio> getClassificaVoci() {
+        if (classificaVoci == null) classificaVoci = classificaLive.voci();
         return classificaVoci;
     }
 
-    public Atleta trovaVincitore() {
-        if (atleti.isEmpty()) return null;
-        ArrayList<Atleta> cl = getClassifica();
-        return cl.isEmpty() ? null : cl.get(0);
+    public synchronized Atleta trovaVincitore() {
+        return classificaLive.primo();
     }
 
-    public VocePunteggio trovaVincitoreVoce() {
-        ArrayList<VocePunteggio> cl = getClassificaVoci();
-        return cl.isEmpty() ? null : cl.get(0);
+    public synchronized VocePunteggio trovaVincitoreVoce() {
+        Atleta primo = classificaLive.primo();
+        return (primo == null) ? null : classificaLive.voce(primo);
     }
 
+    // ── letture puntuali O(log n) ──────────────────────────────────────────
+
+    /** Posizione in classifica dell'atleta (1-based), 0 se non iscritto. */
+    public synchronized int getPosizione(Atleta a)           { return classificaLive.posizione(a); }
+
+    /** True se l'atleta è a pari merito con chi lo precede. */
+    public synchronized boolean isPariMerito(Atleta a)       { return classificaLive.isPariMerito(a); }
+
+    /** Medaglia dell'atleta in questa gara (NESSUNA se non iscritto). */
+    public synchronized Medaglia getMedaglia(Atleta a) {
+        int pos = classificaLive.posizione(a);
+        return (pos == 0) ? Medaglia.NESSUNA : Medaglia.fromPosizione(pos);
+    }
+
+    /** Voce di classifica dell'atleta, o null se non iscritto. */
+    public synchronized VocePunteggio getVoce(Atleta a)      { return classificaLive.voce(a); }
+
+    /** Voce alla riga indicata (0-based) della classifica. */
+    public synchronized VocePunteggio getVoceAllaRiga(int i) { return classificaLive.voceAllaRiga(i); }
+
     // ── statistiche ────────────────────────────────────────────────────────
 
-    public int    getPunteggioMassimo()              { return GestorePunteggio.punteggioMassimo(this); }
-    public int    getPunteggioMinimo()               { return GestorePunteggio.punteggioMinimo(this); }
-    public double getPunteggioMedio()                { return GestorePunteggio.punteggioMedio(this); }
-    public ArrayList<Atleta> getAtletiPariMerito()   { return GestorePunteggio.trovaPariMeritoPrimo(this); }
-    public String getRiepilogoStatistiche()           { return GestorePunteggio.riepilogoStatistiche(this); }
+    /**
+     * Statistiche della gara calcolate in una sola passata sulla classifica.
+     * L'oggetto resta in cache fino alla prossima iscrizione, ritiro o
+     * modifica di una prestazione.
+     */
+    public synchronized StatisticheGara getStatistiche() {
+        if (statistiche == null) statistiche = StatisticheGara.calcola(getClassificaVoci());
+        return statistiche;
+    }
+
+    public int    getPunteggioMassimo()              { return getStatistiche().getMassimo(); }
+    public int    getPunteggioMinimo()               { return getStatistiche().getMinimo(); }
+    public double getPunteggioMedio()                { return getStatistiche().getMedia(); }
+    public ArrayList<Atleta> getAtletiPariMerito()   { return new ArrayList<>(getStatistiche().getPariMeritoPrimo()); }
+    public String getRiepilogoStatistiche()           { return getStatistiche().riepilogo(); }
 
     private void invalidaClassifica() {
-        atletiClassifica.clear();
-        classificaVoci.clear();
+        atletiClassifica = null;
+        classificaVoci   = null;
+        statistiche      = null;
+        versione++;
     }
 
+    /** Numero di modifiche subite dalla gara (iscrizioni, ritiri, prestazioni, nome, tipo...). */
+    public long getVersione() { return versione; }
+
+    /**
+     * Numero della gara nel meeting, assegnato da Meeting.aggiungiGara: non
+     * cambia quando altre gare sono rimosse e non viene riusato.
+     * -1 se la gara non è in un meeting.
+     */
+    public int  getNumero()   { return numero; }
+
+    void assegnaNumero(int numero) { this.numero = numero; }
+
     @Override
     public String toString() {
         return nomeGara + " [" + categoria + "] – " + getTipoDescrizione()
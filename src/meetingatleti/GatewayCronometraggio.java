@@ -0,0 +1,636 @@
+package meetingatleti;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+
+/**
+ * Ricezione delle letture dei sistemi di cronometraggio (fotofinish, chip
+ * delle gare su strada) e dei misuratori elettronici delle distanze, al
+ * posto della digitazione in FRM_Atleti.
+ *
+ * Protocollo a righe ASCII, identico su TCP e UDP (stessa porta; su UDP un
+ * datagramma può contenere più righe). Campi separati da spazi, tab o ';':
+ *
+ *   T GARA PETTORALE SECONDI [SECONDARIO]   tempo di una corsa
+ *   M GARA PETTORALE METRI|X                prova di un salto o di un lancio
+ *
+ *   GARA       : numero della gara nel meeting (Gara.getNumero(), campo
+ *                "numero" di /api/gare). A differenza della posizione non
+ *                cambia quando altre gare sono rimosse: una lettura per una
+ *                gara rimossa è scartata, non finisce sulla gara successiva
+ *   SECONDI    : tempo gara, es. 10.853 (al millesimo; '.' o ',' decimale)
+ *   SECONDARIO : Velocista = tempo di reazione in secondi (es. 0.612),
+ *                Ostacolista = penalità ostacoli in centesimi (es. 20)
+ *   METRI      : distanza, es. 8.12 (arrotondata al centimetro); X = nulla
+ *
+ * Righe vuote e che iniziano con '#' sono ignorate. Le regole sui valori
+ * sono quelle di FRM_Atleti (FabbricaAtleti).
+ *
+ * Applicazione: il pettorale è cercato tra gli iscritti della gara
+ * ({@link Gara#trovaPerPettorale}) e la sua Prestazione aggiornata con i
+ * setter, quindi classifica, osservatori e giornale seguono come per una
+ * modifica dal form; una lettura di tempo uguale al valore registrato non
+ * produce eventi. Ogni lettura M è la prova successiva dell'atleta
+ * (Prestazione.aggiungiProva): oltre le {@link Prestazione#MAX_PROVE} prove
+ * è scartata. Se nessun iscritto ha il pettorale, un atleta libero con quel
+ * pettorale viene iscritto con la sua prestazione in attesa (o con una
+ * nuova del suo tipo) aggiornata dalla lettura, come fa FRM_Gara.
+ *
+ * Prestazioni: le righe sono lette in buffer riutilizzati e convertite
+ * direttamente dai byte in una coda circolare di interi (nessuna
+ * allocazione per lettura). Un solo thread applica la coda a lotti, con un
+ * solo acquisto del lock della Gara per gara e per lotto. Se la coda è
+ * piena le connessioni TCP attendono (contropressione sul mittente), le
+ * letture UDP sono scartate e contate in {@link #getPerse()}.
+ */
+final class GatewayCronometraggio implements Closeable {
+
+    private static final java.util.logging.Logger logger =
+            java.util.logging.Logger.getLogger(GatewayCronometraggio.class.getName());
+
+    /** Proprietà di sistema: porta su cui ricevere le letture con l'interfaccia grafica. */
+    static final String PROPRIETA_PORTA = "meetingatleti.cronometraggio.porta";
+
+    /** Letture in coda; è anche la dimensione massima di un lotto. */
+    static final int CAPACITA = 1 << 14;
+
+    /** Righe più lunghe sono scartate come non valide. */
+    static final int RIGA_MASSIMA = 256;
+
+    static final int MASSIMO_CONNESSIONI = 64;
+
+    /** Intervallo del riepilogo nel log (solo se sono arrivate letture). */
+    private static final long RIEPILOGO_MS = 10_000;
+
+    /** Secondario non presente nella riga. */
+    private static final int ASSENTE = Integer.MIN_VALUE;
+
+    /** Valore di una lettura M con "X" (prova nulla); -1 indica già un numero non valido. */
+    private static final int NULLA = -2;
+
+    private static final byte TEMPO = 'T', MISURA = 'M';
+
+    private final ServerSocket   tcp;
+    private final DatagramSocket udp;
+    private final Thread         accettazione, ricezioneUdp, applicatore;
+    private final List<Socket>   connessioni = new CopyOnWriteArrayList<>();
+    private final AtomicInteger  numeroConnessione = new AtomicInteger();
+
+    // ── coda circolare (sotto il lock di this) ────────────────────────────
+    private final byte[] codaTipo      = new byte[CAPACITA];
+    private final int[]  codaGara      = new int[CAPACITA];
+    private final int[]  codaPettorale = new int[CAPACITA];
+    private final int[]  codaValore    = new int[CAPACITA];
+    private final int[]  codaSecondo   = new int[CAPACITA];
+    private int     testa, quante;
+    private boolean inApplicazione;    // lotto prelevato e non ancora applicato
+    private boolean chiuso;
+
+    // ── lotto in applicazione (solo il thread applicatore) ────────────────
+    private final byte[]    lottoTipo      = new byte[CAPACITA];
+    private final int[]     lottoGara      = new int[CAPACITA];
+    private final int[]     lottoPettorale = new int[CAPACITA];
+    private final int[]     lottoValore    = new int[CAPACITA];
+    private final int[]     lottoSecondo   = new int[CAPACITA];
+    private final boolean[] lottoFatto     = new boolean[CAPACITA];
+    private Map<Integer, Atleta> liberiPerPettorale;     // costruita al primo pettorale non iscritto del lotto
+    private final List<Atleta>   iscrittiDaiLiberi = new ArrayList<>();
+
+    // ── contatori ──────────────────────────────────────────────────────────
+    private final AtomicLong ricevute     = new AtomicLong();
+    private final AtomicLong nonValide    = new AtomicLong();
+    private final AtomicLong perse        = new AtomicLong();
+    private final AtomicLong applicate    = new AtomicLong();
+    private final AtomicLong scartate     = new AtomicLong();
+    private final AtomicLong sconosciute  = new AtomicLong();
+
+    /**
+     * Apre le porte TCP e UDP (non ancora in ascolto).
+     *
+     * @param indirizzo indirizzo e porta (porta 0 = scelta dal sistema, uguale per TCP e UDP)
+     */
+    GatewayCronometraggio(InetSocketAddress indirizzo) throws IOException {
+        if (indirizzo == null) throw new IllegalArgumentException("indirizzo non puo essere null");
+        tcp = new ServerSocket();
+        try {
+            tcp.setReuseAddress(true);
+            tcp.bind(indirizzo);
+            udp = new DatagramSocket(new InetSocketAddress(indirizzo.getAddress(), tcp.getLocalPort()));
+            udp.setReceiveBufferSize(1 << 20);
+        } catch (IOException | RuntimeException ex) {
+            tcp.close();
+            throw ex;
+        }
+        accettazione = demone(this::accetta,     "cronometraggio-tcp");
+        ricezioneUdp = demone(this::riceviUdp,   "cronometraggio-udp");
+        applicatore  = demone(this::applicaCiclo, "cronometraggio-applicazione");
+    }
+
+    private static Thread demone(Runnable r, String nome) {
+        Thread t = new Thread(r, nome);
+        t.setDaemon(true);
+        return t;
+    }
+
+    void avvia() {
+        applicatore.start();
+        accettazione.start();
+        ricezioneUdp.start();
+        logger.info("Cronometraggio in ascolto su TCP e UDP, porta " + getPorta());
+    }
+
+    int getPorta() { return tcp.getLocalPort(); }
+
+    /**
+     * Chiude porte e connessioni, applica le letture già in coda e attende
+     * la fine del thread di applicazione.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (chiuso) return;
+            chiuso = true;
+            notifyAll();
+        }
+        chiudi(tcp);
+        udp.close();
+        for (Socket s : connessioni) chiudi(s);
+        try {
+            applicatore.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        logger.info("Cronometraggio chiuso: " + this);
+    }
+
+    private static void chiudi(Closeable c) {
+        try {
+            c.close();
+        } catch (IOException ex) {
+            logger.log(Level.FINE, "Chiusura non riuscita", ex);
+        }
+    }
+
+    // ── contatori ──────────────────────────────────────────────────────────
+
+    /** Righe valide accodate. */
+    long getRicevute()    { return ricevute.get(); }
+    /** Righe malformate (sintassi, numeri, lunghezza). */
+    long getNonValide()   { return nonValide.get(); }
+    /** Letture UDP perse a coda piena. */
+    long getPerse()       { return perse.get(); }
+    /** Letture applicate a una prestazione (anche se il valore era già quello). */
+    long getApplicate()   { return applicate.get(); }
+    /** Letture rifiutate: gara inesistente, tipo di lettura o valore non adatti. */
+    long getScartate()    { return scartate.get(); }
+    /** Pettorali né iscritti alla gara né tra gli atleti liberi. */
+    long getSconosciute() { return sconosciute.get(); }
+
+    /** True quando tutte le letture accodate finora sono state applicate. */
+    synchronized boolean isInPari() { return quante == 0 && !inApplicazione; }
+
+    @Override
+    public String toString() {
+        return ricevute + " ricevute, " + applicate + " applicate, " + scartate + " scartate, "
+                + sconosciute + " pettorali sconosciuti, " + nonValide + " non valide, " + perse + " perse";
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    //  RETE
+    // ══════════════════════════════════════════════════════════════════════
+
+    private void accetta() {
+        while (!tcp.isClosed()) {
+            Socket s;
+            try {
+                s = tcp.accept();
+            } catch (IOException ex) {
+                if (!tcp.isClosed()) logger.log(Level.WARNING, "Accettazione TCP interrotta", ex);
+                return;
+            }
+            if (connessioni.size() >= MASSIMO_CONNESSIONI) {
+                logger.warning("Connessione di cronometraggio rifiutata: già " + MASSIMO_CONNESSIONI + " aperte");
+                chiudi(s);
+                continue;
+            }
+            connessioni.add(s);
+            demone(() -> leggiTcp(s), "cronometraggio-tcp-" + numeroConnessione.incrementAndGet()).start();
+        }
+    }
+
+    /** Legge le righe di una connessione; una riga spezzata tra due letture è ricompattata in testa al buffer. */
+    private void leggiTcp(Socket s) {
+        Analizzatore an = new Analizzatore();
+        byte[] buf = new byte[8192];
+        int n = 0;
+        boolean scarta = false;                       // dentro una riga troppo lunga
+        try (InputStream in = s.getInputStream()) {
+            int letti;
+            while ((letti = in.read(buf, n, buf.length - n)) > 0) {
+                int fine = n + letti, inizio = 0;
+                for (int i = n; i < fine; i++) {
+                    if (buf[i] != '\n') continue;
+                    if (!scarta) accoda(an, buf, inizio, i, true);
+                    scarta = false;
+                    inizio = i + 1;
+                }
+                n = fine - inizio;
+                if (n > RIGA_MASSIMA) {
+                    if (!scarta) nonValide.incrementAndGet();
+                    scarta = true;
+                    n = 0;
+                } else if (inizio > 0) {
+                    System.arraycopy(buf, inizio, buf, 0, n);
+                }
+            }
+            if (n > 0 && !scarta) accoda(an, buf, 0, n, true);    // ultima riga senza a capo
+        } catch (SocketException ex) {
+            logger.log(Level.FINE, "Connessione di cronometraggio chiusa", ex);
+        } catch (IOException ex) {
+            logger.log(Level.WARNING, "Lettura dal cronometraggio interrotta", ex);
+        } finally {
+            connessioni.remove(s);
+            chiudi(s);
+        }
+    }
+
+    private void riceviUdp() {
+        Analizzatore   an = new Analizzatore();
+        byte[]         buf = new byte[65_536];
+        DatagramPacket pacchetto = new DatagramPacket(buf, buf.length);
+        while (!udp.isClosed()) {
+            try {
+                pacchetto.setLength(buf.length);
+                udp.receive(pacchetto);
+            } catch (IOException ex) {
+                if (!udp.isClosed()) logger.log(Level.WARNING, "Ricezione UDP interrotta", ex);
+                return;
+            }
+            int fine = pacchetto.getLength(), inizio = 0;
+            for (int i = 0; i <= fine; i++) {
+                if (i < fine && buf[i] != '\n') continue;
+                if (i - inizio > RIGA_MASSIMA) nonValide.incrementAndGet();
+                else accoda(an, buf, inizio, i, false);
+                inizio = i + 1;
+            }
+        }
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    //  RIGHE → CODA
+    // ══════════════════════════════════════════════════════════════════════
+
+    /**
+     * Converte la riga [da, a) e la mette in coda.
+     *
+     * @param attendi true = a coda piena attende (TCP); false = scarta (UDP)
+     */
+    void accoda(Analizzatore an, byte[] b, int da, int a, boolean attendi) {
+        switch (an.analizza(b, da, a)) {
+            case Analizzatore.VUOTA:  return;
+            case Analizzatore.ERRATA: nonValide.incrementAndGet(); return;
+            default: break;
+        }
+        synchronized (this) {
+            while (quante == CAPACITA && !chiuso) {
+                if (!attendi) { perse.incrementAndGet(); return; }
+                try {
+                    wait();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+            if (chiuso) return;
+            int i = (testa + quante) & (CAPACITA - 1);
+            codaTipo[i]      = an.tipo;
+            codaGara[i]      = an.gara;
+            codaPettorale[i] = an.pettorale;
+            codaValore[i]    = an.valore;
+            codaSecondo[i]   = an.secondario;
+            if (quante++ == 0) notifyAll();           // l'applicatore attende solo a coda vuota
+        }
+        ricevute.incrementAndGet();
+    }
+
+    /**
+     * Parsing di una riga direttamente dai byte, senza allocazioni: il
+     * risultato resta nei campi, uno per thread di ricezione.
+     */
+    static final class Analizzatore {
+        static final int VUOTA = 0, VALIDA = 1, ERRATA = -1;
+
+        byte tipo;
+        int  gara, pettorale, valore, secondario;
+
+        private byte[] b;
+        private int    pos, fine;
+
+        int analizza(byte[] riga, int da, int a) {
+            b = riga;
+            pos = da;
+            fine = a;
+            if (fine > pos && b[fine - 1] == '\r') fine--;
+            salta();
+            if (pos == fine || b[pos] == '#') return VUOTA;
+            byte t = (byte) (b[pos++] & ~0x20);        // maiuscola
+            if ((t != TEMPO && t != MISURA) || !separatore()) return ERRATA;
+            tipo = t;
+            gara       = intero();
+            pettorale  = intero();
+            valore     = (t == MISURA && nulla()) ? NULLA : millesimi();
+            secondario = ASSENTE;
+            if (gara < 0 || pettorale <= 0 || (valore <= 0 && valore != NULLA)) return ERRATA;
+            salta();
+            if (pos < fine) {
+                if (t == MISURA) return ERRATA;
+                secondario = millesimi();
+                if (secondario < 0) return ERRATA;
+                salta();
+            }
+            return pos == fine ? VALIDA : ERRATA;
+        }
+
+        /** Il prossimo campo è la sola lettera X (prova nulla): la consuma. */
+        private boolean nulla() {
+            salta();
+            if (pos == fine || (b[pos] & ~0x20) != 'X') return false;
+            if (pos + 1 < fine && !spazio(b[pos + 1])) return false;
+            pos++;
+            return true;
+        }
+
+        private boolean spazio(byte c) { return c == ' ' || c == '\t' || c == ';'; }
+
+        private void salta() { while (pos < fine && spazio(b[pos])) pos++; }
+
+        private boolean separatore() {
+            if (pos == fine || !spazio(b[pos])) return false;
+            salta();
+            return true;
+        }
+
+        /** Intero non negativo seguito da un separatore o dalla fine; -1 se non valido. */
+        private int intero() {
+            salta();
+            long v = 0;
+            int inizio = pos;
+            for (; pos < fine && !spazio(b[pos]); pos++) {
+                int d = b[pos] - '0';
+                if (d < 0 || d > 9) return -1;
+                v = v * 10 + d;
+                if (v > Integer.MAX_VALUE) return -1;
+            }
+            return pos == inizio ? -1 : (int) v;
+        }
+
+        /** Decimale non negativo in millesimi, arrotondato sulla quarta cifra; -1 se non valido. */
+        private int millesimi() {
+            salta();
+            long v = 0;
+            int decimali = -1, cifre = 0;              // -1 = prima del separatore decimale
+            for (; pos < fine && !spazio(b[pos]); pos++) {
+                byte c = b[pos];
+                if (c == '.' || c == ',') {
+                    if (decimali >= 0) return -1;
+                    decimali = 0;
+                    continue;
+                }
+                int d = c - '0';
+                if (d < 0 || d > 9) return -1;
+                cifre++;
+                if (decimali < 0) {
+                    v = v * 10 + d;
+                    if (v > Integer.MAX_VALUE / 1000) return -1;
+                } else if (decimali < 3) {
+                    v = v * 10 + d;
+                    decimali++;
+                } else if (decimali == 3) {
+                    if (d >= 5) v++;                   // arrotondamento
+                    decimali++;
+                }
+            }
+            if (cifre == 0) return -1;
+            for (int k = Math.max(decimali, 0); k < 3; k++) v *= 10;
+            return (int) v;
+        }
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    //  APPLICAZIONE A LOTTI
+    // ══════════════════════════════════════════════════════════════════════
+
+    private void applicaCiclo() {
+        long prossimoRiepilogo = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(RIEPILOGO_MS);
+        long ricevuteAlRiepilogo = 0;
+        while (true) {
+            int n;
+            synchronized (this) {
+                inApplicazione = false;
+                notifyAll();                           // posti liberi e isInPari()
+                while (quante == 0 && !chiuso) {
+                    try {
+                        wait(RIEPILOGO_MS);
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    if (quante == 0) break;
+                }
+                if (quante == 0 && chiuso) return;
+                n = quante;
+                for (int k = 0; k < n; k++) {
+                    int i = (testa + k) & (CAPACITA - 1);
+                    lottoTipo[k]      = codaTipo[i];
+                    lottoGara[k]      = codaGara[i];
+                    lottoPettorale[k] = codaPettorale[i];
+                    lottoValore[k]    = codaValore[i];
+                    lottoSecondo[k]   = codaSecondo[i];
+                }
+                testa  = (testa + n) & (CAPACITA - 1);
+                quante = 0;
+                inApplicazione = n > 0;
+                notifyAll();
+            }
+            if (n > 0) {
+                try {
+                    applicaLotto(n);
+                } catch (RuntimeException ex) {
+                    logger.log(Level.WARNING, "Lotto di letture non applicato", ex);
+                }
+            }
+            if (System.nanoTime() - prossimoRiepilogo >= 0) {
+                prossimoRiepilogo = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(RIEPILOGO_MS);
+                long r = ricevute.get();
+                if (r != ricevuteAlRiepilogo) logger.info("Cronometraggio: " + this);
+                ricevuteAlRiepilogo = r;
+            }
+        }
+    }
+
+    /** Applica le prime n letture del lotto, gara per gara, ciascuna sotto un solo lock. */
+    private void applicaLotto(int n) {
+        Meeting meeting = AppData.getInstance().getMeeting();
+        List<Gara> gare = (meeting == null) ? new ArrayList<>() : meeting.istantaneaGare();
+        Arrays.fill(lottoFatto, 0, n, false);
+        liberiPerPettorale = null;
+        try {
+            for (int k = 0; k < n; k++) {
+                if (lottoFatto[k]) continue;
+                int numero = lottoGara[k];
+                Gara gara = cercaGara(gare, numero);
+                if (gara == null) {
+                    for (int j = k; j < n; j++) {
+                        if (lottoGara[j] == numero) { lottoFatto[j] = true; scartate.incrementAndGet(); }
+                    }
+                    continue;
+                }
+                synchronized (gara) {
+                    for (int j = k; j < n; j++) {
+                        if (lottoFatto[j] || lottoGara[j] != numero) continue;
+                        lottoFatto[j] = true;
+                        applica(gara, j);
+                    }
+                }
+                // fuori dal lock della gara, come ImportatoreCsv
+                for (Atleta a : iscrittiDaiLiberi) AppData.getInstance().rimuoviAtletaLibero(a);
+                iscrittiDaiLiberi.clear();
+            }
+        } finally {
+            liberiPerPettorale = null;
+            iscrittiDaiLiberi.clear();
+        }
+    }
+
+    /** Gara con quel numero nella copia dell'elenco del lotto, o null. */
+    private static Gara cercaGara(List<Gara> gare, int numero) {
+        for (Gara g : gare) if (g.getNumero() == numero) return g;
+        return null;
+    }
+
+    /** Una lettura, con il lock della gara. */
+    private void applica(Gara gara, int j) {
+        Atleta atleta = gara.trovaPerPettorale(lottoPettorale[j]);
+        if (atleta != null) {
+            Prestazione p = atleta.getPrestazione(gara);
+            if (p != null && aggiorna(p, j)) applicate.incrementAndGet();
+            else scartate.incrementAndGet();
+            return;
+        }
+
+        // pettorale non iscritto: atleta libero con quel pettorale
+        if (liberiPerPettorale == null) {
+            liberiPerPettorale = new HashMap<>();
+            for (Atleta a : AppData.getInstance().getAtletiLiberi())
+                if (a.getPettorale() != null) liberiPerPettorale.putIfAbsent(a.getPettorale(), a);
+        }
+        Atleta libero = liberiPerPettorale.get(lottoPettorale[j]);
+        if (libero == null) {
+            sconosciute.incrementAndGet();
+            return;
+        }
+        Prestazione p = AppData.getInstance().getPrestazioneInAttesa(libero);
+        if (p == null) p = nuovaPrestazione(libero, j);
+        if (p != null && ammessa(gara, libero, p) && aggiorna(p, j) && gara.iscrizione(libero, p)) {
+            liberiPerPettorale.remove(lottoPettorale[j]);
+            iscrittiDaiLiberi.add(libero);
+            applicate.incrementAndGet();
+        } else {
+            scartate.incrementAndGet();
+        }
+    }
+
+    /**
+     * Porta la lettura j nella prestazione. Il valore è verificato prima di
+     * toccare la prestazione; i setter dei tempi sono chiamati solo se cambia
+     * qualcosa, una misura è sempre una prova in più.
+     *
+     * @return false se la lettura non è adatta al tipo di prestazione
+     *         (o le prove sono esaurite)
+     */
+    private boolean aggiorna(Prestazione p, int j) {
+        int valore = lottoValore[j], secondo = lottoSecondo[j];
+        switch (p.getTipo()) {
+            case VELOCISTA:
+            case OSTACOLISTA:
+            case FONDOMETRISTA: {
+                if (lottoTipo[j] != TEMPO) return false;
+                Integer secondario = null;
+                if (secondo != ASSENTE) {
+                    if (p.getTipo() == Prestazione.Tipo.VELOCISTA) {
+                        if (secondo <= FabbricaAtleti.REAZIONE_MINIMA_MS) return false;
+                        secondario = secondo / 10;             // centesimi, come FabbricaAtleti
+                    } else if (p.getTipo() == Prestazione.Tipo.OSTACOLISTA) {
+                        if (secondo % 1000 != 0) return false;  // penalità intera in centesimi
+                        secondario = secondo / 1000;
+                    } else {
+                        return false;
+                    }
+                }
+                if (p.getTempoGaraMillis() != valore) p.setTempoGaraMillis(valore);
+                if (secondario != null) {
+                    if (p.getTipo() == Prestazione.Tipo.VELOCISTA) {
+                        if (!secondario.equals(p.getTempoReazione())) p.setTempoReazione(secondario);
+                    } else if (!secondario.equals(p.getTempoOstacolo())) {
+                        p.setTempoOstacolo(secondario);
+                    }
+                }
+                return true;
+            }
+            case SALTO:
+            case LANCIO: {
+                if (lottoTipo[j] != MISURA || p.getNumeroProve() >= Prestazione.MAX_PROVE) return false;
+                int cm = (valore == NULLA) ? Prestazione.NULLO : (valore + 5) / 10;
+                if (cm == 0) return false;
+                p.aggiungiProva(cm);
+                return true;
+            }
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Le condizioni di Gara.iscrizione su categoria e tipo, verificate prima
+     * di scrivere la lettura nella prestazione in attesa (che resta intatta
+     * se l'atleta non può entrare in gara).
+     */
+    private static boolean ammessa(Gara gara, Atleta a, Prestazione p) {
+        if (!a.getSesso().equalsIgnoreCase(gara.getCategoria())) return false;
+        if (gara.getTipoGaraCorsa()  != null) return p.compatibileCorsa();
+        if (gara.getTipoGaraSalto()  != null) return p.compatibileSalto();
+        if (gara.getTipoGaraLancio() != null) return p.compatibileLancio();
+        return true;
+    }
+
+    /**
+     * Prestazione vuota del tipo dell'atleta libero, riempita poi da
+     * aggiorna(); per i Velocisti il secondario distingue velocista
+     * (reazione) da fondometrista.
+     */
+    private Prestazione nuovaPrestazione(Atleta a, int j) {
+        if (a instanceof Velocisti)
+            return lottoSecondo[j] != ASSENTE ? Prestazione.velocistaMillis(Prestazione.TEMPO_ASSENTE, null)
+                                              : Prestazione.fondometristaMillis(Prestazione.TEMPO_ASSENTE);
+        if (a instanceof Saltatori)  return Prestazione.salto(null);
+        if (a instanceof Lanciatori) return Prestazione.lancio(null);
+        return null;
+    }
+}
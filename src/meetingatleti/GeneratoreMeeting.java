@@ -0,0 +1,321 @@
+package meetingatleti;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Generatore di meeting sintetici, riproducibile a partire da un seme,
+ * per test di carico, benchmark e prove dell'interfaccia.
+ *
+ * Gare: si percorrono le specialità configurate (default: tutte quelle di
+ * TipoGaraCorsa, TipoGaraSalto e TipoGaraLancio), ciascuna nelle categorie
+ * M e F, e poi si ricomincia con le batterie successive ("centom M #2").
+ *
+ * Atleti: per ogni tipo (corsa, salto, lancio) e categoria c'è un gruppo di
+ * atleti condivisi; una quota degli iscritti di ogni gara è estratta da quel
+ * gruppo, quindi lo stesso Atleta (stesso pettorale) corre più gare. Gli
+ * altri iscritti sono nuovi, con pettorale unico nel meeting.
+ *
+ * Prestazioni: misure realistiche per specialità. La densità di pari merito
+ * è la frazione di iscritti che ripete la prestazione di un altro: i valori
+ * sono presi da un insieme di max(1, n·(1 − densità)) misure diverse, con
+ * tempo effettivo distinto per le corse, così la quota di pari merito è
+ * esatta. Il tempo di reazione rispetta la regola di FabbricaAtleti (> 0.5 s).
+ *
+ * Ogni gara usa un generatore pseudo-casuale derivato dal seme e dal proprio
+ * indice, e gli attributi di un atleta dipendono solo dal suo pettorale:
+ * {@link #scriviCsv} produce per una gara esattamente le righe che
+ * {@link #genera} iscriverebbe, senza costruire il grafo di oggetti.
+ */
+final class GeneratoreMeeting {
+
+    // ── specialità ─────────────────────────────────────────────────────────
+
+    /** Specialità con il tipo di atleta e l'intervallo delle misure (ms o cm). */
+    private static final class Specialita {
+        final Enum<?> tipo;
+        final String  tipoAtleta;   // costante di FabbricaAtleti.TIPI
+        final int     gruppo;       // 0 corsa, 1 salto, 2 lancio
+        final int     base, ampiezza;
+
+        Specialita(Enum<?> tipo, String tipoAtleta, int gruppo, int base, int ampiezza) {
+            this.tipo       = tipo;
+            this.tipoAtleta = tipoAtleta;
+            this.gruppo     = gruppo;
+            this.base       = base;
+            this.ampiezza   = ampiezza;
+        }
+    }
+
+    private static final String VELOCISTA = FabbricaAtleti.TIPI[0], FONDOMETRISTA = FabbricaAtleti.TIPI[1],
+                                OSTACOLISTA = FabbricaAtleti.TIPI[2], SALTATORE = FabbricaAtleti.TIPI[3],
+                                PESISTA = FabbricaAtleti.TIPI[4];
+
+    private static final Specialita[] TUTTE = {
+        // corse: tempo effettivo in ms
+        new Specialita(TipoGaraCorsa.centom,               VELOCISTA,     0,    10_000,     3_000),
+        new Specialita(TipoGaraCorsa.duecentom,            VELOCISTA,     0,    20_000,     7_000),
+        new Specialita(TipoGaraCorsa.quattrocentom,        VELOCISTA,     0,    45_000,    15_000),
+        new Specialita(TipoGaraCorsa.ottocentom,           FONDOMETRISTA, 0,   105_000,    45_000),
+        new Specialita(TipoGaraCorsa.millecinquecentom,    FONDOMETRISTA, 0,   215_000,    85_000),
+        new Specialita(TipoGaraCorsa.cinquemilam,          FONDOMETRISTA, 0,   800_000,   300_000),
+        new Specialita(TipoGaraCorsa.diecimilam,           FONDOMETRISTA, 0, 1_650_000,   650_000),
+        new Specialita(TipoGaraCorsa.Ostacoli,             OSTACOLISTA,   0,    13_000,     4_000),
+        new Specialita(TipoGaraCorsa.quattrocentoOstacoli, OSTACOLISTA,   0,    48_000,    17_000),
+        new Specialita(TipoGaraCorsa.tremilaSiepi,         OSTACOLISTA,   0,   500_000,   200_000),
+        new Specialita(TipoGaraCorsa.Maratona,             FONDOMETRISTA, 0, 7_600_000, 3_200_000),
+        new Specialita(TipoGaraCorsa.Maradona,             FONDOMETRISTA, 0, 7_600_000, 3_200_000),
+        // salti e lanci: cm
+        new Specialita(TipoGaraSalto.Alto,                 SALTATORE,     1,       150,        90),
+        new Specialita(TipoGaraSalto.Lungo,                SALTATORE,     1,       550,       300),
+        new Specialita(TipoGaraSalto.Asta,                 SALTATORE,     1,       400,       200),
+        new Specialita(TipoGaraSalto.Triplo,               SALTATORE,     1,     1_200,       550),
+        new Specialita(TipoGaraLancio.Peso,                PESISTA,       2,     1_200,     1_000),
+        new Specialita(TipoGaraLancio.Disco,               PESISTA,       2,     4_000,     3_000),
+        new Specialita(TipoGaraLancio.Martello,            PESISTA,       2,     5_000,     3_000),
+        new Specialita(TipoGaraLancio.Giavellotto,         PESISTA,       2,     5_000,     4_000),
+    };
+
+    private static final String[] CATEGORIE = {"M", "F"};
+
+    private static final String[] NOMI_M   = {"Marco", "Luca", "Giovanni", "Nicolò", "Andrea", "Matteo", "Davide", "Gianmarco"};
+    private static final String[] NOMI_F   = {"Giulia", "Sara", "Chiara", "Martina", "Anna", "Federica", "Elisa", "Larissa"};
+    private static final String[] COGNOMI  = {"Rossi", "Bianchi", "Esposito", "D'Angelo", "Ferrari", "Romano", "Colombo",
+                                              "Ricci", "De Luca", "Galli", "Conte", "Mancini", "Lombardi", "Bruno"};
+
+    // ── configurazione ─────────────────────────────────────────────────────
+
+    private final long   seme;
+    private Specialita[] specialita = TUTTE;
+    private int          numeroGare = TUTTE.length * CATEGORIE.length;
+    private int          iscrittiPerGara = 16;
+    private double       quotaMultidisciplina = 0.3;
+    private double       densitaPari = 0.0;
+    private int          atletiCondivisi = -1;        // -1 = iscrittiPerGara
+
+    GeneratoreMeeting(long seme) { this.seme = seme; }
+
+    void setNumeroGare(int n) {
+        if (n < 0) throw new IllegalArgumentException("numeroGare non puo essere negativo");
+        numeroGare = n;
+    }
+
+    void setIscrittiPerGara(int n) {
+        if (n < 0) throw new IllegalArgumentException("iscrittiPerGara non puo essere negativo");
+        iscrittiPerGara = n;
+    }
+
+    /** Frazione degli iscritti di ogni gara presa dagli atleti condivisi (0..1). */
+    void setQuotaMultidisciplina(double q) {
+        if (!(q >= 0 && q <= 1)) throw new IllegalArgumentException("quotaMultidisciplina fuori da 0..1: " + q);
+        quotaMultidisciplina = q;
+    }
+
+    /** Frazione degli iscritti a pari merito con qualcun altro (0..1). */
+    void setDensitaPari(double d) {
+        if (!(d >= 0 && d <= 1)) throw new IllegalArgumentException("densitaPari fuori da 0..1: " + d);
+        densitaPari = d;
+    }
+
+    /** Atleti condivisi per tipo e categoria (default: iscrittiPerGara). */
+    void setAtletiCondivisi(int n) {
+        if (n < 0) throw new IllegalArgumentException("atletiCondivisi non puo essere negativo");
+        atletiCondivisi = n;
+    }
+
+    /** Limita le specialità (costanti di TipoGaraCorsa / TipoGaraSalto / TipoGaraLancio). */
+    void setSpecialita(Enum<?>... tipi) {
+        if (tipi == null || tipi.length == 0) throw new IllegalArgumentException("tipi non puo essere vuoto");
+        Specialita[] scelte = new Specialita[tipi.length];
+        for (int i = 0; i < tipi.length; i++) {
+            for (Specialita s : TUTTE) if (s.tipo == tipi[i]) scelte[i] = s;
+            if (scelte[i] == null) throw new IllegalArgumentException("specialità non valida: " + tipi[i]);
+        }
+        specialita = scelte;
+    }
+
+    int getNumeroGare() { return numeroGare; }
+
+    // ══════════════════════════════════════════════════════════════════════
+    //  GARE
+    // ══════════════════════════════════════════════════════════════════════
+
+    private Specialita specialitaGara(int g) { return specialita[(g / CATEGORIE.length) % specialita.length]; }
+    private String     categoriaGara(int g)  { return CATEGORIE[g % CATEGORIE.length]; }
+
+    /** Nome della gara {@code g}: specialità, categoria e numero di batteria dalla seconda in poi. */
+    String nomeGara(int g) {
+        int batteria = g / (CATEGORIE.length * specialita.length);
+        return specialitaGara(g).tipo.name() + " " + categoriaGara(g) + (batteria > 0 ? " #" + (batteria + 1) : "");
+    }
+
+    /** Gara vuota {@code g} con tipo e categoria. */
+    Gara creaGara(int g) {
+        Gara gara = new Gara(nomeGara(g), categoriaGara(g));
+        Enum<?> tipo = specialitaGara(g).tipo;
+        if (tipo instanceof TipoGaraCorsa)      gara.setTipoGaraCorsa((TipoGaraCorsa) tipo);
+        else if (tipo instanceof TipoGaraSalto) gara.setTipoGaraSalto((TipoGaraSalto) tipo);
+        else                                    gara.setTipoGaraLancio((TipoGaraLancio) tipo);
+        return gara;
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    //  GENERAZIONE
+    // ══════════════════════════════════════════════════════════════════════
+
+    /** Una riga di iscrizione (riusata: i campi valgono fino alla successiva). */
+    private static final class Voce {
+        String tipo, sesso;
+        int    pettorale, eta, valore, secondario;
+        int    condiviso;                       // indice nel gruppo condiviso, -1 se nuovo
+    }
+
+    private interface Destinazione {
+        void voce(Voce v) throws IOException;
+    }
+
+    /** Costruisce il meeting completo (gare, atleti condivisi, prestazioni). */
+    Meeting genera() {
+        Meeting m = new Meeting("Meeting sintetico " + seme, "2026-06-01", "Generato");
+        Atleta[][] condivisi = new Atleta[3 * CATEGORIE.length][];
+        for (int g = 0; g < numeroGare; g++) {
+            Gara gara = creaGara(g);
+            int gruppo = specialitaGara(g).gruppo * CATEGORIE.length + (g % CATEGORIE.length);
+            if (condivisi[gruppo] == null) condivisi[gruppo] = new Atleta[dimensioneCondivisi()];
+            Atleta[] pool = condivisi[gruppo];
+            try {
+                iscritti(g, v -> {
+                    Atleta a = (v.condiviso >= 0) ? pool[v.condiviso] : null;
+                    if (a == null) {
+                        a = FabbricaAtleti.atleta(v.tipo, nome(v.pettorale, v.sesso), v.sesso, v.eta, v.pettorale);
+                        if (v.condiviso >= 0) pool[v.condiviso] = a;
+                    }
+                    gara.iscrizione(a, FabbricaAtleti.prestazione(v.tipo, v.valore, v.secondario));
+                });
+            } catch (IOException ex) {
+                throw new IllegalStateException(ex);      // non accade: nessun I/O
+            }
+            m.aggiungiGara(gara);
+        }
+        return m;
+    }
+
+    /**
+     * Scrive le iscrizioni della gara {@code g} nel formato di ImportatoreCsv
+     * (separatore ';', punto decimale, con intestazione).
+     */
+    void scriviCsv(int g, Writer out) throws IOException {
+        if (out == null) throw new IllegalArgumentException("out non puo essere null");
+        if (g < 0 || g >= numeroGare) throw new IndexOutOfBoundsException("gara " + g + " su " + numeroGare);
+        out.write("tipo;nome;sesso;eta;pettorale;stat1;stat2\n");
+        StringBuilder sb = new StringBuilder(96);
+        iscritti(g, v -> {
+            sb.setLength(0);
+            sb.append(v.tipo).append(';').append(nome(v.pettorale, v.sesso)).append(';')
+              .append(v.sesso).append(';').append(v.eta).append(';').append(v.pettorale).append(';');
+            if (v.tipo == SALTATORE || v.tipo == PESISTA) {
+                sb.append(v.valore).append(';');
+            } else {
+                secondi(sb, v.valore).append(';');
+                if (v.tipo == VELOCISTA)        secondi(sb, v.secondario);
+                else if (v.tipo == OSTACOLISTA) sb.append(v.secondario);
+            }
+            sb.append('\n');
+            out.append(sb);
+        });
+    }
+
+    /** Millesimi → secondi con tre decimali. */
+    private static StringBuilder secondi(StringBuilder sb, int ms) {
+        sb.append(ms / 1000).append('.');
+        int resto = ms % 1000;
+        if (resto < 100) sb.append('0');
+        if (resto < 10)  sb.append('0');
+        return sb.append(resto);
+    }
+
+    private int dimensioneCondivisi() {
+        return (atletiCondivisi >= 0) ? atletiCondivisi : Math.max(1, iscrittiPerGara);
+    }
+
+    /** Genera le voci della gara {@code g} in ordine, dipendendo solo da (seme, g). */
+    private void iscritti(int g, Destinazione dest) throws IOException {
+        Specialita s = specialitaGara(g);
+        String sesso = categoriaGara(g);
+        int n = iscrittiPerGara;
+        Random r = new Random(mescola(seme + 0x5851F42D4C957F2DL * (g + 1)));
+
+        // atleti condivisi: indici distinti nel gruppo (algoritmo di Floyd)
+        int pool = dimensioneCondivisi();
+        int nCondivisi = Math.min(pool, (int) Math.round(n * quotaMultidisciplina));
+        int[] scelti = new int[nCondivisi];
+        Set<Integer> presi = new HashSet<>();
+        for (int j = pool - nCondivisi, k = 0; j < pool; j++) {
+            int t = r.nextInt(j + 1);
+            int x = presi.add(t) ? t : j;
+            if (x == j) presi.add(j);
+            scelti[k++] = x;
+        }
+
+        // misure distinte e mescolate, poi ripetute secondo la densità di pari merito
+        int distinti = Math.max(1, (int) Math.round(n * (1.0 - densitaPari)));
+        int passo = Math.max(1, s.ampiezza / Math.max(1, distinti));
+        int[] misure = new int[Math.min(distinti, Math.max(n, 1))];
+        for (int i = 0; i < misure.length; i++) misure[i] = s.base + i * passo;
+        for (int i = misure.length - 1; i > 0; i--) {
+            int j = r.nextInt(i + 1), t = misure[i];
+            misure[i] = misure[j];
+            misure[j] = t;
+        }
+
+        int gruppo = s.gruppo * CATEGORIE.length + (g % CATEGORIE.length);
+        int primoNuovo = 1 + 3 * CATEGORIE.length * pool;
+        Voce v = new Voce();
+        for (int k = 0; k < n; k++) {
+            v.tipo  = s.tipoAtleta;
+            v.sesso = sesso;
+            if (k < nCondivisi) {
+                v.condiviso = scelti[k];
+                v.pettorale = 1 + gruppo * pool + scelti[k];
+            } else {
+                v.condiviso = -1;
+                v.pettorale = primoNuovo + g * n + k;
+            }
+            v.eta = 16 + (int) Long.remainderUnsigned(mescola(seme ^ v.pettorale), 25);
+
+            int misura = (k < misure.length) ? misure[k] : misure[r.nextInt(misure.length)];
+            int cs;
+            if (s.tipoAtleta == VELOCISTA) {
+                cs = 51 + (misura % 40);                 // reazione 0.51..0.90 s, fissa per misura
+                v.valore     = misura - 10 * cs;
+                v.secondario = cs * 10;                  // in ms, come FabbricaAtleti
+            } else if (s.tipoAtleta == OSTACOLISTA) {
+                cs = misura % 51;                        // penalità 0..50 cs
+                v.valore     = misura - 10 * cs;
+                v.secondario = cs;
+            } else {
+                v.valore     = misura;
+                v.secondario = 0;
+            }
+            dest.voce(v);
+        }
+    }
+
+    /** Nome deterministico dal pettorale. */
+    private String nome(int pettorale, String sesso) {
+        long h = mescola(seme * 31 + pettorale);
+        String[] nomi = "F".equals(sesso) ? NOMI_F : NOMI_M;
+        return nomi[(int) Long.remainderUnsigned(h, nomi.length)] + " "
+             + COGNOMI[(int) Long.remainderUnsigned(h >>> 20, COGNOMI.length)];
+    }
+
+    /** Funzione di mescolamento di SplitMix64. */
+    private static long mescola(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -1,8 +1,13 @@
 package meetingatleti;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 /**
  * Classe di servizio per la gestione centralizzata dei punteggi.
@@ -15,9 +20,11 @@ import java.util.Map;
  *
  * Regole di ranking:
  *   1. Ordine decrescente per punteggio.
- *   2. A pari punteggio: pettorale più basso prima (stessa posizione numerica,
- *      flag pariMerito=true).
- *   3. Medaglie seguono la posizione: due atleti in pos. 2 → entrambi ARGENTO.
+ *   2. A pari punteggio, spareggio (Prestazione.getSpareggio()): tempo al
+ *      millesimo nelle corse, seconda miglior misura nei concorsi.
+ *   3. A pari punteggio e spareggio: pettorale più basso prima (stessa
+ *      posizione numerica, flag pariMerito=true).
+ *   4. Medaglie seguono la posizione: due atleti in pos. 2 → entrambi ARGENTO.
  */
 public class GestorePunteggio {
 
@@ -32,28 +39,47 @@ public class GestorePunteggio {
      * Usa Atleta.getPrestazione(gara) per il punteggio: nessuna dipendenza
      * da AppData.garaCorrente.
      *
+     * Il punteggio di ogni atleta è calcolato una sola volta: l'ordinamento
+     * avviene su array primitivi in {@link MotoreClassifica}.
+     *
      * @param gara la gara (non null)
      * @return lista di VocePunteggio ordinata per punteggio decrescente
      */
     public static ArrayList<VocePunteggio> calcolaClassifica(Gara gara) {
         if (gara == null) throw new IllegalArgumentException("gara non puo essere null");
+        synchronized (gara) {
+            return MotoreClassifica.calcola(gara);
+        }
+    }
 
-        ArrayList<Atleta> atleti = new ArrayList<>(gara.getAtleti());
-        ordinaAtleti(atleti, gara);
+    /**
+     * Calcola le classifiche di più gare in parallelo sul pool indicato.
+     * Possibile perché il calcolo non tocca AppData: ogni gara è sincronizzata
+     * solo su sé stessa.
+     *
+     * @param gare le gare da classificare (non null)
+     * @param pool executor su cui distribuire il lavoro (non null)
+     * @return mappa gara → classifica, nello stesso ordine di {@code gare}
+     */
+    public static Map<Gara, ArrayList<VocePunteggio>> calcolaClassifiche(
+            List<Gara> gare, ExecutorService pool) {
+        if (gare == null) throw new IllegalArgumentException("gare non puo essere null");
+        if (pool == null) throw new IllegalArgumentException("pool non puo essere null");
 
-        ArrayList<VocePunteggio> classifica = new ArrayList<>();
-        int posizioneCorrente = 0;
-        int ultimoPunteggio   = Integer.MIN_VALUE;
+        List<Future<ArrayList<VocePunteggio>>> futuri = new ArrayList<>(gare.size());
+        for (Gara g : gare) futuri.add(pool.submit(() -> calcolaClassifica(g)));
 
-        for (int i = 0; i < atleti.size(); i++) {
-            Atleta a     = atleti.get(i);
-            int    punti = punteggioAtleta(a, gara);
-            boolean par  = (punti == ultimoPunteggio);
-            if (!par) posizioneCorrente = i + 1;
-            classifica.add(new VocePunteggio(a, posizioneCorrente, punti, par));
-            ultimoPunteggio = punti;
+        Map<Gara, ArrayList<VocePunteggio>> risultato = new LinkedHashMap<>();
+        try {
+            for (int i = 0; i < gare.size(); i++)
+                risultato.put(gare.get(i), futuri.get(i).get());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("calcolo classifiche interrotto", ex);
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("errore nel calcolo classifiche", ex.getCause());
         }
-        return classifica;
+        return risultato;
     }
 
     /**
@@ -69,53 +95,29 @@ public class GestorePunteggio {
     //  STATISTICHE DI GARA
     // ═══════════════════════════════════════════════════════════════════
 
+    // Tutte le statistiche leggono la StatisticheGara in cache sulla gara:
+    // una sola passata sulla classifica, condivisa tra i vari pannelli.
+
     public static int punteggioMassimo(Gara gara) {
-        if (gara == null || gara.getAtleti().isEmpty()) return 0;
-        int max = Integer.MIN_VALUE;
-        for (Atleta a : gara.getAtleti()) { int p = punteggioAtleta(a, gara); if (p > max) max = p; }
-        return max;
+        return (gara == null) ? 0 : gara.getStatistiche().getMassimo();
     }
 
     public static int punteggioMinimo(Gara gara) {
-        if (gara == null || gara.getAtleti().isEmpty()) return 0;
-        int min = Integer.MAX_VALUE;
-        for (Atleta a : gara.getAtleti()) { int p = punteggioAtleta(a, gara); if (p < min) min = p; }
-        return min;
+        return (gara == null) ? 0 : gara.getStatistiche().getMinimo();
     }
 
     public static double punteggioMedio(Gara gara) {
-        if (gara == null || gara.getAtleti().isEmpty()) return 0.0;
-        int somma = 0;
-        for (Atleta a : gara.getAtleti()) somma += punteggioAtleta(a, gara);
-        return (double) somma / gara.getAtleti().size();
+        return (gara == null) ? 0.0 : gara.getStatistiche().getMedia();
     }
 
     public static ArrayList<Atleta> trovaPariMeritoPrimo(Gara gara) {
-        ArrayList<Atleta> res = new ArrayList<>();
-        if (gara == null || gara.getAtleti().isEmpty()) return res;
-        int max = punteggioMassimo(gara);
-        for (Atleta a : gara.getAtleti()) if (punteggioAtleta(a, gara) == max) res.add(a);
-        return (res.size() >= 2) ? res : new ArrayList<>();
+        if (gara == null) return new ArrayList<>();
+        return new ArrayList<>(gara.getStatistiche().getPariMeritoPrimo());
     }
 
     public static String riepilogoStatistiche(Gara gara) {
-        if (gara == null || gara.getAtleti().isEmpty()) return "Nessun dato disponibile.";
-        ArrayList<Atleta> pari = trovaPariMeritoPrimo(gara);
-        String pariStr = pari.isEmpty() ? "-" :
-                pari.stream().map(Atleta::getNome).reduce((a, b) -> a + ", " + b).orElse("-")
-                + " (" + punteggioAtleta(pari.get(0), gara) + " pt)";
-        return String.format(
-            "Partecipanti : %d%n" +
-            "Punteggio MAX: %d%n" +
-            "Punteggio MIN: %d%n" +
-            "Media        : %.1f%n" +
-            "Pari merito  : %s",
-            gara.getAtleti().size(),
-            punteggioMassimo(gara),
-            punteggioMinimo(gara),
-            punteggioMedio(gara),
-            pariStr
-        );
+        if (gara == null) return "Nessun dato disponibile.";
+        return gara.getStatistiche().riepilogo();
     }
 
     // ═══════════════════════════════════════════════════════════════════
@@ -125,39 +127,134 @@ public class GestorePunteggio {
     /**
      * Calcola la classifica generale del meeting, sommando i punti di ogni
      * atleta (nome + pettorale) su tutte le gare a cui ha partecipato.
+     *
+     * L'identità atleta è l'id denso di un {@link RegistroAtleti} locale al
+     * calcolo, in ordine di prima comparsa: ogni oggetto Atleta trova il suo
+     * slot dal timbro che porta, gli omonimi con lo stesso pettorale sono
+     * uniti alla fine su array primitivi. I punti sono accumulati in array
+     * indicizzati per id e i contributi per gara in una lista concatenata
+     * su int[]. Nessuna chiave String, nessun boxing: le
+     * VocePunteggioMeeting sono create solo alla fine, già in ordine.
      */
     public static ArrayList<VocePunteggioMeeting> calcolaClassificaMeeting(Meeting meeting) {
         if (meeting == null) throw new IllegalArgumentException("meeting non puo essere null");
+        return calcolaClassificaMeeting(meeting.istantaneaGare());
+    }
+
+    /**
+     * Come {@link #calcolaClassificaMeeting(Meeting)}, su un elenco di gare
+     * dato (es. la copia presa dall'EDT per il calcolo in background).
+     * Ogni gara è letta sotto il proprio lock, come in
+     * AggregatoreMeetingParallelo: il calcolo può girare su qualunque thread
+     * mentre altri iscrivono o ritirano atleti.
+     */
+    static ArrayList<VocePunteggioMeeting> calcolaClassificaMeeting(List<Gara> gare) {
+        if (gare == null) throw new IllegalArgumentException("gare non puo essere null");
 
-        Map<String, VocePunteggioMeeting> mappa = new LinkedHashMap<>();
+        // ── istantanea di ogni gara sotto il suo lock ─────────────────────
+        // iscritti, slot e punteggi letti insieme: un'iscrizione o un
+        // ritiro concorrente (form, gateway, import) vale per intero o per niente
+        int            numGare          = gare.size();
+        int[][]        slotPerGara      = new int[numGare][];
+        int[][]        puntiPerGara     = new int[numGare][];
+        RegistroAtleti registro         = new RegistroAtleti(64);
+        int            totaleIscrizioni = 0;
 
-        for (Gara gara : meeting.getGare()) {
-            for (Atleta a : gara.getAtleti()) {
-                String chiave = a.getNome() + "::" + a.getPettorale();
-                if (!mappa.containsKey(chiave))
-                    mappa.put(chiave, new VocePunteggioMeeting(a.getNome(), a.getPettorale(), a.getSesso()));
-                mappa.get(chiave).aggiungiGara(gara.getNomeGara(), punteggioAtleta(a, gara));
+        for (int ig = 0; ig < numGare; ig++) {
+            Gara gara = gare.get(ig);
+            synchronized (gara) {
+                List<Atleta> atleti = gara.getAtleti();
+                int   n     = atleti.size();
+                int[] slot  = new int[n];
+                int[] punti = new int[n];
+                for (int k = 0; k < n; k++) {
+                    Atleta a = atleti.get(k);
+                    slot[k]  = registro.slotPer(a);
+                    punti[k] = punteggioAtleta(a, gara);
+                }
+                slotPerGara[ig]  = slot;
+                puntiPerGara[ig] = punti;
+                totaleIscrizioni += n;
             }
         }
 
-        ArrayList<VocePunteggioMeeting> lista = new ArrayList<>(mappa.values());
-        lista.sort((v1, v2) -> {
-            int cmp = Integer.compare(v2.getTotalePunti(), v1.getTotalePunti());
-            return (cmp != 0) ? cmp : Integer.compare(v1.getPettorale(), v2.getPettorale());
-        });
+        // ── identità: omonimi con lo stesso pettorale uniti, prima comparsa ─
+        int[]    idPerSlot = new int[registro.slots()];
+        int      slots     = registro.identita(idPerSlot);
+        Atleta[] primi     = new Atleta[slots];               // prima comparsa per id: nome, sesso
+        int[]    pettorali = new int[slots];
+        for (int s = 0; s < idPerSlot.length; s++) {
+            int id = idPerSlot[s];
+            if (primi[id] == null) { primi[id] = registro.atleta(s); pettorali[id] = registro.pettorale(s); }
+        }
+
+        // ── per id (identità) ──────────────────────────────────────────────
+        int[] totale = new int[slots];
+        int[] testa  = new int[slots];
+        int[] coda   = new int[slots];
+        Arrays.fill(testa, -1);
 
+        // ── per contributo (una iscrizione) ───────────────────────────────
+        int[] contribGara  = new int[totaleIscrizioni];
+        int[] contribPunti = new int[totaleIscrizioni];
+        int[] contribNext  = new int[totaleIscrizioni];
+        int   contributi   = 0;
+
+        for (int ig = 0; ig < numGare; ig++) {
+            int[] slotGara = slotPerGara[ig], punti = puntiPerGara[ig];
+            for (int k = 0; k < slotGara.length; k++) {
+                int slot = idPerSlot[slotGara[k]];
+                int c = contributi++;
+                contribGara[c]  = ig;
+                contribPunti[c] = punti[k];
+                contribNext[c]  = -1;
+                if (testa[slot] < 0) testa[slot] = c; else contribNext[coda[slot]] = c;
+                coda[slot]    = c;
+                totale[slot] += punti[k];
+            }
+        }
+
+        // ── ordinamento primitivo: totale desc, pettorale asc, prima comparsa ─
+        int[] ordine = new int[slots];
+        for (int i = 0; i < slots; i++) ordine[i] = i;
+        MotoreClassifica.ordina(ordine, totale, pettorali);
+
+        // ── materializzazione finale ──────────────────────────────────────
+        ArrayList<VocePunteggioMeeting> lista = new ArrayList<>(slots);
         int posCorrente = 0, ultimiPunti = Integer.MIN_VALUE;
-        for (int i = 0; i < lista.size(); i++) {
-            VocePunteggioMeeting v = lista.get(i);
-            boolean par = (v.getTotalePunti() == ultimiPunti);
+        for (int i = 0; i < slots; i++) {
+            int    slot = ordine[i];
+            Atleta a    = primi[slot];
+            VocePunteggioMeeting v = new VocePunteggioMeeting(a.getNome(), pettorali[slot], a.getSesso());
+            for (int c = testa[slot]; c >= 0; c = contribNext[c])
+                v.aggiungiGara(gare.get(contribGara[c]).getNomeGara(), contribPunti[c]);
+            boolean par = (totale[slot] == ultimiPunti);
             if (!par) posCorrente = i + 1;
             v.setPosizione(posCorrente);
             v.setPariMerito(par);
-            ultimiPunti = v.getTotalePunti();
+            ultimiPunti = totale[slot];
+            lista.add(v);
         }
         return lista;
     }
 
+    /**
+     * Variante di {@link #calcolaClassificaMeeting(Meeting)} con scelta della
+     * modalità di calcolo.
+     *
+     * In modalità parallela le gare sono aggregate su più core (fork/join) e
+     * combinate in una mappa concorrente; il risultato è identico a quello
+     * seriale, comprese posizioni, ordine e flag di pari merito.
+     *
+     * @param meeting  il meeting (non null)
+     * @param parallelo true per il calcolo parallelo
+     */
+    public static ArrayList<VocePunteggioMeeting> calcolaClassificaMeeting(Meeting meeting, boolean parallelo) {
+        if (meeting == null) throw new IllegalArgumentException("meeting non puo essere null");
+        return parallelo ? AggregatoreMeetingParallelo.calcola(meeting)
+                         : calcolaClassificaMeeting(meeting);
+    }
+
     public static ArrayList<VocePunteggioMeeting> filtraPerSesso(
             ArrayList<VocePunteggioMeeting> classifica, String sesso) {
         ArrayList<VocePunteggioMeeting> filtrata = new ArrayList<>();
@@ -194,11 +291,16 @@ public class GestorePunteggio {
         return (p != null) ? p.calcolaPunteggio() : 0;
     }
 
-    private static void ordinaAtleti(ArrayList<Atleta> atleti, Gara gara) {
-        atleti.sort((a1, a2) -> {
-            int cmp = Integer.compare(punteggioAtleta(a2, gara), punteggioAtleta(a1, gara));
-            return (cmp != 0) ? cmp : Integer.compare(a1.getPettorale(), a2.getPettorale());
+    /**
+     * Ordina per totale decrescente (a parità: pettorale crescente, poi ordine
+     * di inserimento) e assegna posizioni e flag di pari merito.
+     */
+    static void ordinaEPosiziona(ArrayList<VocePunteggioMeeting> lista) {
+        lista.sort((v1, v2) -> {
+            int cmp = Integer.compare(v2.getTotalePunti(), v1.getTotalePunti());
+            return (cmp != 0) ? cmp : Integer.compare(v1.getPettorale(), v2.getPettorale());
         });
+        ricalcolaPosizioni(lista);
     }
 
     private static void ricalcolaPosizioni(ArrayList<VocePunteggioMeeting> lista) {
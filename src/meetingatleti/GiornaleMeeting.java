@@ -0,0 +1,610 @@
+package meetingatleti;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * Giornale append-only (write-ahead) delle modifiche al meeting.
+ *
+ * Ogni evento di {@link OsservatoreMeeting} diventa un piccolo record:
+ *
+ *   GARA_AGGIUNTA    intestazione gara (+ un ISCRIZIONE per chi è già iscritto)
+ *   GARA_RIMOSSA     indice gara
+ *   ISCRIZIONE       indice gara, anagrafica atleta, prestazione
+ *   RITIRO           indice gara, pettorale
+ *   PRESTAZIONE      indice gara, pettorale, valori completi della prestazione
+ *   PETTORALE        indice gara, vecchio pettorale, nuovo pettorale
+ *   LIBERO_AGGIUNTO  anagrafica atleta, [prestazione in attesa]
+ *   LIBERO_RIMOSSO   posizione nel pool, nome, pettorale
+ *
+ * File: intestazione (MAGIA, VERSIONE, generazione dello snapshot di
+ * partenza) seguita da record  int lunghezza | dati | int CRC32(dati).
+ * Codifiche di atleta, gara e prestazione: quelle di {@link SnapshotMeeting}.
+ *
+ * Group commit: il thread che modifica il meeting (spesso l'EDT) codifica il
+ * record e lo accoda soltanto; un thread scrittore svuota la coda a lotti
+ * con una sola write e fa fsync (FileChannel.force) quando i record non
+ * sincronizzati raggiungono {@code recordPerSync} o quando è trascorso
+ * {@code intervalloSyncMs} dal sync precedente. recordPerSync = 0 lascia il
+ * flush al sistema operativo (sync solo alla chiusura).
+ *
+ * Ripartenza: snapshot + coda del giornale. {@link #apri} riapplica i record
+ * validi sopra lo snapshot già caricato (solo se la generazione coincide: un
+ * giornale più vecchio è già contenuto nello snapshot) e tronca un eventuale
+ * record scritto a metà da un crash.
+ *
+ * v2: le prestazioni possono contenere le prove dei concorsi (SnapshotMeeting
+ * v3). Un giornale v1 è riapplicato come prima e, se prosegue, la sua
+ * intestazione passa a v2.
+ */
+final class GiornaleMeeting implements OsservatoreMeeting {
+
+    private static final Logger logger = Logger.getLogger(GiornaleMeeting.class.getName());
+
+    static final int   MAGIA    = 0x4D544A52;   // "MTJR"
+    static final short VERSIONE = 2;
+
+    private static final int DIM_INTESTAZIONE = 4 + 2 + 8;
+    private static final int DIM_BLOCCO       = 64 * 1024;
+    private static final int CAPACITA_CODA    = 64 * 1024;   // record in attesa prima di rallentare chi scrive
+
+    // tipi di record
+    private static final byte GARA_AGGIUNTA   = 1;
+    private static final byte GARA_RIMOSSA    = 2;
+    private static final byte ISCRIZIONE      = 3;
+    private static final byte RITIRO          = 4;
+    private static final byte PRESTAZIONE     = 5;
+    private static final byte PETTORALE       = 6;
+    private static final byte LIBERO_AGGIUNTO = 7;
+    private static final byte LIBERO_RIMOSSO  = 8;
+
+    // ── stato ──────────────────────────────────────────────────────────────
+
+    private final FileChannel ch;
+    private final int         recordPerSync;
+    private final long        intervalloSyncNs;
+    private final int         recordRiprodotti;
+
+    private Meeting meeting;
+    private AppData dati;
+
+    // protetti da "this"
+    private final List<Gara>              gare  = new ArrayList<>();   // specchio: indice gara nei record
+    private final ArrayDeque<byte[]>      coda  = new ArrayDeque<>();
+    private final SnapshotMeeting.Scrittore codifica = new SnapshotMeeting.Scrittore(256);
+    private long        accodati, scritti, sincronizzati;
+    private boolean     richiestaSync, chiuso;
+    private IOException errore;
+
+    private final Thread scrittore;
+
+    private GiornaleMeeting(FileChannel ch, int recordPerSync, long intervalloSyncMs, int recordRiprodotti) {
+        this.ch               = ch;
+        this.recordPerSync    = recordPerSync;
+        this.intervalloSyncNs = intervalloSyncMs * 1_000_000L;
+        this.recordRiprodotti = recordRiprodotti;
+        this.scrittore        = new Thread(this::ciclo, "giornale-meeting");
+        this.scrittore.setDaemon(true);
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    //  APERTURA E RIPRODUZIONE
+    // ══════════════════════════════════════════════════════════════════════
+
+    /**
+     * Riapplica la coda del giornale sullo stato di {@code dati} (snapshot già
+     * caricato), poi apre il giornale in append e lo collega come osservatore
+     * di meeting e atleti liberi.
+     *
+     * @param recordPerSync    fsync ogni N record (0 = solo alla chiusura)
+     * @param intervalloSyncMs attesa massima prima dell'fsync dei record pendenti
+     * @throws IOException se il file non è leggibile o i record non sono
+     *                     coerenti con lo snapshot
+     */
+    static GiornaleMeeting apri(Path file, AppData dati, int recordPerSync, long intervalloSyncMs)
+            throws IOException {
+        if (file == null) throw new IllegalArgumentException("file non puo essere null");
+        if (dati == null) throw new IllegalArgumentException("dati non puo essere null");
+        if (recordPerSync < 0 || intervalloSyncMs <= 0)
+            throw new IllegalArgumentException("parametri di sync non validi: "
+                    + recordPerSync + ", " + intervalloSyncMs + " ms");
+
+        long generazione = dati.getGenerazioneSnapshot();
+        long fineValida  = -1;
+        int  riprodotti  = 0;
+        short versione   = VERSIONE;
+        if (Files.exists(file) && Files.size(file) >= DIM_INTESTAZIONE) {
+            ByteBuffer in = SnapshotMeeting.leggiFile(file);
+            if (in.getInt() != MAGIA) throw new IOException("non è un giornale MeetingAtleti: " + file);
+            versione = in.getShort();
+            if (versione < 1 || versione > VERSIONE) throw new IOException("versione giornale non supportata: " + versione);
+            long genGiornale = in.getLong();
+            if (genGiornale > generazione)
+                throw new IOException("giornale (generazione " + genGiornale
+                        + ") più recente dello snapshot (generazione " + generazione + ")");
+            if (genGiornale == generazione) {
+                Riproduzione r = new Riproduzione(dati);
+                fineValida = r.esegui(in);
+                riprodotti = r.record;
+            }
+            // genGiornale < generazione: già contenuto nello snapshot, si riparte da zero
+        }
+
+        FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            if (fineValida < 0) {
+                ch.truncate(0);
+                ByteBuffer h = ByteBuffer.allocate(DIM_INTESTAZIONE);
+                h.putInt(MAGIA).putShort(VERSIONE).putLong(generazione).flip();
+                while (h.hasRemaining()) ch.write(h, h.position());
+                ch.force(false);
+                ch.position(DIM_INTESTAZIONE);
+            } else {
+                ch.truncate(fineValida);          // scarta un record finale incompleto
+                if (versione < VERSIONE) {
+                    ByteBuffer v = ByteBuffer.allocate(2).putShort(VERSIONE).flip();
+                    while (v.hasRemaining()) ch.write(v, 4 + v.position());
+                }
+                ch.position(fineValida);
+            }
+        } catch (IOException e) {
+            ch.close();
+            throw e;
+        }
+
+        GiornaleMeeting g = new GiornaleMeeting(ch, recordPerSync, intervalloSyncMs, riprodotti);
+        g.collega(dati);
+        g.scrittore.start();
+        return g;
+    }
+
+    /** Numero di record riapplicati all'apertura. */
+    int getRecordRiprodotti() { return recordRiprodotti; }
+
+    private void collega(AppData dati) {
+        this.dati    = dati;
+        this.meeting = dati.getMeeting();
+        synchronized (this) { gare.addAll(meeting.getGare()); }
+        meeting.aggiungiOsservatore(this);
+        dati.aggiungiOsservatore(this);
+    }
+
+    /** Applicazione dei record validi allo stato in memoria. */
+    private static final class Riproduzione {
+        private final AppData             dati;
+        private final Meeting             meeting;
+        private final List<Gara>          gare;
+        private final Map<String, Atleta> perIdentita = new HashMap<>();   // nome::pettorale
+        int record;
+
+        Riproduzione(AppData dati) {
+            this.dati    = dati;
+            this.meeting = dati.getMeeting();
+            this.gare    = new ArrayList<>(meeting.getGare());
+            for (Gara g : gare)
+                for (Atleta a : g.getAtleti()) perIdentita.put(chiave(a), a);
+            for (Atleta a : dati.getAtletiLiberi()) perIdentita.put(chiave(a), a);
+        }
+
+        /** @return posizione dopo l'ultimo record valido */
+        long esegui(ByteBuffer in) throws IOException {
+            CRC32 crc = new CRC32();
+            int fine = in.position();
+            while (in.remaining() >= 8) {
+                int inizio = in.position();
+                int lung   = in.getInt();
+                if (lung <= 0 || lung > in.remaining() - 4) break;          // coda troncata
+                crc.reset();
+                crc.update(in.array(), in.arrayOffset() + inizio + 4, lung);
+                if ((int) crc.getValue() != in.getInt(inizio + 4 + lung)) break;
+                try {
+                    applica(in.slice(inizio + 4, lung));
+                } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+                    throw new IOException("record " + record + " del giornale corrotto", e);
+                }
+                record++;
+                fine = inizio + 8 + lung;
+                in.position(fine);
+            }
+            return fine;
+        }
+
+        private void applica(ByteBuffer r) throws IOException {
+            byte tipo = r.get();
+            switch (tipo) {
+                case GARA_AGGIUNTA: {
+                    Gara g = SnapshotMeeting.leggiGara(r);
+                    meeting.aggiungiGara(g);
+                    gare.add(g);
+                    break;
+                }
+                case GARA_RIMOSSA: {
+                    Gara g = gare.remove(r.getInt());
+                    meeting.rimuoviGara(g);
+                    if (dati.getGaraCorrente() == g) dati.setGaraCorrente(null);
+                    break;
+                }
+                case ISCRIZIONE: {
+                    Gara        g     = gare.get(r.getInt());
+                    Atleta      letto = SnapshotMeeting.leggiAtleta(r);
+                    Prestazione p     = SnapshotMeeting.leggiPrestazione(r);
+                    Atleta a = perIdentita.get(chiave(letto));
+                    if (a == null || a.getClass() != letto.getClass()) {
+                        a = letto;
+                        perIdentita.put(chiave(a), a);
+                    }
+                    if (!g.iscrizione(a, p)) throw incoerente("iscrizione di " + a);
+                    break;
+                }
+                case RITIRO: {
+                    Gara   g = gare.get(r.getInt());
+                    Atleta a = iscritto(g, SnapshotMeeting.interoNullable(r));
+                    a.rimuoviPrestazione(g);
+                    break;
+                }
+                case PRESTAZIONE: {
+                    Gara   g = gare.get(r.getInt());
+                    Atleta a = iscritto(g, SnapshotMeeting.interoNullable(r));
+                    copiaValori(SnapshotMeeting.leggiPrestazione(r), a.getPrestazione(g));
+                    break;
+                }
+                case PETTORALE: {
+                    Gara    g       = gare.get(r.getInt());
+                    Integer vecchio = SnapshotMeeting.interoNullable(r);
+                    Integer nuovo   = SnapshotMeeting.interoNullable(r);
+                    Atleta  a = (vecchio != null) ? g.trovaPerPettorale(vecchio) : null;
+                    if (a == null || Objects.equals(a.getPettorale(), nuovo)) {
+                        // atleta condiviso: già aggiornato dal record di un'altra gara
+                        if (nuovo == null || g.trovaPerPettorale(nuovo) == null)
+                            throw incoerente("cambio pettorale " + vecchio + " → " + nuovo);
+                        break;
+                    }
+                    perIdentita.remove(chiave(a));
+                    a.setPettorale(nuovo);
+                    perIdentita.put(chiave(a), a);
+                    break;
+                }
+                case LIBERO_AGGIUNTO: {
+                    Atleta      a = SnapshotMeeting.leggiAtleta(r);
+                    Prestazione p = (r.get() != 0) ? SnapshotMeeting.leggiPrestazione(r) : null;
+                    dati.aggiungiAtletaLibero(a, p);
+                    perIdentita.put(chiave(a), a);
+                    break;
+                }
+                case LIBERO_RIMOSSO: {
+                    int     indice    = r.getInt();
+                    String  nome      = SnapshotMeeting.stringa(r);
+                    Integer pettorale = SnapshotMeeting.interoNullable(r);
+                    List<Atleta> liberi = dati.getAtletiLiberi();
+                    Atleta a = (indice < liberi.size()) ? liberi.get(indice) : null;
+                    if (a == null || !Objects.equals(a.getNome(), nome)
+                                  || !Objects.equals(a.getPettorale(), pettorale))
+                        throw incoerente("atleta libero " + nome + " non in posizione " + indice);
+                    dati.rimuoviAtletaLibero(a);
+                    break;
+                }
+                default:
+                    throw incoerente("tipo di record sconosciuto " + tipo);
+            }
+        }
+
+        private Atleta iscritto(Gara g, Integer pettorale) throws IOException {
+            Atleta a = (pettorale != null) ? g.trovaPerPettorale(pettorale) : null;
+            if (a == null) throw incoerente("pettorale " + pettorale + " non iscritto a " + g.getNomeGara());
+            return a;
+        }
+
+        private IOException incoerente(String dettaglio) {
+            return new IOException("giornale incoerente con lo snapshot al record " + record + ": " + dettaglio);
+        }
+
+        private static String chiave(Atleta a) { return a.getNome() + "::" + a.getPettorale(); }
+    }
+
+    /** Riporta su {@code a} i valori di {@code da}, chiamando solo i setter dei campi cambiati. */
+    private static void copiaValori(Prestazione da, Prestazione a) {
+        SerieProve serie = da.serie();
+        if (serie != null) {
+            // le prove sono riportate per intero se la serie è cambiata
+            if (!serie.stesseProve(a.serie())) a.impostaSerie(serie);
+            return;
+        }
+        if (a.getTempoGaraMillis() != da.getTempoGaraMillis())               a.setTempoGaraMillis(da.getTempoGaraMillis());
+        if (!Objects.equals(a.getTempoReazione(), da.getTempoReazione()))    a.setTempoReazione(da.getTempoReazione());
+        if (!Objects.equals(a.getTempoOstacolo(), da.getTempoOstacolo()))    a.setTempoOstacolo(da.getTempoOstacolo());
+        // misura singola: la serie già presente va tolta anche a parità di migliore misura,
+        // e il setter della distanza la toglie
+        boolean salto  = a.serie() != null && a.getTipo() == Prestazione.Tipo.SALTO;
+        boolean lancio = a.serie() != null && a.getTipo() == Prestazione.Tipo.LANCIO;
+        if (salto  || !Objects.equals(a.getDistanzaSalto(), da.getDistanzaSalto()))    a.setDistanzaSalto(da.getDistanzaSalto());
+        if (lancio || !Objects.equals(a.getDistanzaLancio(), da.getDistanzaLancio()))  a.setDistanzaLancio(da.getDistanzaLancio());
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    //  REGISTRAZIONE DEGLI EVENTI (thread del chiamante)
+    // ══════════════════════════════════════════════════════════════════════
+
+    @Override
+    public void garaAggiunta(Meeting m, Gara g) {
+        // lock della gara prima di quello del giornale, come per gli altri eventi
+        synchronized (g) {
+            synchronized (this) {
+                if (chiuso) return;
+                gare.add(g);
+                int ig = gare.size() - 1;
+                try {
+                    codifica.azzera();
+                    codifica.byte_(GARA_AGGIUNTA);
+                    SnapshotMeeting.scriviGara(codifica, g);
+                    accoda(codifica.toByteArray());
+                    // chi era già iscritto prima dell'aggiunta al meeting
+                    for (Atleta a : g.getAtleti()) codificaIscrizione(ig, a, a.getPrestazione(g));
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);   // codifica in memoria: non accade
+                }
+            }
+        }
+    }
+
+    @Override
+    public synchronized void garaRimossa(Meeting m, Gara g, int indice) {
+        int ig = gare.indexOf(g);
+        if (chiuso || ig < 0) return;
+        gare.remove(ig);
+        try {
+            codifica.azzera();
+            codifica.byte_(GARA_RIMOSSA);
+            codifica.intero(ig);
+            accoda(codifica.toByteArray());
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public synchronized void iscrizione(Gara g, Atleta a, Prestazione p) {
+        int ig = gare.indexOf(g);
+        if (chiuso || ig < 0) return;
+        try {
+            codificaIscrizione(ig, a, p);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public synchronized void ritiro(Gara g, Atleta a) {
+        int ig = gare.indexOf(g);
+        if (chiuso || ig < 0) return;
+        try {
+            codifica.azzera();
+            codifica.byte_(RITIRO);
+            codifica.intero(ig);
+            codifica.interoNullable(a.getPettorale());
+            accoda(codifica.toByteArray());
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public synchronized void prestazioneModificata(Gara g, Atleta a, Prestazione p) {
+        int ig = gare.indexOf(g);
+        if (chiuso || ig < 0) return;
+        try {
+            codifica.azzera();
+            codifica.byte_(PRESTAZIONE);
+            codifica.intero(ig);
+            codifica.interoNullable(a.getPettorale());
+            SnapshotMeeting.scriviPrestazione(codifica, p);
+            accoda(codifica.toByteArray());
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public synchronized void pettoraleModificato(Gara g, Atleta a, Integer vecchio) {
+        int ig = gare.indexOf(g);
+        if (chiuso || ig < 0) return;
+        try {
+            codifica.azzera();
+            codifica.byte_(PETTORALE);
+            codifica.intero(ig);
+            codifica.interoNullable(vecchio);
+            codifica.interoNullable(a.getPettorale());
+            accoda(codifica.toByteArray());
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public synchronized void atletaLiberoAggiunto(Atleta a, Prestazione p) {
+        if (chiuso) return;
+        try {
+            codifica.azzera();
+            codifica.byte_(LIBERO_AGGIUNTO);
+            SnapshotMeeting.scriviAtleta(codifica, a);
+            codifica.byte_((byte) (p != null ? 1 : 0));
+            if (p != null) SnapshotMeeting.scriviPrestazione(codifica, p);
+            accoda(codifica.toByteArray());
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public synchronized void atletaLiberoRimosso(Atleta a, int indice) {
+        if (chiuso) return;
+        try {
+            codifica.azzera();
+            codifica.byte_(LIBERO_RIMOSSO);
+            codifica.intero(indice);
+            codifica.stringa(a.getNome());
+            codifica.interoNullable(a.getPettorale());
+            accoda(codifica.toByteArray());
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void codificaIscrizione(int ig, Atleta a, Prestazione p) throws IOException {
+        codifica.azzera();
+        codifica.byte_(ISCRIZIONE);
+        codifica.intero(ig);
+        SnapshotMeeting.scriviAtleta(codifica, a);
+        SnapshotMeeting.scriviPrestazione(codifica, p);
+        accoda(codifica.toByteArray());
+    }
+
+    /** Chiamato con il lock del giornale. Se la coda è piena attende lo scrittore. */
+    private void accoda(byte[] record) {
+        while (coda.size() >= CAPACITA_CODA && !chiuso) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        if (chiuso) return;
+        coda.add(record);
+        accodati++;
+        notifyAll();
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    //  SCRITTORE (group commit)
+    // ══════════════════════════════════════════════════════════════════════
+
+    private void ciclo() {
+        ByteBuffer buf = ByteBuffer.allocate(DIM_BLOCCO);
+        CRC32      crc = new CRC32();
+        long ultimoSync = System.nanoTime();
+        int  nonSync    = 0;
+        try {
+            while (true) {
+                byte[][] lotto;
+                boolean  forza, fine;
+                synchronized (this) {
+                    while (coda.isEmpty() && !chiuso && !richiestaSync) {
+                        if (nonSync > 0 && recordPerSync > 0) {
+                            long resto = intervalloSyncNs - (System.nanoTime() - ultimoSync);
+                            if (resto <= 0) break;
+                            wait(Math.max(1L, resto / 1_000_000L));
+                        } else {
+                            wait();
+                        }
+                    }
+                    lotto = coda.toArray(new byte[0][]);
+                    coda.clear();
+                    notifyAll();                          // posto libero per chi attende in accoda()
+                    fine  = chiuso;
+                    forza = richiestaSync || fine;
+                }
+
+                for (byte[] r : lotto) {
+                    if (buf.remaining() < r.length + 8) {
+                        scriviTutto(buf);
+                        if (buf.capacity() < r.length + 8) buf = ByteBuffer.allocate(r.length + 8);
+                    }
+                    crc.reset();
+                    crc.update(r, 0, r.length);
+                    buf.putInt(r.length).put(r).putInt((int) crc.getValue());
+                }
+                scriviTutto(buf);
+
+                nonSync += lotto.length;
+                if (recordPerSync > 0 && nonSync > 0)
+                    forza |= nonSync >= recordPerSync
+                          || System.nanoTime() - ultimoSync >= intervalloSyncNs;
+                if (forza) {
+                    if (nonSync > 0) ch.force(false);
+                    nonSync    = 0;
+                    ultimoSync = System.nanoTime();
+                }
+
+                synchronized (this) {
+                    scritti += lotto.length;
+                    if (forza) {
+                        sincronizzati = scritti;
+                        richiestaSync = false;
+                    }
+                    notifyAll();
+                    if (fine && coda.isEmpty()) return;
+                }
+            }
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Scrittura del giornale interrotta", e);
+            synchronized (this) {
+                errore = e;
+                chiuso = true;
+                coda.clear();
+                notifyAll();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void scriviTutto(ByteBuffer buf) throws IOException {
+        buf.flip();
+        while (buf.hasRemaining()) ch.write(buf);
+        buf.clear();
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    //  SINCRONIZZAZIONE E CHIUSURA
+    // ══════════════════════════════════════════════════════════════════════
+
+    /**
+     * Attende che tutti i record accodati finora siano scritti e sincronizzati
+     * su disco (fsync immediato, senza aspettare il lotto successivo).
+     */
+    synchronized void sincronizza() throws IOException, InterruptedException {
+        long obiettivo = accodati;
+        richiestaSync = true;
+        notifyAll();
+        while (sincronizzati < obiettivo && errore == null && scrittore.isAlive()) wait();
+        if (errore != null) throw errore;
+    }
+
+    /**
+     * Scollega il giornale dal meeting, scrive e sincronizza i record
+     * rimasti e chiude il file. Gli eventi successivi non sono registrati.
+     */
+    void chiudi() throws IOException {
+        meeting.rimuoviOsservatore(this);
+        dati.rimuoviOsservatore(this);
+        synchronized (this) {
+            chiuso = true;
+            notifyAll();
+        }
+        try {
+            scrittore.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            ch.close();
+        }
+        synchronized (this) {
+            if (errore != null) throw errore;
+        }
+    }
+}
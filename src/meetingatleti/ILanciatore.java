@@ -10,4 +10,9 @@ public interface ILanciatore {
 
     /** @param distanza distanza del lancio in cm */
     void setDistanzaLancio(Integer distanza);
+
+    /** Variante con contesto esplicito: non dipende da AppData.garaCorrente. */
+    Integer getDistanzaLancio(Gara gara);
+
+    void setDistanzaLancio(Gara gara, Integer distanza);
 }
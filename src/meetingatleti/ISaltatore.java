@@ -10,4 +10,9 @@ public interface ISaltatore {
 
     /** @param distanza distanza del salto in cm */
     void setDistanzaSalto(Integer distanza);
+
+    /** Variante con contesto esplicito: non dipende da AppData.garaCorrente. */
+    Integer getDistanzaSalto(Gara gara);
+
+    void setDistanzaSalto(Gara gara, Integer distanza);
 }
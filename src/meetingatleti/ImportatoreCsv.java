@@ -0,0 +1,389 @@
+package meetingatleti;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Importazione in streaming di iscrizioni e prestazioni da CSV (fogli federali).
+ *
+ * Colonne (l'intestazione, se la prima cella è "tipo", viene saltata):
+ *
+ *   tipo ; nome ; sesso ; eta ; pettorale ; stat1 ; stat2
+ *
+ *   tipo  : Velocista | Fondometrista | Ostacolista | Saltatore | Pesista
+ *   stat1 : tempo gara in secondi (corse) oppure distanza in cm (salto, lancio)
+ *   stat2 : tempo di reazione in secondi (Velocista) o penalità ostacoli in cs
+ *           (Ostacolista); ignorato per gli altri tipi
+ *
+ * Il file è letto a blocchi in un buffer riutilizzato; i campi della riga
+ * corrente sono solo offset in un secondo buffer (niente String.split né
+ * sottostringhe) e i numeri sono convertiti direttamente dai caratteri,
+ * i decimali in millesimi. Si alloca solo il nome dell'atleta e gli oggetti
+ * Atleta / Prestazione. Sono gestiti i campi tra virgolette ("" = virgoletta)
+ * e, se il separatore non è la virgola, la virgola decimale.
+ *
+ * Le regole sono quelle di FRM_Atleti (FabbricaAtleti). Le righe valide sono
+ * iscritte alla gara a lotti, con un solo acquisto del lock della Gara per
+ * lotto; quelle respinte dalla gara (pettorale occupato, categoria, tipo)
+ * diventano atleti liberi con la prestazione in attesa, come la risposta
+ * "Sì" del form; quelle non valide finiscono solo nel rapporto. Senza gara
+ * tutte le righe valide diventano atleti liberi.
+ */
+final class ImportatoreCsv {
+
+    private static final java.util.logging.Logger logger =
+            java.util.logging.Logger.getLogger(ImportatoreCsv.class.getName());
+
+    /** Righe iscritte per ogni acquisto del lock della gara. */
+    static final int DIM_LOTTO = 512;
+
+    private static final int C_TIPO = 0, C_NOME = 1, C_SESSO = 2, C_ETA = 3,
+                             C_PETTORALE = 4, C_STAT1 = 5, C_STAT2 = 6, N_CAMPI = 7;
+
+    private final char separatore;
+    private final boolean virgolaDecimale;
+
+    // ── buffer riutilizzati ────────────────────────────────────────────────
+
+    private final char[] blocco = new char[1 << 16];
+    private int pos, lim;
+    private Reader in;
+
+    private char[] riga = new char[256];
+    private int lunghezzaRiga;
+    private final int[] inizio = new int[N_CAMPI];
+    private final int[] fine   = new int[N_CAMPI];
+    private int nCampi;
+    private int numeroRiga;                 // riga fisica successiva da leggere (da 1)
+
+    // ── lotto in corso ─────────────────────────────────────────────────────
+
+    private final Atleta[]      lottoAtleti      = new Atleta[DIM_LOTTO];
+    private final Prestazione[] lottoPrestazioni = new Prestazione[DIM_LOTTO];
+    private final int[]         lottoRighe       = new int[DIM_LOTTO];
+    private int nLotto;
+
+    /** Importatore con separatore ';' (export dei fogli di calcolo italiani). */
+    ImportatoreCsv() { this(';'); }
+
+    ImportatoreCsv(char separatore) {
+        if (separatore == '"' || separatore == '\n' || separatore == '\r' || separatore == '.')
+            throw new IllegalArgumentException("separatore non valido: " + separatore);
+        this.separatore      = separatore;
+        this.virgolaDecimale = separatore != ',';
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    //  IMPORTAZIONE
+    // ══════════════════════════════════════════════════════════════════════
+
+    /** Importa un file CSV in UTF-8. */
+    Rapporto importa(Path file, Gara gara) throws IOException {
+        if (file == null) throw new IllegalArgumentException("file non puo essere null");
+        try (Reader r = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return importa(r, gara);
+        }
+    }
+
+    /**
+     * Legge tutto il flusso e iscrive le righe valide alla gara.
+     *
+     * @param gara gara di destinazione; null = tutti gli atleti validi diventano liberi
+     * @return il rapporto con i conteggi e le righe scartate
+     */
+    Rapporto importa(Reader sorgente, Gara gara) throws IOException {
+        if (sorgente == null) throw new IllegalArgumentException("sorgente non puo essere null");
+        Rapporto rapporto = new Rapporto();
+        AppData app = AppData.getInstance();
+        in = sorgente;
+        pos = lim = 0;
+        numeroRiga = 1;
+        nLotto = 0;
+        try {
+            boolean prima = true;
+            while (true) {
+                int rigaCorrente = numeroRiga;
+                if (!leggiRiga()) break;
+                if (nCampi == 1 && vuoto(C_TIPO)) continue;                   // riga vuota
+                if (prima) {
+                    prima = false;
+                    if (uguale(C_TIPO, "tipo")) continue;                   // intestazione
+                }
+                rapporto.righe++;
+                Atleta atleta;
+                Prestazione prestazione;
+                try {
+                    String tipo = tipo();
+                    int eta       = intero(C_ETA, "Età");
+                    int pettorale = intero(C_PETTORALE, "Pettorale");
+                    FabbricaAtleti.verificaAnagrafica(eta, pettorale);
+                    boolean corsa = tipo != FabbricaAtleti.TIPI[3] && tipo != FabbricaAtleti.TIPI[4];
+                    int valore     = corsa ? millesimi(C_STAT1, "Tempo gara") : intero(C_STAT1, "Distanza");
+                    int secondario = 0;
+                    if (tipo == FabbricaAtleti.TIPI[0])      secondario = millesimi(C_STAT2, "Tempo reazione");
+                    else if (tipo == FabbricaAtleti.TIPI[2]) secondario = intero(C_STAT2, "Penalità ostacoli");
+                    prestazione = FabbricaAtleti.prestazione(tipo, valore, secondario);
+                    atleta      = FabbricaAtleti.atleta(tipo, nome(), sesso(), eta, pettorale);
+                } catch (IllegalArgumentException ex) {
+                    rapporto.scarta(rigaCorrente, ex.getMessage());
+                    continue;
+                }
+                if (gara == null) {
+                    app.aggiungiAtletaLibero(atleta, prestazione);
+                    rapporto.liberi++;
+                    continue;
+                }
+                lottoAtleti[nLotto]      = atleta;
+                lottoPrestazioni[nLotto] = prestazione;
+                lottoRighe[nLotto]       = rigaCorrente;
+                if (++nLotto == DIM_LOTTO) iscriviLotto(gara, app, rapporto);
+            }
+            if (nLotto > 0) iscriviLotto(gara, app, rapporto);
+        } finally {
+            in = null;
+            svuotaLotto();
+        }
+        logger.info("Importazione CSV: " + rapporto);
+        return rapporto;
+    }
+
+    /** Iscrive il lotto sotto un solo lock; i respinti diventano liberi fuori dal lock. */
+    private void iscriviLotto(Gara gara, AppData app, Rapporto rapporto) {
+        synchronized (gara) {
+            for (int i = 0; i < nLotto; i++) {
+                if (gara.iscrizione(lottoAtleti[i], lottoPrestazioni[i])) {
+                    rapporto.iscritti++;
+                    lottoAtleti[i] = null;
+                }
+            }
+        }
+        for (int i = 0; i < nLotto; i++) {
+            if (lottoAtleti[i] == null) continue;
+            app.aggiungiAtletaLibero(lottoAtleti[i], lottoPrestazioni[i]);
+            rapporto.liberi++;
+            rapporto.scarta(lottoRighe[i], "Iscrizione rifiutata dalla gara " + gara.getNomeGara()
+                    + " (pettorale già in uso, categoria o tipo): salvato come atleta libero.");
+        }
+        svuotaLotto();
+    }
+
+    /** Libera i riferimenti del lotto (il buffer è riusato). */
+    private void svuotaLotto() {
+        Arrays.fill(lottoAtleti, 0, nLotto, null);
+        Arrays.fill(lottoPrestazioni, 0, nLotto, null);
+        nLotto = 0;
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    //  LETTURA DELLE RIGHE
+    // ══════════════════════════════════════════════════════════════════════
+
+    /**
+     * Legge la prossima riga logica (una riga fisica, o più se un campo tra
+     * virgolette contiene a capo) e ne delimita i campi. false a fine flusso.
+     */
+    private boolean leggiRiga() throws IOException {
+        lunghezzaRiga = 0;
+        nCampi = 0;
+        boolean virgolette = false, letto = false;
+        int inizioCampo = 0;
+        while (true) {
+            if (pos == lim && !riempi()) {
+                if (!letto) return false;
+                break;
+            }
+            char ch = blocco[pos++];
+            letto = true;
+            if (virgolette) {
+                if (ch == '"') {
+                    if ((pos < lim || riempi()) && blocco[pos] == '"') { pos++; accoda('"'); }
+                    else virgolette = false;
+                } else {
+                    if (ch == '\n') numeroRiga++;
+                    accoda(ch);
+                }
+            } else if (ch == '"') {
+                virgolette = true;
+            } else if (ch == separatore) {
+                chiudiCampo(inizioCampo);
+                inizioCampo = lunghezzaRiga;
+            } else if (ch == '\n') {
+                break;
+            } else if (ch != '\r') {
+                accoda(ch);
+            }
+        }
+        chiudiCampo(inizioCampo);
+        numeroRiga++;
+        return true;
+    }
+
+    private boolean riempi() throws IOException {
+        int n = in.read(blocco, 0, blocco.length);
+        pos = 0;
+        lim = Math.max(n, 0);
+        return n > 0;
+    }
+
+    private void accoda(char ch) {
+        if (lunghezzaRiga == riga.length) riga = Arrays.copyOf(riga, riga.length * 2);
+        riga[lunghezzaRiga++] = ch;
+    }
+
+    /** Registra il campo [da, lunghezzaRiga) senza spazi ai bordi; le colonne in più sono ignorate. */
+    private void chiudiCampo(int da) {
+        if (nCampi == N_CAMPI) return;
+        int a = lunghezzaRiga;
+        while (da < a && riga[da] == ' ')    da++;
+        while (a > da && riga[a - 1] == ' ') a--;
+        inizio[nCampi] = da;
+        fine[nCampi]   = a;
+        nCampi++;
+    }
+
+    // ── conversione dei campi ──────────────────────────────────────────────
+
+    private boolean vuoto(int c) { return c >= nCampi || inizio[c] == fine[c]; }
+
+    /** Confronto senza maiuscole/minuscole e senza allocazioni. */
+    private boolean uguale(int c, String s) {
+        if (c >= nCampi || fine[c] - inizio[c] != s.length()) return false;
+        for (int i = 0; i < s.length(); i++)
+            if (Character.toLowerCase(riga[inizio[c] + i]) != Character.toLowerCase(s.charAt(i))) return false;
+        return true;
+    }
+
+    /** La costante di FabbricaAtleti.TIPI corrispondente (confrontabile con ==). */
+    private String tipo() {
+        for (String t : FabbricaAtleti.TIPI)
+            if (uguale(C_TIPO, t)) return t;
+        if (vuoto(C_TIPO)) throw new IllegalArgumentException("Tipo atleta mancante.");
+        throw new IllegalArgumentException("Tipo atleta non riconosciuto: " + testo(C_TIPO));
+    }
+
+    private String nome() {
+        if (vuoto(C_NOME)) throw new IllegalArgumentException("Nome mancante.");
+        return testo(C_NOME);
+    }
+
+    private String sesso() {
+        if (uguale(C_SESSO, "M")) return "M";
+        if (uguale(C_SESSO, "F")) return "F";
+        throw new IllegalArgumentException("Sesso deve essere M o F.");
+    }
+
+    private String testo(int c) { return new String(riga, inizio[c], fine[c] - inizio[c]); }
+
+    /** Intero con segno opzionale. */
+    private int intero(int c, String campo) {
+        if (vuoto(c)) throw new IllegalArgumentException(campo + " mancante.");
+        int i = inizio[c], a = fine[c];
+        boolean negativo = riga[i] == '-';
+        if (negativo || riga[i] == '+') i++;
+        if (i == a) throw new IllegalArgumentException(campo + " deve essere un numero intero.");
+        long v = 0;
+        for (; i < a; i++) {
+            int d = riga[i] - '0';
+            if (d < 0 || d > 9) throw new IllegalArgumentException(campo + " deve essere un numero intero.");
+            v = v * 10 + d;
+            if (v > Integer.MAX_VALUE) throw new IllegalArgumentException(campo + " fuori intervallo.");
+        }
+        return (int) (negativo ? -v : v);
+    }
+
+    /** Decimale in secondi → millesimi, arrotondato sulla quarta cifra decimale. */
+    private int millesimi(int c, String campo) {
+        if (vuoto(c)) throw new IllegalArgumentException(campo + " mancante.");
+        int i = inizio[c], a = fine[c];
+        boolean negativo = riga[i] == '-';
+        if (negativo || riga[i] == '+') i++;
+        long v = 0;
+        int decimali = -1, cifre = 0;                       // -1 = prima del separatore decimale
+        for (; i < a; i++) {
+            char ch = riga[i];
+            if (ch == '.' || (ch == ',' && virgolaDecimale)) {
+                if (decimali >= 0) throw new IllegalArgumentException(campo + " deve essere un numero decimale (es. 10.85).");
+                decimali = 0;
+                continue;
+            }
+            int d = ch - '0';
+            if (d < 0 || d > 9) throw new IllegalArgumentException(campo + " deve essere un numero decimale (es. 10.85).");
+            cifre++;
+            if (decimali < 0) {
+                v = v * 10 + d;
+                if (v > Integer.MAX_VALUE / 1000) throw new IllegalArgumentException(campo + " fuori intervallo.");
+            } else if (decimali < 3) {
+                v = v * 10 + d;
+                decimali++;
+            } else if (decimali == 3) {
+                if (d >= 5) v++;                             // arrotondamento
+                decimali++;
+            }
+        }
+        if (cifre == 0) throw new IllegalArgumentException(campo + " deve essere un numero decimale (es. 10.85).");
+        for (int k = Math.max(decimali, 0); k < 3; k++) v *= 10;
+        return (int) (negativo ? -v : v);
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    //  RAPPORTO
+    // ══════════════════════════════════════════════════════════════════════
+
+    /** Esito dell'importazione: conteggi e righe non iscritte con il motivo. */
+    static final class Rapporto {
+
+        /** Riga non iscritta (numero di riga del file, da 1). */
+        static final class Scarto {
+            final int    riga;
+            final String motivo;
+
+            Scarto(int riga, String motivo) {
+                this.riga   = riga;
+                this.motivo = motivo;
+            }
+
+            @Override
+            public String toString() { return "riga " + riga + ": " + motivo.replace('\n', ' '); }
+        }
+
+        private int righe, iscritti, liberi;
+        private final List<Scarto> scarti = new ArrayList<>();
+
+        private void scarta(int riga, String motivo) { scarti.add(new Scarto(riga, motivo)); }
+
+        /** Righe di dati lette (escluse intestazione e righe vuote). */
+        int getRighe()    { return righe; }
+        int getIscritti() { return iscritti; }
+        /** Atleti finiti nel pool dei liberi (respinti dalla gara o senza gara). */
+        int getLiberi()   { return liberi; }
+        /** Righe non valide, quindi né iscritte né salvate. */
+        int getNonValide() { return righe - iscritti - liberi; }
+
+        /** Righe non valide e iscrizioni rifiutate, in ordine di file. */
+        List<Scarto> getScarti() {
+            List<Scarto> l = new ArrayList<>(scarti);
+            l.sort((x, y) -> Integer.compare(x.riga, y.riga));
+            return Collections.unmodifiableList(l);
+        }
+
+        /** Testo del rapporto, una riga per scarto. */
+        String dettaglio() {
+            StringBuilder sb = new StringBuilder(toString());
+            for (Scarto s : getScarti()) sb.append('\n').append(s);
+            return sb.toString();
+        }
+
+        @Override
+        public String toString() {
+            return righe + " righe, " + iscritti + " iscritti, " + liberi + " liberi, "
+                    + getNonValide() + " non valide";
+        }
+    }
+}
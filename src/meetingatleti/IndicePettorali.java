@@ -0,0 +1,113 @@
+package meetingatleti;
+
+/**
+ * Indice pettorale → Atleta di una singola gara.
+ *
+ * Tabella hash a indirizzamento aperto con chiavi int primitive (nessun
+ * boxing di Integer) e scansione lineare; la cancellazione usa lo
+ * spostamento all'indietro, quindi non lascia "tombstone".
+ * Ricerca, inserimento e rimozione costano O(1) atteso: l'iscrizione di
+ * migliaia di atleti non è più quadratica.
+ *
+ * Usato internamente da {@link Gara}: non è thread-safe.
+ */
+final class IndicePettorali {
+
+    private static final int CAPACITA_INIZIALE = 16;
+
+    private int[]    chiavi;
+    private Atleta[] valori;     // null = cella libera
+    private int      dimensione;
+
+    IndicePettorali() {
+        chiavi = new int[CAPACITA_INIZIALE];
+        valori = new Atleta[CAPACITA_INIZIALE];
+    }
+
+    int dimensione() { return dimensione; }
+
+    /** Atleta con il pettorale indicato, o null. */
+    Atleta trova(int pettorale) {
+        int mask = chiavi.length - 1;
+        for (int i = hash(pettorale) & mask; valori[i] != null; i = (i + 1) & mask)
+            if (chiavi[i] == pettorale) return valori[i];
+        return null;
+    }
+
+    boolean contiene(int pettorale) { return trova(pettorale) != null; }
+
+    /**
+     * Associa il pettorale all'atleta.
+     * @return false (senza modifiche) se il pettorale è già occupato
+     */
+    boolean inserisci(int pettorale, Atleta atleta) {
+        if ((dimensione + 1) * 4 > chiavi.length * 3) raddoppia();
+        int mask = chiavi.length - 1;
+        int i = hash(pettorale) & mask;
+        while (valori[i] != null) {
+            if (chiavi[i] == pettorale) return false;
+            i = (i + 1) & mask;
+        }
+        chiavi[i] = pettorale;
+        valori[i] = atleta;
+        dimensione++;
+        return true;
+    }
+
+    /**
+     * Rimuove il pettorale solo se associato a quell'atleta.
+     * @return true se rimosso
+     */
+    boolean rimuovi(int pettorale, Atleta atleta) {
+        int mask = chiavi.length - 1;
+        int i = hash(pettorale) & mask;
+        while (valori[i] != null) {
+            if (chiavi[i] == pettorale) {
+                if (valori[i] != atleta) return false;
+                cancellaCella(i);
+                return true;
+            }
+            i = (i + 1) & mask;
+        }
+        return false;
+    }
+
+    // ── interni ────────────────────────────────────────────────────────────
+
+    /** Cancellazione con backward-shift: ricompatta la catena di collisioni. */
+    private void cancellaCella(int libera) {
+        int mask = chiavi.length - 1;
+        int i = libera;
+        while (true) {
+            i = (i + 1) & mask;
+            if (valori[i] == null) break;
+            int ideale = hash(chiavi[i]) & mask;
+            // sposta l'elemento se la cella libera sta tra la sua posizione ideale e i
+            boolean sposta = (libera <= i) ? (ideale <= libera || ideale > i)
+                                           : (ideale <= libera && ideale > i);
+            if (sposta) {
+                chiavi[libera] = chiavi[i];
+                valori[libera] = valori[i];
+                libera = i;
+            }
+        }
+        valori[libera] = null;
+        dimensione--;
+    }
+
+    private void raddoppia() {
+        int[]    vecchieChiavi = chiavi;
+        Atleta[] vecchiValori  = valori;
+        chiavi = new int[vecchieChiavi.length * 2];
+        valori = new Atleta[vecchieChiavi.length * 2];
+        dimensione = 0;
+        for (int i = 0; i < vecchieChiavi.length; i++)
+            if (vecchiValori[i] != null) inserisci(vecchieChiavi[i], vecchiValori[i]);
+    }
+
+    /** Mescola i bit: i pettorali sono spesso consecutivi. */
+    private static int hash(int k) {
+        int h = k * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -6,6 +6,7 @@ package meetingatleti;
  *
  * calcolaPunteggio() delega alla Prestazione della gara corrente,
  * supportando il multi-disciplina con lo stesso numero di maglia.
+ * Le varianti con la Gara esplicita non leggono AppData (uso multi-thread).
  *
  * Formula (gestita da Prestazione): punteggio = distanzaLancio in cm.
  */
@@ -19,33 +20,42 @@ public class Lanciatori extends Atleta implements ILanciatore {
 
     @Override
     public int calcolaPunteggio() {
-        Gara garaCorrente = AppData.getInstance().getGaraCorrente();
-        return calcolaPunteggio(garaCorrente);
+        return calcolaPunteggio(AppData.getInstance().getGaraCorrente());
     }
 
     @Override
     public Integer getDistanzaLancio() {
-        Gara g = AppData.getInstance().getGaraCorrente();
-        if (g == null) return null;
-        Prestazione p = getPrestazione(g);
+        return getDistanzaLancio(AppData.getInstance().getGaraCorrente());
+    }
+
+    @Override
+    public Integer getDistanzaLancio(Gara g) {
+        Prestazione p = (g != null) ? getPrestazione(g) : null;
         return (p != null) ? p.getDistanzaLancio() : null;
     }
 
     @Override
     public void setDistanzaLancio(Integer distanza) {
-        Gara g = AppData.getInstance().getGaraCorrente();
-        if (g == null) return;
-        Prestazione p = getPrestazione(g);
+        setDistanzaLancio(AppData.getInstance().getGaraCorrente(), distanza);
+    }
+
+    @Override
+    public void setDistanzaLancio(Gara g, Integer distanza) {
+        Prestazione p = (g != null) ? getPrestazione(g) : null;
         if (p != null && p.getTipo() == Prestazione.Tipo.LANCIO)
             p.setDistanzaLancio(distanza);
     }
 
     @Override
     public String toString() {
-        Gara g = AppData.getInstance().getGaraCorrente();
+        return toString(AppData.getInstance().getGaraCorrente());
+    }
+
+    /** Descrizione dell'atleta riferita alla gara indicata (null = nessuna). */
+    public String toString(Gara g) {
         Prestazione p = (g != null) ? getPrestazione(g) : null;
         String stat = (p == null) ? "–" : p.getStatisticaLabel();
         return "[" + pettorale + "] " + nome + " | Lanciatore"
-               + " | " + stat + " | Punteggio: " + calcolaPunteggio();
+               + " | " + stat + " | Punteggio: " + calcolaPunteggio(g);
     }
 }
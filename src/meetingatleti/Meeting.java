@@ -2,15 +2,35 @@ package meetingatleti;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Rappresenta il meeting di atletica.
  * Implementa Corsa, Salto, Lancio per filtrare le gare per tipo.
+ *
+ * Gli {@link OsservatoreMeeting} registrati ricevono l'aggiunta e la
+ * rimozione delle gare e, tramite le gare stesse, iscrizioni, ritiri e
+ * modifiche delle prestazioni.
+ *
+ * {@link #getVersione()} cresce quando cambiano i dati del meeting o
+ * l'elenco delle gare; le modifiche dentro una gara sono contate dalla
+ * versione della gara stessa.
+ *
+ * Ogni gara aggiunta riceve un numero progressivo ({@link Gara#getNumero()})
+ * che, a differenza della posizione in getGare(), resta lo stesso quando
+ * altre gare sono rimosse: lo usano i sistemi esterni (cronometraggio).
+ *
+ * Thread-safety: l'elenco delle gare è letto anche dai thread di
+ * ServerRisultati, FlussoClassifiche e GatewayCronometraggio. È una
+ * CopyOnWriteArrayList (si modifica di rado, si scorre spesso) e le
+ * modifiche, con numerazione e versione, avvengono sotto il lock del
+ * meeting; gli osservatori sono avvisati fuori dal lock. Chi deve indicizzare
+ * le gare da un altro thread usa {@link #istantaneaGare()}.
  */
 public class Meeting implements Corsa, Salto, Lancio {
 
     public Meeting() {
-        gare = new ArrayList<>();
+        gare = new CopyOnWriteArrayList<>();
     }
 
     public Meeting(String nome, String data, String luogo) {
@@ -20,33 +40,106 @@ public class Meeting implements Corsa, Salto, Lancio {
         this.luogo = luogo;
     }
 
-    private String          nome;
-    private String          data;
-    private String          luogo;
-    private ArrayList<Gara> gare;
+    private volatile String nome;
+    private volatile String data;
+    private volatile String luogo;
+    private final List<Gara> gare;
+    private final List<OsservatoreMeeting> osservatori = new CopyOnWriteArrayList<>();
+    private volatile long   versione;         // scritta sotto il lock del meeting
+    private int             prossimoNumero;   // numero della prossima gara, mai riusato
 
     // ── getter/setter ──────────────────────────────────────────────────────
 
-    public String          getNome()          { return nome; }
-    public void            setNome(String n)  { this.nome = n; }
+    public String getNome()                     { return nome; }
+    public synchronized void setNome(String n)  { this.nome = n; versione++; }
 
-    public String          getData()          { return data; }
-    public void            setData(String d)  { this.data = d; }
+    public String getData()                     { return data; }
+    public synchronized void setData(String d)  { this.data = d; versione++; }
 
-    public String          getLuogo()         { return luogo; }
-    public void            setLuogo(String l) { this.luogo = l; }
+    public String getLuogo()                    { return luogo; }
+    public synchronized void setLuogo(String l) { this.luogo = l; versione++; }
 
-    public ArrayList<Gara> getGare()          { return gare; }
+    /** Elenco delle gare (sola lettura); scorrerlo è sicuro da qualsiasi thread. */
+    public List<Gara> getGare()                 { return Collections.unmodifiableList(gare); }
+
+    /**
+     * Copia dell'elenco delle gare in questo istante: indici e dimensione
+     * restano coerenti anche se intanto si aggiungono o rimuovono gare.
+     */
+    public List<Gara> istantaneaGare() {
+        return Collections.unmodifiableList(Arrays.asList(gare.toArray(new Gara[0])));
+    }
+
+    /** Numero di modifiche ai dati del meeting e all'elenco delle gare. */
+    public long            getVersione()      { return versione; }
 
     // ── gestione gare ──────────────────────────────────────────────────────
 
-    /** Aggiunge una gara al meeting. */
+    /** Aggiunge una gara al meeting con il prossimo numero libero. */
     public void aggiungiGara(Gara g) {
-        if (g != null) gare.add(g);
+        if (g == null) return;
+        aggiungiGara(g, -1);
+    }
+
+    /**
+     * Aggiunge la gara con un numero già assegnato (ripristino da snapshot),
+     * o con il prossimo numero libero se {@code numero} è negativo.
+     */
+    void aggiungiGara(Gara g, int numero) {
+        synchronized (this) {
+            int n = (numero >= 0) ? numero : prossimoNumero;
+            g.assegnaNumero(n);
+            prossimoNumero = Math.max(prossimoNumero, n + 1);
+            gare.add(g);
+            versione++;
+        }
+        for (OsservatoreMeeting o : osservatori) {
+            g.aggiungiOsservatore(o);
+            o.garaAggiunta(this, g);
+        }
     }
 
     /** Rimuove una gara dal meeting. */
-    public boolean rimuoviGara(Gara g) { return gare.remove(g); }
+    public boolean rimuoviGara(Gara g) {
+        int indice;
+        synchronized (this) {
+            indice = gare.indexOf(g);
+            if (indice < 0) return false;
+            gare.remove(indice);
+            versione++;
+        }
+        for (OsservatoreMeeting o : osservatori) {
+            g.rimuoviOsservatore(o);
+            o.garaRimossa(this, g, indice);
+        }
+        return true;
+    }
+
+    /** Gara con il numero indicato, o null se non c'è (mai esistita o rimossa). */
+    public Gara trovaGara(int numero) {
+        for (Gara g : gare) if (g.getNumero() == numero) return g;
+        return null;
+    }
+
+    /** Numero che riceverà la prossima gara aggiunta. */
+    synchronized int getProssimoNumero()          { return prossimoNumero; }
+
+    /** Dopo un ripristino: i numeri delle gare già rimosse non vanno riusati. */
+    synchronized void riservaNumeri(int prossimo) { prossimoNumero = Math.max(prossimoNumero, prossimo); }
+
+    // ── osservatori ────────────────────────────────────────────────────────
+
+    /** Registra l'osservatore sul meeting e su tutte le gare, presenti e future. */
+    public void aggiungiOsservatore(OsservatoreMeeting o) {
+        if (o == null) throw new IllegalArgumentException("osservatore non puo essere null");
+        osservatori.add(o);
+        for (Gara g : gare) g.aggiungiOsservatore(o);
+    }
+
+    public boolean rimuoviOsservatore(OsservatoreMeeting o) {
+        for (Gara g : gare) g.rimuoviOsservatore(o);
+        return osservatori.remove(o);
+    }
 
     // ── interfacce Corsa / Salto / Lancio ─────────────────────────────────
 
@@ -101,7 +194,7 @@ public class Meeting implements Corsa, Salto, Lancio {
             Atleta v = g.trovaVincitore();
             if (v != null)
                 res.add(g.getNomeGara() + " → " + v.getNome()
-                        + " (pett." + v.getPettorale() + ") – " + v.calcolaPunteggio() + " pt");
+                        + " (pett." + v.getPettorale() + ") – " + v.calcolaPunteggio(g) + " pt");
             else
                 res.add(g.getNomeGara() + " → nessun partecipante");
         }
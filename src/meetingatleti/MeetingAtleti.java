@@ -1,15 +1,109 @@
 package meetingatleti;
 
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
 /**
  * Punto di avvio dell'applicazione.
- * Apre FRM_Gara come finestra principale.
+ * Apre FRM_Gara come finestra principale; con "--batch" come primo argomento
+ * esegue invece la modalità a riga di comando ({@link ModalitaBatch}), senza
+ * caricare classi grafiche né toccare snapshot e giornale di sessione.
+ *
+ * All'avvio ripristina l'ultimo snapshot (AppData.getFileSnapshot()) e
+ * riapplica il giornale delle modifiche successive (GiornaleMeeting), che
+ * resta aperto per tutta la sessione. Alla chiusura della JVM salva un nuovo
+ * snapshot ed elimina il giornale ormai assorbito.
+ *
+ * Proprietà di sistema per il giornale:
+ *   meetingatleti.giornale.recordPerSync   fsync ogni N record (default 64, 0 = mai)
+ *   meetingatleti.giornale.intervalloMs    attesa massima prima dell'fsync (default 50)
+ *
+ * Con la proprietà meetingatleti.http.porta viene avviato anche il server
+ * HTTP dei risultati ({@link ServerRisultati}) su quella porta; con
+ * meetingatleti.cronometraggio.porta la ricezione delle letture di
+ * cronometraggio e misuratori ({@link GatewayCronometraggio}).
  *
  * @author CASOLARO.DIEGO
  */
 public class MeetingAtleti {
 
+    private static final Logger logger = Logger.getLogger(MeetingAtleti.class.getName());
+
     public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("--batch")) {
+            System.exit(ModalitaBatch.esegui(Arrays.copyOfRange(args, 1, args.length)));
+        }
+
+        ripristinaStato();
+        avviaServerRisultati();
+        avviaCronometraggio();
+
         // Avvia FRM_Gara (che include il proprio main con look&feel Nimbus)
         FRM_Gara.main(args);
     }
+
+    /** Server HTTP dei risultati, se richiesto con la proprietà di sistema. */
+    private static void avviaServerRisultati() {
+        Integer porta = Integer.getInteger(ServerRisultati.PROPRIETA_PORTA);
+        if (porta == null) return;
+        try {
+            ServerRisultati server = new ServerRisultati(new InetSocketAddress(porta));
+            server.avvia();
+            Runtime.getRuntime().addShutdownHook(new Thread(server::close, "chiusura-server-risultati"));
+        } catch (IOException ex) {
+            logger.log(Level.WARNING, "Server risultati non avviato sulla porta " + porta, ex);
+        }
+    }
+
+    /** Ricezione delle letture di cronometraggio, se richiesta con la proprietà di sistema. */
+    private static void avviaCronometraggio() {
+        Integer porta = Integer.getInteger(GatewayCronometraggio.PROPRIETA_PORTA);
+        if (porta == null) return;
+        try {
+            GatewayCronometraggio gateway = new GatewayCronometraggio(new InetSocketAddress(porta));
+            gateway.avvia();
+            Runtime.getRuntime().addShutdownHook(new Thread(gateway::close, "chiusura-cronometraggio"));
+        } catch (IOException ex) {
+            logger.log(Level.WARNING, "Cronometraggio non avviato sulla porta " + porta, ex);
+        }
+    }
+
+    /**
+     * Snapshot + coda del giornale; registra il salvataggio alla chiusura.
+     * Se uno dei due file è illeggibile si parte da un meeting vuoto e non
+     * si sovrascrive nulla, per non perdere i dati esistenti.
+     */
+    private static void ripristinaStato() {
+        AppData app      = AppData.getInstance();
+        Path    snapshot = AppData.getFileSnapshot();
+        Path    file     = AppData.getFileGiornale();
+        GiornaleMeeting giornale;
+        try {
+            app.caricaSnapshot(snapshot);
+            giornale = GiornaleMeeting.apri(file, app,
+                    Integer.getInteger("meetingatleti.giornale.recordPerSync", 64),
+                    Long.getLong("meetingatleti.giornale.intervalloMs", 50L));
+            if (giornale.getRecordRiprodotti() > 0)
+                logger.info("Giornale: " + giornale.getRecordRiprodotti() + " modifiche ripristinate");
+        } catch (IOException ex) {
+            logger.log(Level.WARNING, "Stato precedente non ripristinato: " + snapshot, ex);
+            app.azzera();
+            return;
+        }
+
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                giornale.chiudi();
+                app.salvaSnapshot(snapshot);
+                Files.deleteIfExists(file);       // già contenuto nel nuovo snapshot
+            } catch (IOException ex) {
+                logger.log(Level.SEVERE, "Stato non salvato: " + snapshot, ex);
+            }
+        }, "salvataggio-snapshot"));
+    }
 }
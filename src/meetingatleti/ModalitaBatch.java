@@ -0,0 +1,289 @@
+package meetingatleti;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Modalità a riga di comando senza interfaccia grafica (server dei risultati,
+ * script, pipeline).
+ *
+ *   java -jar MeetingAtleti.jar --batch [opzioni]
+ *
+ *   --meeting FILE                snapshot da caricare (default: AppData.getFileSnapshot());
+ *                                 se non esiste si parte da un meeting vuoto
+ *   --nuova-gara NOME:CAT:SPEC    crea una gara; SPEC è una costante di TipoGaraCorsa,
+ *                                 TipoGaraSalto o TipoGaraLancio (es. 100m:M:centom)
+ *   --importa GARA=FILE           importa un CSV (ImportatoreCsv) nella gara con quel
+ *                                 nome; GARA vuota = solo atleti liberi
+ *   --separatore C                separatore CSV (default ';')
+ *   --esporta FORMATO=FILE        csv | jsonl | json | testo; FILE "-" = standard output
+ *   --salva FILE                  scrive lo snapshot del risultato
+ *   --servi PORTA                 al termine resta attivo come server HTTP dei
+ *                                 risultati ({@link ServerRisultati}) fino
+ *                                 all'interruzione del processo
+ *   --ricevi PORTA                al termine resta attivo ricevendo le letture
+ *                                 del cronometraggio su TCP e UDP
+ *                                 ({@link GatewayCronometraggio})
+ *   --simula PROTO:HOST:PORTA:N   al termine invia N letture al secondo, su tcp
+ *                                 o udp, per gli iscritti del meeting
+ *                                 ({@link SimulatoreCronometraggio})
+ *
+ * Le opzioni ripetibili sono eseguite nell'ordine dato. Senza --esporta (e
+ * senza --servi, --ricevi, --simula) le classifiche sono stampate a colonne
+ * fisse sullo standard output. --servi, --ricevi e --simula si possono
+ * combinare, es. per una prova completa in un solo processo:
+ *
+ *   --batch --ricevi 9100 --simula tcp:localhost:9100:5000 --servi 8080
+ *
+ * Il giornale delle modifiche non viene aperto e lo snapshot di sessione non
+ * viene riscritto: il batch tocca solo i file indicati. Questa classe e ciò
+ * che usa non fanno riferimento ad AWT/Swing, quindi nessuna classe grafica
+ * viene caricata (java.awt.headless è comunque impostato a true).
+ *
+ * Codici di uscita: 0 ok, 1 errore di I/O o di dati, 2 argomenti non validi.
+ */
+final class ModalitaBatch {
+
+    static final int OK = 0, ERRORE = 1, USO = 2;
+
+    private static final String USO_TESTO =
+            "Uso: MeetingAtleti --batch [--meeting FILE] [--nuova-gara NOME:CAT:SPEC]...\n"
+          + "                         [--importa GARA=FILE]... [--separatore C]\n"
+          + "                         [--esporta csv|jsonl|json|testo=FILE|-]... [--salva FILE]\n"
+          + "                         [--servi PORTA] [--ricevi PORTA] [--simula tcp|udp:HOST:PORTA:N]";
+
+    private Path meeting, salva;
+    private char separatore = ';';
+    private Integer porta, portaCronometraggio;
+    private String[] simulazione;
+    private final List<String[]> nuoveGare    = new ArrayList<>();
+    private final List<String[]> importazioni = new ArrayList<>();
+    private final List<String[]> esportazioni = new ArrayList<>();
+
+    private final PrintStream out, err;
+
+    private ModalitaBatch(PrintStream out, PrintStream err) {
+        this.out = out;
+        this.err = err;
+    }
+
+    /** Esegue il batch con gli argomenti successivi a "--batch". */
+    static int esegui(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+        return new ModalitaBatch(System.out, System.err).avvia(args);
+    }
+
+    private int avvia(String[] args) {
+        for (String a : args) {
+            if (a.equals("--aiuto") || a.equals("--help")) { out.println(USO_TESTO); return OK; }
+        }
+        try {
+            leggiArgomenti(args);
+        } catch (IllegalArgumentException ex) {
+            err.println(ex.getMessage());
+            err.println(USO_TESTO);
+            return USO;
+        }
+        try {
+            return elabora();
+        } catch (IOException | IllegalArgumentException ex) {
+            err.println("Errore: " + ex.getMessage());
+            return ERRORE;
+        }
+    }
+
+    // ── argomenti ──────────────────────────────────────────────────────────
+
+    private void leggiArgomenti(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String opz = args[i];
+            if (i + 1 >= args.length) throw new IllegalArgumentException("Valore mancante per " + opz);
+            String val = args[++i];
+            switch (opz) {
+                case "--meeting":    meeting = Paths.get(val); break;
+                case "--salva":      salva   = Paths.get(val); break;
+                case "--nuova-gara": nuoveGare.add(dividi(val, ':', 3, opz)); break;
+                case "--importa":    importazioni.add(dividi(val, '=', 2, opz)); break;
+                case "--esporta":    esportazioni.add(dividi(val, '=', 2, opz)); break;
+                case "--servi":      porta = porta(val); break;
+                case "--ricevi":     portaCronometraggio = porta(val); break;
+                case "--simula":
+                    simulazione = dividi(val, ':', 4, opz);
+                    if (!simulazione[0].equals("tcp") && !simulazione[0].equals("udp"))
+                        throw new IllegalArgumentException("Protocollo di simulazione non valido: " + simulazione[0]);
+                    porta(simulazione[2]);
+                    if (intero(simulazione[3]) <= 0)
+                        throw new IllegalArgumentException("Letture al secondo non valide: " + simulazione[3]);
+                    break;
+                case "--separatore":
+                    if (val.length() != 1) throw new IllegalArgumentException("Il separatore deve essere un carattere: " + val);
+                    separatore = val.charAt(0);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Opzione sconosciuta: " + opz);
+            }
+        }
+        for (String[] e : esportazioni) formato(e[0]);
+    }
+
+    private static int porta(String val) {
+        int p = intero(val);
+        if (p < 0 || p > 65535) throw new IllegalArgumentException("Porta non valida: " + val);
+        return p;
+    }
+
+    private static int intero(String val) {
+        try {
+            return Integer.parseInt(val);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Numero non valido: " + val);
+        }
+    }
+
+    /** Divide in esattamente {@code parti} pezzi (l'ultimo può contenere il separatore). */
+    private static String[] dividi(String s, char sep, int parti, String opz) {
+        String[] r = new String[parti];
+        int da = 0;
+        for (int k = 0; k < parti - 1; k++) {
+            int i = s.indexOf(sep, da);
+            if (i < 0) throw new IllegalArgumentException("Formato non valido per " + opz + ": " + s);
+            r[k] = s.substring(da, i);
+            da = i + 1;
+        }
+        r[parti - 1] = s.substring(da);
+        return r;
+    }
+
+    private static EsportatoreClassifiche.Formato formato(String nome) {
+        switch (nome.toLowerCase()) {
+            case "csv":   return EsportatoreClassifiche.Formato.CSV;
+            case "jsonl": return EsportatoreClassifiche.Formato.JSONL;
+            case "json":  return EsportatoreClassifiche.Formato.JSON;
+            case "testo": return EsportatoreClassifiche.Formato.LARGHEZZA_FISSA;
+            default: throw new IllegalArgumentException("Formato di esportazione sconosciuto: " + nome);
+        }
+    }
+
+    // ── elaborazione ───────────────────────────────────────────────────────
+
+    private int elabora() throws IOException {
+        AppData app = AppData.getInstance();
+        Path file = (meeting != null) ? meeting : AppData.getFileSnapshot();
+        if (!app.caricaSnapshot(file)) {
+            err.println(file + " non trovato: meeting vuoto");
+            app.azzera();
+        }
+        Meeting m = app.getMeeting();
+
+        for (String[] g : nuoveGare) m.aggiungiGara(creaGara(g[0], g[1], g[2]));
+
+        ImportatoreCsv importatore = new ImportatoreCsv(separatore);
+        for (String[] imp : importazioni) {
+            Gara gara = imp[0].isEmpty() ? null : trovaGara(m, imp[0]);
+            ImportatoreCsv.Rapporto r = importatore.importa(Paths.get(imp[1]), gara);
+            err.println(imp[1] + ": " + r);
+            for (ImportatoreCsv.Rapporto.Scarto s : r.getScarti()) err.println("  " + s);
+        }
+
+        // classifiche: quelle di gara sono mantenute dalle gare, la generale è calcolata una volta
+        ArrayList<VocePunteggioMeeting> generale = GestorePunteggio.calcolaClassificaMeeting(m);
+
+        boolean resta = porta != null || portaCronometraggio != null || simulazione != null;
+        if (esportazioni.isEmpty() && !resta) esportazioni.add(new String[]{"testo", "-"});
+        for (String[] e : esportazioni) esporta(m, generale, formato(e[0]), e[1]);
+
+        if (salva != null) app.salvaSnapshot(salva);
+        if (resta) resta(m);
+        return OK;
+    }
+
+    /**
+     * Server dei risultati, ricezione del cronometraggio e simulatore sul
+     * meeting elaborato; ritorna solo se interrotto (o a simulazione finita
+     * per errore).
+     */
+    private void resta(Meeting m) throws IOException {
+        ServerRisultati       server   = null;
+        GatewayCronometraggio gateway  = null;
+        try {
+            if (portaCronometraggio != null) {
+                gateway = new GatewayCronometraggio(new InetSocketAddress(portaCronometraggio));
+                gateway.avvia();
+                err.println("Cronometraggio su TCP/UDP porta " + gateway.getPorta());
+            }
+            if (porta != null) {
+                server = new ServerRisultati(new InetSocketAddress(porta));
+                server.avvia();
+                err.println("Risultati su http://localhost:" + server.getPorta() + ServerRisultati.PREFISSO + "/gare");
+            }
+            if (simulazione != null) {
+                SimulatoreCronometraggio sim = new SimulatoreCronometraggio(m, System.nanoTime());
+                InetSocketAddress dest = new InetSocketAddress(simulazione[1], porta(simulazione[2]));
+                int ritmo = intero(simulazione[3]);
+                err.println("Simulazione: " + ritmo + " letture/s su " + sim.getIscrizioni()
+                        + " iscrizioni verso " + simulazione[0] + "://" + dest);
+                if (simulazione[0].equals("tcp")) sim.inviaTcp(dest, ritmo, 0);
+                else                              sim.inviaUdp(dest, ritmo, 0);
+            } else {
+                new CountDownLatch(1).await();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (server != null)  server.close();
+            if (gateway != null) gateway.close();
+        }
+    }
+
+    private void esporta(Meeting m, List<VocePunteggioMeeting> generale,
+                         EsportatoreClassifiche.Formato formato, String destinazione) throws IOException {
+        boolean standard = destinazione.equals("-");
+        OutputStream os;
+        if (standard) {
+            os = new FilterOutputStream(out) {
+                @Override public void close() throws IOException { flush(); }   // stdout resta aperto
+                @Override public void write(byte[] b, int off, int len) throws IOException { out.write(b, off, len); }
+            };
+        } else {
+            Path p = Paths.get(destinazione).toAbsolutePath();
+            if (p.getParent() != null) Files.createDirectories(p.getParent());
+            os = Files.newOutputStream(p);
+        }
+        try (EsportatoreClassifiche esp = new EsportatoreClassifiche(os, formato)) {
+            for (Gara g : m.getGare()) esp.esportaGara(g);
+            esp.esportaClassificaMeeting(generale);
+        }
+    }
+
+    private static Gara trovaGara(Meeting m, String nome) {
+        Gara trovata = null;
+        for (Gara g : m.getGare()) {
+            if (!nome.equals(g.getNomeGara())) continue;
+            if (trovata != null) throw new IllegalArgumentException("Più gare con nome " + nome);
+            trovata = g;
+        }
+        if (trovata == null) throw new IllegalArgumentException("Gara non trovata: " + nome);
+        return trovata;
+    }
+
+    private static Gara creaGara(String nome, String categoria, String specialita) {
+        if (nome.isEmpty()) throw new IllegalArgumentException("Nome gara mancante");
+        Gara g = new Gara(nome, categoria);
+        for (TipoGaraCorsa t : TipoGaraCorsa.values())
+            if (t.name().equalsIgnoreCase(specialita)) { g.setTipoGaraCorsa(t); return g; }
+        for (TipoGaraSalto t : TipoGaraSalto.values())
+            if (t.name().equalsIgnoreCase(specialita)) { g.setTipoGaraSalto(t); return g; }
+        for (TipoGaraLancio t : TipoGaraLancio.values())
+            if (t.name().equalsIgnoreCase(specialita)) { g.setTipoGaraLancio(t); return g; }
+        throw new IllegalArgumentException("Specialità sconosciuta: " + specialita);
+    }
+}
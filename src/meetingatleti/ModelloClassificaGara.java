@@ -0,0 +1,73 @@
+package meetingatleti;
+
+import java.util.Collections;
+import java.util.List;
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * Modello di tabella per la classifica di una gara (FRM_Classifica,
+ * FRM_ClassificaGenerale).
+ *
+ * Avvolge direttamente la lista di VocePunteggio prodotta dalla gara
+ * (la copia in cache, che la gara sostituisce e non modifica): nessuna riga
+ * viene copiata, le celle sono calcolate solo quando JTable le disegna e
+ * ogni aggiornamento genera un solo evento.
+ */
+final class ModelloClassificaGara extends AbstractTableModel {
+
+    private static final String[] COLONNE = {"Pos.", "Pett.", "Nome", "Sesso", "Statistica", "Punteggio"};
+
+    private Gara gara;
+    private List<VocePunteggio> voci = Collections.emptyList();
+
+    /** Mostra la classifica della gara (null = tabella vuota). */
+    void setGara(Gara gara) {
+        setClassifica(gara, (gara != null) ? gara.getClassificaVoci() : null);
+    }
+
+    /** Mostra una classifica già letta dalla gara (es. fuori dall'EDT). */
+    void setClassifica(Gara gara, List<VocePunteggio> classifica) {
+        this.gara = gara;
+        this.voci = (classifica != null) ? classifica : Collections.emptyList();
+        fireTableDataChanged();
+    }
+
+    Gara getGara() { return gara; }
+
+    VocePunteggio getVoce(int riga) { return voci.get(riga); }
+
+    @Override public int    getRowCount()          { return voci.size(); }
+    @Override public int    getColumnCount()       { return COLONNE.length; }
+    @Override public String getColumnName(int c)   { return COLONNE[c]; }
+
+    @Override
+    public Object getValueAt(int riga, int colonna) {
+        VocePunteggio vp = voci.get(riga);
+        Atleta a = vp.getAtleta();
+        switch (colonna) {
+            case 0:  return vp.etichettaCompleta();        // "🥇 1" / "🥈 2=" / "4"
+            case 1:  return a.getPettorale();
+            case 2:  return a.getNome();
+            case 3:  return a.getSesso();
+            case 4:  return etichettaStatistica(a, gara);
+            default: return vp.getPunteggio();
+        }
+    }
+
+    /** Statistica specifica per tipo di atleta (tempo, reazione/penalità, distanza). */
+    static String etichettaStatistica(Atleta a, Gara gara) {
+        if (a instanceof Velocisti) {
+            Velocisti v = (Velocisti) a;
+            if (v.isOstacolista(gara))
+                return v.getTempoGara(gara) + "s  pen:" + v.getTempoOstacolo(gara) + "cs";
+            if (v.isVelocista(gara))
+                return v.getTempoGara(gara) + "s  reaz:" + v.getTempoReazione(gara) + "cs";
+            return v.getTempoGara(gara) + "s";
+        } else if (a instanceof Saltatori) {
+            return ((Saltatori) a).getDistanzaSalto(gara) + " cm";
+        } else if (a instanceof Lanciatori) {
+            return ((Lanciatori) a).getDistanzaLancio(gara) + " cm";
+        }
+        return "–";
+    }
+}
@@ -0,0 +1,55 @@
+package meetingatleti;
+
+import java.text.DecimalFormatSymbols;
+import java.util.Collections;
+import java.util.List;
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * Modello di tabella per la classifica generale del meeting
+ * (FRM_ClassificaGenerale).
+ *
+ * Avvolge la lista di VocePunteggioMeeting calcolata da GestorePunteggio
+ * senza copiarla; le celle (etichetta di posizione, media) sono calcolate
+ * solo per le righe visibili e ogni aggiornamento genera un solo evento.
+ */
+final class ModelloClassificaMeeting extends AbstractTableModel {
+
+    private static final String[] COLONNE = {"Pos.", "Pett.", "Nome", "Sesso", "Gare", "Media", "Totale Punti"};
+
+    /** Separatore decimale della localizzazione, come per String.format("%.1f"). */
+    private static final char VIRGOLA = DecimalFormatSymbols.getInstance().getDecimalSeparator();
+
+    private List<VocePunteggioMeeting> voci = Collections.emptyList();
+
+    void setClassifica(List<VocePunteggioMeeting> classifica) {
+        this.voci = (classifica != null) ? classifica : Collections.emptyList();
+        fireTableDataChanged();
+    }
+
+    VocePunteggioMeeting getVoce(int riga) { return voci.get(riga); }
+
+    @Override public int    getRowCount()          { return voci.size(); }
+    @Override public int    getColumnCount()       { return COLONNE.length; }
+    @Override public String getColumnName(int c)   { return COLONNE[c]; }
+
+    @Override
+    public Object getValueAt(int riga, int colonna) {
+        VocePunteggioMeeting vp = voci.get(riga);
+        switch (colonna) {
+            case 0:  return vp.getMedaglia().getSimbolo() + " " + vp.posizioneLabel();
+            case 1:  return vp.getPettorale();
+            case 2:  return vp.getNomeAtleta();
+            case 3:  return vp.getSesso();
+            case 4:  return vp.getNumeroGare();
+            case 5:  return unDecimale(vp.punteggioMedio());
+            default: return vp.getTotalePunti();
+        }
+    }
+
+    /** Media con un decimale (come "%.1f", senza Formatter). */
+    static String unDecimale(double v) {
+        long decimi = Math.round(Math.abs(v) * 10);
+        return (v < 0 && decimi != 0 ? "-" : "") + (decimi / 10) + VIRGOLA + (decimi % 10);
+    }
+}
@@ -0,0 +1,96 @@
+package meetingatleti;
+
+import java.util.ArrayList;
+import java.util.List;
+import javax.swing.AbstractListModel;
+
+/**
+ * Modello di JList che applica i cambiamenti come differenze minime.
+ *
+ * Ogni riga è un elemento (l'oggetto reale, anche null per righe di
+ * servizio) con la sua etichetta. {@link #aggiorna} confronta il nuovo
+ * contenuto con quello mostrato: la parte iniziale e finale invariate
+ * (stesso elemento per identità, stessa etichetta) non generano eventi,
+ * il tratto centrale diventa al più un intervallo modificato più un
+ * intervallo inserito o rimosso. La selezione della JList segue così
+ * inserimenti e rimozioni invece di essere azzerata a ogni aggiornamento.
+ *
+ * Usato da FRM_Gara al posto di DefaultListModel + clear()/addElement().
+ *
+ * @param <T> tipo degli elementi (Gara, Atleta)
+ */
+final class ModelloListaDifferenze<T> extends AbstractListModel<String> {
+
+    private final ArrayList<T>      elementi  = new ArrayList<>();
+    private final ArrayList<String> etichette = new ArrayList<>();
+
+    @Override public int    getSize()           { return elementi.size(); }
+    @Override public String getElementAt(int i) { return etichette.get(i); }
+
+    /** Elemento reale della riga (null per le righe di servizio). */
+    T getElemento(int i) { return elementi.get(i); }
+
+    int indiceDi(T elemento) {
+        for (int i = 0; i < elementi.size(); i++) if (elementi.get(i) == elemento) return i;
+        return -1;
+    }
+
+    void svuota() {
+        int n = elementi.size();
+        if (n == 0) return;
+        elementi.clear();
+        etichette.clear();
+        fireIntervalRemoved(this, 0, n - 1);
+    }
+
+    /**
+     * Porta il modello al nuovo contenuto con il minimo di eventi.
+     *
+     * @param nuovi        elementi nell'ordine di visualizzazione
+     * @param nuoveEtich   etichette, una per elemento
+     */
+    void aggiorna(List<? extends T> nuovi, List<String> nuoveEtich) {
+        if (nuovi.size() != nuoveEtich.size())
+            throw new IllegalArgumentException("un'etichetta per elemento");
+
+        int vecchi = elementi.size(), n = nuovi.size();
+
+        // ── parte iniziale e finale invariate ──────────────────────────────
+        int inizio = 0;
+        while (inizio < vecchi && inizio < n && uguale(inizio, nuovi.get(inizio), nuoveEtich.get(inizio)))
+            inizio++;
+        int fine = 0;
+        while (fine < vecchi - inizio && fine < n - inizio
+                && uguale(vecchi - 1 - fine, nuovi.get(n - 1 - fine), nuoveEtich.get(n - 1 - fine)))
+            fine++;
+
+        int daTogliere = vecchi - inizio - fine;   // righe centrali vecchie
+        int daMettere  = n      - inizio - fine;   // righe centrali nuove
+        int comuni     = Math.min(daTogliere, daMettere);
+
+        // ── righe sostituite sul posto ─────────────────────────────────────
+        for (int k = 0; k < comuni; k++) {
+            elementi.set(inizio + k, nuovi.get(inizio + k));
+            etichette.set(inizio + k, nuoveEtich.get(inizio + k));
+        }
+        if (comuni > 0) fireContentsChanged(this, inizio, inizio + comuni - 1);
+
+        // ── righe in più o in meno ─────────────────────────────────────────
+        int da = inizio + comuni;
+        if (daTogliere > comuni) {
+            int quante = daTogliere - comuni;
+            elementi.subList(da, da + quante).clear();
+            etichette.subList(da, da + quante).clear();
+            fireIntervalRemoved(this, da, da + quante - 1);
+        } else if (daMettere > comuni) {
+            int quante = daMettere - comuni;
+            elementi.addAll(da, nuovi.subList(da, da + quante));
+            etichette.addAll(da, nuoveEtich.subList(da, da + quante));
+            fireIntervalAdded(this, da, da + quante - 1);
+        }
+    }
+
+    private boolean uguale(int i, T elemento, String etichetta) {
+        return elementi.get(i) == elemento && etichette.get(i).equals(etichetta);
+    }
+}
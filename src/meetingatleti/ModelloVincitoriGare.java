@@ -0,0 +1,62 @@
+package meetingatleti;
+
+import java.util.ArrayList;
+import java.util.List;
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * Modello di tabella con una riga per gara del meeting e il suo vincitore
+ * (FRM_ClassificaGenerale, tabella superiore).
+ *
+ * Il vincitore di ogni gara è letto una sola volta a ogni aggiornamento
+ * (anche fuori dall'EDT, con {@link #vincitori}); il resto delle celle è
+ * calcolato quando la riga viene disegnata.
+ */
+final class ModelloVincitoriGare extends AbstractTableModel {
+
+    private static final String[] COLONNE = {"Gara", "Cat.", "Specialità", "Part.", "Vincitore", "Pett.", "Punteggio"};
+
+    private List<Gara>      gare      = new ArrayList<>();
+    private VocePunteggio[] vincitori = new VocePunteggio[0];
+
+    void setGare(List<Gara> elenco) {
+        List<Gara> copia = new ArrayList<>(elenco);
+        setGare(copia, vincitori(copia));
+    }
+
+    /** Imposta gare e vincitori già calcolati (vincitori[i] = vincitore di gare[i], o null). */
+    void setGare(List<Gara> elenco, VocePunteggio[] vincitoriGare) {
+        if (elenco.size() != vincitoriGare.length)
+            throw new IllegalArgumentException("un vincitore per gara");
+        gare      = elenco;
+        vincitori = vincitoriGare;
+        fireTableDataChanged();
+    }
+
+    static VocePunteggio[] vincitori(List<Gara> elenco) {
+        VocePunteggio[] v = new VocePunteggio[elenco.size()];
+        for (int i = 0; i < v.length; i++) v[i] = elenco.get(i).trovaVincitoreVoce();
+        return v;
+    }
+
+    Gara getGara(int riga) { return gare.get(riga); }
+
+    @Override public int    getRowCount()          { return gare.size(); }
+    @Override public int    getColumnCount()       { return COLONNE.length; }
+    @Override public String getColumnName(int c)   { return COLONNE[c]; }
+
+    @Override
+    public Object getValueAt(int riga, int colonna) {
+        Gara g = gare.get(riga);
+        VocePunteggio v = vincitori[riga];
+        switch (colonna) {
+            case 0:  return g.getNomeGara();
+            case 1:  return g.getCategoria();
+            case 2:  return g.getTipoDescrizione();
+            case 3:  return (v != null) ? g.getNumeroPartecipanti() : 0;
+            case 4:  return (v != null) ? v.getAtleta().getNome() : "–";
+            case 5:  return (v != null) ? v.getAtleta().getPettorale() : "–";
+            default: return (v != null) ? (Object) v.getPunteggio() : "–";
+        }
+    }
+}
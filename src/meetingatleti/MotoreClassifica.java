@@ -0,0 +1,149 @@
+package meetingatleti;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Motore di ranking usato da {@link GestorePunteggio#calcolaClassifica(Gara)}.
+ *
+ * Ogni atleta iscritto viene proiettato UNA sola volta in array primitivi
+ * paralleli (punteggio, spareggio, pettorale, indice di iscrizione): il confronto durante
+ * l'ordinamento legge solo questi array, senza più chiamare
+ * Atleta.getPrestazione(gara) e Prestazione.calcolaPunteggio() a ogni confronto.
+ *
+ * Ordinamento (identico alla versione precedente basata su Comparator):
+ *   1. punteggio decrescente
+ *   2. a pari punteggio, spareggio decrescente (Prestazione.getSpareggio())
+ *   3. poi pettorale crescente
+ *   4. a parità completa, ordine di iscrizione (merge sort stabile)
+ *
+ * Posizioni, flag pariMerito e medaglie seguono le stesse regole di
+ * GestorePunteggio: stesso punteggio e spareggio del precedente → stessa posizione.
+ *
+ * Se la gara usa l'archivio colonnare ({@link ArchivioPrestazioni}) i
+ * punteggi sono calcolati scorrendo direttamente le colonne primitive,
+ * senza passare dalla mappa prestazioni di ogni atleta.
+ */
+final class MotoreClassifica {
+
+    private MotoreClassifica() {}
+
+    /**
+     * Calcola la classifica di una gara.
+     *
+     * @param gara la gara (non null)
+     * @return lista di VocePunteggio ordinata per punteggio decrescente
+     */
+    static ArrayList<VocePunteggio> calcola(Gara gara) {
+        ArchivioPrestazioni archivio = gara.getArchivio();
+        List<Atleta> iscritti = gara.getAtleti();
+        int n = iscritti.size();
+
+        // ── proiezione: un solo calcolo del punteggio per atleta ──────────
+        Atleta[] atleti    = new Atleta[n];
+        int[]    punteggi  = new int[n];
+        long[]   spareggi  = new long[n];
+        int[]    pettorali = new int[n];
+        int[]    ordine    = new int[n];
+        if (archivio != null) {
+            // righe dell'archivio: stesso ordine di iscrizione, colonne contigue
+            int i = 0;
+            for (int r = 0; r < archivio.righe(); r++) {
+                if (archivio.isLibera(r)) continue;
+                atleti[i]   = archivio.atleta(r);
+                punteggi[i] = archivio.punteggio(r);
+                spareggi[i] = archivio.spareggio(r);
+                i++;
+            }
+        } else {
+            for (int i = 0; i < n; i++) {
+                atleti[i]   = iscritti.get(i);
+                Prestazione p = atleti[i].getPrestazione(gara);
+                if (p != null) {
+                    punteggi[i] = p.calcolaPunteggio();
+                    spareggi[i] = p.getSpareggio();
+                }
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            pettorali[i] = atleti[i].getPettorale();
+            ordine[i]    = i;
+        }
+
+        ordina(ordine, punteggi, spareggi, pettorali);
+
+        // ── costruzione delle voci ─────────────────────────────────────────
+        ArrayList<VocePunteggio> classifica = new ArrayList<>(n);
+        int posizioneCorrente = 0;
+        for (int i = 0; i < n; i++) {
+            int     idx   = ordine[i];
+            int     punti = punteggi[idx];
+            boolean par   = i > 0 && punti == punteggi[ordine[i - 1]]
+                                  && spareggi[idx] == spareggi[ordine[i - 1]];
+            if (!par) posizioneCorrente = i + 1;
+            classifica.add(new VocePunteggio(atleti[idx], posizioneCorrente, punti, par));
+        }
+        return classifica;
+    }
+
+    // ── ordinamento primitivo ──────────────────────────────────────────────
+
+    /**
+     * Ordina gli indici in {@code ordine} secondo (punteggio desc, pettorale asc).
+     * Merge sort stabile su int[]: a parità completa resta l'ordine di iscrizione,
+     * come nel List.sort() usato in precedenza.
+     */
+    static void ordina(int[] ordine, int[] punteggi, int[] pettorali) {
+        ordina(ordine, punteggi, null, pettorali);
+    }
+
+    /**
+     * Come {@link #ordina(int[], int[], int[])} con uno spareggio tra punteggio
+     * e pettorale (valore più alto prima); {@code spareggi} può essere null.
+     */
+    static void ordina(int[] ordine, int[] punteggi, long[] spareggi, int[] pettorali) {
+        if (ordine.length < 2) return;
+        int[] buffer = new int[ordine.length];
+        mergeSort(ordine, buffer, 0, ordine.length, punteggi, spareggi, pettorali);
+    }
+
+    private static void mergeSort(int[] a, int[] buf, int da, int fino,
+                                  int[] punteggi, long[] spareggi, int[] pettorali) {
+        int n = fino - da;
+        if (n <= 16) {
+            insertionSort(a, da, fino, punteggi, spareggi, pettorali);
+            return;
+        }
+        int mid = (da + fino) >>> 1;
+        mergeSort(a, buf, da, mid, punteggi, spareggi, pettorali);
+        mergeSort(a, buf, mid, fino, punteggi, spareggi, pettorali);
+        if (precede(a[mid - 1], a[mid], punteggi, spareggi, pettorali) <= 0) return;   // già in ordine
+
+        System.arraycopy(a, da, buf, da, n);
+        int i = da, j = mid, k = da;
+        while (i < mid && j < fino)
+            a[k++] = (precede(buf[j], buf[i], punteggi, spareggi, pettorali) < 0) ? buf[j++] : buf[i++];
+        while (i < mid) a[k++] = buf[i++];
+        while (j < fino) a[k++] = buf[j++];
+    }
+
+    private static void insertionSort(int[] a, int da, int fino,
+                                      int[] punteggi, long[] spareggi, int[] pettorali) {
+        for (int i = da + 1; i < fino; i++) {
+            int x = a[i];
+            int j = i - 1;
+            while (j >= da && precede(x, a[j], punteggi, spareggi, pettorali) < 0) {
+                a[j + 1] = a[j];
+                j--;
+            }
+            a[j + 1] = x;
+        }
+    }
+
+    /** Confronto (punteggio desc, spareggio desc, pettorale asc) tra due indici. */
+    private static int precede(int x, int y, int[] punteggi, long[] spareggi, int[] pettorali) {
+        int cmp = Integer.compare(punteggi[y], punteggi[x]);
+        if (cmp == 0 && spareggi != null) cmp = Long.compare(spareggi[y], spareggi[x]);
+        return (cmp != 0) ? cmp : Integer.compare(pettorali[x], pettorali[y]);
+    }
+}
@@ -0,0 +1,40 @@
+package meetingatleti;
+
+/**
+ * Osservatore delle modifiche allo stato del meeting.
+ *
+ * Registrato su {@link Meeting} (che lo propaga a tutte le sue gare, anche
+ * a quelle aggiunte dopo) e/o su {@link AppData} per gli atleti liberi.
+ * Tutti i metodi hanno un'implementazione vuota: si sovrascrive solo ciò
+ * che interessa.
+ *
+ * Gli eventi di gara sono notificati DENTRO il lock della Gara, subito dopo
+ * la modifica e sul thread che l'ha eseguita: l'implementazione deve essere
+ * rapida e non deve attendere altri thread che usano la stessa gara.
+ */
+public interface OsservatoreMeeting {
+
+    /** Gara aggiunta in coda al meeting. */
+    default void garaAggiunta(Meeting meeting, Gara gara) {}
+
+    /** Gara rimossa dal meeting ({@code indice} = posizione prima della rimozione). */
+    default void garaRimossa(Meeting meeting, Gara gara, int indice) {}
+
+    /** Iscrizione riuscita; {@code prestazione} è quella registrata dalla gara. */
+    default void iscrizione(Gara gara, Atleta atleta, Prestazione prestazione) {}
+
+    /** Atleta ritirato dalla gara. */
+    default void ritiro(Gara gara, Atleta atleta) {}
+
+    /** Un setter della Prestazione di un iscritto ne ha cambiato i valori. */
+    default void prestazioneModificata(Gara gara, Atleta atleta, Prestazione prestazione) {}
+
+    /** Pettorale di un iscritto cambiato da {@code vecchio} al valore attuale. */
+    default void pettoraleModificato(Gara gara, Atleta atleta, Integer vecchio) {}
+
+    /** Atleta aggiunto al pool dei liberi (prestazione in attesa, può essere null). */
+    default void atletaLiberoAggiunto(Atleta atleta, Prestazione prestazione) {}
+
+    /** Atleta rimosso dal pool dei liberi ({@code indice} = posizione prima della rimozione). */
+    default void atletaLiberoRimosso(Atleta atleta, int indice) {}
+}
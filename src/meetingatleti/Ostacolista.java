@@ -13,4 +13,9 @@ public interface Ostacolista {
 
     /** @param tempo penalità in centesimi di secondo */
     void setTempoOstacolo(Integer tempo);
+
+    /** Variante con contesto esplicito: non dipende da AppData.garaCorrente. */
+    Integer getTempoOstacolo(Gara gara);
+
+    void setTempoOstacolo(Gara gara, Integer tempo);
 }
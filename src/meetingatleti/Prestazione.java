@@ -20,8 +20,31 @@ package meetingatleti;
  *   FONDOMETRISTA : 10000 / tempoGara
  *   SALTO         : distanzaSalto (cm)
  *   LANCIO        : distanzaLancio (cm)
+ *
+ * v2 – tempi in virgola fissa:
+ * il tempo gara è memorizzato in millesimi di secondo (int) e il punteggio
+ * delle corse è calcolato in aritmetica intera:
+ *   10000 / (ms/1000 + cs/100)  =  10_000_000 / (ms + 10·cs)
+ * Il risultato è identico su ogni JVM. A parità di punteggio intero la
+ * classifica usa {@link #getSpareggio()}: per le corse il tempo effettivo
+ * al millesimo (fotofinish), così due tempi diversi non finiscono più in
+ * un falso pari merito per il troncamento a int.
+ *
+ * Prove dei concorsi: salto e lancio possono registrare fino a
+ * {@link #MAX_PROVE} prove con {@link #aggiungiProva(int)} (nulle comprese,
+ * {@link #NULLO}). La distanza diventa la migliore misura valida e a parità
+ * decide la seconda migliore (spareggio), entrambe aggiornate a ogni prova
+ * da {@link SerieProve}. I setter della distanza restano: impostano una
+ * misura singola e scartano la serie.
+ *
+ * Memorizzazione: la classe tiene solo il tipo; i valori stanno nei campi
+ * di {@link Campi} (factory, gare normali) oppure nelle colonne di
+ * {@link ArchivioPrestazioni} ({@link ArchivioPrestazioni.Vista}). Ogni tipo
+ * ha solo i valori che gli sono pertinenti: i getter degli altri
+ * restituiscono null (TEMPO_ASSENTE per il tempo) e i loro setter lanciano
+ * IllegalArgumentException.
  */
-public class Prestazione {
+public abstract class Prestazione {
 
     // ── enum Tipo ──────────────────────────────────────────────────────────
 
@@ -41,45 +64,67 @@ public class Prestazione {
 
     private final Tipo tipo;
 
-    private Double  tempoGara;
-    private Integer tempoReazione;
-    private Integer tempoOstacolo;
-    private Integer distanzaSalto;
-    private Integer distanzaLancio;
+    /** Valore di tempoGaraMs quando il tempo non è stato inserito. */
+    public static final int TEMPO_ASSENTE = Integer.MIN_VALUE;
+
+    /** Misura di una prova nulla nelle serie dei concorsi. */
+    public static final int NULLO = -1;
+
+    /** Numero massimo di prove per concorso (tre + tre di finale). */
+    public static final int MAX_PROVE = 6;
+
+    /** Package-private: usato da Campi e dalle viste di ArchivioPrestazioni. */
+    Prestazione(Tipo tipo) { this.tipo = tipo; }
 
-    private Prestazione(Tipo tipo) { this.tipo = tipo; }
+    /** Prestazione senza valori del tipo indicato (snapshot, giornale). */
+    static Prestazione vuota(Tipo tipo) { return new Campi(tipo); }
 
     // ── factory method ─────────────────────────────────────────────────────
 
     public static Prestazione velocista(Double tempoGara, Integer tempoReazione) {
-        Prestazione p = new Prestazione(Tipo.VELOCISTA);
-        p.tempoGara     = tempoGara;
-        p.tempoReazione = tempoReazione;
-        return p;
+        return velocistaMillis(secondiInMillis(tempoGara), tempoReazione);
     }
 
     public static Prestazione ostacolista(Double tempoGara, Integer tempoOstacolo) {
-        Prestazione p = new Prestazione(Tipo.OSTACOLISTA);
-        p.tempoGara     = tempoGara;
-        p.tempoOstacolo = tempoOstacolo;
-        return p;
+        return ostacolistaMillis(secondiInMillis(tempoGara), tempoOstacolo);
     }
 
     public static Prestazione fondometrista(Double tempoGara) {
-        Prestazione p = new Prestazione(Tipo.FONDOMETRISTA);
-        p.tempoGara = tempoGara;
+        return fondometristaMillis(secondiInMillis(tempoGara));
+    }
+
+    /** @param tempoGaraMs tempo in millesimi di secondo (risoluzione fotofinish) */
+    public static Prestazione velocistaMillis(int tempoGaraMs, Integer tempoReazione) {
+        Campi p = new Campi(Tipo.VELOCISTA);
+        p.tempoGaraMs = tempoGaraMs;
+        p.secondario  = tempoReazione;
+        return p;
+    }
+
+    /** @param tempoGaraMs tempo in millesimi di secondo (risoluzione fotofinish) */
+    public static Prestazione ostacolistaMillis(int tempoGaraMs, Integer tempoOstacolo) {
+        Campi p = new Campi(Tipo.OSTACOLISTA);
+        p.tempoGaraMs = tempoGaraMs;
+        p.secondario  = tempoOstacolo;
+        return p;
+    }
+
+    /** @param tempoGaraMs tempo in millesimi di secondo (risoluzione fotofinish) */
+    public static Prestazione fondometristaMillis(int tempoGaraMs) {
+        Campi p = new Campi(Tipo.FONDOMETRISTA);
+        p.tempoGaraMs = tempoGaraMs;
         return p;
     }
 
     public static Prestazione salto(Integer distanzaSalto) {
-        Prestazione p = new Prestazione(Tipo.SALTO);
-        p.distanzaSalto = distanzaSalto;
+        Campi p = new Campi(Tipo.SALTO);
+        p.distanza = distanzaSalto;
         return p;
     }
 
     public static Prestazione lancio(Integer distanzaLancio) {
-        Prestazione p = new Prestazione(Tipo.LANCIO);
-        p.distanzaLancio = distanzaLancio;
+        Campi p = new Campi(Tipo.LANCIO);
+        p.distanza = distanzaLancio;
         return p;
     }
 
@@ -88,45 +133,272 @@ public class Prestazione {
     public int calcolaPunteggio() {
         switch (tipo) {
             case VELOCISTA:
-                if (tempoGara == null || tempoGara <= 0) return 0;
-                double penReaz = (tempoReazione != null) ? tempoReazione / 100.0 : 0.0;
-                return (int)(10000.0 / (tempoGara + penReaz));
-
             case OSTACOLISTA:
-                if (tempoGara == null || tempoGara <= 0) return 0;
-                double penOst = (tempoOstacolo != null) ? tempoOstacolo / 100.0 : 0.0;
-                return (int)(10000.0 / (tempoGara + penOst));
+                return punteggioCorsa(tempoMillis(), penalita());
 
             case FONDOMETRISTA:
-                if (tempoGara == null || tempoGara <= 0) return 0;
-                return (int)(10000.0 / tempoGara);
+                return punteggioCorsa(tempoMillis(), 0);
 
             case SALTO:
-                return (distanzaSalto != null) ? distanzaSalto : 0;
-
-            case LANCIO:
-                return (distanzaLancio != null) ? distanzaLancio : 0;
+            case LANCIO: {
+                Integer d = distanza();
+                return (d != null) ? d : 0;
+            }
 
             default: return 0;
         }
     }
 
+    /**
+     * Spareggio a parità di punteggio: valore più ALTO = prestazione migliore.
+     *
+     *   corse       : tempo effettivo in ms cambiato di segno (più veloce → più alto)
+     *   salto/lancio: seconda migliore misura della serie di prove
+     *                 (0 se la misura è singola o c'è una sola prova valida)
+     *
+     * Due atleti sono a pari merito solo se hanno uguali punteggio e spareggio.
+     */
+    public long getSpareggio() {
+        switch (tipo) {
+            case VELOCISTA:
+            case OSTACOLISTA:
+                return spareggioCorsa(tempoMillis(), penalita());
+            case FONDOMETRISTA:
+                return spareggioCorsa(tempoMillis(), 0);
+            default: {
+                SerieProve s = serie();
+                return (s != null) ? s.seconda() : 0L;
+            }
+        }
+    }
+
+    /** Reazione (VELOCISTA) o penalità ostacoli (OSTACOLISTA) in cs, 0 se assente. */
+    private int penalita() {
+        Integer s = secondario();
+        return (s != null) ? s : 0;
+    }
+
+    /**
+     * Formula unica delle corse in virgola fissa:
+     * 10000 / (tempoGara + penalità / 100)  =  10_000_000 / (ms + 10·cs).
+     * Condivisa con ArchivioPrestazioni, che la applica su colonne primitive.
+     *
+     * @param tempoGaraMs tempo in millesimi (TEMPO_ASSENTE se non inserito)
+     * @param penalitaCs  reazione o penalità ostacoli in centesimi (0 se assente)
+     */
+    static int punteggioCorsa(int tempoGaraMs, int penalitaCs) {
+        if (tempoGaraMs <= 0) return 0;
+        long effettivo = tempoGaraMs + 10L * penalitaCs;
+        return (effettivo > 0) ? (int) (10_000_000L / effettivo) : 0;
+    }
+
+    /** Spareggio delle corse: −(tempo effettivo in ms); il peggiore se il tempo manca. */
+    static long spareggioCorsa(int tempoGaraMs, int penalitaCs) {
+        if (tempoGaraMs <= 0) return Long.MIN_VALUE;
+        return -(tempoGaraMs + 10L * penalitaCs);
+    }
+
+    /** Conversione secondi → millesimi arrotondata; null → TEMPO_ASSENTE. */
+    static int secondiInMillis(Double secondi) {
+        return (secondi != null) ? (int) Math.round(secondi * 1000.0) : TEMPO_ASSENTE;
+    }
+
     // ── getter ─────────────────────────────────────────────────────────────
 
     public Tipo    getTipo()            { return tipo; }
-    public Double  getTempoGara()       { return tempoGara; }
-    public Integer getTempoReazione()   { return tempoReazione; }
-    public Integer getTempoOstacolo()   { return tempoOstacolo; }
-    public Integer getDistanzaSalto()   { return distanzaSalto; }
-    public Integer getDistanzaLancio()  { return distanzaLancio; }
+
+    /** Tempo gara in secondi (derivato dai millesimi), null se assente. */
+    public Double  getTempoGara() {
+        int ms = getTempoGaraMillis();
+        return (ms != TEMPO_ASSENTE) ? ms / 1000.0 : null;
+    }
+
+    /** Tempo gara in millesimi di secondo, TEMPO_ASSENTE se non inserito. */
+    public int     getTempoGaraMillis() { return tipo.isCorsa() ? tempoMillis() : TEMPO_ASSENTE; }
+
+    public Integer getTempoReazione()   { return (tipo == Tipo.VELOCISTA)   ? secondario() : null; }
+    public Integer getTempoOstacolo()   { return (tipo == Tipo.OSTACOLISTA) ? secondario() : null; }
+    public Integer getDistanzaSalto()   { return (tipo == Tipo.SALTO)       ? distanza()   : null; }
+    public Integer getDistanzaLancio()  { return (tipo == Tipo.LANCIO)      ? distanza()   : null; }
 
     // ── setter (usati dai getter delle sottoclassi di Atleta) ─────────────
+    // Ogni setter accetta solo il valore pertinente al tipo della prestazione.
+
+    public void setTempoGara(Double t)       { setTempoGaraMillis(secondiInMillis(t)); }
+
+    public void setTempoGaraMillis(int ms) {
+        verificaCampo(tipo.isCorsa(), "tempo gara");
+        modifica(() -> scriviTempo(ms));
+    }
+
+    public void setTempoReazione(Integer t) {
+        verificaCampo(tipo == Tipo.VELOCISTA, "tempo di reazione");
+        modifica(() -> scriviSecondario(t));
+    }
+
+    public void setTempoOstacolo(Integer t) {
+        verificaCampo(tipo == Tipo.OSTACOLISTA, "penalità ostacoli");
+        modifica(() -> scriviSecondario(t));
+    }
+
+    public void setDistanzaSalto(Integer d) {
+        verificaCampo(tipo == Tipo.SALTO, "distanza salto");
+        modifica(() -> scriviDistanza(d));
+    }
+
+    public void setDistanzaLancio(Integer d) {
+        verificaCampo(tipo == Tipo.LANCIO, "distanza lancio");
+        modifica(() -> scriviDistanza(d));
+    }
 
-    public void setTempoGara(Double t)       { this.tempoGara     = t; }
-    public void setTempoReazione(Integer t)  { this.tempoReazione = t; }
-    public void setTempoOstacolo(Integer t)  { this.tempoOstacolo = t; }
-    public void setDistanzaSalto(Integer d)  { this.distanzaSalto = d; }
-    public void setDistanzaLancio(Integer d) { this.distanzaLancio = d; }
+    private void verificaCampo(boolean pertinente, String campo) {
+        if (!pertinente)
+            throw new IllegalArgumentException(campo + " non previsto per prestazioni " + tipo);
+    }
+
+    // ── prove dei concorsi ─────────────────────────────────────────────────
+
+    /**
+     * Registra la prossima prova di un salto o lancio.
+     * Se c'era una misura singola, diventa la prima prova della serie.
+     *
+     * @param cm misura in cm (positiva) oppure {@link #NULLO}
+     * @throws IllegalStateException    per le corse, o se le {@link #MAX_PROVE}
+     *                                  prove sono esaurite
+     * @throws IllegalArgumentException se la misura non è valida
+     */
+    public void aggiungiProva(int cm) {
+        verificaProva(cm);
+        modifica(() -> {
+            SerieProve s = serie();
+            if (s == null) {
+                Integer d = distanza();
+                s = (d != null && d > 0) ? SerieProve.singola(d) : new SerieProve();
+            }
+            if (s.isPiena()) throw new IllegalStateException("Prove esaurite (" + MAX_PROVE + ")");
+            s.aggiungi(cm);
+            scriviSerie(s);
+        });
+    }
+
+    /**
+     * Corregge la prova {@code indice} (da 0) già registrata.
+     *
+     * @throws IndexOutOfBoundsException se la prova non esiste
+     * @throws IllegalStateException     per le corse
+     */
+    public void correggiProva(int indice, int cm) {
+        verificaProva(cm);
+        modifica(() -> {
+            SerieProve s = serie();
+            if (s == null) {
+                Integer d = distanza();
+                if (d == null || d <= 0) throw new IndexOutOfBoundsException("Nessuna prova registrata");
+                s = SerieProve.singola(d);
+            }
+            if (indice < 0 || indice >= s.numero())
+                throw new IndexOutOfBoundsException("Prova " + indice + " di " + s.numero());
+            s.correggi(indice, cm);
+            scriviSerie(s);
+        });
+    }
+
+    /** Prove registrate in ordine, {@link #NULLO} per le nulle; la misura singola vale una prova. */
+    public int[] getProve() {
+        SerieProve s = serie();
+        if (s != null) return s.toArray();
+        Integer d = tipo.isCorsa() ? null : distanza();
+        return (d != null && d > 0) ? new int[]{d} : new int[0];
+    }
+
+    public int getNumeroProve() {
+        SerieProve s = serie();
+        if (s != null) return s.numero();
+        Integer d = tipo.isCorsa() ? null : distanza();
+        return (d != null && d > 0) ? 1 : 0;
+    }
+
+    /** Sostituisce l'intera serie con una copia di {@code s} (snapshot, giornale). */
+    void impostaSerie(SerieProve s) {
+        if (tipo.isCorsa())
+            throw new IllegalStateException("prove non previste per prestazioni " + tipo);
+        SerieProve copia = s.copia();
+        modifica(() -> scriviSerie(copia));
+    }
+
+    private void verificaProva(int cm) {
+        if (tipo.isCorsa())
+            throw new IllegalStateException("prove non previste per prestazioni " + tipo);
+        if (cm <= 0 && cm != NULLO)
+            throw new IllegalArgumentException("Misura non valida: " + cm);
+    }
+
+    // ── memorizzazione (Campi o colonne di ArchivioPrestazioni) ───────────
+    // Valori grezzi, senza controllo del tipo: lo fanno getter e setter.
+
+    /** Tempo gara in millesimi, TEMPO_ASSENTE se non inserito. */
+    abstract int tempoMillis();
+
+    /** Reazione (VELOCISTA) o penalità ostacoli (OSTACOLISTA), cs. */
+    abstract Integer secondario();
+
+    /** Distanza del concorso (salto o lancio secondo il tipo), cm. */
+    abstract Integer distanza();
+
+    /** Serie corrente (null se assente). */
+    abstract SerieProve serie();
+
+    abstract void scriviTempo(int ms);
+
+    abstract void scriviSecondario(Integer cs);
+
+    /** Misura singola: scarta anche l'eventuale serie. */
+    abstract void scriviDistanza(Integer cm);
+
+    /** Memorizza la serie e porta la distanza alla migliore misura (null se tutte nulle). */
+    abstract void scriviSerie(SerieProve s);
+
+    // ── collegamento alla gara (classifica incrementale) ──────────────────
+
+    /**
+     * Collega la prestazione all'iscrizione (gara, atleta).
+     * Chiamato da Gara.iscrizione: da questo momento ogni setter aggiorna
+     * la classifica incrementale della gara.
+     */
+    abstract void collega(Gara gara, Atleta atleta);
+
+    /** Scollega la prestazione dalla gara (ritiro dell'atleta). */
+    abstract void scollega();
+
+    /** Gara e atleta dell'iscrizione collegata (null se in attesa o ritirata). */
+    abstract Gara   garaCollegata();
+    abstract Atleta atletaCollegato();
+
+    /**
+     * Gara il cui lock protegge i valori: quella dell'archivio per le viste
+     * (la compattazione sposta le righe sotto quel lock), quella collegata
+     * per Campi; null se nessuna gara la custodisce.
+     */
+    abstract Gara garaDelLock();
+
+    /**
+     * Esegue la scrittura sotto il lock di garaDelLock() e, se la prestazione
+     * è iscritta, riposiziona la voce in classifica nella stessa sezione
+     * critica. Se la gara cambia mentre si attende il lock (ritiro, passaggio
+     * all'archivio colonnare) si riprova con quella nuova.
+     */
+    final void modifica(Runnable scrittura) {
+        while (true) {
+            Gara g = garaDelLock();
+            if (g == null) { scrittura.run(); return; }
+            synchronized (g) {
+                if (garaDelLock() != g) continue;
+                scrittura.run();
+                if (garaCollegata() == g) g.prestazioneModificata(atletaCollegato());
+                return;
+            }
+        }
+    }
 
     // ── compatibilità con tipo gara ────────────────────────────────────────
 
@@ -138,18 +410,73 @@ public class Prestazione {
 
     public String getStatisticaLabel() {
         switch (tipo) {
-            case VELOCISTA:    return tempoGara + "s  reaz:" + tempoReazione + "cs";
-            case OSTACOLISTA:  return tempoGara + "s  pen:"  + tempoOstacolo + "cs";
-            case FONDOMETRISTA:return tempoGara + "s";
-            case SALTO:        return distanzaSalto  + " cm";
-            case LANCIO:       return distanzaLancio + " cm";
+            case VELOCISTA:    return getTempoGara() + "s  reaz:" + getTempoReazione() + "cs";
+            case OSTACOLISTA:  return getTempoGara() + "s  pen:"  + getTempoOstacolo() + "cs";
+            case FONDOMETRISTA:return getTempoGara() + "s";
+            case SALTO:        return getDistanzaSalto()  + " cm" + etichettaProve();
+            case LANCIO:       return getDistanzaLancio() + " cm" + etichettaProve();
             default:           return "–";
         }
     }
 
+    private String etichettaProve() {
+        SerieProve s = serie();
+        return (s != null) ? "  [" + s + "]" : "";
+    }
+
     @Override
     public String toString() {
         return tipo.name() + " | " + getStatisticaLabel()
                + " | " + calcolaPunteggio() + " pt";
     }
+
+    // ══════════════════════════════════════════════════════════════════════
+    //  VALORI IN CAMPI PROPRI
+    // ══════════════════════════════════════════════════════════════════════
+
+    /** Prestazione con i valori nei propri campi: factory e gare senza archivio colonnare. */
+    private static final class Campi extends Prestazione {
+
+        private int        tempoGaraMs = TEMPO_ASSENTE;   // millesimi di secondo
+        private Integer    secondario;                    // reazione o penalità, cs
+        private Integer    distanza;                      // salto o lancio, cm
+        private SerieProve serie;                         // null = misura singola o nessuna
+
+        /** Gara e atleta a cui la prestazione è iscritta (null se in attesa). */
+        private volatile Gara   gara;
+        private volatile Atleta atleta;
+
+        Campi(Tipo tipo) { super(tipo); }
+
+        @Override int        tempoMillis() { return tempoGaraMs; }
+        @Override Integer    secondario()  { return secondario; }
+        @Override Integer    distanza()    { return distanza; }
+        @Override SerieProve serie()       { return serie; }
+
+        @Override void scriviTempo(int ms)           { tempoGaraMs = ms; }
+        @Override void scriviSecondario(Integer cs)  { secondario = cs; }
+        @Override void scriviDistanza(Integer cm)    { distanza = cm; serie = null; }
+
+        @Override
+        void scriviSerie(SerieProve s) {
+            serie    = s;
+            distanza = (s.migliore() > 0) ? s.migliore() : null;
+        }
+
+        @Override
+        void collega(Gara gara, Atleta atleta) {
+            this.gara   = gara;
+            this.atleta = atleta;
+        }
+
+        @Override
+        void scollega() {
+            this.gara   = null;
+            this.atleta = null;
+        }
+
+        @Override Gara   garaCollegata()   { return gara; }
+        @Override Atleta atletaCollegato() { return atleta; }
+        @Override Gara   garaDelLock()     { return gara; }
+    }
 }
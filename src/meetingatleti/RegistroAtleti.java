@@ -0,0 +1,102 @@
+package meetingatleti;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Registro delle identità atleta di un singolo calcolo della classifica
+ * generale del meeting.
+ *
+ * Ogni calcolo ha un'epoca propria. Alla prima comparsa nel calcolo un
+ * Atleta riceve lo slot denso successivo (0, 1, 2, …) e lo conserva in un
+ * timbro (epoca, slot) sull'oggetto stesso: le comparse successive (lo
+ * stesso atleta in altre gare) lo rileggono in O(1), senza mappe, chiavi
+ * String o boxing. Un timbro di un calcolo precedente o concorrente ha
+ * un'altra epoca e non vale: gli slot coprono solo gli atleti del meeting in
+ * esame e non restano voci di atleti rinominati o ritirati.
+ *
+ * Due oggetti Atleta con lo stesso nome e pettorale (es. lo stesso atleta
+ * inserito due volte da FRM_Atleti per gare diverse) sono la stessa
+ * identità: {@link #identita(int[])} unisce i loro slot alla fine,
+ * ordinando gli slot per pettorale in un long[] e confrontando i nomi solo
+ * tra slot con lo stesso pettorale.
+ */
+final class RegistroAtleti {
+
+    private static final AtomicInteger EPOCHE = new AtomicInteger();
+
+    private final int epoca = EPOCHE.incrementAndGet();   // 0 = mai timbrato
+    private Atleta[]  atleti;
+    private int[]     pettorali;
+    private int       slots;
+
+    /** @param atletiAttesi stima delle iscrizioni, per dimensionare gli array */
+    RegistroAtleti(int atletiAttesi) {
+        atleti    = new Atleta[Math.max(16, atletiAttesi)];
+        pettorali = new int[atleti.length];
+    }
+
+    /**
+     * Slot dell'oggetto atleta in questo calcolo, assegnandone uno nuovo
+     * (= slots() prima della chiamata) alla prima comparsa.
+     */
+    int slotPer(Atleta a) {
+        int s = a.slotNelCalcolo(epoca);
+        if (s >= 0) return s;
+        if (slots == atleti.length) {
+            atleti    = Arrays.copyOf(atleti,    slots * 2);
+            pettorali = Arrays.copyOf(pettorali, slots * 2);
+        }
+        s = slots++;
+        atleti[s]    = a;
+        pettorali[s] = a.getPettorale();
+        a.timbraCalcolo(epoca, s);
+        return s;
+    }
+
+    /** Numero di slot assegnati (gli slot validi sono 0 … slots-1). */
+    int slots()               { return slots; }
+
+    Atleta atleta(int slot)   { return atleti[slot]; }
+
+    int pettorale(int slot)   { return pettorali[slot]; }
+
+    /**
+     * Unisce gli slot della stessa identità (nome, pettorale).
+     *
+     * @param identita destinazione (lunghezza &ge; slots()): per ogni slot
+     *                 l'id denso della sua identità, in ordine di prima
+     *                 comparsa; il primo slot di un'identità è il più basso
+     * @return numero di identità
+     */
+    int identita(int[] identita) {
+        long[] perPettorale = new long[slots];                // (pettorale << 32) | slot
+        for (int s = 0; s < slots; s++) perPettorale[s] = ((long) pettorali[s] << 32) | s;
+        Arrays.sort(perPettorale);
+
+        // identita[s] = primo slot con lo stesso nome e pettorale
+        for (int i = 0; i < slots; ) {
+            int p = (int) (perPettorale[i] >> 32), j = i;
+            while (j < slots && (int) (perPettorale[j] >> 32) == p) j++;
+            for (int x = i; x < j; x++) {
+                int s = (int) perPettorale[x];
+                identita[s] = s;
+                for (int y = i; y < x; y++) {
+                    int t = (int) perPettorale[y];
+                    if (identita[t] == t && Objects.equals(atleti[t].getNome(), atleti[s].getNome())) {
+                        identita[s] = t;
+                        break;
+                    }
+                }
+            }
+            i = j;
+        }
+
+        // ricompattazione: il primo slot precede sempre quelli uniti a lui
+        int n = 0;
+        for (int s = 0; s < slots; s++)
+            identita[s] = (identita[s] == s) ? n++ : identita[identita[s]];
+        return n;
+    }
+}
@@ -6,6 +6,7 @@ package meetingatleti;
  *
  * calcolaPunteggio() delega alla Prestazione della gara corrente,
  * supportando il multi-disciplina con lo stesso numero di maglia.
+ * Le varianti con la Gara esplicita non leggono AppData (uso multi-thread).
  *
  * Formula (gestita da Prestazione): punteggio = distanzaSalto in cm.
  */
@@ -19,33 +20,42 @@ public class Saltatori extends Atleta implements ISaltatore {
 
     @Override
     public int calcolaPunteggio() {
-        Gara garaCorrente = AppData.getInstance().getGaraCorrente();
-        return calcolaPunteggio(garaCorrente);
+        return calcolaPunteggio(AppData.getInstance().getGaraCorrente());
     }
 
     @Override
     public Integer getDistanzaSalto() {
-        Gara g = AppData.getInstance().getGaraCorrente();
-        if (g == null) return null;
-        Prestazione p = getPrestazione(g);
+        return getDistanzaSalto(AppData.getInstance().getGaraCorrente());
+    }
+
+    @Override
+    public Integer getDistanzaSalto(Gara g) {
+        Prestazione p = (g != null) ? getPrestazione(g) : null;
         return (p != null) ? p.getDistanzaSalto() : null;
     }
 
     @Override
     public void setDistanzaSalto(Integer distanza) {
-        Gara g = AppData.getInstance().getGaraCorrente();
-        if (g == null) return;
-        Prestazione p = getPrestazione(g);
+        setDistanzaSalto(AppData.getInstance().getGaraCorrente(), distanza);
+    }
+
+    @Override
+    public void setDistanzaSalto(Gara g, Integer distanza) {
+        Prestazione p = (g != null) ? getPrestazione(g) : null;
         if (p != null && p.getTipo() == Prestazione.Tipo.SALTO)
             p.setDistanzaSalto(distanza);
     }
 
     @Override
     public String toString() {
-        Gara g = AppData.getInstance().getGaraCorrente();
+        return toString(AppData.getInstance().getGaraCorrente());
+    }
+
+    /** Descrizione dell'atleta riferita alla gara indicata (null = nessuna). */
+    public String toString(Gara g) {
         Prestazione p = (g != null) ? getPrestazione(g) : null;
         String stat = (p == null) ? "–" : p.getStatisticaLabel();
         return "[" + pettorale + "] " + nome + " | Saltatore"
-               + " | " + stat + " | Punteggio: " + calcolaPunteggio();
+               + " | " + stat + " | Punteggio: " + calcolaPunteggio(g);
     }
 }
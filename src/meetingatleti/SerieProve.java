@@ -0,0 +1,95 @@
+package meetingatleti;
+
+import java.util.Arrays;
+
+/**
+ * Serie delle prove di un concorso (salto o lancio) di una prestazione.
+ *
+ * Le misure sono in un int[] compatto, in ordine di prova, in cm; una prova
+ * nulla vale {@link Prestazione#NULLO}. Migliore e seconda misura valida
+ * sono tenute aggiornate a ogni {@link #aggiungi}, in tempo costante: la
+ * classifica le legge senza riscorrere le prove (la seconda è lo spareggio
+ * dei concorsi, vedi Prestazione.getSpareggio()).
+ *
+ * Non sincronizzata: è modificata solo dalla Prestazione proprietaria,
+ * dentro Prestazione.modifica(), cioè sotto il lock della sua gara quando
+ * la prestazione è iscritta (o custodita da un archivio colonnare).
+ */
+final class SerieProve {
+
+    /** Capacità iniziale: le tre prove di qualificazione. */
+    private static final int PROVE_INIZIALI = 3;
+
+    private int[] misure = new int[PROVE_INIZIALI];
+    private int   numero;
+    private int   migliore;          // 0 = nessuna misura valida
+    private int   seconda;           // 0 = meno di due misure valide
+
+    /** Serie con una sola prova (la distanza già inserita con il vecchio setter). */
+    static SerieProve singola(int cm) {
+        SerieProve s = new SerieProve();
+        s.aggiungi(cm);
+        return s;
+    }
+
+    int numero()        { return numero; }
+    int misura(int i)   { return misure[i]; }
+    boolean isPiena()   { return numero == Prestazione.MAX_PROVE; }
+
+    /** Migliore misura valida in cm, 0 se tutte nulle. */
+    int migliore()      { return migliore; }
+
+    /** Seconda migliore misura valida in cm, 0 se assente. */
+    int seconda()       { return seconda; }
+
+    int[] toArray()     { return Arrays.copyOf(misure, numero); }
+
+    SerieProve copia() {
+        SerieProve s = new SerieProve();
+        s.misure   = misure.clone();
+        s.numero   = numero;
+        s.migliore = migliore;
+        s.seconda  = seconda;
+        return s;
+    }
+
+    /** Accoda una prova (cm, o NULLO); il chiamante ha già verificato valore e capacità. */
+    void aggiungi(int cm) {
+        if (numero == misure.length) misure = Arrays.copyOf(misure, Prestazione.MAX_PROVE);
+        misure[numero++] = cm;
+        if (cm > migliore)     { seconda = migliore; migliore = cm; }
+        else if (cm > seconda) { seconda = cm; }
+    }
+
+    /**
+     * Sostituisce la prova {@code i} (correzione del giudice). Una misura
+     * tolta può essere la migliore: qui le prove sono riscorse, al più
+     * {@link Prestazione#MAX_PROVE}.
+     */
+    void correggi(int i, int cm) {
+        misure[i] = cm;
+        migliore = seconda = 0;
+        for (int k = 0; k < numero; k++) {
+            int m = misure[k];
+            if (m > migliore)     { seconda = migliore; migliore = m; }
+            else if (m > seconda) { seconda = m; }
+        }
+    }
+
+    /** Stesse prove nello stesso ordine. */
+    boolean stesseProve(SerieProve altra) {
+        if (altra == null || altra.numero != numero) return false;
+        return Arrays.equals(misure, 0, numero, altra.misure, 0, numero);
+    }
+
+    /** Prove separate da spazi, "X" per le nulle: "780 X 802". */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int k = 0; k < numero; k++) {
+            if (k > 0) sb.append(' ');
+            if (misure[k] == Prestazione.NULLO) sb.append('X'); else sb.append(misure[k]);
+        }
+        return sb.toString();
+    }
+}
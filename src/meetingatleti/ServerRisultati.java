@@ -0,0 +1,344 @@
+package meetingatleti;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+
+/**
+ * Server HTTP locale dei risultati (tabelloni dello stadio, speaker).
+ *
+ * Basato su com.sun.net.httpserver, incluso nel JDK. Solo GET e HEAD:
+ *
+ *   /api/gare                    elenco delle gare del meeting
+ *   /api/gare/{i}/classifica     classifica della gara i (0 = prima gara)
+ *   /api/classifica              classifica generale del meeting
+ *   /api/eventi                  variazioni di classifica in tempo reale
+ *                                (Server-Sent Events, {@link FlussoClassifiche})
+ *
+ * Le classifiche hanno lo schema del formato JSON di
+ * {@link EsportatoreClassifiche}; la classifica di gara è quella mantenuta
+ * dalla Gara (identica a GestorePunteggio.calcolaClassifica, senza
+ * ricalcolo).
+ *
+ * Cache ed ETag: ogni risposta è conservata già codificata insieme al suo
+ * ETag, costruito dalle versioni di meeting e gare
+ * ({@link Meeting#getVersione()}, {@link Gara#getVersione()}), lette senza
+ * lock. Se nulla è cambiato la richiesta costa il confronto dell'ETag: 304
+ * se il client lo manda in If-None-Match, altrimenti i byte in cache. Più
+ * richieste che trovano la cache scaduta attendono un solo ricalcolo.
+ *
+ * Le richieste sono servite da thread virtuali quando il runtime li offre
+ * (Java 21+, cercati per riflessione perché il progetto compila per Java 17),
+ * altrimenti da un pool fisso di thread daemon. Ogni flusso /api/eventi
+ * è scritto da un thread proprio di {@link FlussoClassifiche} e non occupa
+ * il pool; i flussi contemporanei restano limitati (con il pool fisso a
+ * metà dei suoi thread).
+ */
+final class ServerRisultati implements Closeable {
+
+    private static final java.util.logging.Logger logger =
+            java.util.logging.Logger.getLogger(ServerRisultati.class.getName());
+
+    /** Proprietà di sistema: porta su cui avviare il server con l'interfaccia grafica. */
+    static final String PROPRIETA_PORTA = "meetingatleti.http.porta";
+
+    static final String PREFISSO = "/api";
+
+    private static final String TIPO_JSON = "application/json; charset=utf-8";
+
+    /** Flussi contemporanei con i thread virtuali. */
+    private static final int MASSIMO_FLUSSI_VIRTUALI = 1024;
+
+    private final HttpServer        server;
+    private final ExecutorService   esecutore;
+    private final FlussoClassifiche flusso;
+
+    /** percorso → ultima risposta calcolata */
+    private final ConcurrentHashMap<String, Voce> cache = new ConcurrentHashMap<>();
+
+    /**
+     * Crea il server (non ancora avviato).
+     *
+     * @param indirizzo indirizzo e porta di ascolto (porta 0 = scelta dal sistema)
+     */
+    ServerRisultati(InetSocketAddress indirizzo) throws IOException {
+        if (indirizzo == null) throw new IllegalArgumentException("indirizzo non puo essere null");
+        server    = HttpServer.create(indirizzo, 0);
+        esecutore = creaEsecutore();
+        flusso    = new FlussoClassifiche(esecutore instanceof ThreadPoolExecutor
+                ? Math.max(1, ((ThreadPoolExecutor) esecutore).getMaximumPoolSize() / 2)
+                : MASSIMO_FLUSSI_VIRTUALI);
+        server.setExecutor(esecutore);
+        server.createContext(PREFISSO, this::gestisci);
+    }
+
+    void avvia() {
+        flusso.avvia();
+        server.start();
+        logger.info("Server risultati su http://" + server.getAddress().getHostString()
+                + ":" + getPorta() + PREFISSO + "/gare");
+    }
+
+    int getPorta() { return server.getAddress().getPort(); }
+
+    /** Ferma il server (chiude i flussi, attende al massimo un secondo le altre risposte). */
+    @Override
+    public void close() {
+        flusso.chiudi();
+        server.stop(1);
+        esecutore.shutdown();
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    //  ESECUTORE
+    // ══════════════════════════════════════════════════════════════════════
+
+    /** Thread virtuali se disponibili (Java 21+), altrimenti pool fisso. */
+    private static ExecutorService creaEsecutore() {
+        try {
+            Method m = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) m.invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException ex) {
+            int thread = Math.max(4, 2 * Runtime.getRuntime().availableProcessors());
+            AtomicInteger numero = new AtomicInteger();
+            return Executors.newFixedThreadPool(thread, r -> {
+                Thread t = new Thread(r, "meetingatleti-http-" + numero.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    //  RICHIESTE
+    // ══════════════════════════════════════════════════════════════════════
+
+    private void gestisci(HttpExchange ex) throws IOException {
+        boolean flussoAperto = false;   // lo scambio è chiuso dal thread del flusso
+        try {
+            String metodo = ex.getRequestMethod();
+            boolean head = metodo.equals("HEAD");
+            if (!head && !metodo.equals("GET")) {
+                ex.getResponseHeaders().set("Allow", "GET, HEAD");
+                vuota(ex, 405);
+                return;
+            }
+
+            Meeting meeting = AppData.getInstance().getMeeting();
+            String  percorso = ex.getRequestURI().getPath();
+            if (percorso.endsWith("/") && percorso.length() > 1)
+                percorso = percorso.substring(0, percorso.length() - 1);
+
+            if (percorso.equals(PREFISSO + "/eventi")) {
+                if (head) {
+                    ex.getResponseHeaders().set("Content-Type", "text/event-stream; charset=utf-8");
+                    vuota(ex, 200);
+                } else {
+                    flussoAperto = flusso.servi(ex);
+                }
+                return;
+            }
+
+            Risposta r = risposta(meeting, percorso);
+            if (r == null) { vuota(ex, 404); return; }
+
+            Headers h = ex.getResponseHeaders();
+            h.set("ETag", r.etag);
+            h.set("Cache-Control", "no-cache");
+            if (corrisponde(ex.getRequestHeaders().getFirst("If-None-Match"), r.etag)) {
+                vuota(ex, 304);
+                return;
+            }
+            h.set("Content-Type", TIPO_JSON);
+            if (head) {
+                h.set("Content-Length", Integer.toString(r.corpo.length));
+                ex.sendResponseHeaders(200, -1);
+                return;
+            }
+            ex.sendResponseHeaders(200, r.corpo.length);
+            try (OutputStream os = ex.getResponseBody()) {
+                os.write(r.corpo);
+            }
+        } catch (RuntimeException e) {
+            logger.log(Level.WARNING, "Errore su " + ex.getRequestURI(), e);
+            if (ex.getResponseCode() < 0) vuota(ex, 500);   // intestazioni non ancora inviate
+        } finally {
+            if (!flussoAperto) ex.close();
+        }
+    }
+
+    /** Risposta attuale per il percorso (dalla cache se l'ETag è invariato), null = 404. */
+    private Risposta risposta(Meeting meeting, String percorso) {
+        String sottoPercorso = percorso.substring(PREFISSO.length());
+        switch (sottoPercorso) {
+            case "/gare":
+                return dallaCache(percorso, etagMeeting(meeting, "g"), () -> elencoGare(meeting));
+            case "/classifica":
+                return dallaCache(percorso, etagMeeting(meeting, "m"), () -> classificaMeeting(meeting));
+            default:
+                break;
+        }
+        // /gare/{i}/classifica
+        int fine = sottoPercorso.length() - "/classifica".length();
+        if (!sottoPercorso.startsWith("/gare/") || !sottoPercorso.endsWith("/classifica") || fine <= 6) return null;
+        String numero = sottoPercorso.substring(6, fine);
+        int indice;
+        try {
+            indice = Integer.parseInt(numero);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        // solo la forma canonica ("1", non "01" o "+1"): una voce di cache per gara
+        if (!numero.equals(Integer.toString(indice))) return null;
+        List<Gara> gare = meeting.istantaneaGare();
+        if (indice < 0 || indice >= gare.size()) return null;
+        Gara gara = gare.get(indice);
+        String etag = "\"c" + Integer.toHexString(System.identityHashCode(gara))
+                    + "-" + Long.toHexString(gara.getVersione()) + "\"";
+        return dallaCache(percorso, etag, () -> classificaGara(gara));
+    }
+
+    /**
+     * ETag che dipende da tutto il meeting: identità e versione del meeting
+     * più la somma delle versioni delle gare. A parità di versione del
+     * meeting (stesso elenco di gare) la somma cresce a ogni modifica di una
+     * gara, quindi la coppia non si ripete.
+     */
+    private static String etagMeeting(Meeting meeting, String tipo) {
+        long somma = 0;
+        for (Gara g : meeting.istantaneaGare()) somma += g.getVersione();
+        return "\"" + tipo + Integer.toHexString(System.identityHashCode(meeting))
+                + "-" + Long.toHexString(meeting.getVersione()) + "-" + Long.toHexString(somma) + "\"";
+    }
+
+    private static boolean corrisponde(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) return false;
+        for (String t : ifNoneMatch.split(",")) {
+            t = t.trim();
+            if (t.equals("*") || t.equals(etag) || (t.startsWith("W/") && t.substring(2).equals(etag)))
+                return true;
+        }
+        return false;
+    }
+
+    private static void vuota(HttpExchange ex, int codice) throws IOException {
+        ex.sendResponseHeaders(codice, -1);
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    //  CACHE
+    // ══════════════════════════════════════════════════════════════════════
+
+    private interface Produttore {
+        byte[] produci() throws IOException;
+    }
+
+    /** Corpo già codificato con il suo ETag (immutabile). */
+    private static final class Risposta {
+        final String etag;
+        final byte[] corpo;
+
+        Risposta(String etag, byte[] corpo) {
+            this.etag  = etag;
+            this.corpo = corpo;
+        }
+    }
+
+    /** Ultima risposta di un percorso; il ricalcolo è fatto da un solo thread. */
+    private static final class Voce {
+        private volatile Risposta ultima;
+
+        Risposta per(String etag, Produttore produttore) {
+            Risposta r = ultima;
+            if (r != null && r.etag.equals(etag)) return r;
+            synchronized (this) {
+                r = ultima;
+                if (r != null && r.etag.equals(etag)) return r;   // calcolata da chi ci precedeva
+                try {
+                    r = new Risposta(etag, produttore.produci());
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);   // scrittura in memoria: non accade
+                }
+                ultima = r;
+                return r;
+            }
+        }
+    }
+
+    private Risposta dallaCache(String percorso, String etag, Produttore produttore) {
+        return cache.computeIfAbsent(percorso, k -> new Voce()).per(etag, produttore);
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    //  CORPI JSON
+    // ══════════════════════════════════════════════════════════════════════
+
+    private static byte[] classificaGara(Gara gara) throws IOException {
+        ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        try (EsportatoreClassifiche esp = new EsportatoreClassifiche(buf, EsportatoreClassifiche.Formato.JSON)) {
+            esp.esportaGara(gara);
+        }
+        return buf.toByteArray();
+    }
+
+    private static byte[] classificaMeeting(Meeting meeting) throws IOException {
+        List<Gara> gare = meeting.istantaneaGare();
+        ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        try (EsportatoreClassifiche esp = new EsportatoreClassifiche(buf, EsportatoreClassifiche.Formato.JSON)) {
+            esp.esportaClassificaMeeting(GestorePunteggio.calcolaClassificaMeeting(gare));
+        }
+        return buf.toByteArray();
+    }
+
+    private static byte[] elencoGare(Meeting meeting) {
+        return jsonGare(meeting.istantaneaGare()).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /** [{"indice":0,"numero":0,"nome":...,"categoria":...,"specialita":...,"partecipanti":n,"versione":v}, ...] */
+    static String jsonGare(List<Gara> gare) {
+        StringBuilder sb = new StringBuilder(64 + 128 * gare.size());
+        sb.append(gare.isEmpty() ? "[" : "[\n");
+        for (int i = 0; i < gare.size(); i++) {
+            Gara g = gare.get(i);
+            if (i > 0) sb.append(",\n");
+            sb.append("{\"indice\":").append(i);
+            sb.append(",\"numero\":").append(g.getNumero());
+            sb.append(",\"nome\":");        stringaJson(sb, g.getNomeGara());
+            sb.append(",\"categoria\":");   stringaJson(sb, g.getCategoria());
+            sb.append(",\"specialita\":");  stringaJson(sb, g.getTipoDescrizione());
+            sb.append(",\"partecipanti\":").append(g.getNumeroPartecipanti());
+            sb.append(",\"versione\":").append(g.getVersione());
+            sb.append('}');
+        }
+        sb.append(gare.isEmpty() ? "]\n" : "\n]\n");
+        return sb.toString();
+    }
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    static void stringaJson(StringBuilder sb, String s) {
+        if (s == null) { sb.append("null"); return; }
+        sb.append('"');
+        for (int i = 0, l = s.length(); i < l; i++) {
+            char c = s.charAt(i);
+            if (c == '"' || c == '\\')  sb.append('\\').append(c);
+            else if (c < 0x20)          sb.append("\\u00").append(HEX[c >> 4]).append(HEX[c & 0xF]);
+            else                        sb.append(c);
+        }
+        sb.append('"');
+    }
+}
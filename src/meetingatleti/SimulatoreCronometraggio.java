@@ -0,0 +1,236 @@
+package meetingatleti;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Simulatore di fotofinish, chip e misuratori per provare in locale
+ * {@link GatewayCronometraggio} (ModalitaBatch --simula).
+ *
+ * Prende gli iscritti del meeting e invia, al ritmo richiesto, letture nel
+ * protocollo del gateway: per ogni lettura sceglie a caso un'iscrizione e
+ * manda il suo valore attuale (o uno plausibile se manca) variato di
+ * qualche punto percentuale, così le classifiche cambiano davvero. Per
+ * salti e lanci ogni lettura è una prova ({@link #PROVE_NULLE} su cento
+ * nulle, "X"): un'iscrizione che ha esaurito le {@link Prestazione#MAX_PROVE}
+ * prove non riceve più letture, e quando non resta nessuna iscrizione da
+ * simulare l'invio termina. Il ritmo è tenuto a scatti di
+ * {@link #SCATTO_MS}; su UDP le righe di uno scatto sono raccolte in
+ * datagrammi fino a {@link #DATAGRAMMA} byte.
+ *
+ * Le righe sono scritte in un buffer riutilizzato, senza String.format.
+ */
+final class SimulatoreCronometraggio {
+
+    static final long SCATTO_MS   = 10;
+    static final int  DATAGRAMMA  = 1400;
+
+    /** Prove nulle su cento nei concorsi. */
+    static final int  PROVE_NULLE = 15;
+
+    /** Iscrizioni da simulare, in colonne. */
+    private final int[]     gara, pettorale, base;
+    private final boolean[] misura, reazione;
+    private final int[]     prove;           // prove già registrate o inviate (concorsi)
+    private final int[]     attive;          // iscrizioni che possono ricevere letture
+    private int             numeroAttive;
+    private final SplittableRandom casuale;
+
+    private final byte[] riga = new byte[64];
+
+    /**
+     * @param meeting meeting da cui prendere gare e iscritti (non null)
+     * @param seme    seme del generatore: stesso seme, stessa sequenza
+     */
+    SimulatoreCronometraggio(Meeting meeting, long seme) {
+        if (meeting == null) throw new IllegalArgumentException("meeting non puo essere null");
+        List<int[]> iscrizioni = new ArrayList<>();
+        List<Gara>  gare = meeting.istantaneaGare();
+        for (Gara gr : gare) {
+            synchronized (gr) {
+                for (Atleta a : gr.getAtleti()) {
+                    Prestazione p = a.getPrestazione(gr);
+                    if (p == null || a.getPettorale() == null) continue;
+                    iscrizioni.add(new int[]{gr.getNumero(), a.getPettorale(), valoreBase(p),
+                            p.getTipo().isCorsa() ? 0 : 1, p.getTipo() == Prestazione.Tipo.VELOCISTA ? 1 : 0,
+                            p.getNumeroProve()});
+                }
+            }
+        }
+        if (iscrizioni.isEmpty()) throw new IllegalArgumentException("Nessun atleta iscritto da simulare");
+        int n = iscrizioni.size();
+        gara = new int[n]; pettorale = new int[n]; base = new int[n];
+        misura = new boolean[n]; reazione = new boolean[n];
+        prove = new int[n]; attive = new int[n];
+        for (int i = 0; i < n; i++) {
+            int[] v = iscrizioni.get(i);
+            gara[i] = v[0]; pettorale[i] = v[1]; base[i] = v[2];
+            misura[i] = v[3] == 1; reazione[i] = v[4] == 1; prove[i] = v[5];
+            if (!misura[i] || prove[i] < Prestazione.MAX_PROVE) attive[numeroAttive++] = i;
+        }
+        casuale = new SplittableRandom(seme);
+    }
+
+    /** Millesimi di secondo (corse) o millimetri (salti, lanci). */
+    private static int valoreBase(Prestazione p) {
+        switch (p.getTipo()) {
+            case SALTO:  return p.getDistanzaSalto()  != null ? p.getDistanzaSalto()  * 10 : 6_000;
+            case LANCIO: return p.getDistanzaLancio() != null ? p.getDistanzaLancio() * 10 : 15_000;
+            default:     return p.getTempoGaraMillis() > 0 ? p.getTempoGaraMillis() : 60_000;
+        }
+    }
+
+    int getIscrizioni() { return gara.length; }
+
+    // ══════════════════════════════════════════════════════════════════════
+    //  INVIO
+    // ══════════════════════════════════════════════════════════════════════
+
+    /**
+     * Invia letture su una connessione TCP.
+     *
+     * @param lettureAlSecondo ritmo (positivo)
+     * @param totale           letture da inviare; 0 = fino all'interruzione del thread
+     *                         (o alla fine delle prove dei concorsi)
+     * @return letture inviate
+     */
+    long inviaTcp(InetSocketAddress destinazione, int lettureAlSecondo, long totale) throws IOException {
+        verifica(destinazione, lettureAlSecondo, totale);
+        try (Socket s = new Socket(destinazione.getAddress(), destinazione.getPort());
+             OutputStream os = new BufferedOutputStream(s.getOutputStream(), 1 << 16)) {
+            s.setTcpNoDelay(true);
+            long inviate = 0;
+            Ritmo ritmo = new Ritmo(lettureAlSecondo);
+            while ((totale == 0 || inviate < totale) && numeroAttive > 0
+                    && !Thread.currentThread().isInterrupted()) {
+                int quante = ritmo.prossimoScatto();
+                if (totale > 0) quante = (int) Math.min(quante, totale - inviate);
+                for (int k = 0; k < quante && numeroAttive > 0; k++, inviate++)
+                    os.write(riga, 0, prossimaRiga());
+                os.flush();
+            }
+            return inviate;
+        }
+    }
+
+    /** Come {@link #inviaTcp}, su datagrammi UDP. */
+    long inviaUdp(InetSocketAddress destinazione, int lettureAlSecondo, long totale) throws IOException {
+        verifica(destinazione, lettureAlSecondo, totale);
+        try (DatagramSocket s = new DatagramSocket()) {
+            byte[] dati = new byte[DATAGRAMMA];
+            DatagramPacket pacchetto = new DatagramPacket(dati, 0, destinazione);
+            long inviate = 0;
+            Ritmo ritmo = new Ritmo(lettureAlSecondo);
+            while ((totale == 0 || inviate < totale) && numeroAttive > 0
+                    && !Thread.currentThread().isInterrupted()) {
+                int quante = ritmo.prossimoScatto();
+                if (totale > 0) quante = (int) Math.min(quante, totale - inviate);
+                int usati = 0;
+                for (int k = 0; k < quante && numeroAttive > 0; k++, inviate++) {
+                    int l = prossimaRiga();
+                    if (usati + l > dati.length) {
+                        pacchetto.setLength(usati);
+                        s.send(pacchetto);
+                        usati = 0;
+                    }
+                    System.arraycopy(riga, 0, dati, usati, l);
+                    usati += l;
+                }
+                if (usati > 0) {
+                    pacchetto.setLength(usati);
+                    s.send(pacchetto);
+                }
+            }
+            return inviate;
+        }
+    }
+
+    private static void verifica(InetSocketAddress destinazione, int lettureAlSecondo, long totale) {
+        if (destinazione == null) throw new IllegalArgumentException("destinazione non puo essere null");
+        if (lettureAlSecondo <= 0 || totale < 0)
+            throw new IllegalArgumentException("Ritmo e totale non validi: " + lettureAlSecondo + ", " + totale);
+    }
+
+    /** Letture da inviare a ogni scatto, con attesa fino allo scatto successivo. */
+    private static final class Ritmo {
+        private final double perScatto;
+        private double       credito;
+        private long         prossimo = System.nanoTime();
+
+        Ritmo(int lettureAlSecondo) { perScatto = lettureAlSecondo * SCATTO_MS / 1000.0; }
+
+        int prossimoScatto() {
+            long attesa = prossimo - System.nanoTime();
+            if (attesa > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(attesa);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    return 0;
+                }
+            }
+            prossimo += TimeUnit.MILLISECONDS.toNanos(SCATTO_MS);
+            credito += perScatto;
+            int quante = (int) credito;
+            credito -= quante;
+            return quante;
+        }
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    //  RIGHE
+    // ══════════════════════════════════════════════════════════════════════
+
+    /**
+     * Scrive la prossima lettura nel buffer della riga; ne restituisce la
+     * lunghezza. Da chiamare solo se resta un'iscrizione attiva.
+     */
+    int prossimaRiga() {
+        int k = casuale.nextInt(numeroAttive);
+        int i = attive[k];
+        if (misura[i] && ++prove[i] == Prestazione.MAX_PROVE) attive[k] = attive[--numeroAttive];
+        int valore = (int) (base[i] * (0.97 + 0.06 * casuale.nextDouble()));
+        int l = 0;
+        riga[l++] = (byte) (misura[i] ? 'M' : 'T');
+        riga[l++] = ' ';
+        l = intero(gara[i], l);
+        riga[l++] = ' ';
+        l = intero(pettorale[i], l);
+        riga[l++] = ' ';
+        if (misura[i] && casuale.nextInt(100) < PROVE_NULLE) riga[l++] = 'X';
+        else l = decimale(valore, l);
+        if (reazione[i]) {
+            riga[l++] = ' ';
+            l = decimale(120 + casuale.nextInt(200) + FabbricaAtleti.REAZIONE_MINIMA_MS, l);
+        }
+        riga[l++] = '\n';
+        return l;
+    }
+
+    private int intero(int v, int l) {
+        int inizio = l;
+        do { riga[l++] = (byte) ('0' + v % 10); v /= 10; } while (v > 0);
+        for (int a = inizio, b = l - 1; a < b; a++, b--) { byte t = riga[a]; riga[a] = riga[b]; riga[b] = t; }
+        return l;
+    }
+
+    /** Millesimi come decimale con tre cifre (secondi o metri). */
+    private int decimale(int millesimi, int l) {
+        l = intero(millesimi / 1000, l);
+        riga[l++] = '.';
+        int resto = millesimi % 1000;
+        riga[l++] = (byte) ('0' + resto / 100);
+        riga[l++] = (byte) ('0' + resto / 10 % 10);
+        riga[l++] = (byte) ('0' + resto % 10);
+        return l;
+    }
+}
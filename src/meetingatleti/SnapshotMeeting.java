@@ -0,0 +1,480 @@
+package meetingatleti;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Snapshot binario dello stato dell'applicazione (Meeting + atleti liberi
+ * + prestazioni in attesa + gara corrente).
+ *
+ * Formato (big-endian, versionato):
+ *
+ *   int    MAGIA ("MTAT")          short  VERSIONE     long generazione
+ *   meeting: nome, data, luogo, prossimo numero gara(int)
+ *   atleti : n, poi per ognuno  tipo(byte) nome sesso eta pettorale
+ *   gare   : n, poi per ognuna  nome categoria tipoGara(byte) valore(int)
+ *                               colonnare(byte) numero(int) iscritti(int)
+ *                               per iscritto: indice atleta(int) + prestazione
+ *   liberi : n, poi per ognuno  indice atleta(int) + [prestazione in attesa]
+ *   int    indice gara corrente (-1 = nessuna)
+ *
+ *   stringa     : int lunghezza in byte (-1 = null) + UTF-8
+ *   Integer     : byte presente + int
+ *   prestazione : tipo(byte) + maschera dei campi presenti(byte) + solo i
+ *                 campi presenti (int; il tempo è già in millesimi)
+ *                 [+ prove: numero(byte) + misure(int, -1 = nulla)]
+ *
+ * Gli atleti sono scritti UNA volta in una tabella e referenziati per
+ * indice: lo stesso oggetto iscritto a più gare torna a essere lo stesso
+ * oggetto dopo il caricamento.
+ *
+ * Scrittura: FileChannel + ByteBuffer da 64 KB svuotato a blocchi, su un
+ * file temporaneo poi rinominato (un crash non lascia snapshot a metà).
+ * Lettura: l'intero file in un solo buffer, decodificato senza stream
+ * intermedi; le iscrizioni passano da Gara.iscrizione(), quindi indici,
+ * classifica e archivio colonnare sono ricostruiti coerenti.
+ *
+ * v2: la generazione numera gli snapshot successivi; {@link GiornaleMeeting}
+ * la usa per riconoscere il giornale che prosegue questo snapshot.
+ * I file v1 (senza generazione) sono letti con generazione 0.
+ *
+ * v3: un salto o lancio con serie di prove scrive le prove (bit HA_PROVE)
+ * al posto della distanza, che ne è derivata (la migliore misura).
+ * I file v1 e v2 non hanno il bit e si leggono come prima.
+ *
+ * v4: il numero stabile di ogni gara (Gara.getNumero()) e il prossimo
+ * numero del meeting, così dopo una ripartenza il cronometraggio indirizza
+ * le stesse gare anche se alcune erano state rimosse. Nei file precedenti
+ * le gare sono numerate nell'ordine in cui sono lette.
+ *
+ * Le codifiche di atleta, gara e prestazione sono condivise con il giornale.
+ */
+final class SnapshotMeeting {
+
+    static final int   MAGIA    = 0x4D544154;   // "MTAT"
+    static final short VERSIONE = 4;
+
+    private static final int DIM_BLOCCO = 64 * 1024;
+
+    // tipo atleta
+    private static final byte VELOCISTA  = 0;
+    private static final byte SALTATORE  = 1;
+    private static final byte LANCIATORE = 2;
+
+    // tipo gara
+    private static final byte GARA_NESSUNA = 0;
+    private static final byte GARA_CORSA   = 1;
+    private static final byte GARA_SALTO   = 2;
+    private static final byte GARA_LANCIO  = 3;
+
+    // maschera campi prestazione
+    private static final int HA_TEMPO    = 1;
+    private static final int HA_REAZIONE = 1 << 1;
+    private static final int HA_OSTACOLO = 1 << 2;
+    private static final int HA_SALTO    = 1 << 3;
+    private static final int HA_LANCIO   = 1 << 4;
+    private static final int HA_PROVE    = 1 << 5;
+
+    /** Stato ricostruito da uno snapshot. */
+    static final class Contenuto {
+        final Meeting                  meeting;
+        final ArrayList<Atleta>        atletiLiberi;
+        final Map<Atleta, Prestazione> prestazioniInAttesa;
+        final Gara                     garaCorrente;
+        final long                     generazione;
+
+        Contenuto(Meeting meeting, ArrayList<Atleta> atletiLiberi,
+                  Map<Atleta, Prestazione> prestazioniInAttesa, Gara garaCorrente,
+                  long generazione) {
+            this.meeting             = meeting;
+            this.atletiLiberi        = atletiLiberi;
+            this.prestazioniInAttesa = prestazioniInAttesa;
+            this.garaCorrente        = garaCorrente;
+            this.generazione         = generazione;
+        }
+    }
+
+    private SnapshotMeeting() {}
+
+    // ══════════════════════════════════════════════════════════════════════
+    //  SCRITTURA
+    // ══════════════════════════════════════════════════════════════════════
+
+    /**
+     * Scrive lo snapshot su file (sostituzione atomica quando possibile).
+     *
+     * @param pendenti    prestazioni in attesa degli atleti liberi (può essere vuota)
+     * @param generazione numero progressivo dello snapshot
+     */
+    static void salva(Path file, Meeting meeting, List<Atleta> liberi,
+                      Map<Atleta, Prestazione> pendenti, Gara corrente,
+                      long generazione) throws IOException {
+        if (file == null)    throw new IllegalArgumentException("file non puo essere null");
+        if (meeting == null) throw new IllegalArgumentException("meeting non puo essere null");
+
+        Path cartella = file.toAbsolutePath().getParent();
+        if (cartella != null) Files.createDirectories(cartella);
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            Scrittore out = new Scrittore(ch);
+            scrivi(out, meeting, liberi, pendenti, corrente, generazione);
+            out.svuota();
+            ch.force(false);
+        }
+        try {
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static void scrivi(Scrittore out, Meeting meeting, List<Atleta> liberi,
+                               Map<Atleta, Prestazione> pendenti, Gara corrente,
+                               long generazione) throws IOException {
+        out.intero(MAGIA);
+        out.corto(VERSIONE);
+        out.lungo(generazione);
+        out.stringa(meeting.getNome());
+        out.stringa(meeting.getData());
+        out.stringa(meeting.getLuogo());
+        out.intero(meeting.getProssimoNumero());
+
+        // copia coerente degli iscritti di ogni gara, presa sotto il suo lock
+        List<Gara> gare = meeting.istantaneaGare();
+        List<Atleta[]>      iscritti    = new ArrayList<>(gare.size());
+        List<Prestazione[]> prestazioni = new ArrayList<>(gare.size());
+        for (Gara g : gare) {
+            synchronized (g) {
+                Atleta[]      a = g.getAtleti().toArray(new Atleta[0]);
+                Prestazione[] p = new Prestazione[a.length];
+                for (int i = 0; i < a.length; i++) p[i] = a[i].getPrestazione(g);
+                iscritti.add(a);
+                prestazioni.add(p);
+            }
+        }
+
+        // ── tabella atleti (identità per riferimento) ──────────────────────
+        Map<Atleta, Integer> indici = new IdentityHashMap<>();
+        List<Atleta>         tabella = new ArrayList<>();
+        for (Atleta[] a : iscritti)
+            for (Atleta x : a) registra(x, indici, tabella);
+        for (Atleta x : liberi) registra(x, indici, tabella);
+
+        out.intero(tabella.size());
+        for (Atleta a : tabella) scriviAtleta(out, a);
+
+        // ── gare ───────────────────────────────────────────────────────────
+        out.intero(gare.size());
+        for (int ig = 0; ig < gare.size(); ig++) {
+            scriviGara(out, gare.get(ig));
+            out.intero(gare.get(ig).getNumero());
+
+            Atleta[]      a = iscritti.get(ig);
+            Prestazione[] p = prestazioni.get(ig);
+            out.intero(a.length);
+            for (int i = 0; i < a.length; i++) {
+                out.intero(indici.get(a[i]));
+                scriviPrestazione(out, p[i]);
+            }
+        }
+
+        // ── atleti liberi e prestazioni in attesa ──────────────────────────
+        out.intero(liberi.size());
+        for (Atleta a : liberi) {
+            out.intero(indici.get(a));
+            Prestazione p = pendenti.get(a);
+            out.byte_((byte) (p != null ? 1 : 0));
+            if (p != null) scriviPrestazione(out, p);
+        }
+
+        out.intero((corrente != null) ? gare.indexOf(corrente) : -1);
+    }
+
+    private static void registra(Atleta a, Map<Atleta, Integer> indici, List<Atleta> tabella) {
+        if (indici.putIfAbsent(a, tabella.size()) == null) tabella.add(a);
+    }
+
+    /** Anagrafica: tipo(byte) nome sesso eta pettorale. */
+    static void scriviAtleta(Scrittore out, Atleta a) throws IOException {
+        out.byte_((a instanceof Saltatori) ? SALTATORE
+                : (a instanceof Lanciatori) ? LANCIATORE : VELOCISTA);
+        out.stringa(a.getNome());
+        out.stringa(a.getSesso());
+        out.interoNullable(a.getEta());
+        out.interoNullable(a.getPettorale());
+    }
+
+    /** Intestazione gara: nome categoria tipoGara(byte) valore(int) colonnare(byte). */
+    static void scriviGara(Scrittore out, Gara g) throws IOException {
+        out.stringa(g.getNomeGara());
+        out.stringa(g.getCategoria());
+        if (g.getTipoGaraCorsa() != null) {
+            out.byte_(GARA_CORSA);  out.intero(g.getTipoGaraCorsa().ordinal());
+        } else if (g.getTipoGaraSalto() != null) {
+            out.byte_(GARA_SALTO);  out.intero(g.getTipoGaraSalto().ordinal());
+        } else if (g.getTipoGaraLancio() != null) {
+            out.byte_(GARA_LANCIO); out.intero(g.getTipoGaraLancio().ordinal());
+        } else {
+            out.byte_(GARA_NESSUNA); out.intero(0);
+        }
+        out.byte_((byte) (g.isArchivioColonnare() ? 1 : 0));
+    }
+
+    static void scriviPrestazione(Scrittore out, Prestazione p) throws IOException {
+        int     tempo    = p.getTempoGaraMillis();
+        Integer reazione = p.getTempoReazione();
+        Integer ostacolo = p.getTempoOstacolo();
+        Integer salto    = p.getDistanzaSalto();
+        Integer lancio   = p.getDistanzaLancio();
+        SerieProve serie = p.getTipo().isCorsa() ? null : p.serie();
+        int maschera = (tempo != Prestazione.TEMPO_ASSENTE ? HA_TEMPO : 0)
+                     | (reazione != null ? HA_REAZIONE : 0)
+                     | (ostacolo != null ? HA_OSTACOLO : 0);
+        if (serie != null) maschera |= HA_PROVE;   // la distanza si ricava dalle prove
+        else maschera |= (salto  != null ? HA_SALTO  : 0)
+                      |  (lancio != null ? HA_LANCIO : 0);
+        out.byte_((byte) p.getTipo().ordinal());
+        out.byte_((byte) maschera);
+        if ((maschera & HA_TEMPO)    != 0) out.intero(tempo);
+        if ((maschera & HA_REAZIONE) != 0) out.intero(reazione);
+        if ((maschera & HA_OSTACOLO) != 0) out.intero(ostacolo);
+        if ((maschera & HA_SALTO)    != 0) out.intero(salto);
+        if ((maschera & HA_LANCIO)   != 0) out.intero(lancio);
+        if ((maschera & HA_PROVE)    != 0) {
+            out.byte_((byte) serie.numero());
+            for (int k = 0; k < serie.numero(); k++) out.intero(serie.misura(k));
+        }
+    }
+
+    /**
+     * Buffer di scrittura: a blocchi su un FileChannel, oppure (senza canale)
+     * in memoria con crescita automatica, per i record del giornale.
+     */
+    static final class Scrittore {
+        private final FileChannel ch;
+        private ByteBuffer        buf;
+
+        Scrittore(FileChannel ch) {
+            this.ch  = ch;
+            this.buf = ByteBuffer.allocate(DIM_BLOCCO);
+        }
+
+        /** Scrittore in memoria. */
+        Scrittore(int capacitaIniziale) {
+            this.ch  = null;
+            this.buf = ByteBuffer.allocate(capacitaIniziale);
+        }
+
+        private void spazio(int n) throws IOException {
+            if (buf.remaining() >= n) return;
+            if (ch != null) { svuota(); return; }
+            ByteBuffer nuovo = ByteBuffer.allocate(Math.max(buf.capacity() * 2, buf.position() + n));
+            buf.flip();
+            buf = nuovo.put(buf);
+        }
+
+        void svuota() throws IOException {
+            buf.flip();
+            while (buf.hasRemaining()) ch.write(buf);
+            buf.clear();
+        }
+
+        /** Byte scritti finora (solo scrittore in memoria). */
+        byte[] toByteArray() { return java.util.Arrays.copyOf(buf.array(), buf.position()); }
+
+        /** Ricomincia da capo riusando il buffer (solo scrittore in memoria). */
+        void azzera() { buf.clear(); }
+
+        void lungo(long v)    throws IOException { spazio(8); buf.putLong(v); }
+
+        void byte_(byte b)    throws IOException { spazio(1); buf.put(b); }
+        void corto(short s)   throws IOException { spazio(2); buf.putShort(s); }
+        void intero(int v)    throws IOException { spazio(4); buf.putInt(v); }
+
+        void interoNullable(Integer v) throws IOException {
+            byte_((byte) (v != null ? 1 : 0));
+            if (v != null) intero(v);
+        }
+
+        void stringa(String s) throws IOException {
+            if (s == null) { intero(-1); return; }
+            byte[] b = s.getBytes(StandardCharsets.UTF_8);
+            intero(b.length);
+            bytes(b);
+        }
+
+        void bytes(byte[] b) throws IOException {
+            for (int da = 0; da < b.length; ) {
+                spazio(1);
+                int n = Math.min(buf.remaining(), b.length - da);
+                buf.put(b, da, n);
+                da += n;
+            }
+        }
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    //  LETTURA
+    // ══════════════════════════════════════════════════════════════════════
+
+    /**
+     * Carica uno snapshot.
+     *
+     * @throws IOException se il file manca, è troncato, ha una versione
+     *                     non supportata o dati incoerenti
+     */
+    static Contenuto carica(Path file) throws IOException {
+        if (file == null) throw new IllegalArgumentException("file non puo essere null");
+        ByteBuffer in = leggiFile(file);
+        try {
+            return leggi(in);
+        } catch (java.nio.BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IOException("snapshot troncato o corrotto: " + file, e);
+        }
+    }
+
+    /** Legge l'intero file in un unico buffer (posizione 0, limite = dimensione). */
+    static ByteBuffer leggiFile(Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            long dim = ch.size();
+            if (dim > Integer.MAX_VALUE) throw new IOException("file troppo grande: " + dim + " byte");
+            ByteBuffer in = ByteBuffer.allocate((int) dim);
+            while (in.hasRemaining())
+                if (ch.read(in) < 0) throw new IOException("file troncato durante la lettura: " + file);
+            in.flip();
+            return in;
+        }
+    }
+
+    private static Contenuto leggi(ByteBuffer in) throws IOException {
+        if (in.getInt() != MAGIA) throw new IOException("non è uno snapshot MeetingAtleti");
+        short versione = in.getShort();
+        if (versione < 1 || versione > VERSIONE)
+            throw new IOException("versione snapshot non supportata: " + versione);
+        long generazione = (versione >= 2) ? in.getLong() : 0L;
+
+        Meeting meeting = new Meeting(stringa(in), stringa(in), stringa(in));
+        int prossimoNumero = (versione >= 4) ? in.getInt() : 0;
+
+        // ── tabella atleti ─────────────────────────────────────────────────
+        Atleta[] atleti = new Atleta[in.getInt()];
+        for (int i = 0; i < atleti.length; i++) atleti[i] = leggiAtleta(in);
+
+        // ── gare ───────────────────────────────────────────────────────────
+        int nGare = in.getInt();
+        for (int ig = 0; ig < nGare; ig++) {
+            Gara g = leggiGara(in);
+            int numero = (versione >= 4) ? in.getInt() : ig;
+
+            int n = in.getInt();
+            for (int i = 0; i < n; i++) {
+                Atleta      a = atleti[in.getInt()];
+                Prestazione p = leggiPrestazione(in);
+                if (!g.iscrizione(a, p))
+                    throw new IOException("iscrizione non valida nello snapshot: "
+                            + a + " in " + g.getNomeGara());
+            }
+            if (numero < 0) throw new IOException("numero gara non valido: " + numero);
+            meeting.aggiungiGara(g, numero);
+        }
+        meeting.riservaNumeri(prossimoNumero);
+
+        // ── atleti liberi ──────────────────────────────────────────────────
+        int nLiberi = in.getInt();
+        ArrayList<Atleta>        liberi   = new ArrayList<>(nLiberi);
+        Map<Atleta, Prestazione> pendenti = new LinkedHashMap<>();
+        for (int i = 0; i < nLiberi; i++) {
+            Atleta a = atleti[in.getInt()];
+            liberi.add(a);
+            if (in.get() != 0) pendenti.put(a, leggiPrestazione(in));
+        }
+
+        int corrente = in.getInt();
+        Gara garaCorrente = (corrente >= 0) ? meeting.getGare().get(corrente) : null;
+        return new Contenuto(meeting, liberi, pendenti, garaCorrente, generazione);
+    }
+
+    static Atleta leggiAtleta(ByteBuffer in) throws IOException {
+        byte    tipo      = in.get();
+        String  nome      = stringa(in);
+        String  sesso     = stringa(in);
+        Integer eta       = interoNullable(in);
+        Integer pettorale = interoNullable(in);
+        switch (tipo) {
+            case VELOCISTA:  return new Velocisti(nome, sesso, eta, pettorale);
+            case SALTATORE:  return new Saltatori(nome, sesso, eta, pettorale);
+            case LANCIATORE: return new Lanciatori(nome, sesso, eta, pettorale);
+            default: throw new IOException("tipo atleta sconosciuto: " + tipo);
+        }
+    }
+
+    /** Nuova gara vuota dall'intestazione scritta da scriviGara(). */
+    static Gara leggiGara(ByteBuffer in) throws IOException {
+        Gara g = new Gara(stringa(in), stringa(in));
+        byte tipo   = in.get();
+        int  valore = in.getInt();
+        switch (tipo) {
+            case GARA_CORSA:  g.setTipoGaraCorsa(TipoGaraCorsa.values()[valore]);   break;
+            case GARA_SALTO:  g.setTipoGaraSalto(TipoGaraSalto.values()[valore]);   break;
+            case GARA_LANCIO: g.setTipoGaraLancio(TipoGaraLancio.values()[valore]); break;
+            case GARA_NESSUNA: break;
+            default: throw new IOException("tipo gara sconosciuto: " + tipo);
+        }
+        if (in.get() != 0) g.abilitaArchivioColonnare();
+        return g;
+    }
+
+    static Prestazione leggiPrestazione(ByteBuffer in) throws IOException {
+        int tipo     = in.get();
+        int maschera = in.get();
+        Prestazione.Tipo[] tipi = Prestazione.Tipo.values();
+        if (tipo < 0 || tipo >= tipi.length) throw new IOException("tipo prestazione sconosciuto: " + tipo);
+        Prestazione.Tipo t = tipi[tipo];
+        Prestazione p = Prestazione.vuota(t);
+        // i valori non pertinenti al tipo (snapshot precedenti) si leggono e si scartano
+        if ((maschera & HA_TEMPO)    != 0) { int v = in.getInt(); if (t.isCorsa())                    p.setTempoGaraMillis(v); }
+        if ((maschera & HA_REAZIONE) != 0) { int v = in.getInt(); if (t == Prestazione.Tipo.VELOCISTA)   p.setTempoReazione(v); }
+        if ((maschera & HA_OSTACOLO) != 0) { int v = in.getInt(); if (t == Prestazione.Tipo.OSTACOLISTA) p.setTempoOstacolo(v); }
+        if ((maschera & HA_SALTO)    != 0) { int v = in.getInt(); if (t == Prestazione.Tipo.SALTO)       p.setDistanzaSalto(v); }
+        if ((maschera & HA_LANCIO)   != 0) { int v = in.getInt(); if (t == Prestazione.Tipo.LANCIO)      p.setDistanzaLancio(v); }
+        if ((maschera & HA_PROVE)    != 0) {
+            int numero = in.get();
+            if (p.getTipo().isCorsa() || numero < 0 || numero > Prestazione.MAX_PROVE)
+                throw new IOException("prove non valide: " + numero + " per " + p.getTipo());
+            SerieProve serie = new SerieProve();
+            for (int k = 0; k < numero; k++) {
+                int cm = in.getInt();
+                if (cm <= 0 && cm != Prestazione.NULLO) throw new IOException("misura non valida: " + cm);
+                serie.aggiungi(cm);
+            }
+            p.impostaSerie(serie);
+        }
+        return p;
+    }
+
+    static Integer interoNullable(ByteBuffer in) {
+        return (in.get() != 0) ? in.getInt() : null;
+    }
+
+    static String stringa(ByteBuffer in) {
+        int n = in.getInt();
+        if (n < 0) return null;
+        String s = new String(in.array(), in.arrayOffset() + in.position(), n, StandardCharsets.UTF_8);
+        in.position(in.position() + n);
+        return s;
+    }
+}
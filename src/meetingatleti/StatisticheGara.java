@@ -0,0 +1,139 @@
+package meetingatleti;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Istantanea immutabile delle statistiche di una gara.
+ *
+ * Calcolata in UNA sola passata sulla classifica già ordinata della gara
+ * ({@link Gara#getClassificaVoci()}), senza ricalcolare alcuna Prestazione:
+ * massimo, minimo, somma, media, varianza, percentili e atleti a pari merito
+ * al primo posto.
+ *
+ * Gara la conserva in cache e la invalida a ogni iscrizione, ritiro o
+ * modifica di una prestazione, così tutti i pannelli leggono lo stesso
+ * oggetto già calcolato.
+ */
+public final class StatisticheGara {
+
+    /** Statistiche di una gara senza partecipanti. */
+    static final StatisticheGara VUOTE = new StatisticheGara(new int[0], 0L, 0.0, Collections.emptyList());
+
+    // ── campi ──────────────────────────────────────────────────────────────
+
+    private final int[]        punteggi;        // ordine decrescente (come la classifica)
+    private final long         somma;
+    private final double       varianza;        // varianza di popolazione
+    private final List<Atleta> pariMeritoPrimo; // vuota se il primo posto non è condiviso
+
+    private StatisticheGara(int[] punteggi, long somma, double varianza, List<Atleta> pariMeritoPrimo) {
+        this.punteggi        = punteggi;
+        this.somma           = somma;
+        this.varianza        = varianza;
+        this.pariMeritoPrimo = pariMeritoPrimo;
+    }
+
+    // ── calcolo ────────────────────────────────────────────────────────────
+
+    /**
+     * Calcola le statistiche da una classifica ordinata per punteggio decrescente.
+     *
+     * @param classifica voci prodotte dalla gara (non null)
+     */
+    static StatisticheGara calcola(List<VocePunteggio> classifica) {
+        int n = classifica.size();
+        if (n == 0) return VUOTE;
+
+        int[]             punteggi = new int[n];
+        ArrayList<Atleta> primi    = new ArrayList<>();
+        long   somma = 0;
+        double media = 0.0, m2 = 0.0;       // Welford: stabile anche su campi grandi
+
+        for (int i = 0; i < n; i++) {
+            VocePunteggio v = classifica.get(i);
+            int p = v.getPunteggio();
+            punteggi[i] = p;
+            somma += p;
+            double delta = p - media;
+            media += delta / (i + 1);
+            m2    += delta * (p - media);
+            if (v.getPosizione() == 1) primi.add(v.getAtleta());
+        }
+
+        List<Atleta> pari = (primi.size() >= 2)
+                ? Collections.unmodifiableList(primi)
+                : Collections.emptyList();
+        return new StatisticheGara(punteggi, somma, m2 / n, pari);
+    }
+
+    // ── getter ─────────────────────────────────────────────────────────────
+
+    public int    getNumeroPartecipanti() { return punteggi.length; }
+    public int    getMassimo()            { return punteggi.length == 0 ? 0 : punteggi[0]; }
+    public int    getMinimo()             { return punteggi.length == 0 ? 0 : punteggi[punteggi.length - 1]; }
+    public long   getSomma()              { return somma; }
+    public double getVarianza()           { return varianza; }
+    public double getDeviazioneStandard() { return Math.sqrt(varianza); }
+
+    public double getMedia() {
+        return punteggi.length == 0 ? 0.0 : (double) somma / punteggi.length;
+    }
+
+    /** Atleti a pari merito al primo posto (vuota se il vincitore è unico). */
+    public List<Atleta> getPariMeritoPrimo() { return pariMeritoPrimo; }
+
+    /**
+     * Percentile con metodo "nearest rank".
+     *
+     * @param percentuale valore in [0, 100] (es. 50 = mediana, 90 = 90° percentile)
+     * @return punteggio al percentile richiesto, 0 se nessun partecipante
+     */
+    public int getPercentile(double percentuale) {
+        if (percentuale < 0 || percentuale > 100)
+            throw new IllegalArgumentException("percentuale fuori da [0, 100]: " + percentuale);
+        int n = punteggi.length;
+        if (n == 0) return 0;
+        int rango = (int) Math.ceil(percentuale / 100.0 * n);     // 1-based sui valori crescenti
+        if (rango < 1) rango = 1;
+        return punteggi[n - rango];                               // array decrescente
+    }
+
+    public int getMediana() { return getPercentile(50); }
+
+    // ── riepilogo testuale ─────────────────────────────────────────────────
+
+    /** Riepilogo multi-riga (stesso formato di GestorePunteggio.riepilogoStatistiche). */
+    public String riepilogo() {
+        if (punteggi.length == 0) return "Nessun dato disponibile.";
+        String pariStr = "-";
+        if (!pariMeritoPrimo.isEmpty()) {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < pariMeritoPrimo.size(); i++) {
+                if (i > 0) sb.append(", ");
+                sb.append(pariMeritoPrimo.get(i).getNome());
+            }
+            pariStr = sb.append(" (").append(getMassimo()).append(" pt)").toString();
+        }
+        return String.format(
+            "Partecipanti : %d%n" +
+            "Punteggio MAX: %d%n" +
+            "Punteggio MIN: %d%n" +
+            "Media        : %.1f%n" +
+            "Pari merito  : %s",
+            getNumeroPartecipanti(),
+            getMassimo(),
+            getMinimo(),
+            getMedia(),
+            pariStr
+        );
+    }
+
+    @Override
+    public String toString() {
+        return String.format("n=%d max=%d min=%d media=%.1f dev.std=%.1f mediana=%d",
+                getNumeroPartecipanti(), getMassimo(), getMinimo(),
+                getMedia(), getDeviazioneStandard(), getMediana());
+    }
+}
@@ -9,6 +9,11 @@ package meetingatleti;
  * il multi-disciplina: lo stesso atleta può avere una Prestazione.velocista()
  * per i 100m e una Prestazione.salto() per il salto in lungo.
  *
+ * Ogni getter/setter ha una variante con la Gara esplicita come contesto
+ * (es. getTempoReazione(gara)): non legge AppData ed è quindi sicura da
+ * usare su più thread, una gara per thread. Le varianti senza argomenti
+ * restano per i form e delegano usando la gara corrente.
+ *
  * Formule (gestite da Prestazione):
  *   VELOCISTA     : 10000 / (tempoGara + tempoReazione/100)
  *   OSTACOLISTA   : 10000 / (tempoGara + tempoOstacolo/100)
@@ -28,11 +33,11 @@ public class Velocisti extends Atleta implements Fondometrista, Ostacolista {
      * Delega il calcolo alla Prestazione della gara corrente.
      * Il polimorfismo è garantito: questo metodo è l'implementazione concreta
      * del metodo astratto dichiarato in Atleta.
+     * Per un calcolo indipendente da AppData usare calcolaPunteggio(Gara).
      */
     @Override
     public int calcolaPunteggio() {
-        Gara garaCorrente = AppData.getInstance().getGaraCorrente();
-        return calcolaPunteggio(garaCorrente);   // metodo final di Atleta
+        return calcolaPunteggio(AppData.getInstance().getGaraCorrente());   // metodo final di Atleta
     }
 
     // ── Fondometrista ─────────────────────────────────────────────────────
@@ -43,77 +48,97 @@ public class Velocisti extends Atleta implements Fondometrista, Ostacolista {
      */
     @Override
     public Integer getTempoReazione() {
-        Gara g = AppData.getInstance().getGaraCorrente();
-        if (g == null) return null;
-        Prestazione p = getPrestazione(g);
+        return getTempoReazione(AppData.getInstance().getGaraCorrente());
+    }
+
+    @Override
+    public Integer getTempoReazione(Gara g) {
+        Prestazione p = prestazioneDi(g);
         return (p != null) ? p.getTempoReazione() : null;
     }
 
     @Override
     public void setTempoReazione(Integer tempo) {
-        Gara g = AppData.getInstance().getGaraCorrente();
-        if (g == null) return;
-        Prestazione p = getPrestazione(g);
+        setTempoReazione(AppData.getInstance().getGaraCorrente(), tempo);
+    }
+
+    @Override
+    public void setTempoReazione(Gara g, Integer tempo) {
+        Prestazione p = prestazioneDi(g);
         if (p != null && p.getTipo() == Prestazione.Tipo.VELOCISTA)
-            getPrestazione(g).setTempoReazione(tempo);
+            p.setTempoReazione(tempo);
     }
 
     // ── Ostacolista ───────────────────────────────────────────────────────
 
     @Override
     public Integer getTempoOstacolo() {
-        Gara g = AppData.getInstance().getGaraCorrente();
-        if (g == null) return null;
-        Prestazione p = getPrestazione(g);
+        return getTempoOstacolo(AppData.getInstance().getGaraCorrente());
+    }
+
+    @Override
+    public Integer getTempoOstacolo(Gara g) {
+        Prestazione p = prestazioneDi(g);
         return (p != null) ? p.getTempoOstacolo() : null;
     }
 
     @Override
     public void setTempoOstacolo(Integer tempo) {
-        Gara g = AppData.getInstance().getGaraCorrente();
-        if (g == null) return;
-        Prestazione p = getPrestazione(g);
+        setTempoOstacolo(AppData.getInstance().getGaraCorrente(), tempo);
+    }
+
+    @Override
+    public void setTempoOstacolo(Gara g, Integer tempo) {
+        Prestazione p = prestazioneDi(g);
         if (p != null && p.getTipo() == Prestazione.Tipo.OSTACOLISTA)
             p.setTempoOstacolo(tempo);
     }
 
-    // ── helper tipo (basati sulla Prestazione della gara corrente) ────────
+    // ── helper tipo (basati sulla Prestazione della gara indicata) ────────
+
+    public boolean isVelocista()            { return isVelocista(AppData.getInstance().getGaraCorrente()); }
+    public boolean isOstacolista()          { return isOstacolista(AppData.getInstance().getGaraCorrente()); }
+    public boolean isFondometrista()        { return isFondometrista(AppData.getInstance().getGaraCorrente()); }
+
+    public boolean isVelocista(Gara g)      { return haTipo(g, Prestazione.Tipo.VELOCISTA); }
+    public boolean isOstacolista(Gara g)    { return haTipo(g, Prestazione.Tipo.OSTACOLISTA); }
+    public boolean isFondometrista(Gara g)  { return haTipo(g, Prestazione.Tipo.FONDOMETRISTA); }
 
-    public boolean isVelocista() {
-        Gara g = AppData.getInstance().getGaraCorrente();
-        if (g == null) return false;
-        Prestazione p = getPrestazione(g);
-        return p != null && p.getTipo() == Prestazione.Tipo.VELOCISTA;
+    public Double getTempoGara() {
+        return getTempoGara(AppData.getInstance().getGaraCorrente());
     }
 
-    public boolean isOstacolista() {
-        Gara g = AppData.getInstance().getGaraCorrente();
-        if (g == null) return false;
-        Prestazione p = getPrestazione(g);
-        return p != null && p.getTipo() == Prestazione.Tipo.OSTACOLISTA;
+    public Double getTempoGara(Gara g) {
+        Prestazione p = prestazioneDi(g);
+        return (p != null) ? p.getTempoGara() : null;
     }
 
-    public boolean isFondometrista() {
-        Gara g = AppData.getInstance().getGaraCorrente();
-        if (g == null) return false;
-        Prestazione p = getPrestazione(g);
-        return p != null && p.getTipo() == Prestazione.Tipo.FONDOMETRISTA;
+    /** Tempo gara in millesimi, Prestazione.TEMPO_ASSENTE se non inserito. */
+    public int getTempoGaraMillis(Gara g) {
+        Prestazione p = prestazioneDi(g);
+        return (p != null) ? p.getTempoGaraMillis() : Prestazione.TEMPO_ASSENTE;
     }
 
-    public Double getTempoGara() {
-        Gara g = AppData.getInstance().getGaraCorrente();
-        if (g == null) return null;
-        Prestazione p = getPrestazione(g);
-        return (p != null) ? p.getTempoGara() : null;
+    private boolean haTipo(Gara g, Prestazione.Tipo tipo) {
+        Prestazione p = prestazioneDi(g);
+        return p != null && p.getTipo() == tipo;
+    }
+
+    private Prestazione prestazioneDi(Gara g) {
+        return (g != null) ? getPrestazione(g) : null;
     }
 
     @Override
     public String toString() {
-        Gara g = AppData.getInstance().getGaraCorrente();
-        Prestazione p = (g != null) ? getPrestazione(g) : null;
+        return toString(AppData.getInstance().getGaraCorrente());
+    }
+
+    /** Descrizione dell'atleta riferita alla gara indicata (null = nessuna). */
+    public String toString(Gara g) {
+        Prestazione p = prestazioneDi(g);
         String tipo   = (p == null) ? "Corridore" : p.getTipo().name();
         String stat   = (p == null) ? "" : "  |  " + p.getStatisticaLabel();
         return "[" + pettorale + "] " + nome + " | " + tipo + stat
-               + " | Punteggio: " + calcolaPunteggio();
+               + " | Punteggio: " + calcolaPunteggio(g);
     }
 }